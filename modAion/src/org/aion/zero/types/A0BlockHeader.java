@@ -38,6 +38,7 @@ import org.aion.crypto.HashUtil;
 import org.aion.mcf.types.AbstractBlockHeader;
 import org.aion.rlp.RLP;
 import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPView;
 import org.aion.zero.exceptions.HeaderStructureException;
 import org.json.JSONObject;
 
@@ -48,7 +49,7 @@ import org.json.JSONObject;
  */
 public class A0BlockHeader extends AbstractBlockHeader implements IPowBlockHeader {
 
-    static final int RPL_BH_VERSION = 0,
+    public static final int RPL_BH_VERSION = 0,
             RPL_BH_NUMBER = 1,
             RPL_BH_PARENTHASH = 2,
             RPL_BH_COINBASE = 3,
@@ -66,6 +67,11 @@ public class A0BlockHeader extends AbstractBlockHeader implements IPowBlockHeade
 
     private byte[] mineHashBytes;
 
+    /** Cached RLP encoding (with nonce) and hash, reset whenever a header field is modified. */
+    private byte[] encoded;
+
+    private byte[] hash;
+
     // TODO: Update this
     public JSONObject toJSON() {
         JSONObject obj = new JSONObject();
@@ -87,77 +93,62 @@ public class A0BlockHeader extends AbstractBlockHeader implements IPowBlockHeade
     }
 
     public A0BlockHeader(byte[] encoded) {
-        this((RLPList) RLP.decode2(encoded).get(0));
+        this(RLP.decodeView(encoded));
     }
 
     public A0BlockHeader(RLPList rlpHeader) {
+        this(RLP.decodeView(rlpHeader.getRLPData()));
+    }
+
+    public A0BlockHeader(RLPView rlpHeader) {
 
         // Version
-        byte[] versionBytes = rlpHeader.get(RPL_BH_VERSION).getRLPData();
-        this.version = versionBytes.length == 1 ? versionBytes[0] : 1;
+        RLPView version = rlpHeader.get(RPL_BH_VERSION);
+        this.version = version.length() == 1 ? (byte) version.asInt() : 1;
 
         // Number
-        byte[] nrBytes = rlpHeader.get(RPL_BH_NUMBER).getRLPData();
-        this.number = nrBytes == null ? 0 : (new BigInteger(1, nrBytes)).longValue();
+        this.number = rlpHeader.get(RPL_BH_NUMBER).asLong();
 
         // ParentHash
-        this.parentHash = rlpHeader.get(RPL_BH_PARENTHASH).getRLPData();
+        this.parentHash = rlpHeader.get(RPL_BH_PARENTHASH).asBytes();
 
         // CoinBase
-        byte[] data = rlpHeader.get(RPL_BH_COINBASE).getRLPData();
-        this.coinbase =
-                (data == null)
-                        ? Address.EMPTY_ADDRESS()
-                        : Address.wrap(rlpHeader.get(RPL_BH_COINBASE).getRLPData());
+        this.coinbase = Address.wrap(rlpHeader.get(RPL_BH_COINBASE).asBytes());
 
         // StateRoot
-        this.stateRoot = rlpHeader.get(RPL_BH_STATEROOT).getRLPData();
+        this.stateRoot = rlpHeader.get(RPL_BH_STATEROOT).asBytes();
 
         // TxTrieRoot
-        this.txTrieRoot = rlpHeader.get(RPL_BH_TXTRIE).getRLPData();
-        if (this.txTrieRoot == null) {
-            this.txTrieRoot = EMPTY_TRIE_HASH;
-        }
+        this.txTrieRoot = rlpHeader.get(RPL_BH_TXTRIE).asBytes();
 
         // ReceiptTrieRoot
-        this.receiptTrieRoot = rlpHeader.get(RPL_BH_RECEIPTTRIE).getRLPData();
-        if (this.receiptTrieRoot == null) {
-            this.receiptTrieRoot = EMPTY_TRIE_HASH;
-        }
+        this.receiptTrieRoot = rlpHeader.get(RPL_BH_RECEIPTTRIE).asBytes();
 
         // LogsBloom
-        this.logsBloom = rlpHeader.get(RPL_BH_LOGSBLOOM).getRLPData();
+        this.logsBloom = rlpHeader.get(RPL_BH_LOGSBLOOM).asBytes();
 
         // Difficulty
-        this.difficulty = rlpHeader.get(RPL_BH_DIFFICULTY).getRLPData();
+        this.difficulty = rlpHeader.get(RPL_BH_DIFFICULTY).asBytes();
 
         // ExtraData
-        this.extraData = rlpHeader.get(RPL_BH_EXTRADATA).getRLPData();
+        this.extraData = rlpHeader.get(RPL_BH_EXTRADATA).asBytes();
 
         // Energy Consumed
-        byte[] energyConsumedBytes = rlpHeader.get(RPL_BH_NRG_CONSUMED).getRLPData();
-        this.energyConsumed =
-                energyConsumedBytes == null
-                        ? 0
-                        : (new BigInteger(1, energyConsumedBytes).longValue());
+        this.energyConsumed = rlpHeader.get(RPL_BH_NRG_CONSUMED).asLong();
 
         // Energy Limit
-        byte[] energyLimitBytes = rlpHeader.get(RPL_BH_NRG_LIMIT).getRLPData();
-        this.energyLimit =
-                energyLimitBytes == null ? 0 : (new BigInteger(1, energyLimitBytes).longValue());
+        this.energyLimit = rlpHeader.get(RPL_BH_NRG_LIMIT).asLong();
 
         // Timestamp
-        byte[] tsBytes = rlpHeader.get(RPL_BH_TIMESTAMP).getRLPData();
-
         // TODO: not a huge concern, but how should we handle possible
         // overflows?
-        this.timestamp = tsBytes == null ? 0 : (new BigInteger(1, tsBytes)).longValue();
+        this.timestamp = rlpHeader.get(RPL_BH_TIMESTAMP).asLong();
 
         // Nonce
-        this.nonce = rlpHeader.get(RPL_BH_NONCE).getRLPData();
+        this.nonce = rlpHeader.get(RPL_BH_NONCE).asBytes();
 
         // Solution
-        this.solution = rlpHeader.get(RPL_BH_SOLUTION).getRLPData();
+        this.solution = rlpHeader.get(RPL_BH_SOLUTION).asBytes();
     }
 
     /**
@@ -254,12 +245,35 @@ public class A0BlockHeader extends AbstractBlockHeader implements IPowBlockHeade
         this.energyLimit = energyLimit;
     }
 
+    /** @return a copy of the cached hash, which callers may modify */
     public byte[] getHash() {
-        return HashUtil.h256(getEncoded());
+        byte[] h = hash;
+        if (h == null) {
+            h = HashUtil.h256(encoded());
+            hash = h;
+        }
+        return h.clone();
     }
 
+    /** @return a copy of the cached encoding (with nonce), which callers may modify */
     public byte[] getEncoded() {
-        return this.getEncoded(true); // with nonce
+        return encoded().clone();
+    }
+
+    /** Returns the cached encoding (with nonce), which must not be modified or shared. */
+    private byte[] encoded() {
+        byte[] e = encoded;
+        if (e == null) {
+            e = this.getEncoded(true); // with nonce
+            encoded = e;
+        }
+        return e;
+    }
+
+    @Override
+    protected void onUpdate() {
+        encoded = null;
+        hash = null;
     }
 
     public byte[] getEncodedWithoutNonce() {
@@ -411,6 +425,7 @@ public class A0BlockHeader extends AbstractBlockHeader implements IPowBlockHeade
 
     public void setSolution(byte[] _sl) {
         this.solution = _sl;
+        onUpdate();
     }
 
     public long getEnergyConsumed() {
@@ -428,6 +443,7 @@ public class A0BlockHeader extends AbstractBlockHeader implements IPowBlockHeade
      */
     public void setEnergyConsumed(long energyConsumed) {
         this.energyConsumed = energyConsumed;
+        onUpdate();
     }
 
     /**
@@ -490,7 +506,11 @@ public class A0BlockHeader extends AbstractBlockHeader implements IPowBlockHeade
     }
 
     public static A0BlockHeader fromRLP(byte[] rawData, boolean isUnsafe) throws Exception {
-        return fromRLP((RLPList) RLP.decode2(rawData).get(0), isUnsafe);
+        return fromRLP(RLP.decodeView(rawData), isUnsafe);
+    }
+
+    public static A0BlockHeader fromRLP(RLPList rlpHeader, boolean isUnsafe) throws Exception {
+        return fromRLP(RLP.decodeView(rlpHeader.getRLPData()), isUnsafe);
     }
 
     /**
@@ -500,75 +520,57 @@ public class A0BlockHeader extends AbstractBlockHeader implements IPowBlockHeade
      * @param isUnsafe
      * @return
      */
-    public static A0BlockHeader fromRLP(RLPList rlpHeader, boolean isUnsafe) throws Exception {
+    public static A0BlockHeader fromRLP(RLPView rlpHeader, boolean isUnsafe) throws Exception {
         Builder builder = new Builder();
         if (isUnsafe) {
             builder.fromUnsafeSource();
         }
 
         // Version
-        byte[] version = rlpHeader.get(RPL_BH_VERSION).getRLPData();
-        if (version != null && version.length == 1) builder.withVersion(version[0]);
+        RLPView version = rlpHeader.get(RPL_BH_VERSION);
+        if (version.length() == 1) builder.withVersion((byte) version.asInt());
 
         // Number
-        byte[] nrBytes = rlpHeader.get(RPL_BH_NUMBER).getRLPData();
-        if (nrBytes != null) {
-            builder.withNumber(nrBytes);
-        }
+        builder.withNumber(rlpHeader.get(RPL_BH_NUMBER).asBytes());
 
         // Parent Hash
-        builder.withParentHash(rlpHeader.get(RPL_BH_PARENTHASH).getRLPData());
+        builder.withParentHash(rlpHeader.get(RPL_BH_PARENTHASH).asBytes());
 
         // Coinbase (miner)
-        builder.withCoinbase(new Address(rlpHeader.get(RPL_BH_COINBASE).getRLPData()));
+        builder.withCoinbase(new Address(rlpHeader.get(RPL_BH_COINBASE).asBytes()));
 
         // State root
-        builder.withStateRoot(rlpHeader.get(RPL_BH_STATEROOT).getRLPData());
+        builder.withStateRoot(rlpHeader.get(RPL_BH_STATEROOT).asBytes());
 
         // TxTrie root
-        byte[] txTrieRoot = rlpHeader.get(RPL_BH_TXTRIE).getRLPData();
-        if (txTrieRoot != null) {
-            builder.withTxTrieRoot(txTrieRoot);
-        }
+        builder.withTxTrieRoot(rlpHeader.get(RPL_BH_TXTRIE).asBytes());
 
         // Receipt Trie root
-        byte[] receiptTrieRoot = rlpHeader.get(RPL_BH_RECEIPTTRIE).getRLPData();
-        if (receiptTrieRoot != null) {
-            builder.withReceiptTrieRoot(receiptTrieRoot);
-        }
+        builder.withReceiptTrieRoot(rlpHeader.get(RPL_BH_RECEIPTTRIE).asBytes());
 
         // LogsBloom
-        builder.withLogsBloom(rlpHeader.get(RPL_BH_LOGSBLOOM).getRLPData());
+        builder.withLogsBloom(rlpHeader.get(RPL_BH_LOGSBLOOM).asBytes());
 
         // Difficulty
-        builder.withDifficulty(rlpHeader.get(RPL_BH_DIFFICULTY).getRLPData());
+        builder.withDifficulty(rlpHeader.get(RPL_BH_DIFFICULTY).asBytes());
 
         // ExtraData
-        builder.withExtraData(rlpHeader.get(RPL_BH_EXTRADATA).getRLPData());
+        builder.withExtraData(rlpHeader.get(RPL_BH_EXTRADATA).asBytes());
 
         // Energy Consumed
-        byte[] energyConsumedBytes = rlpHeader.get(RPL_BH_NRG_CONSUMED).getRLPData();
-        if (energyConsumedBytes != null) {
-            builder.withEnergyConsumed(energyConsumedBytes);
-        }
+        builder.withEnergyConsumed(rlpHeader.get(RPL_BH_NRG_CONSUMED).asBytes());
 
         // Energy limit
-        byte[] energyLimitBytes = rlpHeader.get(RPL_BH_NRG_LIMIT).getRLPData();
-        if (energyLimitBytes != null) {
-            builder.withEnergyLimit(energyLimitBytes);
-        }
+        builder.withEnergyLimit(rlpHeader.get(RPL_BH_NRG_LIMIT).asBytes());
 
         // Timestamp
-        byte[] tsBytes = rlpHeader.get(RPL_BH_TIMESTAMP).getRLPData();
-        if (tsBytes != null) {
-            builder.withTimestamp(tsBytes);
-        }
+        builder.withTimestamp(rlpHeader.get(RPL_BH_TIMESTAMP).asBytes());
 
         // Nonce
-        builder.withNonce(rlpHeader.get(RPL_BH_NONCE).getRLPData());
+        builder.withNonce(rlpHeader.get(RPL_BH_NONCE).asBytes());
 
         // Solution
-        builder.withSolution(rlpHeader.get(RPL_BH_SOLUTION).getRLPData());
+        builder.withSolution(rlpHeader.get(RPL_BH_SOLUTION).asBytes());
 
         return builder.build();
     }
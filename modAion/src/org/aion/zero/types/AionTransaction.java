@@ -39,7 +39,7 @@ import org.aion.mcf.types.AbstractTransaction;
 import org.aion.mcf.vm.Constants;
 import org.aion.mcf.vm.types.DataWord;
 import org.aion.rlp.RLP;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPView;
 
 /** Aion transaction class. */
 public class AionTransaction extends AbstractTransaction {
@@ -133,25 +133,18 @@ public class AionTransaction extends AbstractTransaction {
 
     public void rlpParse() {
 
-        RLPList decodedTxList = RLP.decode2(rlpEncoded);
-        RLPList tx = (RLPList) decodedTxList.get(0);
+        RLPView tx = RLP.decodeView(rlpEncoded);
 
-        this.nonce = tx.get(RLP_TX_NONCE).getRLPData();
-        this.value = tx.get(RLP_TX_VALUE).getRLPData();
-        this.data = tx.get(RLP_TX_DATA).getRLPData();
+        this.nonce = tx.get(RLP_TX_NONCE).asBytes();
+        this.value = tx.get(RLP_TX_VALUE).asBytes();
+        this.data = tx.get(RLP_TX_DATA).asBytes();
+        this.to = Address.wrap(tx.get(RLP_TX_TO).asBytes());
+        this.timeStamp = tx.get(RLP_TX_TIMESTAMP).asBytes();
+        this.nrg = tx.get(RLP_TX_NRG).asLong();
+        this.nrgPrice = tx.get(RLP_TX_NRGPRICE).asLong();
+        this.type = (byte) tx.get(RLP_TX_TYPE).asLong();
 
-        if (tx.get(RLP_TX_TO).getRLPData() == null) {
-            this.to = null;
-        } else {
-            this.to = Address.wrap(tx.get(RLP_TX_TO).getRLPData());
-        }
-
-        this.timeStamp = tx.get(RLP_TX_TIMESTAMP).getRLPData();
-        this.nrg = new BigInteger(1, tx.get(RLP_TX_NRG).getRLPData()).longValue();
-        this.nrgPrice = new BigInteger(1, tx.get(RLP_TX_NRGPRICE).getRLPData()).longValue();
-        this.type = new BigInteger(1, tx.get(RLP_TX_TYPE).getRLPData()).byteValue();
-
-        byte[] sigs = tx.get(RLP_TX_SIG).getRLPData();
+        byte[] sigs = tx.get(RLP_TX_SIG).asBytes();
         if (sigs != null) {
             // Singature Factory will decode the signature based on the algo
             // presetted in main() entry.
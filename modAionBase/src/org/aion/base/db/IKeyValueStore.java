@@ -39,6 +39,7 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 /**
  * Functionality for a key-value cache allowing itemized updates.
@@ -71,6 +72,19 @@ public interface IKeyValueStore<K, V> extends AutoCloseable {
      */
     Set<K> keys();
 
+    /**
+     * Passes each stored entry to the given visitor. Implementations backed by a data store
+     * iterate it directly, without holding all the keys in memory like {@link #keys()}.
+     *
+     * @param visitor receives the key and value of each entry
+     * @throws RuntimeException if the data store is closed
+     */
+    default void forEachEntry(BiConsumer<K, V> visitor) {
+        for (K key : keys()) {
+            get(key).ifPresent(value -> visitor.accept(key, value));
+        }
+    }
+
     /**
      * get retrieves a value from the database, returning an optional, it is fulfilled if a value
      * was able to be retrieved from the DB, otherwise the optional is empty
@@ -136,6 +150,19 @@ public interface IKeyValueStore<K, V> extends AutoCloseable {
      */
     void putBatch(Map<K, V> inputMap);
 
+    /**
+     * Puts or updates the data store like {@link #putBatch(Map)}, except that a failure to write
+     * the batch is thrown instead of only logged, for callers that must not consider the data
+     * persisted after a failed write.
+     *
+     * @param inputMap a {@link Map} of key-value pairs to be updated in the database
+     * @throws RuntimeException if the data store is closed or the batch could not be written
+     * @throws IllegalArgumentException if the map contains a null key
+     */
+    default void putBatchOrFail(Map<K, V> inputMap) {
+        putBatch(inputMap);
+    }
+
     void putToBatch(K key, V value);
 
     void commitBatch();
@@ -55,6 +55,12 @@ public interface A0BCConfig {
     /** Retrieves the number indicating how many blocks between each flush */
     int getFlushInterval();
 
+    /**
+     * Retrieves whether the independent value transfers of a block are executed in parallel
+     * before the block is executed in order.
+     */
+    boolean getSpeculativeExecution();
+
     /** Retrieves the selected energy strategy algorithm */
     AbstractEnergyStrategyLimit getEnergyLimitStrategy();
 }
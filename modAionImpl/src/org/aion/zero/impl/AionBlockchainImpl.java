@@ -119,6 +119,8 @@ public class AionBlockchainImpl implements IAionBlockchain {
     private static final Logger LOG = LoggerFactory.getLogger(LogEnum.CONS.name());
     private static final int THOUSAND_MS = 1000;
     private static final int DIFFICULTY_BYTES = 16;
+    // upper bound for the encoded size of the blocks imported without committing to disk
+    private static final long FLUSH_SIZE_MAX = 64L * 1024 * 1024;
 
     private A0BCConfig config;
     private long exitOn = Long.MAX_VALUE;
@@ -161,6 +163,17 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
     private AbstractEnergyStrategyLimit energyLimitStrategy;
 
+    // best block number reported by the network, used to group commits while syncing
+    private final AtomicLong networkBestBlockNumber = new AtomicLong(0L);
+    private int unflushedBlocks = 0;
+    private long unflushedSize = 0;
+
+    // executes the independent value transfers of a block in parallel
+    private boolean speculativeExecution;
+
+    // number of transactions applied from their speculative execution
+    private long speculativeCommits = 0;
+
     /**
      * Chain configuration class, because chain configuration may change dependant on the block
      * being executed. This is simple for now but in the future we may have to create a "chain
@@ -199,10 +212,14 @@ public class AionBlockchainImpl implements IAionBlockchain {
                 return Address.wrap(cfgAion.getConsensus().getMinerAddress());
             }
 
-            // TODO: hook up to configuration file
             @Override
             public int getFlushInterval() {
-                return 1;
+                return cfgAion.getSync().getFlushInterval();
+            }
+
+            @Override
+            public boolean getSpeculativeExecution() {
+                return cfgAion.getSync().getSpeculativeExecution();
             }
 
             @Override
@@ -241,6 +258,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
         this.transactionStore = this.repository.getTransactionStore();
 
         this.minerCoinbase = this.config.getMinerCoinbase();
+        this.speculativeExecution = this.config.getSpeculativeExecution();
 
         if (minerCoinbase.isEmptyAddress()) {
             LOG.warn("No miner Coinbase!");
@@ -498,6 +516,11 @@ public class AionBlockchainImpl implements IAionBlockchain {
             this.repository = savedState.savedRepo;
             this.repository.syncToRoot(block.getStateRoot());
 
+            // removes the transactions of the replaced blocks from the account history
+            if (repository.isAddressHistoryIndexed()) {
+                repository.getAddressHistoryIndex().update(getBlockStore(), block.getNumber());
+            }
+
             // flushing
             flush();
 
@@ -694,6 +717,43 @@ public class AionBlockchainImpl implements IAionBlockchain {
             List<AionTransaction> txs,
             boolean waitUntilBlockTime,
             long currTimeSeconds) {
+        AionBlock block = createUnsealedBlock(parent, txs, waitUntilBlockTime, currTimeSeconds);
+
+        /*
+         * Begin execution phase
+         */
+        pushState(parent.getHash());
+
+        track = repository.startTracking();
+
+        RetValidPreBlock preBlock = generatePreBlock(block);
+
+        byte[] stateRoot = getRepository().getRoot();
+        popState();
+
+        /*
+         * End execution phase
+         */
+        return sealBlock(block, preBlock.txs, preBlock.receipts, preBlock.summaries, stateRoot);
+    }
+
+    /**
+     * Creates a new block on the given parent with the header fields that do not depend on the
+     * execution of its transactions. Only reads the block store and the miner settings, so it
+     * does not need the blockchain lock.
+     *
+     * @param parent block
+     * @param txs to be added into the block
+     * @param waitUntilBlockTime if we should wait until the specified blockTime before create a new
+     *     block
+     * @param currTimeSeconds the current time in seconds
+     * @return the block, to be sealed by {@link #sealBlock(AionBlock, List, List, List, byte[])}
+     */
+    public AionBlock createUnsealedBlock(
+            AionBlock parent,
+            List<AionTransaction> txs,
+            boolean waitUntilBlockTime,
+            long currTimeSeconds) {
         long time = currTimeSeconds;
 
         if (parent.getTimestamp() >= time) {
@@ -737,42 +797,47 @@ public class AionBlockchainImpl implements IAionBlockchain {
                                                         ? null
                                                         : grandParent.getHeader()),
                                 DIFFICULTY_BYTES));
-        /*
-         * Begin execution phase
-         */
-        pushState(parent.getHash());
-
-        track = repository.startTracking();
-
-        RetValidPreBlock preBlock = generatePreBlock(block);
+        return block;
+    }
 
+    /**
+     * Seals a block created by {@link #createUnsealedBlock(AionBlock, List, boolean, long)} with
+     * the results of executing its transactions.
+     *
+     * @param block the unsealed block
+     * @param txs the transactions included in the block
+     * @param receipts the receipts of the included transactions
+     * @param summaries the execution summaries of the included transactions
+     * @param stateRoot the state root after the transactions and the block reward
+     * @return the sealed block with its rewards
+     */
+    public BlockContext sealBlock(
+            AionBlock block,
+            List<AionTransaction> txs,
+            List<AionTxReceipt> receipts,
+            List<AionTxExecSummary> summaries,
+            byte[] stateRoot) {
         /*
          * Calculate the gas used for the included transactions
          */
         long totalEnergyUsed = 0;
         BigInteger totalTransactionFee = BigInteger.ZERO;
-        for (AionTxExecSummary summary : preBlock.summaries) {
+        for (AionTxExecSummary summary : summaries) {
             totalEnergyUsed = totalEnergyUsed + summary.getNrgUsed().longValueExact();
             totalTransactionFee = totalTransactionFee.add(summary.getFee());
         }
 
-        byte[] stateRoot = getRepository().getRoot();
-        popState();
-
-        /*
-         * End execution phase
-         */
         Bloom logBloom = new Bloom();
-        for (AionTxReceipt receipt : preBlock.receipts) {
+        for (AionTxReceipt receipt : receipts) {
             logBloom.or(receipt.getBloomFilter());
         }
 
         block.seal(
-                preBlock.txs,
-                calcTxTrie(preBlock.txs),
+                txs,
+                calcTxTrie(txs),
                 stateRoot,
                 logBloom.getData(),
-                calcReceiptsTrie(preBlock.receipts),
+                calcReceiptsTrie(receipts),
                 totalEnergyUsed);
 
         // derive base block reward
@@ -794,12 +859,50 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
             storeBlock(block, receipts);
 
-            flush();
+            if (needFlush(block)) {
+                flush();
+            }
         }
 
         return summary;
     }
 
+    /**
+     * Decides if the imported data must be committed to disk after the given block. While the node
+     * is more than {@link A0BCConfig#getFlushInterval()} blocks behind the network, {@link
+     * #flush()} is called once every flush interval (or {@link #FLUSH_SIZE_MAX} bytes of blocks),
+     * which commits the blocks imported since the last flush as one group and prunes their state.
+     * Closer to the network best block it is called after every block.
+     *
+     * <p>Group commits require write-behind, which holds all the writes to the chain databases in
+     * memory until the flush seals them into one group persisted in order. Without it the state
+     * and details are written to disk for every block, so the blocks are flushed one by one. A
+     * crash between group commits loses the uncommitted blocks; on restart the world state is
+     * recovered by {@link #recoverWorldState(IRepository, AionBlock)} starting from the last block
+     * whose state was committed.
+     */
+    boolean needFlush(AionBlock block) {
+        unflushedBlocks++;
+        unflushedSize += block.getEncoded().length;
+
+        int interval = config.getFlushInterval();
+        return interval <= 1
+                || !repository.isWriteBehindEnabled()
+                || networkBestBlockNumber.get() - block.getNumber() <= interval
+                || unflushedBlocks >= interval
+                || unflushedSize >= FLUSH_SIZE_MAX;
+    }
+
+    /**
+     * Updates the best block number known to the network, which determines whether imported blocks
+     * are committed to disk one by one or in groups.
+     *
+     * @param number the best block number announced by the network
+     */
+    public void setNetworkBestBlockNumber(long number) {
+        networkBestBlockNumber.set(number);
+    }
+
     public synchronized AionBlockSummary add(AionBlock block, boolean rebuild) {
 
         if (!isValid(block)) {
@@ -890,15 +993,13 @@ public class AionBlockchainImpl implements IAionBlockchain {
     }
 
     @Override
-    public void flush() {
+    public synchronized void flush() {
+        // the blocks are committed last so that they do not get ahead of their state and receipts
         repository.flush();
-        try {
-            getBlockStore().flush();
-        } catch (Exception e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        }
         transactionStore.flush();
+        getBlockStore().flush();
+        unflushedBlocks = 0;
+        unflushedSize = 0;
     }
 
     @SuppressWarnings("unused")
@@ -1086,12 +1187,26 @@ public class AionBlockchainImpl implements IAionBlockchain {
         List<AionTxExecSummary> summaries = new ArrayList<>();
         List<AionTransaction> transactions = new ArrayList<>();
 
+        SpeculativeExecutor speculative = speculate(block);
+        List<AionTransaction> txs = block.getTransactionsList();
+
         long energyRemaining = block.getNrgLimit();
-        for (AionTransaction tx : block.getTransactionsList()) {
-            TransactionExecutor executor =
-                    new TransactionExecutor(tx, block, track, false, energyRemaining, LOGGER_VM);
-            executor.setExecutorProvider(AionExecutorProvider.getInstance());
-            AionTxExecSummary summary = executor.execute();
+        for (int i = 0; i < txs.size(); i++) {
+            AionTransaction tx = txs.get(i);
+            AionTxExecSummary summary =
+                    speculative == null ? null : speculative.commit(i, energyRemaining);
+            if (summary == null) {
+                TransactionExecutor executor =
+                        new TransactionExecutor(
+                                tx, block, track, false, energyRemaining, LOGGER_VM);
+                executor.setExecutorProvider(AionExecutorProvider.getInstance());
+                summary = executor.execute();
+            } else {
+                speculativeCommits++;
+            }
+            if (speculative != null) {
+                speculative.recordWrites();
+            }
 
             if (!summary.isRejected()) {
                 track.flush();
@@ -1125,10 +1240,23 @@ public class AionBlockchainImpl implements IAionBlockchain {
         List<AionTxReceipt> receipts = new ArrayList<>();
         List<AionTxExecSummary> summaries = new ArrayList<>();
 
-        for (AionTransaction tx : block.getTransactionsList()) {
-            TransactionExecutor executor = new TransactionExecutor(tx, block, track, LOGGER_VM);
-            executor.setExecutorProvider(AionExecutorProvider.getInstance());
-            AionTxExecSummary summary = executor.execute();
+        SpeculativeExecutor speculative = speculate(block);
+        List<AionTransaction> txs = block.getTransactionsList();
+
+        for (int i = 0; i < txs.size(); i++) {
+            AionTransaction tx = txs.get(i);
+            AionTxExecSummary summary =
+                    speculative == null ? null : speculative.commit(i, block.getNrgLimit());
+            if (summary == null) {
+                TransactionExecutor executor = new TransactionExecutor(tx, block, track, LOGGER_VM);
+                executor.setExecutorProvider(AionExecutorProvider.getInstance());
+                summary = executor.execute();
+            } else {
+                speculativeCommits++;
+            }
+            if (speculative != null) {
+                speculative.recordWrites();
+            }
 
             track.flush();
             AionTxReceipt receipt = summary.getReceipt();
@@ -1145,6 +1273,29 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return new AionBlockSummary(block, rewards, receipts, summaries);
     }
 
+    /**
+     * Executes the independent value transfers of the block in parallel ahead of the in-order
+     * execution.
+     *
+     * @return the speculative results or {@code null} if the block is executed only in order
+     */
+    private SpeculativeExecutor speculate(IAionBlock block) {
+        if (!speculativeExecution) {
+            return null;
+        }
+        return SpeculativeExecutor.execute(block, track, LOGGER_VM);
+    }
+
+    /** Enables or disables the speculative parallel execution of block transactions. */
+    void setSpeculativeExecution(boolean enabled) {
+        this.speculativeExecution = enabled;
+    }
+
+    /** @return the number of transactions applied from their speculative execution */
+    synchronized long getSpeculativeCommits() {
+        return speculativeCommits;
+    }
+
     /**
      * Add reward to block- and every uncle coinbase assuming the entire block is valid.
      *
@@ -1195,6 +1346,13 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
         repository.commitBlock(block.getHeader());
 
+        if (!fork) {
+            repository.getBloomBitsIndex().update(getBlockStore(), block.getNumber());
+            if (repository.isAddressHistoryIndexed()) {
+                repository.getAddressHistoryIndex().update(getBlockStore(), block.getNumber());
+            }
+        }
+
         if (LOG.isDebugEnabled())
             LOG.debug(
                     "Block saved: number: {}, hash: {}, TD: {}",
@@ -1209,6 +1367,82 @@ public class AionBlockchainImpl implements IAionBlockchain {
         setBestBlock(block);
     }
 
+    /**
+     * Stores a block on the main chain without executing its transactions. Used by fast sync for
+     * the blocks whose world state is downloaded instead of computed. The best block is not
+     * changed, see {@link #completeFastSync(AionBlock, AionBlock)}.
+     *
+     * @param block a block whose parent is already stored
+     * @return {@code true} if the block was stored, {@code false} if its header is not valid
+     */
+    public synchronized boolean storeBlockWithoutState(AionBlock block) {
+        if (!getBlockStore().isBlockExist(block.getParentHash()) || !isValid(block.getHeader())) {
+            return false;
+        }
+
+        BigInteger td =
+                getBlockStore()
+                        .getTotalDifficultyForHash(block.getParentHash())
+                        .add(block.getDifficultyBI());
+        block.setCumulativeDifficulty(td);
+        getBlockStore().saveBlock(block, td, true);
+        return true;
+    }
+
+    /**
+     * Switches to the world state of a block stored by fast sync once the state is completely
+     * downloaded. The blocks stored after it are executed and the last of them becomes the best
+     * block.
+     *
+     * @param pivot the block whose world state was downloaded
+     * @param head the last block stored without state, a descendant of the pivot
+     * @return {@code true} if the chain continues from the pivot or a later block, {@code false}
+     *     if the world state of the pivot is missing
+     */
+    public synchronized boolean completeFastSync(AionBlock pivot, AionBlock head) {
+        if (!repository.isValidRoot(pivot.getStateRoot())) {
+            return false;
+        }
+        repository.syncToRoot(pivot.getStateRoot());
+
+        Deque<AionBlock> stored = new ArrayDeque<>();
+        for (AionBlock b = head;
+                b != null && b.getNumber() > pivot.getNumber();
+                b = getBlockStore().getBlockByHash(b.getParentHash())) {
+            stored.push(b);
+        }
+
+        AionBlock last = pivot;
+        while (!stored.isEmpty()) {
+            AionBlock block = stored.pop();
+            if (add(block, true) == null
+                    || !Arrays.equals(repository.getRoot(), block.getStateRoot())) {
+                LOG.error(
+                        "Fast sync could not execute block number: {}, hash: {}.",
+                        block.getNumber(),
+                        block.getShortHash());
+                repository.syncToRoot(last.getStateRoot());
+                break;
+            }
+            // the validation of the next block reads the committed state
+            repository.flush();
+            last = block;
+        }
+
+        totalDifficulty = getBlockStore().getTotalDifficultyForHash(last.getHash());
+        last.setCumulativeDifficulty(totalDifficulty);
+        setBestBlock(last);
+        pubBestBlock = last;
+        flush();
+
+        LOG.info(
+                "Fast sync completed at block number: {}, hash: {}, TD: {}.",
+                last.getNumber(),
+                last.getShortHash(),
+                totalDifficulty);
+        return true;
+    }
+
     @Override
     public boolean storePendingStatusBlock(AionBlock block) {
         try {
@@ -1385,6 +1619,33 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return headers;
     }
 
+    @Override
+    public List<byte[]> getListOfEncodedHeadersStartFrom(long blockNumber, int limit) {
+        long bestNumber = bestBlock.getNumber();
+        if (blockNumber < 0 || blockNumber > bestNumber || limit <= 0) {
+            return emptyList();
+        }
+
+        int qty = getQty(blockNumber, bestNumber, limit);
+        // read from the index to avoid deserializing the block
+        byte[] startHash = getBlockStore().getBlockHashByNumber(blockNumber + qty - 1);
+        if (startHash == null) {
+            return emptyList();
+        }
+
+        List<byte[]> headers = getBlockStore().getListEncodedHeadersEndWith(startHash, qty);
+
+        // blocks come with decreasing numbers
+        Collections.reverse(headers);
+
+        return headers;
+    }
+
+    @Override
+    public byte[] getEncodedBodyByHash(byte[] hash) {
+        return getBlockStore().getEncodedBodyByHash(hash);
+    }
+
     private int getQty(long blockNumber, long bestNumber, int limit) {
         if (blockNumber + limit - 1 > bestNumber) {
             return (int) (bestNumber - blockNumber + 1);
@@ -48,10 +48,13 @@ import org.aion.p2p.Handler;
 import org.aion.p2p.IP2pMgr;
 import org.aion.p2p.impl1.P2pMgr;
 import org.aion.zero.impl.blockchain.AionPendingStateImpl;
+import org.aion.zero.impl.blockchain.BlockTemplateBuilder;
 import org.aion.zero.impl.blockchain.ChainConfiguration;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.core.IAionBlockchain;
 import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.db.AddressHistoryIndex;
+import org.aion.zero.impl.db.BloomBitsIndex;
 import org.aion.zero.impl.db.RecoveryUtils;
 import org.aion.zero.impl.pow.AionPoW;
 import org.aion.zero.impl.sync.SyncMgr;
@@ -61,9 +64,11 @@ import org.aion.zero.impl.sync.handler.BroadcastTxHandler;
 import org.aion.zero.impl.sync.handler.ReqBlocksBodiesHandler;
 import org.aion.zero.impl.sync.handler.ReqBlocksHeadersHandler;
 import org.aion.zero.impl.sync.handler.ReqStatusHandler;
+import org.aion.zero.impl.sync.handler.ReqTrieDataHandler;
 import org.aion.zero.impl.sync.handler.ResBlocksBodiesHandler;
 import org.aion.zero.impl.sync.handler.ResBlocksHeadersHandler;
 import org.aion.zero.impl.sync.handler.ResStatusHandler;
+import org.aion.zero.impl.sync.handler.ResTrieDataHandler;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.types.A0BlockHeader;
 import org.aion.zero.types.AionTransaction;
@@ -94,6 +99,8 @@ public class AionHub {
 
     private AionPoW pow;
 
+    private BlockTemplateBuilder templateBuilder;
+
     private AtomicBoolean start = new AtomicBoolean(true);
 
     /** Test functionality for checking if the hub has been shut down. */
@@ -187,6 +194,8 @@ public class AionHub {
                 p2pMgr,
                 eventMgr,
                 cfg.getSync().getBlocksQueueMax(),
+                cfg.getSync().getSkeletonSync(),
+                cfg.getSync().getFastSync(),
                 cfg.getSync().getShowStatus(),
                 cfg.getSync().getShowStatistics());
 
@@ -207,8 +216,11 @@ public class AionHub {
 
         ((AionPendingStateImpl) this.mempool).setP2pMgr(this.p2pMgr);
 
+        this.templateBuilder =
+                new BlockTemplateBuilder(blockchain, (AionPendingStateImpl) this.mempool);
+
         this.pow = new AionPoW();
-        this.pow.init(blockchain, mempool, eventMgr);
+        this.pow.init(blockchain, mempool, templateBuilder, eventMgr);
     }
 
     static AionHub createForTesting(
@@ -233,6 +245,8 @@ public class AionHub {
         cbs.add(new ResBlocksHeadersHandler(syncLOG, syncMgr, p2pMgr));
         cbs.add(new ReqBlocksBodiesHandler(syncLOG, blockchain, syncMgr, p2pMgr, inSyncOnlyMode));
         cbs.add(new ResBlocksBodiesHandler(syncLOG, syncMgr, p2pMgr));
+        cbs.add(new ReqTrieDataHandler(syncLOG, repository, p2pMgr, inSyncOnlyMode));
+        cbs.add(new ResTrieDataHandler(syncLOG, syncMgr, p2pMgr));
         cbs.add(new BroadcastTxHandler(syncLOG, mempool, p2pMgr, inSyncOnlyMode));
         cbs.add(new BroadcastNewBlockHandler(syncLOG, propHandler, p2pMgr));
         this.p2pMgr.register(cbs);
@@ -277,10 +291,25 @@ public class AionHub {
         return this.repository.getBlockStore();
     }
 
+    public BloomBitsIndex getBloomBitsIndex() {
+        return this.repository.getBloomBitsIndex();
+    }
+
+    /** @return the account history index or {@code null} when it is disabled */
+    public AddressHistoryIndex getAddressHistoryIndex() {
+        return this.repository.isAddressHistoryIndexed()
+                ? this.repository.getAddressHistoryIndex()
+                : null;
+    }
+
     public IPendingStateInternal<AionBlock, AionTransaction> getPendingState() {
         return mempool;
     }
 
+    public BlockTemplateBuilder getBlockTemplateBuilder() {
+        return templateBuilder;
+    }
+
     public IEventMgr getEventMgr() {
         return this.eventMgr;
     }
@@ -517,6 +546,11 @@ public class AionHub {
         pow.shutdown();
         genLOG.info("shutdown consensus... Done!");
 
+        if (blockchain != null) {
+            // commit the blocks imported since the last group commit
+            blockchain.flush();
+        }
+
         if (repository != null) {
             genLOG.info("shutting down DB...");
             repository.close();
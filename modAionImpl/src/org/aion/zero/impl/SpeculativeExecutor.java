@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl;
+
+import static java.util.Collections.singletonMap;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.aion.base.db.IRepositoryCache;
+import org.aion.base.type.Address;
+import org.aion.mcf.db.AbstractRepositoryCache;
+import org.aion.precompiled.ContractFactory;
+import org.aion.vm.TransactionExecutor;
+import org.aion.zero.impl.vm.AionExecutorProvider;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxExecSummary;
+import org.aion.zero.types.IAionBlock;
+import org.apache.commons.lang3.ArrayUtils;
+import org.slf4j.Logger;
+
+/**
+ * Executes the value transfers of a block optimistically in parallel before the block is executed
+ * in order.
+ *
+ * <p>Each eligible transaction is run against the state at the start of the block in its own
+ * repository cache, which records the accounts it wrote. While the block is executed in order,
+ * {@link #commit(int, long)} validates the speculative result against the accounts written by the
+ * preceding transactions: if none of them was touched, the recorded writes are applied to the
+ * block repository, otherwise the transaction must be executed again. The block coinbase is
+ * credited by every transaction, but only through an addition of the fee, so its fee is applied
+ * at commit time instead.
+ *
+ * <p>Only plain value transfers between externally owned accounts are eligible. The virtual
+ * machine and the precompiled contracts are not safe to run concurrently, and the post
+ * transaction state roots of the receipts are computed in order by the caller.
+ */
+final class SpeculativeExecutor {
+
+    // the smallest number of eligible transactions for which the parallel execution pays off
+    static final int MIN_ELIGIBLE_TXS = 4;
+
+    private final IAionBlock block;
+    private final IRepositoryCache track;
+    private final Address coinbase;
+    private final AbstractRepositoryCache[] caches;
+    private final AionTxExecSummary[] summaries;
+    private final Set<Address> touched = new HashSet<>();
+
+    private SpeculativeExecutor(IAionBlock block, IRepositoryCache track, int size) {
+        this.block = block;
+        this.track = track;
+        this.coinbase = block.getCoinbase();
+        this.caches = new AbstractRepositoryCache[size];
+        this.summaries = new AionTxExecSummary[size];
+    }
+
+    /**
+     * Speculatively executes the eligible transactions of the block.
+     *
+     * @param block the block being executed
+     * @param track the block repository, which must not have been modified by any of the block
+     *     transactions yet
+     * @param log the logger used by the transaction executors
+     * @return the speculative results or {@code null} when the block has too few eligible
+     *     transactions
+     */
+    static SpeculativeExecutor execute(IAionBlock block, IRepositoryCache track, Logger log) {
+        List<AionTransaction> txs = block.getTransactionsList();
+        SpeculativeExecutor speculative = new SpeculativeExecutor(block, track, txs.size());
+
+        int[] eligible =
+                IntStream.range(0, txs.size())
+                        .filter(i -> speculative.isEligible(txs.get(i)))
+                        .toArray();
+        if (eligible.length < MIN_ELIGIBLE_TXS) {
+            return null;
+        }
+
+        IntStream.of(eligible).parallel().forEach(i -> speculative.run(i, txs.get(i), log));
+        return speculative;
+    }
+
+    private boolean isEligible(AionTransaction tx) {
+        Address to = tx.getTo();
+        return !tx.isContractCreation()
+                && !ContractFactory.isPrecompiledContract(to)
+                && !coinbase.equals(to)
+                && !coinbase.equals(tx.getFrom());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void run(int index, AionTransaction tx, Logger log) {
+        try {
+            // the nested cache keeps the code lookup from being recorded as a write
+            if (!ArrayUtils.isEmpty(track.startTracking().getCode(tx.getTo()))) {
+                return;
+            }
+
+            IRepositoryCache cache = track.startTracking();
+            TransactionExecutor executor = new TransactionExecutor(tx, block, cache, log);
+            executor.setExecutorProvider(AionExecutorProvider.getInstance());
+            executor.setConcurrent();
+            AionTxExecSummary summary = executor.execute();
+
+            if (!summary.isRejected()) {
+                caches[index] = (AbstractRepositoryCache) cache;
+                summaries[index] = summary;
+            }
+        } catch (RuntimeException e) {
+            // the transaction is executed again in order
+            log.debug("Speculative execution of transaction failed.", e);
+        }
+    }
+
+    /**
+     * Applies the speculative result of the transaction at the given position to the block
+     * repository when it is still valid. Must be called in block order and followed by {@link
+     * #recordWrites()} once the transaction was applied, regardless of how.
+     *
+     * @param index the position of the transaction in the block
+     * @param energyRemaining the energy left in the block before the transaction
+     * @return the execution summary or {@code null} if the transaction must be executed in order
+     */
+    @SuppressWarnings("unchecked")
+    AionTxExecSummary commit(int index, long energyRemaining) {
+        AionTxExecSummary summary = summaries[index];
+        if (summary == null || summary.getTransaction().getNrg() > energyRemaining) {
+            return null;
+        }
+
+        Set<Address> written = caches[index].getCachedAddresses();
+        written.remove(coinbase);
+        for (Address address : written) {
+            if (touched.contains(address)) {
+                return null;
+            }
+        }
+
+        for (Address address : written) {
+            track.updateBatch(
+                    singletonMap(address, caches[index].getAccountState(address)),
+                    singletonMap(address, caches[index].getContractDetails(address)));
+        }
+        track.addBalance(coinbase, summary.getFee());
+        return summary;
+    }
+
+    /** Records the accounts written to the block repository since its last flush. */
+    void recordWrites() {
+        touched.addAll(((AbstractRepositoryCache) track).getCachedAddresses());
+    }
+}
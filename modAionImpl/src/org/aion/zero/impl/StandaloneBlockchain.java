@@ -260,6 +260,11 @@ public class StandaloneBlockchain extends AionBlockchainImpl {
                                     return 1;
                                 }
 
+                                @Override
+                                public boolean getSpeculativeExecution() {
+                                    return false;
+                                }
+
                                 @Override
                                 public AbstractEnergyStrategyLimit getEnergyLimitStrategy() {
                                     return new TargetStrategy(
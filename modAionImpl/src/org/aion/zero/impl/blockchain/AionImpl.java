@@ -43,6 +43,8 @@ import org.aion.mcf.mine.IMineRunner;
 import org.aion.vm.TransactionExecutor;
 import org.aion.zero.impl.AionHub;
 import org.aion.zero.impl.config.CfgAion;
+import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.db.AionRepositorySnapshot;
 import org.aion.zero.impl.tx.TxCollector;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.impl.vm.AionExecutorProvider;
@@ -151,8 +153,8 @@ public class AionImpl implements IAionChain {
             tx.sign(ECKeyFac.inst().fromPrivate(new byte[64]));
         }
 
-        IRepositoryCache repository =
-                aionHub.getRepository().getSnapshotTo(block.getStateRoot()).startTracking();
+        AionRepositorySnapshot snapshot = getReadOnlySnapshot(block);
+        IRepositoryCache repository = snapshot.startTracking();
 
         try {
             TransactionExecutor executor =
@@ -161,6 +163,7 @@ public class AionImpl implements IAionChain {
             return executor.execute().getReceipt().getEnergyUsed();
         } finally {
             repository.rollback();
+            snapshot.close();
         }
     }
 
@@ -171,8 +174,8 @@ public class AionImpl implements IAionChain {
             tx.sign(ECKeyFac.inst().fromPrivate(new byte[64]));
         }
 
-        IRepositoryCache repository =
-                aionHub.getRepository().getSnapshotTo(block.getStateRoot()).startTracking();
+        AionRepositorySnapshot snapshot = getReadOnlySnapshot(block);
+        IRepositoryCache repository = snapshot.startTracking();
 
         try {
             TransactionExecutor executor =
@@ -181,6 +184,7 @@ public class AionImpl implements IAionChain {
             return executor.execute().getReceipt();
         } finally {
             repository.rollback();
+            snapshot.close();
         }
     }
 
@@ -202,6 +206,12 @@ public class AionImpl implements IAionChain {
         return snapshot;
     }
 
+    @Override
+    public AionRepositorySnapshot getReadOnlySnapshot(IAionBlock block) {
+        return ((AionRepositoryImpl) aionHub.getRepository())
+                .getReadOnlySnapshot(block.getNumber(), block.getStateRoot());
+    }
+
     @Override
     public List<AionTransaction> getWireTransactions() {
         return aionHub.getPendingState().getPendingTransactions();
@@ -287,14 +297,11 @@ public class AionImpl implements IAionChain {
     @Override
     public Optional<AccountState> getAccountState(Address address, long blockNumber) {
         try {
-            byte[] stateRoot =
-                    this.aionHub.getBlockStore().getChainBlockByNumber(blockNumber).getStateRoot();
-            AccountState account =
-                    (AccountState)
-                            this.aionHub
-                                    .getRepository()
-                                    .getSnapshotTo(stateRoot)
-                                    .getAccountState(address);
+            AionBlock block = this.aionHub.getBlockStore().getChainBlockByNumber(blockNumber);
+            AccountState account;
+            try (AionRepositorySnapshot snapshot = getReadOnlySnapshot(block)) {
+                account = snapshot.getAccountState(address);
+            }
 
             if (account == null) return Optional.empty();
 
@@ -309,14 +316,11 @@ public class AionImpl implements IAionChain {
     @Override
     public Optional<AccountState> getAccountState(Address address, byte[] blockHash) {
         try {
-            byte[] stateRoot =
-                    this.aionHub.getBlockchain().getBlockByHash(blockHash).getStateRoot();
-            AccountState account =
-                    (AccountState)
-                            this.aionHub
-                                    .getRepository()
-                                    .getSnapshotTo(stateRoot)
-                                    .getAccountState(address);
+            AionBlock block = this.aionHub.getBlockchain().getBlockByHash(blockHash);
+            AccountState account;
+            try (AionRepositorySnapshot snapshot = getReadOnlySnapshot(block)) {
+                account = snapshot.getAccountState(address);
+            }
 
             if (account == null) return Optional.empty();
 
@@ -330,13 +334,11 @@ public class AionImpl implements IAionChain {
     @Override
     public Optional<AccountState> getAccountState(Address address) {
         try {
-            byte[] stateRoot = this.aionHub.getBlockchain().getBestBlock().getStateRoot();
-            AccountState account =
-                    (AccountState)
-                            this.aionHub
-                                    .getRepository()
-                                    .getSnapshotTo(stateRoot)
-                                    .getAccountState(address);
+            AionBlock block = this.aionHub.getBlockchain().getBestBlock();
+            AccountState account;
+            try (AionRepositorySnapshot snapshot = getReadOnlySnapshot(block)) {
+                account = snapshot.getAccountState(address);
+            }
 
             if (account == null) return Optional.empty();
 
@@ -349,7 +351,11 @@ public class AionImpl implements IAionChain {
 
     @Override
     public Optional<ByteArrayWrapper> getCode(Address address) {
-        byte[] code = this.aionHub.getRepository().getCode(address);
+        byte[] code;
+        try (AionRepositorySnapshot snapshot =
+                getReadOnlySnapshot(this.aionHub.getBlockchain().getBestBlock())) {
+            code = snapshot.getCode(address);
+        }
         if (code == null) return Optional.empty();
         return Optional.of(new ByteArrayWrapper(code));
     }
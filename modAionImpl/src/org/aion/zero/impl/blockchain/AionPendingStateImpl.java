@@ -25,6 +25,7 @@ package org.aion.zero.impl.blockchain;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -47,6 +48,7 @@ import org.aion.base.Constant;
 import org.aion.base.db.IRepository;
 import org.aion.base.db.IRepositoryCache;
 import org.aion.base.type.Address;
+import org.aion.base.util.ByteArrayWrapper;
 import org.aion.base.util.ByteUtil;
 import org.aion.base.util.FastByteComparisons;
 import org.aion.base.util.Hex;
@@ -61,6 +63,7 @@ import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.mcf.blockchain.IPendingStateInternal;
 import org.aion.mcf.blockchain.TxResponse;
+import org.aion.mcf.db.AbstractRepositoryCache;
 import org.aion.mcf.db.TransactionStore;
 import org.aion.mcf.evt.IListenerBase.PendingTransactionState;
 import org.aion.p2p.INode;
@@ -125,6 +128,15 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
 
     private IRepositoryCache pendingState;
 
+    // the state of the best block the pending state was built on, null before the first best block
+    private IRepository pendingBase = null;
+
+    // the executions of the transactions applied to the pending state, by transaction hash
+    private Map<ByteArrayWrapper, PendingExecution> executions = new HashMap<>();
+
+    // the last transaction applied to the pending state that touched each account
+    private Map<Address, ByteArrayWrapper> lastTouched = new HashMap<>();
+
     private AtomicReference<AionBlock> best;
 
     private PendingTxCache pendingTxCache;
@@ -435,6 +447,24 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         return best.get();
     }
 
+    /**
+     * Returns the execution of a pending transaction if the pending state was built on the given
+     * block.
+     *
+     * @param txHash the hash of the pending transaction
+     * @param blockHash the hash of the block the execution must have started from
+     * @return the execution or {@code null} if the transaction was not executed on that block
+     */
+    synchronized PendingExecution getExecution(byte[] txHash, byte[] blockHash) {
+        if (isSeed
+                || pendingBase == null
+                || best.get() == null
+                || !Arrays.equals(best.get().getHash(), blockHash)) {
+            return null;
+        }
+        return executions.get(ByteArrayWrapper.wrap(txHash));
+    }
+
     /**
      * TODO: when we removed libNc, timers were not introduced yet, we must rework the model that
      * libAion uses to work with timers
@@ -803,7 +833,18 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
             return;
         }
 
-        if (best.get() != null && !best.get().isParentOf(newBlock)) {
+        if (best.get() != null && newBlock.getNumber() > best.get().getNumber() + 128) {
+
+            // the chain jumped ahead after a fast sync, the skipped blocks were not executed
+            if (LOGGER_TX.isDebugEnabled()) {
+                LOGGER_TX.debug(
+                        "New best block far ahead: {}, old best: {}",
+                        newBlock.getShortDescr(),
+                        best.get().getShortDescr());
+            }
+            //noinspection unchecked
+            processBestInternal(newBlock, receipts);
+        } else if (best.get() != null && !best.get().isParentOf(newBlock)) {
 
             // need to switch the state to another fork
 
@@ -1013,10 +1054,22 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         return info;
     }
 
+    /**
+     * Rebuilds the pending state on the given best block. The transactions whose earlier execution
+     * is not affected by the changes since the previous best block keep their results, the others
+     * are executed again.
+     */
     @SuppressWarnings("UnusedReturnValue")
     private List<AionTransaction> updateState(IAionBlock block) {
 
-        pendingState = repository.startTracking();
+        // reading from a snapshot does not wait for the import of the following blocks
+        IRepository previousBase = pendingBase;
+        pendingBase = repository.getSnapshotTo(block.getStateRoot());
+        pendingState = pendingBase.startTracking();
+
+        Map<ByteArrayWrapper, PendingExecution> previous = executions;
+        executions = new HashMap<>();
+        lastTouched = new HashMap<>();
 
         processTxBuffer();
         List<AionTransaction> pendingTxl = this.txPool.snapshotAll();
@@ -1024,11 +1077,38 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         if (LOGGER_TX.isInfoEnabled()) {
             LOGGER_TX.info("updateState - snapshotAll tx[{}]", pendingTxl.size());
         }
+
+        Address coinbase = block.getCoinbase();
+        // the accounts that differ between the two best blocks
+        Map<Address, Boolean> changed = new HashMap<>();
+        // the accounts touched by the transactions executed again
+        Set<Address> dirty = new HashSet<>();
+        int reused = 0;
+
         for (AionTransaction tx : pendingTxl) {
+            ByteArrayWrapper hash = ByteArrayWrapper.wrap(tx.getHash());
+            PendingExecution execution = previous.get(hash);
+            if (execution != null
+                    && previousBase != null
+                    && isReusable(execution, previousBase, coinbase, changed, dirty)) {
+                execution.apply(pendingState, coinbase);
+                for (Address address : execution.getPredecessors().keySet()) {
+                    lastTouched.put(address, hash);
+                }
+                executions.put(hash, execution);
+                rtn.add(tx);
+                reused++;
+                continue;
+            }
+
             if (LOGGER_TX.isTraceEnabled()) {
                 LOGGER_TX.trace("updateState - loop: " + tx.toString());
             }
 
+            if (execution != null) {
+                dirty.addAll(execution.getPredecessors().keySet());
+            }
+
             AionTxExecSummary txSum = executeTx(tx, false);
             AionTxReceipt receipt = txSum.getReceipt();
             receipt.setTransaction(tx);
@@ -1044,14 +1124,45 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
                 }
                 fireTxUpdate(receipt, PendingTransactionState.DROPPED, block);
             } else {
+                dirty.addAll(executions.get(hash).getPredecessors().keySet());
                 fireTxUpdate(receipt, PendingTransactionState.PENDING, block);
                 rtn.add(tx);
             }
         }
 
+        if (LOGGER_TX.isDebugEnabled()) {
+            LOGGER_TX.debug(
+                    "updateState - reused tx[{}] executed tx[{}]",
+                    reused,
+                    pendingTxl.size() - reused);
+        }
+
         return rtn;
     }
 
+    /**
+     * Checks that the result of an earlier execution still holds: none of the accounts it touched
+     * changed with the new best block or was touched by a transaction executed again, and each was
+     * last touched by the same transaction as before.
+     */
+    private boolean isReusable(
+            PendingExecution execution,
+            IRepository previousBase,
+            Address coinbase,
+            Map<Address, Boolean> changed,
+            Set<Address> dirty) {
+        for (Map.Entry<Address, ByteArrayWrapper> entry :
+                execution.getPredecessors().entrySet()) {
+            Address address = entry.getKey();
+            if (dirty.contains(address)
+                    || !entry.getValue()
+                            .equals(lastTouched.getOrDefault(address, PendingExecution.NONE))) {
+                return false;
+            }
+        }
+        return execution.isReusable(previousBase, pendingBase, coinbase, changed);
+    }
+
     private Set<Address> getTxsAccounts(List<AionTransaction> txn) {
         Set<Address> rtn = new HashSet<>();
         for (AionTransaction tx : txn) {
@@ -1067,14 +1178,27 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
             LOGGER_TX.trace("executeTx: {}", Hex.toHexString(tx.getHash()));
         }
 
-        TransactionExecutor txExe = new TransactionExecutor(tx, bestBlk, pendingState, LOGGER_VM);
+        // the transaction runs in its own cache to record the accounts it touched
+        IRepositoryCache txTrack = pendingState.startTracking();
+        TransactionExecutor txExe = new TransactionExecutor(tx, bestBlk, txTrack, LOGGER_VM);
         txExe.setExecutorProvider(AionExecutorProvider.getInstance());
 
         if (inPool) {
             txExe.setBypassNonce();
         }
 
-        return txExe.execute();
+        AionTxExecSummary summary = txExe.execute();
+        if (!summary.isRejected()) {
+            executions.put(
+                    ByteArrayWrapper.wrap(tx.getHash()),
+                    PendingExecution.record(
+                            summary,
+                            (AbstractRepositoryCache) txTrack,
+                            bestBlk.getCoinbase(),
+                            lastTouched));
+            txTrack.flush();
+        }
+        return summary;
     }
 
     @Override
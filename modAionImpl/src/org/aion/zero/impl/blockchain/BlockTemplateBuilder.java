@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.blockchain;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.aion.base.db.IRepository;
+import org.aion.base.db.IRepositoryCache;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.mcf.db.AbstractRepositoryCache;
+import org.aion.precompiled.ContractFactory;
+import org.aion.vm.TransactionExecutor;
+import org.aion.zero.impl.AionBlockchainImpl;
+import org.aion.zero.impl.BlockContext;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.impl.vm.AionExecutorProvider;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxExecSummary;
+import org.aion.zero.types.AionTxReceipt;
+import org.apache.commons.lang3.ArrayUtils;
+import org.slf4j.Logger;
+
+/**
+ * Builds the block templates given to the miners on a snapshot of the parent state, without
+ * holding the blockchain lock.
+ *
+ * <p>While the parent does not change, a new template extends the previous one: the transactions
+ * already included keep their results and only the newly arrived pending transactions are
+ * executed, after which the template is sealed again. The template is built from scratch when the
+ * parent changes, when an included transaction left the pending state or when the timestamp moves
+ * for a template with transactions that may depend on it.
+ *
+ * <p>The plain value transfers reuse their execution in the pending state when it started from
+ * the same parent and every account they touched was last touched by the same transaction in the
+ * template as in the pending state. The other transactions see a different block and are always
+ * executed.
+ */
+public final class BlockTemplateBuilder {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.CONS.name());
+    private static final Logger LOGGER_VM = AionLoggerFactory.getLogger(LogEnum.VM.toString());
+
+    private final AionBlockchainImpl chain;
+    private final AionPendingStateImpl pendingState;
+
+    // the parent of the current template, null before the first build
+    private AionBlock parent = null;
+    // the unsealed block the transactions are executed in
+    private AionBlock context;
+    // the parent state with the included transactions applied
+    private IRepository state;
+    // false once a transaction that may depend on the block header is included
+    private boolean headerIndependent;
+    private long energyRemaining;
+
+    private final List<AionTransaction> txs = new ArrayList<>();
+    private final List<AionTxReceipt> receipts = new ArrayList<>();
+    private final List<AionTxExecSummary> summaries = new ArrayList<>();
+    private final Set<ByteArrayWrapper> included = new HashSet<>();
+
+    // the last included transaction that touched each account
+    private final Map<Address, ByteArrayWrapper> lastTouched = new HashMap<>();
+    // the accounts touched by included transactions other than value transfers
+    private final Set<Address> dirty = new HashSet<>();
+
+    private volatile long lastBuildTime = 0;
+    private final AtomicLong buildCount = new AtomicLong();
+    private final AtomicLong totalBuildTime = new AtomicLong();
+
+    /**
+     * @param chain the blockchain the templates extend
+     * @param pendingState the pending state whose executions are reused, or {@code null} to
+     *     execute every transaction
+     */
+    public BlockTemplateBuilder(AionBlockchainImpl chain, AionPendingStateImpl pendingState) {
+        this.chain = chain;
+        this.pendingState = pendingState;
+    }
+
+    /**
+     * Builds a block template on the given parent.
+     *
+     * @param parent the parent of the template
+     * @param pending the pending transactions, in the order they are included
+     * @return the sealed template with its rewards
+     */
+    public synchronized BlockContext build(AionBlock parent, List<AionTransaction> pending) {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis() / 1000;
+
+        if (!canExtend(parent, pending, now)) {
+            reset(parent, now);
+        } else if (context.getTimestamp() < now) {
+            // the included transactions do not read the header, so only the header is renewed
+            context = chain.createUnsealedBlock(parent, Collections.emptyList(), false, now);
+        }
+
+        int reused = 0;
+        int executed = 0;
+        for (AionTransaction tx : pending) {
+            ByteArrayWrapper hash = ByteArrayWrapper.wrap(tx.getHash());
+            if (included.contains(hash)) {
+                continue;
+            }
+            IRepositoryCache track = state.startTracking();
+            boolean transfer = isTransfer(tx, track);
+
+            AionTxExecSummary summary;
+            AionTxReceipt receipt;
+            PendingExecution execution = transfer ? reuse(tx, track) : null;
+            if (execution != null) {
+                summary = execution.getSummary();
+                // the receipt is shared with the pending state and gets the state of this block
+                receipt = new AionTxReceipt(summary.getReceipt().getEncoded());
+                reused++;
+            } else {
+                summary = execute(tx, track);
+                if (summary.isRejected()) {
+                    continue;
+                }
+                receipt = summary.getReceipt();
+                executed++;
+            }
+            include(tx, hash, track, transfer, summary, receipt);
+        }
+
+        BlockContext template = seal();
+
+        long time = System.nanoTime() - start;
+        lastBuildTime = time;
+        buildCount.incrementAndGet();
+        totalBuildTime.addAndGet(time);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                    "block template <num={}, tx={}, reused={}, executed={}, time={}ms>",
+                    template.block.getNumber(),
+                    txs.size(),
+                    reused,
+                    executed,
+                    time / 1_000_000);
+        }
+        return template;
+    }
+
+    /** @return the time taken by the last template build in nanoseconds */
+    public long getLastBuildTime() {
+        return lastBuildTime;
+    }
+
+    /** @return the average time taken by the template builds in nanoseconds */
+    public long getAverageBuildTime() {
+        long count = buildCount.get();
+        return count == 0 ? 0 : totalBuildTime.get() / count;
+    }
+
+    private boolean canExtend(AionBlock parent, List<AionTransaction> pending, long now) {
+        if (context == null || !Arrays.equals(this.parent.getHash(), parent.getHash())) {
+            return false;
+        }
+        if (!headerIndependent && context.getTimestamp() < now) {
+            return false;
+        }
+        Set<ByteArrayWrapper> hashes = new HashSet<>();
+        for (AionTransaction tx : pending) {
+            hashes.add(ByteArrayWrapper.wrap(tx.getHash()));
+        }
+        return hashes.containsAll(included);
+    }
+
+    private void reset(AionBlock parent, long now) {
+        this.parent = parent;
+        context = chain.createUnsealedBlock(parent, Collections.emptyList(), false, now);
+        state = chain.getRepository().getSnapshotTo(parent.getStateRoot());
+        headerIndependent = true;
+        energyRemaining = context.getNrgLimit();
+
+        txs.clear();
+        receipts.clear();
+        summaries.clear();
+        included.clear();
+        lastTouched.clear();
+        dirty.clear();
+    }
+
+    /**
+     * Applies the execution of a value transfer in the pending state if it still holds.
+     *
+     * @return the applied execution or {@code null} if the transfer must be executed
+     */
+    private PendingExecution reuse(AionTransaction tx, IRepositoryCache track) {
+        if (pendingState == null || tx.getNrg() > energyRemaining) {
+            return null;
+        }
+        // the pending state credits the fees to the coinbase of the parent without recording it
+        Address pendingCoinbase = parent.getCoinbase();
+        if (pendingCoinbase.equals(tx.getFrom()) || pendingCoinbase.equals(tx.getTo())) {
+            return null;
+        }
+
+        PendingExecution execution = pendingState.getExecution(tx.getHash(), parent.getHash());
+        if (execution == null) {
+            return null;
+        }
+        for (Map.Entry<Address, ByteArrayWrapper> entry :
+                execution.getPredecessors().entrySet()) {
+            Address address = entry.getKey();
+            if (dirty.contains(address)
+                    || !entry.getValue()
+                            .equals(lastTouched.getOrDefault(address, PendingExecution.NONE))) {
+                return null;
+            }
+        }
+
+        execution.apply(track, context.getCoinbase());
+        return execution;
+    }
+
+    private AionTxExecSummary execute(AionTransaction tx, IRepositoryCache track) {
+        TransactionExecutor executor =
+                new TransactionExecutor(tx, context, track, false, energyRemaining, LOGGER_VM);
+        executor.setExecutorProvider(AionExecutorProvider.getInstance());
+        return executor.execute();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void include(
+            AionTransaction tx,
+            ByteArrayWrapper hash,
+            IRepositoryCache track,
+            boolean transfer,
+            AionTxExecSummary summary,
+            AionTxReceipt receipt) {
+        Address coinbase = context.getCoinbase();
+        for (Address address :
+                (Iterable<Address>) ((AbstractRepositoryCache) track).getCachedAddresses()) {
+            if (address.equals(coinbase)) {
+                continue;
+            }
+            lastTouched.put(address, hash);
+            if (!transfer) {
+                dirty.add(address);
+            }
+        }
+        track.flush();
+
+        receipt.setPostTxState(state.getRoot());
+        receipt.setTransaction(tx);
+
+        txs.add(tx);
+        receipts.add(receipt);
+        summaries.add(summary);
+        included.add(hash);
+        energyRemaining -= receipt.getEnergyUsed();
+        headerIndependent &= transfer;
+    }
+
+    /**
+     * Checks if the transaction is a value transfer between externally owned accounts, which
+     * does not depend on the block it is executed in.
+     */
+    private boolean isTransfer(AionTransaction tx, IRepositoryCache track) {
+        Address to = tx.getTo();
+        Address coinbase = context.getCoinbase();
+        return !tx.isContractCreation()
+                && !ContractFactory.isPrecompiledContract(to)
+                && !coinbase.equals(to)
+                && !coinbase.equals(tx.getFrom())
+                && ArrayUtils.isEmpty(track.getCode(to));
+    }
+
+    private BlockContext seal() {
+        Address coinbase = context.getCoinbase();
+        long timestamp = context.getTimestamp();
+        BigInteger reward =
+                chain.getChainConfiguration()
+                        .getRewardsCalculator()
+                        .calculateReward(context.getHeader());
+        byte[] txRoot = state.getRoot();
+        boolean existed = state.hasAccountState(coinbase);
+
+        IRepositoryCache track = state.startTracking();
+        track.addBalance(coinbase, reward);
+        track.flush();
+        byte[] stateRoot = state.getRoot();
+
+        // takes the reward back so that the next template can extend this one
+        track = state.startTracking();
+        if (existed) {
+            track.addBalance(coinbase, reward.negate());
+        } else {
+            track.deleteAccount(coinbase);
+        }
+        track.flush();
+        if (!Arrays.equals(state.getRoot(), txRoot)) {
+            LOG.warn("Unable to restore the block template state, rebuilding the next template.");
+            context = null;
+        }
+
+        AionBlock block = chain.createUnsealedBlock(parent, new ArrayList<>(txs), false, timestamp);
+        return chain.sealBlock(
+                block,
+                new ArrayList<>(txs),
+                new ArrayList<>(receipts),
+                new ArrayList<>(summaries),
+                stateRoot);
+    }
+}
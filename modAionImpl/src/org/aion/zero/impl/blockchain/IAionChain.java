@@ -30,6 +30,7 @@ import org.aion.base.type.Address;
 import org.aion.mcf.blockchain.IChainInstancePOW;
 import org.aion.mcf.blockchain.IPowChain;
 import org.aion.zero.impl.AionHub;
+import org.aion.zero.impl.db.AionRepositorySnapshot;
 import org.aion.zero.impl.query.QueryInterface;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.types.A0BlockHeader;
@@ -56,6 +57,12 @@ public interface IAionChain extends IChainInstancePOW, QueryInterface {
 
     IRepository<?, ?, ?> getSnapshotTo(byte[] root);
 
+    /**
+     * Returns a read-only view of the state at the given block that does not wait for block
+     * imports. The returned snapshot must be closed after use.
+     */
+    AionRepositorySnapshot getReadOnlySnapshot(IAionBlock block);
+
     List<AionTransaction> getWireTransactions();
 
     List<AionTransaction> getPendingStateTransactions();
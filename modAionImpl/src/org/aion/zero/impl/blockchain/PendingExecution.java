@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.blockchain;
+
+import static org.aion.crypto.HashUtil.EMPTY_DATA_HASH;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.aion.base.db.IContractDetails;
+import org.aion.base.db.IRepository;
+import org.aion.base.db.IRepositoryCache;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.base.vm.IDataWord;
+import org.aion.mcf.core.AccountState;
+import org.aion.mcf.db.AbstractRepositoryCache;
+import org.aion.mcf.db.ContractDetailsCacheImpl;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxExecSummary;
+
+/**
+ * The result of a transaction executed on top of the pending state, kept so that the transaction
+ * is not executed again when the pending state moves to a new best block.
+ *
+ * <p>The execution records the accounts the transaction read or wrote, each with the pending
+ * transaction that touched the account before it, and the values it wrote. When the pending state
+ * is rebuilt on a new best block, the execution still holds if none of these accounts changed
+ * between the two blocks and each of them was last touched by the same, also reused, pending
+ * transaction. Its writes are then applied to the new pending state instead of executing it.
+ *
+ * <p>The block coinbase is credited by every transaction, so it is left out of the recorded
+ * accounts and the fee is credited to the coinbase of the new best block instead. Transactions
+ * that involve the coinbase otherwise are always executed again.
+ */
+final class PendingExecution {
+
+    /** Marks an account that no earlier pending transaction touched. */
+    static final ByteArrayWrapper NONE = ByteArrayWrapper.wrap(new byte[0]);
+
+    private final AionTxExecSummary summary;
+    private final Map<Address, ByteArrayWrapper> predecessors;
+    private final Map<Address, AccountState> accounts = new HashMap<>();
+    private final Map<Address, Map<IDataWord, IDataWord>> storage = new HashMap<>();
+    private final Map<Address, byte[]> code = new HashMap<>();
+
+    private PendingExecution(
+            AionTxExecSummary summary, Map<Address, ByteArrayWrapper> predecessors) {
+        this.summary = summary;
+        this.predecessors = predecessors;
+    }
+
+    /**
+     * Records the execution of a transaction and updates the last transaction that touched each
+     * account. Must be called before the cache is flushed.
+     *
+     * @param summary the summary of the execution, which must not be rejected
+     * @param cache the cache the transaction was executed on
+     * @param coinbase the coinbase of the block the transaction was executed in
+     * @param lastTouched the last pending transaction that touched each account
+     * @return the recorded execution
+     */
+    @SuppressWarnings("unchecked")
+    static PendingExecution record(
+            AionTxExecSummary summary,
+            AbstractRepositoryCache cache,
+            Address coinbase,
+            Map<Address, ByteArrayWrapper> lastTouched) {
+        ByteArrayWrapper hash = ByteArrayWrapper.wrap(summary.getTransaction().getHash());
+        Map<Address, ByteArrayWrapper> predecessors = new HashMap<>();
+        PendingExecution execution = new PendingExecution(summary, predecessors);
+
+        for (Address address : (Iterable<Address>) cache.getCachedAddresses()) {
+            if (address.equals(coinbase)) {
+                continue;
+            }
+            predecessors.put(address, lastTouched.getOrDefault(address, NONE));
+            lastTouched.put(address, hash);
+
+            // a storage write only marks the contract details, so both are checked
+            AccountState account = cache.getAccountState(address);
+            boolean accountDirty = account != null && account.isDirty();
+            if (accountDirty) {
+                execution.accounts.put(address, new AccountState(account));
+            }
+
+            IContractDetails<IDataWord> details = cache.getContractDetails(address);
+            if (details instanceof ContractDetailsCacheImpl && details.isDirty()) {
+                Map<IDataWord, IDataWord> rows =
+                        ((ContractDetailsCacheImpl) details).getDirtyStorage();
+                if (!rows.isEmpty()) {
+                    execution.storage.put(address, rows);
+                }
+                if (accountDirty && !Arrays.equals(account.getCodeHash(), EMPTY_DATA_HASH)) {
+                    execution.code.put(address, details.getCode());
+                }
+            }
+        }
+        return execution;
+    }
+
+    AionTxExecSummary getSummary() {
+        return summary;
+    }
+
+    /** @return the accounts touched by the transaction and the transaction before it on each */
+    Map<Address, ByteArrayWrapper> getPredecessors() {
+        return Collections.unmodifiableMap(predecessors);
+    }
+
+    /**
+     * Checks if the transaction can skip execution on a new best block.
+     *
+     * @param previous the state the transaction was executed on
+     * @param current the state of the new best block
+     * @param coinbase the coinbase of the new best block
+     * @param changed the accounts already known to differ between the two states, updated with
+     *     the accounts found to differ
+     */
+    boolean isReusable(
+            IRepository previous,
+            IRepository current,
+            Address coinbase,
+            Map<Address, Boolean> changed) {
+        AionTransaction tx = summary.getTransaction();
+        if (predecessors.containsKey(coinbase)
+                || coinbase.equals(tx.getFrom())
+                || coinbase.equals(tx.getTo())) {
+            return false;
+        }
+        for (Address address : predecessors.keySet()) {
+            if (changed.computeIfAbsent(address, a -> isChanged(previous, current, a))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isChanged(IRepository previous, IRepository current, Address address) {
+        AccountState before = (AccountState) previous.getAccountState(address);
+        AccountState after = (AccountState) current.getAccountState(address);
+        if (before == null || after == null) {
+            return before != after;
+        }
+        return !Arrays.equals(before.getEncoded(), after.getEncoded());
+    }
+
+    /**
+     * Applies the writes of the transaction to the pending state.
+     *
+     * @param track the pending state
+     * @param coinbase the coinbase credited with the transaction fee
+     */
+    @SuppressWarnings("unchecked")
+    void apply(IRepositoryCache track, Address coinbase) {
+        for (Map.Entry<Address, AccountState> entry : accounts.entrySet()) {
+            Address address = entry.getKey();
+            AccountState account = entry.getValue();
+            if (account.isDeleted()) {
+                track.deleteAccount(address);
+            } else {
+                track.setNonce(address, account.getNonce());
+                track.addBalance(
+                        address, account.getBalance().subtract(track.getBalance(address)));
+            }
+        }
+        for (Map.Entry<Address, byte[]> entry : code.entrySet()) {
+            track.saveCode(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<Address, Map<IDataWord, IDataWord>> entry : storage.entrySet()) {
+            for (Map.Entry<IDataWord, IDataWord> row : entry.getValue().entrySet()) {
+                track.addStorageRow(entry.getKey(), row.getKey(), row.getValue());
+            }
+        }
+        track.addBalance(coinbase, summary.getFee());
+    }
+}
@@ -160,6 +160,22 @@ public class Arguments {
             description = "if using leveldb, it triggers its database compaction processes")
     private boolean dbCompact;
 
+    @Option(
+            names = {"--rebuild-log-index"},
+            description = "rebuilds the index used to search the logs of past blocks")
+    private boolean rebuildBloomBitsIndex;
+
+    @Option(
+            names = {"--db-migrate"},
+            description =
+                    "copies the databases into the column families of a single rocksdb instance")
+    private boolean dbMigrate;
+
+    @Option(
+            names = {"--rebuild-address-history"},
+            description = "builds the index of the transactions of each account used by the API")
+    private boolean rebuildAddressHistoryIndex;
+
     /** Compacts the account options into specific commands. */
     public static String[] preProcess(String[] arguments) {
         List<String> list = new ArrayList<>();
@@ -259,4 +275,16 @@ public class Arguments {
     public boolean isDbCompact() {
         return dbCompact;
     }
+
+    public boolean isRebuildBloomBitsIndex() {
+        return rebuildBloomBitsIndex;
+    }
+
+    public boolean isDbMigrate() {
+        return dbMigrate;
+    }
+
+    public boolean isRebuildAddressHistoryIndex() {
+        return rebuildAddressHistoryIndex;
+    }
 }
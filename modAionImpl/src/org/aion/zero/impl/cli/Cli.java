@@ -101,7 +101,10 @@ public class Cli {
         DUMP_STATE_SIZE,
         DUMP_STATE,
         DUMP_BLOCKS,
-        DB_COMPACT
+        DB_COMPACT,
+        REBUILD_LOG_INDEX,
+        DB_MIGRATE,
+        REBUILD_ADDRESS_HISTORY
     }
 
     @SuppressWarnings("ResultOfMethodCallIgnored")
@@ -446,6 +449,27 @@ public class Cli {
                 return EXIT;
             }
 
+            if (options.isRebuildBloomBitsIndex()) {
+                System.out.println("Rebuilding the log index from the main chain blocks.");
+                RecoveryUtils.rebuildBloomBitsIndex();
+                return EXIT;
+            }
+
+            if (options.isDbMigrate()) {
+                System.out.println("Migrating the databases to a single RocksDB instance.");
+                if (RecoveryUtils.migrateToColumnFamilies() == RecoveryUtils.Status.SUCCESS) {
+                    return EXIT;
+                } else {
+                    return ERROR;
+                }
+            }
+
+            if (options.isRebuildAddressHistoryIndex()) {
+                System.out.println("Building the account history index from the main chain.");
+                RecoveryUtils.rebuildAddressHistoryIndex();
+                return EXIT;
+            }
+
             // if no return happened earlier, run the kernel
             return RUN;
         } catch (Exception e) {
@@ -841,6 +865,15 @@ public class Cli {
         if (options.isDbCompact()) {
             return TaskPriority.DB_COMPACT;
         }
+        if (options.isRebuildBloomBitsIndex()) {
+            return TaskPriority.REBUILD_LOG_INDEX;
+        }
+        if (options.isDbMigrate()) {
+            return TaskPriority.DB_MIGRATE;
+        }
+        if (options.isRebuildAddressHistoryIndex()) {
+            return TaskPriority.REBUILD_ADDRESS_HISTORY;
+        }
         return TaskPriority.NONE;
     }
 
@@ -914,6 +947,17 @@ public class Cli {
         if (breakingTaskPriority.compareTo(TaskPriority.DB_COMPACT) < 0 && options.isDbCompact()) {
             skippedTasks.add("--db-compact");
         }
+        if (breakingTaskPriority.compareTo(TaskPriority.REBUILD_LOG_INDEX) < 0
+                && options.isRebuildBloomBitsIndex()) {
+            skippedTasks.add("--rebuild-log-index");
+        }
+        if (breakingTaskPriority.compareTo(TaskPriority.DB_MIGRATE) < 0 && options.isDbMigrate()) {
+            skippedTasks.add("--db-migrate");
+        }
+        if (breakingTaskPriority.compareTo(TaskPriority.REBUILD_ADDRESS_HISTORY) < 0
+                && options.isRebuildAddressHistoryIndex()) {
+            skippedTasks.add("--rebuild-address-history");
+        }
         return skippedTasks;
     }
 
@@ -47,6 +47,21 @@ public interface IAionBlockchain
 
     AionBlock getBlockByNumber(long num);
 
+    /**
+     * Retrieves the stored encodings of up to {@code limit} main chain headers starting from the
+     * given block number, without deserializing the blocks.
+     *
+     * @return the encoded headers with increasing numbers or an empty list if none were found
+     */
+    List<byte[]> getListOfEncodedHeadersStartFrom(long blockNumber, int limit);
+
+    /**
+     * Retrieves the encoded body of the block with the given hash from the stored block bytes.
+     *
+     * @return the encoded body or {@code null} if the block is not stored
+     */
+    byte[] getEncodedBodyByHash(byte[] hash);
+
     /**
      * Recovery functionality for rebuilding the world state.
      *
@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.db;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.type.Address;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.mcf.db.IBlockStoreBase;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.AionTransaction;
+import org.slf4j.Logger;
+
+/**
+ * Index of the main chain transactions sent or received by each account.
+ *
+ * <p>The transactions of an account are stored as a list in chain order: a count kept under the
+ * address and one entry per transaction under the address followed by its position in the list.
+ * An account is part of a transaction as its sender, its recipient or the contract it creates.
+ * Internal transactions are not indexed.
+ *
+ * <p>The index records the last block it contains. When that block is no longer on the main chain
+ * (after a reorg or a revert) {@link #update} removes the entries of the replaced blocks before
+ * indexing the new ones. Queries also skip entries whose block is not on the main chain.
+ */
+public class AddressHistoryIndex {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    /** Maximum number of blocks indexed by one call to {@link #update}. */
+    public static final int MAX_BLOCKS_PER_UPDATE = 128;
+
+    // the key lengths keep the three kinds of entries apart
+    private static final byte[] HEAD_KEY = "head".getBytes();
+    private static final int COUNT_KEY_LENGTH = Address.ADDRESS_LEN;
+    private static final int ENTRY_KEY_LENGTH = Address.ADDRESS_LEN + Long.BYTES;
+
+    private static final int HASH_LENGTH = 32;
+    private static final int ENTRY_LENGTH = Long.BYTES + Integer.BYTES + 2 * HASH_LENGTH;
+
+    /** A transaction of an account. */
+    public static final class Entry {
+        private final long blockNumber;
+        private final byte[] blockHash;
+        private final int txIndex;
+        private final byte[] txHash;
+
+        private Entry(long blockNumber, byte[] blockHash, int txIndex, byte[] txHash) {
+            this.blockNumber = blockNumber;
+            this.blockHash = blockHash;
+            this.txIndex = txIndex;
+            this.txHash = txHash;
+        }
+
+        public long getBlockNumber() {
+            return blockNumber;
+        }
+
+        public byte[] getBlockHash() {
+            return blockHash;
+        }
+
+        /** @return the position of the transaction in its block */
+        public int getTxIndex() {
+            return txIndex;
+        }
+
+        public byte[] getTxHash() {
+            return txHash;
+        }
+
+        private byte[] encode() {
+            return ByteBuffer.allocate(ENTRY_LENGTH)
+                    .putLong(blockNumber)
+                    .putInt(txIndex)
+                    .put(blockHash)
+                    .put(txHash)
+                    .array();
+        }
+
+        private static Entry decode(byte[] data) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            long number = buffer.getLong();
+            int index = buffer.getInt();
+            byte[] blockHash = new byte[HASH_LENGTH];
+            buffer.get(blockHash);
+            byte[] txHash = new byte[HASH_LENGTH];
+            buffer.get(txHash);
+            return new Entry(number, blockHash, index, txHash);
+        }
+    }
+
+    private final IByteArrayKeyValueDatabase db;
+
+    // the last indexed block, -1 when the index is empty
+    private long headNumber;
+    private byte[] headHash;
+
+    public AddressHistoryIndex(IByteArrayKeyValueDatabase db) {
+        this.db = db;
+        Optional<byte[]> stored = db.get(HEAD_KEY);
+        if (stored.isPresent()) {
+            ByteBuffer buffer = ByteBuffer.wrap(stored.get());
+            this.headNumber = buffer.getLong();
+            this.headHash = new byte[HASH_LENGTH];
+            buffer.get(headHash);
+        } else {
+            this.headNumber = -1L;
+            this.headHash = null;
+        }
+    }
+
+    /** @return the number of the last indexed block or {@code -1} if the index is empty */
+    public synchronized long getIndexedBlockNumber() {
+        return headNumber;
+    }
+
+    /**
+     * Removes the blocks that are no longer on the main chain and indexes the following main chain
+     * blocks, at most {@link #MAX_BLOCKS_PER_UPDATE} at a time so that a new index is built
+     * gradually during the block imports.
+     *
+     * @param store the block store holding the main chain
+     * @param bestNumber the number of the best block
+     */
+    public synchronized void update(IBlockStoreBase<AionBlock, ?> store, long bestNumber) {
+        update(store, bestNumber, MAX_BLOCKS_PER_UPDATE);
+    }
+
+    /**
+     * Drops the whole index and builds it again from the main chain.
+     *
+     * @return the number of the last indexed block
+     */
+    public synchronized long rebuild(IBlockStoreBase<AionBlock, ?> store, long bestNumber) {
+        db.deleteBatch(db.keys());
+        headNumber = -1L;
+        headHash = null;
+        update(store, bestNumber, Long.MAX_VALUE);
+        return headNumber;
+    }
+
+    /** @return the number of transactions indexed for the given account */
+    public long getTransactionCount(Address address) {
+        return getCount(address.toBytes());
+    }
+
+    /**
+     * Returns a page of the transactions of the given account, the most recent first.
+     *
+     * @param store the block store holding the main chain
+     * @param address the account
+     * @param offset the number of most recent transactions to skip
+     * @param limit the maximum number of transactions to return
+     * @return the main chain transactions of the account in the requested page
+     */
+    public List<Entry> getTransactions(
+            IBlockStoreBase<AionBlock, ?> store, Address address, long offset, int limit) {
+        byte[] account = address.toBytes();
+        List<Entry> page = new ArrayList<>();
+
+        for (long position = getCount(account) - 1 - offset;
+                position >= 0 && page.size() < limit;
+                position--) {
+            Optional<byte[]> stored = db.get(entryKey(account, position));
+            if (stored.isPresent()) {
+                Entry entry = Entry.decode(stored.get());
+                // skips the entries of a block being replaced by a reorg
+                if (Arrays.equals(entry.blockHash, store.getBlockHashByNumber(entry.blockNumber))) {
+                    page.add(entry);
+                }
+            }
+        }
+        return page;
+    }
+
+    private void update(IBlockStoreBase<AionBlock, ?> store, long bestNumber, long maxBlocks) {
+        while (headNumber >= 0
+                && (headNumber > bestNumber
+                        || !Arrays.equals(headHash, store.getBlockHashByNumber(headNumber)))) {
+            revertHead(store);
+        }
+
+        long last = Math.min(bestNumber, headNumber + maxBlocks);
+        while (headNumber < last) {
+            AionBlock block = store.getChainBlockByNumber(headNumber + 1);
+            if (block == null) {
+                LOG.error("Missing main chain block {}, cannot index it.", headNumber + 1);
+                return;
+            }
+            indexBlock(block);
+        }
+    }
+
+    private void indexBlock(AionBlock block) {
+        Map<Address, List<Entry>> entries = new LinkedHashMap<>();
+        List<AionTransaction> txs = block.getTransactionsList();
+        for (int i = 0; i < txs.size(); i++) {
+            AionTransaction tx = txs.get(i);
+            Entry entry = new Entry(block.getNumber(), block.getHash(), i, tx.getHash());
+            for (Address address : getAccounts(tx)) {
+                entries.computeIfAbsent(address, k -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        Map<byte[], byte[]> batch = new HashMap<>();
+        for (Map.Entry<Address, List<Entry>> e : entries.entrySet()) {
+            byte[] account = e.getKey().toBytes();
+            long count = getCount(account);
+            for (Entry entry : e.getValue()) {
+                batch.put(entryKey(account, count), entry.encode());
+                count++;
+            }
+            batch.put(countKey(account), encodeLong(count));
+        }
+        batch.put(HEAD_KEY, encodeHead(block.getNumber(), block.getHash()));
+        db.putBatch(batch);
+
+        headNumber = block.getNumber();
+        headHash = block.getHash();
+    }
+
+    /** Removes the entries of the last indexed block. */
+    private void revertHead(IBlockStoreBase<AionBlock, ?> store) {
+        AionBlock block = store.getBlockByHash(headHash);
+        Map<byte[], byte[]> batch = new HashMap<>();
+        byte[] parentHash;
+
+        if (block == null) {
+            // the entries remain, but are skipped by the queries
+            LOG.warn(
+                    "Missing indexed block {}, the account history index should be rebuilt.",
+                    headNumber);
+            parentHash = store.getBlockHashByNumber(headNumber - 1);
+        } else {
+            Set<Address> accounts = new LinkedHashSet<>();
+            for (AionTransaction tx : block.getTransactionsList()) {
+                accounts.addAll(getAccounts(tx));
+            }
+
+            // the entries of the block are the last ones in the list of each account
+            for (Address address : accounts) {
+                byte[] account = address.toBytes();
+                long count = getCount(account);
+                while (count > 0) {
+                    Optional<byte[]> stored = db.get(entryKey(account, count - 1));
+                    if (stored.isPresent()
+                            && !Arrays.equals(Entry.decode(stored.get()).blockHash, headHash)) {
+                        break;
+                    }
+                    count--;
+                    batch.put(entryKey(account, count), null);
+                }
+                batch.put(countKey(account), count == 0 ? null : encodeLong(count));
+            }
+            parentHash = block.getParentHash();
+        }
+
+        headNumber--;
+        headHash = headNumber < 0 ? null : parentHash;
+        batch.put(HEAD_KEY, headNumber < 0 ? null : encodeHead(headNumber, headHash));
+        db.putBatch(batch);
+    }
+
+    private static List<Address> getAccounts(AionTransaction tx) {
+        List<Address> accounts = new ArrayList<>(2);
+        Address from = tx.getFrom();
+        if (from != null) {
+            accounts.add(from);
+        }
+        Address to = tx.isContractCreation() ? tx.getContractAddress() : tx.getTo();
+        if (to != null && !to.equals(from)) {
+            accounts.add(to);
+        }
+        return accounts;
+    }
+
+    private long getCount(byte[] account) {
+        Optional<byte[]> stored = db.get(countKey(account));
+        return stored.isPresent() ? ByteBuffer.wrap(stored.get()).getLong() : 0L;
+    }
+
+    private static byte[] encodeHead(long number, byte[] hash) {
+        return ByteBuffer.allocate(Long.BYTES + HASH_LENGTH).putLong(number).put(hash).array();
+    }
+
+    private static byte[] encodeLong(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+
+    private static byte[] countKey(byte[] account) {
+        return Arrays.copyOf(account, COUNT_KEY_LENGTH);
+    }
+
+    private static byte[] entryKey(byte[] account, long position) {
+        return ByteBuffer.allocate(ENTRY_KEY_LENGTH).put(account).putLong(position).array();
+    }
+}
@@ -24,6 +24,7 @@ package org.aion.zero.impl.db;
 
 import static java.math.BigInteger.ZERO;
 import static org.aion.crypto.HashUtil.shortHash;
+import static org.aion.zero.types.A0BlockHeader.RPL_BH_PARENTHASH;
 
 import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
@@ -55,6 +56,7 @@ import org.aion.mcf.ds.Serializer;
 import org.aion.rlp.RLP;
 import org.aion.rlp.RLPElement;
 import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPView;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.types.A0BlockHeader;
 import org.aion.zero.types.IAionBlock;
@@ -65,6 +67,12 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
     private static final Logger LOG_CONS = AionLoggerFactory.getLogger(LogEnum.CONS.name());
 
+    /** Default size in bytes of the encoded blocks kept in memory. */
+    private static final long BLOCK_CACHE_SIZE = 16 * 1024 * 1024;
+
+    /** Default size in bytes of the encoded index levels kept in memory. */
+    private static final long INDEX_CACHE_SIZE = 4 * 1024 * 1024;
+
     protected ReadWriteLock lock = new ReentrantReadWriteLock();
 
     private DataSourceArray<List<BlockInfo>> index;
@@ -77,7 +85,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
     private long branchingLevel;
 
     public AionBlockStore(IByteArrayKeyValueDatabase index, IByteArrayKeyValueDatabase blocks) {
-        init(index, blocks);
+        init(index, blocks, BLOCK_CACHE_SIZE, INDEX_CACHE_SIZE);
     }
 
     public AionBlockStore(
@@ -88,9 +96,29 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         this.checkIntegrity = checkIntegrity;
     }
 
-    private void init(IByteArrayKeyValueDatabase index, IByteArrayKeyValueDatabase blocks) {
+    /**
+     * @param blockCacheSize the size in bytes of the encoded blocks kept in memory
+     * @param indexCacheSize the size in bytes of the encoded index levels kept in memory
+     */
+    public AionBlockStore(
+            IByteArrayKeyValueDatabase index,
+            IByteArrayKeyValueDatabase blocks,
+            boolean checkIntegrity,
+            long blockCacheSize,
+            long indexCacheSize) {
+        init(index, blocks, blockCacheSize, indexCacheSize);
+        this.checkIntegrity = checkIntegrity;
+    }
+
+    private void init(
+            IByteArrayKeyValueDatabase index,
+            IByteArrayKeyValueDatabase blocks,
+            long blockCacheSize,
+            long indexCacheSize) {
 
-        this.index = new DataSourceArray<>(new ObjectDataSource<>(index, BLOCK_INFO_SERIALIZER));
+        this.index =
+                new DataSourceArray<>(
+                        new ObjectDataSource<>(index, BLOCK_INFO_SERIALIZER, indexCacheSize));
 
         this.blocks =
                 new ObjectDataSource<>(
@@ -105,7 +133,8 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
                             public AionBlock deserialize(byte[] bytes) {
                                 return new AionBlock(bytes);
                             }
-                        });
+                        },
+                        blockCacheSize);
     }
 
     public AionBlock getBestBlock() {
@@ -406,6 +435,50 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         }
     }
 
+    /**
+     * Retrieves the encodings of up to {@code qty} headers ending with the given hash, as stored in
+     * the database. The blocks are not deserialized.
+     *
+     * @return the encoded headers with decreasing numbers
+     */
+    public List<byte[]> getListEncodedHeadersEndWith(byte[] hash, long qty) {
+        lock.readLock().lock();
+        try {
+            List<byte[]> headers = new ArrayList<>((int) qty);
+            byte[] encoded = blocks.getEncoded(hash);
+
+            for (int i = 0; i < qty && encoded != null; ++i) {
+                RLPView header = RLP.decodeView(encoded).get(0);
+                headers.add(header.getEncoded());
+                encoded = blocks.getEncoded(header.get(RPL_BH_PARENTHASH).asBytes());
+            }
+
+            return headers;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the encoded body of the block with the given hash, assembled from the bytes stored
+     * in the database without deserializing the block.
+     *
+     * @return the encoded body as returned by {@link AionBlock#getEncodedBody()} or {@code null} if
+     *     the block is not stored
+     */
+    public byte[] getEncodedBodyByHash(byte[] hash) {
+        byte[] encoded;
+        lock.readLock().lock();
+        try {
+            encoded = blocks.getEncoded(hash);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // the body is the list of the elements that follow the header
+        return encoded == null ? null : RLP.encodeList(RLP.decodeView(encoded).get(1).getEncoded());
+    }
+
     @Override
     public List<AionBlock> getListBlocksEndWith(byte[] hash, long qty) {
         lock.readLock().lock();
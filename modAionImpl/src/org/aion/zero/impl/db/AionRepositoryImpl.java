@@ -27,6 +27,7 @@ import static org.aion.base.util.ByteUtil.EMPTY_BYTE_ARRAY;
 import static org.aion.crypto.HashUtil.EMPTY_TRIE_HASH;
 import static org.aion.zero.impl.AionHub.INIT_ERROR_EXIT_CODE;
 
+import com.google.common.cache.CacheStats;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -45,10 +46,13 @@ import org.aion.base.util.Hex;
 import org.aion.base.vm.IDataWord;
 import org.aion.mcf.core.AccountState;
 import org.aion.mcf.db.AbstractRepository;
+import org.aion.mcf.db.ContractCodeCache;
 import org.aion.mcf.db.ContractDetailsCacheImpl;
 import org.aion.mcf.db.TransactionStore;
+import org.aion.mcf.trie.Cache;
 import org.aion.mcf.trie.SecureTrie;
 import org.aion.mcf.trie.Trie;
+import org.aion.mcf.trie.TrieImpl;
 import org.aion.zero.db.AionRepositoryCache;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.types.AionBlock;
@@ -63,9 +67,21 @@ public class AionRepositoryImpl
 
     private TransactionStore<AionTransaction, AionTxReceipt, AionTxInfo> transactionStore;
 
+    private BloomBitsIndex bloomBitsIndex;
+
+    private AddressHistoryIndex addressHistoryIndex;
+
     // pending block store
     private PendingBlockStore pendingStore;
 
+    // open read-only snapshots, shared with the snapshots created from this repository
+    private SnapshotTracker snapshotTracker = new SnapshotTracker();
+
+    // the last block processed by pruneBlocks, -1 when unknown
+    private long lastPrunedBlock = -1;
+    // the last block committed since the previous flush, pruned up to on the next flush
+    private A0BlockHeader unprunedHeader = null;
+
     /**
      * used by getSnapShotTo
      *
@@ -109,7 +125,19 @@ public class AionRepositoryImpl
                             transactionDatabase, AionTransactionStoreSerializer.serializer);
 
             // Setup block store.
-            this.blockStore = new AionBlockStore(indexDatabase, blockDatabase, checkIntegrity);
+            this.blockStore =
+                    new AionBlockStore(
+                            indexDatabase,
+                            blockDatabase,
+                            checkIntegrity,
+                            blockCacheSize,
+                            indexCacheSize);
+
+            // Setup log bloom index.
+            this.bloomBitsIndex = new BloomBitsIndex(bloomBitsDatabase);
+
+            // Setup account transaction history index.
+            this.addressHistoryIndex = new AddressHistoryIndex(addressHistoryDatabase);
 
             this.pendingStore = new PendingBlockStore(pendingStoreProperties);
 
@@ -132,8 +160,23 @@ public class AionRepositoryImpl
         return this.transactionStore;
     }
 
+    /** @return the index of the main chain log blooms */
+    public BloomBitsIndex getBloomBitsIndex() {
+        return this.bloomBitsIndex;
+    }
+
+    public AddressHistoryIndex getAddressHistoryIndex() {
+        return this.addressHistoryIndex;
+    }
+
+    /** @return {@code true} when the account history index is maintained on block import */
+    public boolean isAddressHistoryIndexed() {
+        return this.indexAddressHistory;
+    }
+
     private Trie createStateTrie() {
-        return new SecureTrie(stateDSPrune).withPruningEnabled(pruneEnabled);
+        return new SecureTrie(stateDSPrune, "", stateTrieCacheSize)
+                .withPruningEnabled(pruneEnabled);
     }
 
     @Override
@@ -242,6 +285,12 @@ public class AionRepositoryImpl
             LOG.info("worldState.sync()");
             worldState.sync();
 
+            // the nodes of the blocks committed since the last flush are pruned together
+            if (unprunedHeader != null) {
+                pruneBlocks(unprunedHeader);
+                unprunedHeader = null;
+            }
+
             // Flush all necessary caches.
             LOG.info("flush all databases");
 
@@ -256,6 +305,34 @@ public class AionRepositoryImpl
             }
 
             LOG.info("RepositoryImpl.flush took " + (System.currentTimeMillis() - s) + " ms");
+
+            if (LOG.isDebugEnabled() && worldState instanceof TrieImpl) {
+                Cache cache = ((TrieImpl) worldState).getCache();
+                if (cache.isCleanCacheEnabled()) {
+                    CacheStats stats = cache.getCleanCacheStats();
+                    LOG.debug(
+                            "worldState node cache: size={} hits={} misses={} evictions={}",
+                            cache.getCleanCacheSize(),
+                            stats.hitCount(),
+                            stats.missCount(),
+                            stats.evictionCount());
+                }
+            }
+            if (LOG.isDebugEnabled()) {
+                CacheStats codeStats = ContractCodeCache.getInstance().getStats();
+                LOG.debug(
+                        "contract code cache: size={} hitRate={} evictions={}",
+                        ContractCodeCache.getInstance().size(),
+                        String.format("%.4f", codeStats.hitRate()),
+                        codeStats.evictionCount());
+                long detailsCount = detailsDS.getDetailsCount();
+                if (detailsCount >= 0) {
+                    LOG.debug(
+                            "contract details: count={} size={} bytes",
+                            detailsCount,
+                            detailsDS.getDetailsSize());
+                }
+            }
         } finally {
             rwLock.writeLock().unlock();
         }
@@ -379,9 +456,15 @@ public class AionRepositoryImpl
         }
 
         byte[] codeHash = accountState.getCodeHash();
+        byte[] code = ContractCodeCache.getInstance().get(codeHash);
+        if (code != null) {
+            return code;
+        }
 
         IContractDetails<IDataWord> details = getContractDetails(address);
-        return (details == null) ? EMPTY_BYTE_ARRAY : details.getCode(codeHash);
+        code = (details == null) ? EMPTY_BYTE_ARRAY : details.getCode(codeHash);
+        ContractCodeCache.getInstance().put(codeHash, code);
+        return code;
     }
 
     @Override
@@ -515,6 +598,16 @@ public class AionRepositoryImpl
         return this.pruneBlockCount;
     }
 
+    /**
+     * Moves the state changes of the given block from the trie cache to the stores and records them
+     * in the pruning journal. The blocks committed since the last {@link #flush()} are pruned when
+     * it is called.
+     *
+     * @implNote The trie and storage nodes are written to the stores for every block, because the
+     *     snapshots of the repository read the state only from the stores and the pruning journal
+     *     is kept per block. They reach the disk on a flush when the stores are wrapped by
+     *     write-behind or use a heap cache without auto-commit, otherwise as they are written.
+     */
     public void commitBlock(A0BlockHeader blockHeader) {
         rwLock.writeLock().lock();
 
@@ -532,7 +625,7 @@ public class AionRepositoryImpl
                 detailsDS
                         .getStorageDSPrune()
                         .storeBlockChanges(blockHeader.getHash(), blockHeader.getNumber());
-                pruneBlocks(blockHeader);
+                unprunedHeader = blockHeader;
             }
         } finally {
             rwLock.writeLock().unlock();
@@ -544,11 +637,32 @@ public class AionRepositoryImpl
             // pruning only on increasing blocks
             long pruneBlockNumber = curBlock.getNumber() - pruneBlockCount;
             if (pruneBlockNumber >= 0) {
-                byte[] pruneBlockHash = blockStore.getBlockHashByNumber(pruneBlockNumber);
-                if (pruneBlockHash != null) {
-                    A0BlockHeader header = blockStore.getBlockByHash(pruneBlockHash).getHeader();
-                    stateDSPrune.prune(header.getHash(), header.getNumber());
-                    detailsDS.getStorageDSPrune().prune(header.getHash(), header.getNumber());
+                // pruning block N removes the nodes that are only used by the state of block N - 1
+                long limit = Math.min(pruneBlockNumber, snapshotTracker.getLowestPinned());
+                if (pruneBlockNumber - limit > pruneBlockCount) {
+                    // the journal cannot grow indefinitely due to snapshots that are not closed
+                    LOG.warn(
+                            "Pruning block {} while in use by a snapshot of block {}.",
+                            pruneBlockNumber - pruneBlockCount,
+                            limit);
+                    limit = pruneBlockNumber - pruneBlockCount;
+                }
+
+                long first = lastPrunedBlock < 0 ? limit : lastPrunedBlock + 1;
+                for (long number = first; number <= limit; number++) {
+                    byte[] pruneBlockHash = blockStore.getBlockHashByNumber(number);
+                    if (pruneBlockHash != null) {
+                        A0BlockHeader header =
+                                blockStore.getBlockByHash(pruneBlockHash).getHeader();
+                        List<byte[]> pruned =
+                                stateDSPrune.prune(header.getHash(), header.getNumber());
+                        if (worldState instanceof TrieImpl) {
+                            // the pruned nodes may still be in the clean node cache
+                            ((TrieImpl) worldState).getCache().evict(pruned);
+                        }
+                        detailsDS.getStorageDSPrune().prune(header.getHash(), header.getNumber());
+                    }
+                    lastPrunedBlock = number;
                 }
             }
         }
@@ -567,36 +681,64 @@ public class AionRepositoryImpl
         return worldState;
     }
 
+    /**
+     * @implNote Does not acquire the repository lock. The snapshot only shares the underlying
+     *     stores, which are set at initialization and handle their own locking, so creating and
+     *     reading from it does not wait for block imports.
+     */
     @Override
     public IRepository getSnapshotTo(byte[] root) {
-        rwLock.readLock().lock();
+        AionRepositoryImpl repo = new AionRepositoryImpl();
+        initSnapshot(repo, root);
+        return repo;
+    }
 
-        try {
-            AionRepositoryImpl repo = new AionRepositoryImpl();
-            repo.blockStore = blockStore;
-            repo.cfg = cfg;
-            repo.stateDatabase = this.stateDatabase;
-            repo.stateWithArchive = this.stateWithArchive;
-            repo.stateDSPrune = this.stateDSPrune;
+    /**
+     * Creates a read-only view of the state at the given block that can be queried concurrently
+     * with block imports. The state of the block is not pruned until the snapshot is closed.
+     *
+     * @param blockNumber the number of the block whose state is viewed
+     * @param root the state root of the block
+     * @return a snapshot that must be closed after use
+     */
+    public AionRepositorySnapshot getReadOnlySnapshot(long blockNumber, byte[] root) {
+        AionRepositorySnapshot repo = new AionRepositorySnapshot(blockNumber, snapshotTracker);
+        initSnapshot(repo, root);
+        return repo;
+    }
 
-            // pruning config
-            repo.pruneEnabled = this.pruneEnabled;
-            repo.pruneBlockCount = this.pruneBlockCount;
-            repo.archiveRate = this.archiveRate;
+    /** @return the number of read-only snapshots that have not been closed */
+    public int getOpenSnapshotCount() {
+        return snapshotTracker.getPinnedCount();
+    }
 
-            repo.detailsDS = this.detailsDS;
-            repo.isSnapshot = true;
+    private void initSnapshot(AionRepositoryImpl repo, byte[] root) {
+        repo.blockStore = blockStore;
+        repo.bloomBitsIndex = bloomBitsIndex;
+        repo.addressHistoryIndex = addressHistoryIndex;
+        repo.indexAddressHistory = indexAddressHistory;
+        repo.cfg = cfg;
+        repo.stateDatabase = this.stateDatabase;
+        repo.stateWithArchive = this.stateWithArchive;
+        repo.stateDSPrune = this.stateDSPrune;
 
-            repo.worldState = repo.createStateTrie();
-            repo.worldState.setRoot(root);
+        // pruning config
+        repo.pruneEnabled = this.pruneEnabled;
+        repo.pruneBlockCount = this.pruneBlockCount;
+        repo.archiveRate = this.archiveRate;
 
-            // gives snapshots access to the pending store
-            repo.pendingStore = this.pendingStore;
+        repo.detailsDS = this.detailsDS;
+        repo.isSnapshot = true;
+        repo.snapshotTracker = this.snapshotTracker;
 
-            return repo;
-        } finally {
-            rwLock.readLock().unlock();
-        }
+        // snapshots are short lived and read through the clean nodes of the live trie instead of
+        // building their own cache, which is safe since the nodes are keyed by hash
+        TrieImpl trie = new SecureTrie(stateDSPrune, root, 0).withPruningEnabled(pruneEnabled);
+        trie.setCache(((TrieImpl) worldState).getCache().withSharedCleanNodes(stateDSPrune));
+        repo.worldState = trie;
+
+        // gives snapshots access to the pending store
+        repo.pendingStore = this.pendingStore;
     }
 
     @Override
@@ -642,6 +784,16 @@ public class AionRepositoryImpl
     public void close() {
         rwLock.writeLock().lock();
         try {
+            try {
+                if (writeBehind != null) {
+                    writeBehind.close();
+                    LOGGEN.info("Write-behind persistence stopped.");
+                    writeBehind = null;
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while persisting the pending writes.", e);
+            }
+
             try {
                 if (detailsDS != null) {
                     detailsDS.close();
@@ -672,6 +824,16 @@ public class AionRepositoryImpl
                 LOGGEN.error("Exception occurred while closing the state archive database.", e);
             }
 
+            try {
+                if (stateJournalDatabase != null) {
+                    stateJournalDatabase.close();
+                    LOGGEN.info("State journal database closed.");
+                    stateJournalDatabase = null;
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while closing the state journal database.", e);
+            }
+
             try {
                 if (transactionDatabase != null) {
                     transactionDatabase.close();
@@ -682,6 +844,26 @@ public class AionRepositoryImpl
                 LOGGEN.error("Exception occurred while closing the transaction database.", e);
             }
 
+            try {
+                if (bloomBitsDatabase != null) {
+                    bloomBitsDatabase.close();
+                    LOGGEN.info("Bloom bits database closed.");
+                    bloomBitsDatabase = null;
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while closing the bloom bits database.", e);
+            }
+
+            try {
+                if (addressHistoryDatabase != null) {
+                    addressHistoryDatabase.close();
+                    LOGGEN.info("Address history database closed.");
+                    addressHistoryDatabase = null;
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while closing the address history database.", e);
+            }
+
             try {
                 if (blockStore != null) {
                     blockStore.close();
@@ -757,6 +939,14 @@ public class AionRepositoryImpl
         return this.detailsDatabase;
     }
 
+    /**
+     * Retrieves the underlying database of the contract storage tries that are too large to be
+     * kept inside the contract details.
+     */
+    public IByteArrayKeyValueDatabase getStorageDatabase() {
+        return this.storageDatabase;
+    }
+
     /** For testing. */
     public IByteArrayKeyValueDatabase getBlockDatabase() {
         return this.blockDatabase;
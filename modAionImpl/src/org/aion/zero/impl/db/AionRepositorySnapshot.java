@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.db;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.aion.base.db.IContractDetails;
+import org.aion.base.type.Address;
+import org.aion.base.vm.IDataWord;
+import org.aion.mcf.core.AccountState;
+import org.aion.zero.types.A0BlockHeader;
+
+/**
+ * A read-only view of the world state at a given block.
+ *
+ * <p>The snapshot has its own state trie and lock, so reading from it does not wait for the block
+ * imports and flushes done on the repository it was created from. While the snapshot is open the
+ * state of its block is excluded from pruning, therefore it must be closed after use.
+ *
+ * @see AionRepositoryImpl#getReadOnlySnapshot(long, byte[])
+ */
+public final class AionRepositorySnapshot extends AionRepositoryImpl implements AutoCloseable {
+
+    private final long blockNumber;
+
+    private final SnapshotTracker tracker;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    AionRepositorySnapshot(long blockNumber, SnapshotTracker tracker) {
+        this.blockNumber = blockNumber;
+        this.tracker = tracker;
+        tracker.pin(blockNumber);
+    }
+
+    /** @return the number of the block whose state is viewed by this snapshot */
+    public long getBlockNumber() {
+        return blockNumber;
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /** Releases the snapshot allowing its state to be pruned. The shared stores remain open. */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            tracker.release(blockNumber);
+        }
+    }
+
+    @Override
+    public void updateBatch(
+            Map<Address, AccountState> stateCache,
+            Map<Address, IContractDetails<IDataWord>> detailsCache) {
+        throw new UnsupportedOperationException("The snapshot is read-only.");
+    }
+
+    @Override
+    public void flush() {
+        throw new UnsupportedOperationException("The snapshot is read-only.");
+    }
+
+    @Override
+    public void syncToRoot(final byte[] root) {
+        throw new UnsupportedOperationException("The snapshot is read-only.");
+    }
+
+    @Override
+    public void setRoot(byte[] root) {
+        throw new UnsupportedOperationException("The snapshot is read-only.");
+    }
+
+    @Override
+    public void commitBlock(A0BlockHeader blockHeader) {
+        throw new UnsupportedOperationException("The snapshot is read-only.");
+    }
+
+    @Override
+    public void addTxBatch(Map<byte[], byte[]> pendingTx, boolean isPool) {
+        throw new UnsupportedOperationException("The snapshot is read-only.");
+    }
+
+    @Override
+    public void removeTxBatch(Set<byte[]> clearTxSet, boolean isPool) {
+        throw new UnsupportedOperationException("The snapshot is read-only.");
+    }
+
+    @Override
+    public void compact() {
+        throw new UnsupportedOperationException("The snapshot is read-only.");
+    }
+
+    @Override
+    public void compactState() {
+        throw new UnsupportedOperationException("The snapshot is read-only.");
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.db;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongPredicate;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.mcf.db.IBlockStoreBase;
+import org.aion.mcf.vm.types.Bloom;
+import org.aion.zero.impl.types.AionBlock;
+import org.slf4j.Logger;
+
+/**
+ * Index of the main chain log blooms used to answer historical log queries without loading every
+ * block in the requested range.
+ *
+ * <p>The chain is split in sections of {@link #SECTION_SIZE} blocks. For each section the blooms
+ * are stored bit-transposed: one bit vector per bloom bit, where bit {@code i} is set when the
+ * {@code i}-th block of the section has that bloom bit set. A query then only reads the vectors
+ * of the bits it needs and the blocks that are not excluded by them.
+ *
+ * <p>A section is indexed during the block import once it is {@link #CONFIRMATIONS} blocks behind
+ * the best block, provided that the sections before it are indexed. The sections of a chain
+ * imported before the index existed are indexed by {@link #rebuild}. Each section records the hash
+ * of its last block, so sections that are no longer on the main chain (after a deep reorg or a
+ * revert) are ignored by queries and indexed again by {@link #update}.
+ */
+public class BloomBitsIndex {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    public static final int SECTION_SIZE = 4096;
+
+    /** Number of blocks that must follow a section before it gets indexed. */
+    public static final int CONFIRMATIONS = 128;
+
+    private static final int BLOOM_BITS = new Bloom().getData().length * 8;
+
+    // the key lengths keep the three kinds of entries apart
+    private static final byte[] HEAD_KEY = "head".getBytes();
+    private static final int SECTION_KEY_LENGTH = Long.BYTES;
+    private static final int VECTOR_KEY_LENGTH = Long.BYTES + Short.BYTES;
+
+    private final IByteArrayKeyValueDatabase db;
+
+    // the number of consecutive sections indexed from the genesis
+    private long head;
+
+    public BloomBitsIndex(IByteArrayKeyValueDatabase db) {
+        this.db = db;
+        Optional<byte[]> stored = db.get(HEAD_KEY);
+        this.head = stored.isPresent() ? ByteBuffer.wrap(stored.get()).getLong() : 0L;
+    }
+
+    /** @return the number of sections indexed from the genesis */
+    public synchronized long getIndexedSections() {
+        return head;
+    }
+
+    /**
+     * Drops the sections that are no longer on the main chain and indexes the latest section that
+     * has become old enough, if it follows the indexed ones. At most one section is indexed, so the
+     * block import is not delayed by indexing a whole chain.
+     *
+     * @param store the block store holding the main chain
+     * @param bestNumber the number of the best block
+     */
+    public synchronized void update(IBlockStoreBase<AionBlock, ?> store, long bestNumber) {
+        long valid = head;
+        while (valid > 0 && !isOnMainChain(store, valid - 1)) {
+            valid--;
+        }
+
+        long confirmed = confirmedSections(bestNumber);
+        if (valid == confirmed - 1) {
+            if (indexSection(store, valid)) {
+                valid++;
+            }
+        } else if (valid < confirmed - 1 && confirmsSection(bestNumber)) {
+            LOG.warn(
+                    "The log bloom index is {} sections behind, run --rebuild-log-index.",
+                    confirmed - valid);
+        }
+
+        if (valid != head) {
+            setHead(valid);
+        }
+    }
+
+    /**
+     * Drops the whole index and builds it again from the main chain.
+     *
+     * @return the number of indexed sections
+     */
+    public synchronized long rebuild(IBlockStoreBase<AionBlock, ?> store, long bestNumber) {
+        setHead(0L);
+
+        long valid = 0;
+        long confirmed = confirmedSections(bestNumber);
+        while (valid < confirmed && indexSection(store, valid)) {
+            valid++;
+        }
+
+        setHead(valid);
+        return head;
+    }
+
+    /**
+     * Visits the numbers of the main chain blocks in the given range whose log bloom may match the
+     * query, in ascending order. Blocks outside of the indexed sections are always visited.
+     *
+     * @param store the block store holding the main chain
+     * @param from the first block number of the range
+     * @param to the last block number of the range
+     * @param query the blooms that must match: one of the blooms of each group must be contained
+     *     in the block bloom, an empty bloom matches any block
+     * @param visitor called for each candidate block, stops the search by returning {@code false}
+     */
+    public void forEachCandidate(
+            IBlockStoreBase<AionBlock, ?> store,
+            long from,
+            long to,
+            Bloom[][] query,
+            LongPredicate visitor) {
+        long number = from;
+        while (number <= to) {
+            long section = number / SECTION_SIZE;
+            long sectionStart = section * SECTION_SIZE;
+            long sectionEnd = Math.min(sectionStart + SECTION_SIZE - 1, to);
+
+            BitSet matches = getMatches(store, section, query);
+            if (matches == null) {
+                // not indexed, every block is a candidate
+                for (; number <= sectionEnd; number++) {
+                    if (!visitor.test(number)) {
+                        return;
+                    }
+                }
+            } else {
+                int i = matches.nextSetBit((int) (number - sectionStart));
+                while (i >= 0 && sectionStart + i <= sectionEnd) {
+                    if (!visitor.test(sectionStart + i)) {
+                        return;
+                    }
+                    i = matches.nextSetBit(i + 1);
+                }
+                number = sectionEnd + 1;
+            }
+        }
+    }
+
+    /** @return the candidate blocks of the section or {@code null} if it is not indexed */
+    private BitSet getMatches(IBlockStoreBase<AionBlock, ?> store, long section, Bloom[][] query) {
+        synchronized (this) {
+            if (section >= head || !isOnMainChain(store, section)) {
+                return null;
+            }
+        }
+
+        Map<Integer, BitSet> vectors = new HashMap<>();
+        BitSet result = new BitSet(SECTION_SIZE);
+        result.set(0, SECTION_SIZE);
+
+        for (Bloom[] group : query) {
+            BitSet groupMatches = new BitSet(SECTION_SIZE);
+            for (Bloom bloom : group) {
+                BitSet bloomMatches = new BitSet(SECTION_SIZE);
+                bloomMatches.set(0, SECTION_SIZE);
+
+                byte[] data = bloom.getData();
+                for (int bit = 0; bit < BLOOM_BITS; bit++) {
+                    if (isSet(data, bit)) {
+                        bloomMatches.and(
+                                vectors.computeIfAbsent(bit, b -> getVector(section, b)));
+                    }
+                }
+                groupMatches.or(bloomMatches);
+            }
+            result.and(groupMatches);
+        }
+        return result;
+    }
+
+    private boolean indexSection(IBlockStoreBase<AionBlock, ?> store, long section) {
+        BitSet[] vectors = new BitSet[BLOOM_BITS];
+        byte[] lastHash = null;
+
+        for (int i = 0; i < SECTION_SIZE; i++) {
+            AionBlock block = store.getChainBlockByNumber(section * SECTION_SIZE + i);
+            if (block == null) {
+                LOG.error("Missing main chain block, cannot index log bloom section {}.", section);
+                return false;
+            }
+
+            byte[] data = block.getLogBloom();
+            for (int bit = 0; bit < BLOOM_BITS; bit++) {
+                if (isSet(data, bit)) {
+                    if (vectors[bit] == null) {
+                        vectors[bit] = new BitSet(SECTION_SIZE);
+                    }
+                    vectors[bit].set(i);
+                }
+            }
+            lastHash = block.getHash();
+        }
+
+        Map<byte[], byte[]> batch = new HashMap<>();
+        for (int bit = 0; bit < BLOOM_BITS; bit++) {
+            // empty vectors are deleted to clear those of a previous version of the section
+            byte[] vector = vectors[bit] == null ? null : vectors[bit].toByteArray();
+            batch.put(vectorKey(section, bit), vector);
+        }
+        batch.put(sectionKey(section), lastHash);
+        db.putBatch(batch);
+        return true;
+    }
+
+    /** @return the number of sections followed by at least {@link #CONFIRMATIONS} blocks */
+    private static long confirmedSections(long bestNumber) {
+        return Math.max(0L, (bestNumber - CONFIRMATIONS + 1) / SECTION_SIZE);
+    }
+
+    /** @return {@code true} if the best block is the one that makes a section old enough */
+    private static boolean confirmsSection(long bestNumber) {
+        return bestNumber >= CONFIRMATIONS && (bestNumber - CONFIRMATIONS + 1) % SECTION_SIZE == 0;
+    }
+
+    private boolean isOnMainChain(IBlockStoreBase<AionBlock, ?> store, long section) {
+        Optional<byte[]> stored = db.get(sectionKey(section));
+        return stored.isPresent()
+                && Arrays.equals(
+                        stored.get(), store.getBlockHashByNumber((section + 1) * SECTION_SIZE - 1));
+    }
+
+    private BitSet getVector(long section, int bit) {
+        Optional<byte[]> stored = db.get(vectorKey(section, bit));
+        return stored.isPresent() ? BitSet.valueOf(stored.get()) : new BitSet();
+    }
+
+    private void setHead(long head) {
+        this.head = head;
+        db.put(HEAD_KEY, ByteBuffer.allocate(Long.BYTES).putLong(head).array());
+    }
+
+    private static boolean isSet(byte[] bloom, int bit) {
+        return (bloom[bit >>> 3] & (1 << (bit & 7))) != 0;
+    }
+
+    private static byte[] sectionKey(long section) {
+        return ByteBuffer.allocate(SECTION_KEY_LENGTH).putLong(section).array();
+    }
+
+    private static byte[] vectorKey(long section, int bit) {
+        return ByteBuffer.allocate(VECTOR_KEY_LENGTH)
+                .putLong(section)
+                .putShort((short) bit)
+                .array();
+    }
+}
@@ -23,12 +23,21 @@
 
 package org.aion.zero.impl.db;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
 import org.aion.base.type.IBlock;
+import org.aion.db.impl.DBVendor;
+import org.aion.db.impl.DatabaseFactory;
+import org.aion.db.impl.DatabaseFactory.Props;
 import org.aion.log.AionLoggerFactory;
 import org.aion.mcf.config.CfgDb;
+import org.aion.mcf.config.CfgDb.Names;
 import org.aion.mcf.db.IBlockStoreBase;
 import org.aion.zero.impl.AionBlockchainImpl;
 import org.aion.zero.impl.AionGenesis;
@@ -39,6 +48,23 @@ import org.aion.zero.impl.types.AionBlock;
 
 public class RecoveryUtils {
 
+    private static final List<String> MIGRATED_DATABASES =
+            List.of(
+                    Names.BLOCK,
+                    Names.INDEX,
+                    Names.PENDING_BLOCK,
+                    Names.DETAILS,
+                    Names.STORAGE,
+                    Names.STATE,
+                    Names.STATE_ARCHIVE,
+                    Names.STATE_JOURNAL,
+                    Names.TRANSACTION,
+                    Names.BLOOM_BITS,
+                    Names.ADDRESS_HISTORY,
+                    Names.TX_CACHE,
+                    Names.TX_POOL);
+    private static final int MIGRATION_BATCH_SIZE = 10_000;
+
     public enum Status {
         SUCCESS,
         FAILURE,
@@ -125,6 +151,161 @@ public class RecoveryUtils {
         repository.close();
     }
 
+    /** Used by the CLI call. */
+    public static void rebuildBloomBitsIndex() {
+        // ensure mining is disabled
+        CfgAion cfg = CfgAion.inst();
+        cfg.dbFromXML();
+        cfg.getConsensus().setMining(false);
+
+        cfg.getDb().setHeapCacheEnabled(false);
+
+        Map<String, String> cfgLog = new HashMap<>();
+        cfgLog.put("DB", "INFO");
+        cfgLog.put("GEN", "INFO");
+
+        AionLoggerFactory.init(cfgLog);
+
+        // get the current blockchain
+        AionRepositoryImpl repository = AionRepositoryImpl.inst();
+
+        AionBlockStore store = repository.getBlockStore();
+        long sections = repository.getBloomBitsIndex().rebuild(store, store.getMaxNumber());
+        System.out.println(
+                "Indexed the log blooms of "
+                        + sections * BloomBitsIndex.SECTION_SIZE
+                        + " blocks in "
+                        + sections
+                        + " sections.");
+
+        repository.close();
+    }
+
+    /** Used by the CLI call. */
+    public static Status migrateToColumnFamilies() {
+        // ensure mining is disabled
+        CfgAion cfg = CfgAion.inst();
+        cfg.dbFromXML();
+        cfg.getConsensus().setMining(false);
+
+        cfg.getDb().setHeapCacheEnabled(false);
+
+        Map<String, String> cfgLog = new HashMap<>();
+        cfgLog.put("DB", "INFO");
+        cfgLog.put("GEN", "INFO");
+
+        AionLoggerFactory.init(cfgLog);
+
+        DBVendor vendor = DBVendor.fromString(cfg.getDb().getVendor());
+        if (vendor == DBVendor.ROCKSDB_CF) {
+            System.out.println("The databases are already stored as column families.");
+            return Status.ILLEGAL_ARGUMENT;
+        }
+        if (!vendor.getPersistence()) {
+            System.out.println("The " + vendor.toValue() + " databases are not persistent.");
+            return Status.ILLEGAL_ARGUMENT;
+        }
+
+        RepositoryConfig repoConfig =
+                new RepositoryConfig(
+                        cfg.getDatabasePath(), ContractDetailsAion.getInstance(), cfg.getDb());
+
+        for (String name : MIGRATED_DATABASES) {
+            if (!new File(cfg.getDatabasePath(), name).exists()) {
+                continue;
+            }
+
+            Properties props = repoConfig.getDatabaseConfig(name);
+            props.setProperty(Props.ENABLE_LOCKING, "false");
+            props.setProperty(Props.DB_PATH, cfg.getDatabasePath());
+            props.setProperty(Props.DB_NAME, name);
+            IByteArrayKeyValueDatabase source = DatabaseFactory.connect(props);
+
+            props.setProperty(Props.DB_TYPE, DBVendor.ROCKSDB_CF.toValue());
+            IByteArrayKeyValueDatabase target = DatabaseFactory.connect(props);
+
+            try {
+                if (source == null || !source.open() || target == null || !target.open()) {
+                    System.out.println("Unable to open the «" + name + "» database.");
+                    return Status.FAILURE;
+                }
+                long count = copy(source, target);
+                System.out.println("Copied " + count + " entries of the «" + name + "» database.");
+            } finally {
+                if (source != null) {
+                    source.close();
+                }
+                if (target != null) {
+                    target.close();
+                }
+            }
+        }
+
+        // the kernel uses the migrated databases from now on
+        cfg.getDb().setVendor(DBVendor.ROCKSDB_CF.toValue());
+        cfg.toXML(null, cfg.getExecConfigFile());
+
+        System.out.println(
+                "Migration complete. The "
+                        + vendor.toValue()
+                        + " databases in "
+                        + cfg.getDatabasePath()
+                        + " are no longer used and can be deleted.");
+        return Status.SUCCESS;
+    }
+
+    /**
+     * Copies all the entries of the source to the target in batches of {@link
+     * #MIGRATION_BATCH_SIZE}, iterating over the source so that only one batch is held in memory.
+     *
+     * @return the number of copied entries
+     */
+    private static long copy(IByteArrayKeyValueDatabase source, IByteArrayKeyValueDatabase target) {
+        AtomicLong count = new AtomicLong();
+        Map<byte[], byte[]> batch = new HashMap<>();
+        source.forEachEntry(
+                (key, value) -> {
+                    batch.put(key, value);
+                    if (batch.size() >= MIGRATION_BATCH_SIZE) {
+                        target.putBatch(batch);
+                        count.addAndGet(batch.size());
+                        batch.clear();
+                    }
+                });
+        target.putBatch(batch);
+        return count.get() + batch.size();
+    }
+
+    /** Used by the CLI call. */
+    public static void rebuildAddressHistoryIndex() {
+        // ensure mining is disabled
+        CfgAion cfg = CfgAion.inst();
+        cfg.dbFromXML();
+        cfg.getConsensus().setMining(false);
+
+        cfg.getDb().setHeapCacheEnabled(false);
+
+        Map<String, String> cfgLog = new HashMap<>();
+        cfgLog.put("DB", "INFO");
+        cfgLog.put("GEN", "INFO");
+
+        AionLoggerFactory.init(cfgLog);
+
+        // get the current blockchain
+        AionRepositoryImpl repository = AionRepositoryImpl.inst();
+
+        AionBlockStore store = repository.getBlockStore();
+        long last = repository.getAddressHistoryIndex().rebuild(store, store.getMaxNumber());
+        System.out.println("Indexed the account transactions of " + (last + 1) + " blocks.");
+        if (!cfg.getDb().isAddressHistoryIndexed()) {
+            System.out.println(
+                    "The index is not updated during block import."
+                            + " Set index_address_history to true in the config file to use it.");
+        }
+
+        repository.close();
+    }
+
     /** Used by the CLI call. */
     public static void dumpBlocks(long count) {
         // ensure mining is disabled
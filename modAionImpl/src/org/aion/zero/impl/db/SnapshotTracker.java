@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.db;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps track of the block numbers whose state is in use by open {@link AionRepositorySnapshot}
+ * instances, so that the nodes reachable from their state roots are not pruned while being read.
+ *
+ * @implNote Shared by a repository and all the snapshots created from it.
+ */
+final class SnapshotTracker {
+
+    // block number => number of open snapshots
+    private final TreeMap<Long, Integer> pinned = new TreeMap<>();
+
+    synchronized void pin(long blockNumber) {
+        pinned.merge(blockNumber, 1, Integer::sum);
+    }
+
+    synchronized void release(long blockNumber) {
+        Integer count = pinned.get(blockNumber);
+        if (count == null) {
+            return;
+        }
+        if (count == 1) {
+            pinned.remove(blockNumber);
+        } else {
+            pinned.put(blockNumber, count - 1);
+        }
+    }
+
+    /**
+     * @return the lowest block number in use by a snapshot or {@link Long#MAX_VALUE} when there
+     *     are no open snapshots
+     */
+    synchronized long getLowestPinned() {
+        Map.Entry<Long, Integer> lowest = pinned.firstEntry();
+        return lowest == null ? Long.MAX_VALUE : lowest.getKey();
+    }
+
+    /** @return the number of open snapshots */
+    synchronized int getPinnedCount() {
+        return pinned.values().stream().mapToInt(Integer::intValue).sum();
+    }
+}
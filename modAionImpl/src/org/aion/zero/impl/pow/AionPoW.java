@@ -48,6 +48,7 @@ import org.aion.log.LogEnum;
 import org.aion.mcf.blockchain.IPendingState;
 import org.aion.mcf.core.ImportResult;
 import org.aion.zero.impl.blockchain.AionImpl;
+import org.aion.zero.impl.blockchain.BlockTemplateBuilder;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.core.IAionBlockchain;
 import org.aion.zero.impl.sync.SyncMgr;
@@ -66,6 +67,7 @@ public class AionPoW {
 
     protected IAionBlockchain blockchain;
     protected IPendingState<AionTransaction> pendingState;
+    protected BlockTemplateBuilder templateBuilder;
     protected IEventMgr eventMgr;
 
     protected AtomicBoolean initialized = new AtomicBoolean(false);
@@ -107,7 +109,7 @@ public class AionPoW {
 
     /**
      * Creates an {@link AionPoW} instance. Be sure to call {@link #init(IAionBlockchain,
-     * IPendingState, IEventMgr)} to initialize the instance.
+     * IPendingState, BlockTemplateBuilder, IEventMgr)} to initialize the instance.
      */
     public AionPoW() {}
 
@@ -116,15 +118,18 @@ public class AionPoW {
      *
      * @param blockchain Aion blockchain instance
      * @param pendingState List of Aion transactions
+     * @param templateBuilder Block template builder
      * @param eventMgr Event manager
      */
     public void init(
             IAionBlockchain blockchain,
             IPendingState<AionTransaction> pendingState,
+            BlockTemplateBuilder templateBuilder,
             IEventMgr eventMgr) {
         if (initialized.compareAndSet(false, true)) {
             this.blockchain = blockchain;
             this.pendingState = pendingState;
+            this.templateBuilder = templateBuilder;
             this.eventMgr = eventMgr;
             this.syncMgr = SyncMgr.inst();
 
@@ -290,7 +295,8 @@ public class AionPoW {
 
             List<AionTransaction> txs = pendingState.getPendingTransactions();
 
-            AionBlock newBlock = blockchain.createNewBlock(bestBlock, txs, false);
+            // built on a snapshot of the parent state, without blocking the block imports
+            AionBlock newBlock = templateBuilder.build(bestBlock, txs).block;
 
             EventConsensus ev = new EventConsensus(EventConsensus.CALLBACK.ON_BLOCK_TEMPLATE);
             ev.setFuncArgs(Collections.singletonList(newBlock));
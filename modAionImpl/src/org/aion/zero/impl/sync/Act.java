@@ -53,4 +53,8 @@ public final class Act {
     public static final byte BROADCAST_TX = 6;
 
     public static final byte BROADCAST_BLOCK = 7;
+
+    public static final byte REQ_TRIE_DATA = 8;
+
+    public static final byte RES_TRIE_DATA = 9;
 }
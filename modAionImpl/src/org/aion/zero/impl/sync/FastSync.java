@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.sync;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.aion.mcf.core.ImportResult;
+import org.aion.p2p.INode;
+import org.aion.p2p.IP2pMgr;
+import org.aion.zero.impl.AionBlockchainImpl;
+import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.sync.msg.ReqTrieData;
+import org.aion.zero.impl.sync.msg.ResTrieData;
+import org.aion.zero.impl.types.AionBlock;
+import org.slf4j.Logger;
+
+/**
+ * Brings a new node up to date by downloading the world state of a recent block instead of
+ * executing all the blocks before it.
+ *
+ * <p>While active, the blocks received by the regular sync are stored without executing their
+ * transactions. When the stored blocks come within {@link #PIVOT_DISTANCE} of the network best
+ * block, the last of them becomes the pivot and its world state is requested from the peers with
+ * {@link ReqTrieData} messages. The blocks keep being stored meanwhile and, since the peers do not
+ * keep the world state of old blocks, the pivot moves to the last stored block when it falls
+ * {@link #PIVOT_MAX_AGE} blocks behind. Once the world state is complete, the blocks after the
+ * pivot are executed and the regular sync continues from the last of them.
+ *
+ * <p>The blocks before the pivot are not executed, so their receipts are not available locally.
+ */
+final class FastSync {
+
+    /** The pivot is chosen when the stored blocks are this close to the network best block. */
+    static final long PIVOT_DISTANCE = 16;
+
+    /** The pivot moves to the last stored block when it falls this far behind. */
+    static final long PIVOT_MAX_AGE = 64;
+
+    /** Fast sync is used only when the network is at least this far ahead of the genesis. */
+    static final long MIN_DISTANCE = 1024;
+
+    /** Time after which the data requested from a peer is requested from another one. */
+    static final long REQUEST_TIMEOUT = 10_000;
+
+    /** Maximum number of locally stored nodes walked on each request round. */
+    private static final int LOCAL_BUDGET = 10_000;
+
+    /** Number of stored blocks after which the block store is flushed. */
+    private static final int FLUSH_INTERVAL = 1024;
+
+    private static final class Request {
+        private final ReqTrieData message;
+        private final long time;
+
+        private Request(ReqTrieData message, long time) {
+            this.message = message;
+            this.time = time;
+        }
+    }
+
+    private final AionBlockchainImpl chain;
+    private final IP2pMgr p2p;
+    private final Logger log;
+    private final StateDownload download;
+
+    private volatile boolean active;
+
+    // the last block stored without state and the block whose world state is downloaded
+    private AionBlock head;
+    private AionBlock pivot = null;
+    private int unflushed = 0;
+
+    // the request in progress for each peer
+    private final Map<Integer, Request> requests = new HashMap<>();
+
+    FastSync(final AionBlockchainImpl _chain, final IP2pMgr _p2p, final Logger _log) {
+        this.chain = _chain;
+        this.p2p = _p2p;
+        this.log = _log;
+
+        AionRepositoryImpl repo = chain.getRepository();
+        this.download =
+                new StateDownload(
+                        repo.getStateDatabase(),
+                        repo.getStorageDatabase(),
+                        repo.getDetailsDatabase());
+
+        // blocks already executed cannot be skipped
+        this.head = chain.getBestBlock();
+        this.active = head.getNumber() == 0;
+    }
+
+    /** @return {@code true} while the blocks are stored without state */
+    boolean isActive() {
+        return active;
+    }
+
+    /** @return the number of the last block stored without state */
+    synchronized long getHeadNumber() {
+        return head.getNumber();
+    }
+
+    /** @return the hash of the last block stored without state */
+    synchronized byte[] getHeadHash() {
+        return head.getHash();
+    }
+
+    /**
+     * Stores a block without executing it while fast sync is active, otherwise imports it into
+     * the chain.
+     */
+    synchronized ImportResult importBlock(AionBlock block) {
+        if (!active) {
+            return chain.tryToConnect(block);
+        }
+        if (!Arrays.equals(block.getParentHash(), head.getHash())) {
+            return chain.getBlockStore().isBlockExist(block.getHash())
+                    ? ImportResult.EXIST
+                    : ImportResult.NO_PARENT;
+        }
+        if (!chain.storeBlockWithoutState(block)) {
+            return ImportResult.INVALID_BLOCK;
+        }
+
+        head = block;
+        if (++unflushed >= FLUSH_INTERVAL) {
+            chain.getBlockStore().flush();
+            unflushed = 0;
+        }
+        return ImportResult.IMPORTED_BEST;
+    }
+
+    /**
+     * Chooses or moves the pivot and requests the missing parts of its world state from the idle
+     * peers.
+     *
+     * @param networkBest the best block number known from the network
+     * @param now the current time in milliseconds
+     */
+    synchronized void request(long networkBest, long now) {
+        if (!active) {
+            return;
+        }
+
+        if (pivot == null) {
+            if (head.getNumber() == 0 && networkBest > 0 && networkBest < MIN_DISTANCE) {
+                log.info("<fast-sync disabled: the network is only {} blocks ahead>", networkBest);
+                active = false;
+                return;
+            }
+            if (head.getNumber() + PIVOT_DISTANCE < networkBest) {
+                // storing the blocks
+                return;
+            }
+            setPivot();
+        } else if (head.getNumber() - pivot.getNumber() > PIVOT_MAX_AGE) {
+            setPivot();
+        }
+
+        download.walkStored(LOCAL_BUDGET);
+
+        Iterator<Request> it = requests.values().iterator();
+        while (it.hasNext()) {
+            Request r = it.next();
+            if (now - r.time > REQUEST_TIMEOUT) {
+                download.retry(r.message.getType(), r.message.getKeys());
+                it.remove();
+            }
+        }
+
+        if (download.isComplete()) {
+            complete();
+            return;
+        }
+
+        Collection<INode> nodes = p2p.getActiveNodes().values();
+        for (INode node : nodes) {
+            if (requests.containsKey(node.getIdHash())
+                    || node.getBestBlockNumber() < pivot.getNumber()) {
+                continue;
+            }
+            if (!send(node.getIdHash(), node.getIdShort(), now)) {
+                // nothing left to request
+                return;
+            }
+        }
+    }
+
+    private void setPivot() {
+        pivot = head;
+        requests.clear();
+        download.start(pivot.getStateRoot());
+
+        log.info(
+                "<fast-sync pivot number={} hash={} pending={}>",
+                pivot.getNumber(),
+                pivot.getShortHash(),
+                download.getPending());
+    }
+
+    private boolean send(int peer, String displayId, long now) {
+        ReqTrieData message = download.nextRequest();
+        if (message == null) {
+            return false;
+        }
+        requests.put(peer, new Request(message, now));
+        p2p.send(peer, displayId, message);
+
+        if (log.isDebugEnabled()) {
+            log.debug(
+                    "<fast-sync get-trie-data type={} size={} node={}>",
+                    message.getType(),
+                    message.getKeys().size(),
+                    displayId);
+        }
+        return true;
+    }
+
+    /**
+     * Stores the verified data received from a peer and sends it the next request.
+     *
+     * @param peer the id hash of the peer that sent the data
+     * @param displayId the display id of the peer
+     * @param response the received data
+     */
+    synchronized void receive(int peer, String displayId, ResTrieData response) {
+        Request request = requests.get(peer);
+        if (!active || request == null || request.message.getType() != response.getType()) {
+            return;
+        }
+        requests.remove(peer);
+
+        List<byte[]> keys = request.message.getKeys();
+        int accepted =
+                download.receive(response.getType(), response.getKeys(), response.getValues());
+        // the data that was not received is requested again
+        download.retry(response.getType(), keys);
+
+        if (log.isDebugEnabled()) {
+            log.debug(
+                    "<fast-sync trie-data type={} requested={} accepted={} node={}>",
+                    response.getType(),
+                    keys.size(),
+                    accepted,
+                    displayId);
+        }
+
+        if (download.isComplete()) {
+            complete();
+        } else if (accepted > 0) {
+            send(peer, displayId, System.currentTimeMillis());
+        }
+    }
+
+    /** Continues the chain from the pivot once its world state is complete. */
+    private void complete() {
+        log.info(
+                "<fast-sync state complete number={} state-nodes={} storage-nodes={} contracts={}>",
+                pivot.getNumber(),
+                download.getDownloaded(TrieDataType.STATE),
+                download.getDownloaded(TrieDataType.STORAGE),
+                download.getDownloaded(TrieDataType.DETAILS));
+
+        chain.getBlockStore().flush();
+        if (!chain.completeFastSync(pivot, head)) {
+            // the regular import recovers the world state by executing the stored blocks
+            log.error(
+                    "<fast-sync failed: the world state of block {} is missing>",
+                    pivot.getNumber());
+        }
+        active = false;
+        requests.clear();
+    }
+}
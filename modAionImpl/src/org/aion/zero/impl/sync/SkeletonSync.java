@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.sync;
+
+import static org.aion.p2p.P2pConstant.LARGE_REQUEST_SIZE;
+import static org.aion.zero.impl.sync.PeerState.Mode.NORMAL;
+import static org.aion.zero.impl.sync.PeerState.Mode.THUNDER;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import org.aion.p2p.INode;
+import org.aion.p2p.IP2pMgr;
+import org.aion.zero.impl.sync.msg.ReqBlocksHeaders;
+import org.aion.zero.types.A0BlockHeader;
+import org.slf4j.Logger;
+
+/**
+ * Downloads the headers far ahead of the local chain from many peers at once.
+ *
+ * <p>A skeleton made of every {@link #SEGMENT_SIZE}-th header is requested from the peer with the
+ * highest total difficulty. The segments between the skeleton headers are then requested from
+ * different peers in parallel. A segment is accepted only if it links to the skeleton headers at
+ * both of its ends, otherwise, or when the response is late, it is requested again from another
+ * peer. When several peers send segments that do not link to the skeleton, the skeleton is more
+ * likely wrong than they are: it is dropped and its peer is not chosen for the next skeleton until
+ * a skeleton completes. The accepted segments go on to the body requests as they arrive; the blocks
+ * that cannot be imported yet are kept in the pending block store until the chain reaches them.
+ *
+ * <p>The requests use the existing {@link ReqBlocksHeaders} message, so a skeleton header is
+ * requested on its own.
+ */
+final class SkeletonSync {
+
+    /** Number of headers in a segment, ending with a skeleton header. */
+    static final int SEGMENT_SIZE = LARGE_REQUEST_SIZE;
+
+    /** Maximum number of segments in a skeleton. */
+    static final int SEGMENT_COUNT = 16;
+
+    /** Time after which a skeleton header or a segment is requested from another peer. */
+    static final long REQUEST_TIMEOUT = 10_000;
+
+    /** Number of requests for the same segment after which the skeleton is dropped. */
+    static final int MAX_ATTEMPTS = 3;
+
+    /** Number of peers sending invalid segments after which the skeleton is dropped. */
+    static final int MAX_REJECTIONS = 2;
+
+    /** A skeleton is started only when the network is at least this far ahead. */
+    static final long MIN_DISTANCE = (long) SEGMENT_SIZE * SEGMENT_COUNT;
+
+    /** A skeleton is not started further than this ahead of the local chain. */
+    static final long MAX_LEAD = 4 * MIN_DISTANCE;
+
+    /** The result of matching received headers against the skeleton. */
+    enum Match {
+        /** The headers were not requested by the skeleton sync. */
+        UNRELATED,
+        /** A skeleton header, kept to verify its segments. */
+        SKELETON,
+        /** A segment linked to the skeleton, ready for the body requests. */
+        SEGMENT,
+        /** A segment that does not link to the skeleton. */
+        REJECTED
+    }
+
+    private static final class Segment {
+        /** Number of the first header. */
+        private final long first;
+
+        /** Id hash of the peer the segment was requested from, 0 when not requested. */
+        private int peer = 0;
+
+        private long requested = 0;
+        private int attempts = 0;
+        private boolean done = false;
+
+        /** Peers that sent an invalid segment. */
+        private final Set<Integer> rejected = new HashSet<>();
+
+        private Segment(long first) {
+            this.first = first;
+        }
+
+        private long last() {
+            return first + SEGMENT_SIZE - 1;
+        }
+    }
+
+    private final IP2pMgr p2p;
+    private final Map<Integer, PeerState> peerStates;
+    private final SyncStats stats;
+    private final Logger log;
+
+    // the block before the first segment
+    private long base = 0;
+    private byte[] baseHash = null;
+
+    // the peer the skeleton was requested from
+    private int skeletonPeer = 0;
+    private long skeletonRequested = 0;
+
+    // the peers that sent segments not linked to the skeleton
+    private final Set<Integer> rejecting = new HashSet<>();
+
+    // the peers whose skeletons were dropped, excluded until a skeleton completes
+    private final Set<Integer> excluded = new HashSet<>();
+
+    // the skeleton headers by number and the segments by their first number
+    private final TreeMap<Long, byte[]> skeleton = new TreeMap<>();
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    SkeletonSync(
+            final IP2pMgr _p2p,
+            final Map<Integer, PeerState> _peerStates,
+            final SyncStats _stats,
+            final Logger _log) {
+        this.p2p = _p2p;
+        this.peerStates = _peerStates;
+        this.stats = _stats;
+        this.log = _log;
+    }
+
+    /**
+     * Starts a skeleton when the network is far enough ahead and requests its missing parts.
+     *
+     * @param selfNumber the number of the local best block
+     * @param selfHash the hash of the local best block
+     * @param selfTd the total difficulty of the local chain
+     * @param networkBest the best block number known from the network
+     * @param now the current time in milliseconds
+     */
+    synchronized void request(
+            long selfNumber, byte[] selfHash, BigInteger selfTd, long networkBest, long now) {
+        Collection<INode> nodes = p2p.getActiveNodes().values();
+
+        if (!segments.isEmpty() && isFinished(selfNumber, now)) {
+            reset(selfNumber, selfHash);
+        }
+
+        if (segments.isEmpty()) {
+            if (baseHash == null || base < selfNumber) {
+                // start from the chain if it reached the last skeleton or nothing was done yet
+                reset(selfNumber, selfHash);
+            }
+            if (networkBest < selfNumber + MIN_DISTANCE || base > selfNumber + MAX_LEAD) {
+                return;
+            }
+            startSkeleton(selfTd, nodes, now);
+            return;
+        }
+
+        requestSegments(selfTd, nodes, now);
+    }
+
+    /**
+     * Checks if the current skeleton can be replaced: all its segments were received, the local
+     * chain went past it, the skeleton headers did not arrive or its segments failed too often.
+     */
+    private boolean isFinished(long selfNumber, long now) {
+        if (segments.lastKey() + SEGMENT_SIZE - 1 <= selfNumber) {
+            return true;
+        }
+        if (skeleton.size() < segments.size() && now - skeletonRequested > REQUEST_TIMEOUT) {
+            // drop the segments whose skeleton headers are missing
+            segments.values()
+                    .removeIf(s -> !skeleton.containsKey(s.last()) || parentHash(s) == null);
+            if (segments.isEmpty()) {
+                log.debug("<skeleton-sync timeout peer={}>", skeletonPeer);
+                return true;
+            }
+            // the skeleton continues from the chain after these segments
+            skeletonRequested = Long.MAX_VALUE;
+        }
+        if (segments.values().stream().anyMatch(s -> s.attempts > MAX_ATTEMPTS && !s.done)) {
+            log.debug("<skeleton-sync dropped base={} peer={}>", base, skeletonPeer);
+            if (!rejecting.isEmpty()) {
+                // segments failed against the skeleton, not only by timing out
+                excluded.add(skeletonPeer);
+            }
+            return true;
+        }
+        if (segments.values().stream().allMatch(s -> s.done)) {
+            // continue from the last skeleton header if the skeleton is complete
+            Long last = skeleton.isEmpty() ? null : skeleton.lastKey();
+            if (last != null && segments.size() == (last - base) / SEGMENT_SIZE) {
+                base = last;
+                baseHash = skeleton.get(last);
+            } else {
+                baseHash = null;
+            }
+            segments.clear();
+            skeleton.clear();
+            rejecting.clear();
+            excluded.clear();
+            return false;
+        }
+        return false;
+    }
+
+    private void reset(long selfNumber, byte[] selfHash) {
+        base = selfNumber;
+        baseHash = selfHash;
+        segments.clear();
+        skeleton.clear();
+        rejecting.clear();
+        skeletonPeer = 0;
+    }
+
+    /** Drops the current skeleton and excludes its peer from the next skeleton choice. */
+    private void dropSkeleton() {
+        log.debug("<skeleton-sync rejected base={} peer={}>", base, skeletonPeer);
+        excluded.add(skeletonPeer);
+        segments.clear();
+        skeleton.clear();
+        rejecting.clear();
+        skeletonPeer = 0;
+    }
+
+    /** Requests the skeleton headers from the peer with the highest total difficulty. */
+    private void startSkeleton(BigInteger selfTd, Collection<INode> nodes, long now) {
+        Optional<INode> best =
+                nodes.stream()
+                        .filter(n -> isAdequateTotalDifficulty(n, selfTd))
+                        .filter(n -> !excluded.contains(n.getIdHash()))
+                        .max(Comparator.comparing(INode::getTotalDifficulty));
+        if (!best.isPresent()) {
+            return;
+        }
+
+        INode node = best.get();
+        long count = Math.min(SEGMENT_COUNT, (node.getBestBlockNumber() - base) / SEGMENT_SIZE);
+        if (count < 2) {
+            return;
+        }
+
+        skeletonPeer = node.getIdHash();
+        skeletonRequested = now;
+        for (long i = 0; i < count; i++) {
+            Segment segment = new Segment(base + i * SEGMENT_SIZE + 1);
+            segments.put(segment.first, segment);
+            p2p.send(node.getIdHash(), node.getIdShort(), new ReqBlocksHeaders(segment.last(), 1));
+            stats.updateTotalRequestsToPeer(node.getIdShort(), RequestType.HEADERS);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug(
+                    "<skeleton-sync from-num={} segments={} node={}>",
+                    base + 1,
+                    count,
+                    node.getIdShort());
+        }
+    }
+
+    /** Requests each linked segment that is not yet received from a different idle peer. */
+    private void requestSegments(BigInteger selfTd, Collection<INode> nodes, long now) {
+        Set<Integer> busy = new HashSet<>();
+        for (Segment s : segments.values()) {
+            if (!s.done && s.peer != 0 && now - s.requested <= REQUEST_TIMEOUT) {
+                busy.add(s.peer);
+            }
+        }
+
+        for (Segment segment : segments.values()) {
+            if (segment.done
+                    || (segment.peer != 0 && now - segment.requested <= REQUEST_TIMEOUT)
+                    || !skeleton.containsKey(segment.last())
+                    || parentHash(segment) == null) {
+                continue;
+            }
+
+            Optional<INode> peer =
+                    nodes.stream()
+                            .filter(n -> isAdequateTotalDifficulty(n, selfTd))
+                            .filter(n -> n.getBestBlockNumber() >= segment.last())
+                            .filter(n -> !busy.contains(n.getIdHash()))
+                            .filter(n -> n.getIdHash() != segment.peer)
+                            .filter(n -> !segment.rejected.contains(n.getIdHash()))
+                            .filter(n -> isIdle(n, now))
+                            .findAny();
+            if (!peer.isPresent()) {
+                // no more idle peers
+                return;
+            }
+
+            INode node = peer.get();
+            segment.peer = node.getIdHash();
+            segment.requested = now;
+            segment.attempts++;
+            busy.add(node.getIdHash());
+
+            if (log.isDebugEnabled()) {
+                log.debug(
+                        "<skeleton-sync get-segment from-num={} size={} node={} attempt={}>",
+                        segment.first,
+                        SEGMENT_SIZE,
+                        node.getIdShort(),
+                        segment.attempts);
+            }
+            p2p.send(
+                    node.getIdHash(),
+                    node.getIdShort(),
+                    new ReqBlocksHeaders(segment.first, SEGMENT_SIZE));
+            stats.updateTotalRequestsToPeer(node.getIdShort(), RequestType.HEADERS);
+
+            // the peer made a jump ahead of the chain and returns to the regular requests after
+            PeerState state = peerStates.get(node.getIdHash());
+            state.setMode(THUNDER);
+            state.setLastHeaderRequest(now);
+        }
+    }
+
+    /** Checks that the peer's total difficulty is higher than or equal to the local chain. */
+    private static boolean isAdequateTotalDifficulty(INode n, BigInteger selfTd) {
+        return n.getTotalDifficulty() != null && n.getTotalDifficulty().compareTo(selfTd) >= 0;
+    }
+
+    /** Checks that the peer was not sent a header request recently by the regular sync. */
+    private boolean isIdle(INode n, long now) {
+        return (now - 5000)
+                > peerStates
+                        .computeIfAbsent(n.getIdHash(), k -> new PeerState(NORMAL, base))
+                        .getLastHeaderRequest();
+    }
+
+    /** @return the hash of the header before the given segment, if known */
+    private byte[] parentHash(Segment segment) {
+        return segment.first == base + 1 ? baseHash : skeleton.get(segment.first - 1);
+    }
+
+    /**
+     * Matches validated and continuous headers received from a peer against the skeleton.
+     *
+     * @param peer the id hash of the peer that sent the headers
+     * @param headers the received headers
+     * @return how the headers relate to the skeleton
+     */
+    synchronized Match accept(int peer, List<A0BlockHeader> headers) {
+        A0BlockHeader first = headers.get(0);
+        long number = first.getNumber();
+
+        if (peer == skeletonPeer && headers.size() == 1) {
+            Segment segment = segments.get(number - SEGMENT_SIZE + 1);
+            if (segment != null && !skeleton.containsKey(number)) {
+                skeleton.put(number, first.getHash());
+                return Match.SKELETON;
+            }
+        }
+
+        Segment segment = segments.get(number);
+        if (segment == null || segment.done || segment.peer != peer) {
+            return Match.UNRELATED;
+        }
+
+        A0BlockHeader last = headers.get(headers.size() - 1);
+        if (headers.size() == SEGMENT_SIZE
+                && Arrays.equals(first.getParentHash(), parentHash(segment))
+                && Arrays.equals(last.getHash(), skeleton.get(segment.last()))) {
+            segment.done = true;
+            segment.peer = 0;
+            return Match.SEGMENT;
+        } else {
+            log.debug(
+                    "<skeleton-sync invalid-segment from-num={} size={} peer={}>",
+                    number,
+                    headers.size(),
+                    peer);
+            segment.rejected.add(peer);
+            segment.peer = 0;
+            rejecting.add(peer);
+            if (rejecting.size() >= MAX_REJECTIONS) {
+                dropSkeleton();
+            }
+            return Match.REJECTED;
+        }
+    }
+}
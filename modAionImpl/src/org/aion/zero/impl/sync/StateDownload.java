@@ -0,0 +1,450 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.sync;
+
+import static org.aion.crypto.HashUtil.EMPTY_DATA_HASH;
+import static org.aion.crypto.HashUtil.EMPTY_TRIE_HASH;
+import static org.aion.crypto.HashUtil.h256;
+import static org.aion.rlp.CompactEncoder.hasTerminator;
+import static org.aion.rlp.CompactEncoder.unpackToNibbles;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.base.util.ByteUtil;
+import org.aion.mcf.core.AccountState;
+import org.aion.mcf.db.DetailsDataStore;
+import org.aion.rlp.Value;
+import org.aion.zero.db.AionContractDetailsImpl;
+import org.aion.zero.impl.sync.msg.ReqTrieData;
+
+/**
+ * Downloads the world state of a block into the local databases.
+ *
+ * <p>The download starts from the state root and works through the tries one node at a time. A
+ * node is accepted only if its hash matches the reference found in its parent, so the downloaded
+ * state is exactly the one of the block. The accounts reached in the world state trie lead to the
+ * details of the contracts, which are verified against the code hash and storage root of the
+ * account, and to their storage tries when these are stored outside the details.
+ *
+ * <p>The nodes that are already stored locally are not requested again, but walked to find the
+ * missing nodes below them. Since the nodes are stored by hash, the download can be restarted
+ * from the state root of a more recent block and only fetch what changed.
+ */
+final class StateDownload {
+
+    /** Maximum number of keys in a request. */
+    static final int MAX_KEYS = 384;
+
+    private static final int PAIR_SIZE = 2;
+    private static final int LIST_SIZE = 17;
+
+    /** Data to be downloaded. */
+    private static final class Item {
+        private final TrieDataType type;
+
+        /** The key of the data in its database, which is also the requested key. */
+        private final byte[] key;
+
+        /** The hash of a trie node, or the hashed address for contract details. */
+        private final byte[] hash;
+
+        /** The nibbles leading to a node of the world state trie. */
+        private final byte[] path;
+
+        /** The key of a storage trie in the storage database. */
+        private final byte[] storageKey;
+
+        /** The account of the contract whose details are requested. */
+        private final AccountState account;
+
+        private Item(
+                TrieDataType type,
+                byte[] key,
+                byte[] hash,
+                byte[] path,
+                byte[] storageKey,
+                AccountState account) {
+            this.type = type;
+            this.key = key;
+            this.hash = hash;
+            this.path = path;
+            this.storageKey = storageKey;
+            this.account = account;
+        }
+    }
+
+    private final IByteArrayKeyValueDatabase stateDb;
+    private final IByteArrayKeyValueDatabase storageDb;
+    private final IByteArrayKeyValueDatabase detailsDb;
+
+    private final Map<TrieDataType, Deque<Item>> missing = new EnumMap<>(TrieDataType.class);
+    private final Map<TrieDataType, Map<ByteArrayWrapper, Item>> requested =
+            new EnumMap<>(TrieDataType.class);
+
+    // nodes stored locally whose children are not yet checked
+    private final Deque<Item> stored = new ArrayDeque<>();
+
+    // the addresses of the contracts whose details were downloaded, by their hash
+    private final Map<ByteArrayWrapper, byte[]> addresses = new HashMap<>();
+
+    private final Map<TrieDataType, Long> downloaded = new EnumMap<>(TrieDataType.class);
+
+    StateDownload(
+            final IByteArrayKeyValueDatabase _stateDb,
+            final IByteArrayKeyValueDatabase _storageDb,
+            final IByteArrayKeyValueDatabase _detailsDb) {
+        this.stateDb = _stateDb;
+        this.storageDb = _storageDb;
+        this.detailsDb = _detailsDb;
+        for (TrieDataType type : TrieDataType.values()) {
+            missing.put(type, new ArrayDeque<>());
+            requested.put(type, new HashMap<>());
+            downloaded.put(type, 0L);
+        }
+    }
+
+    /**
+     * Starts downloading the world state with the given root, dropping any download in progress.
+     *
+     * @param root the state root of a block
+     */
+    synchronized void start(byte[] root) {
+        for (TrieDataType type : TrieDataType.values()) {
+            missing.get(type).clear();
+            requested.get(type).clear();
+        }
+        stored.clear();
+
+        List<Item> items = new ArrayList<>();
+        addNode(root, new byte[0], items);
+        schedule(items);
+    }
+
+    /** @return {@code true} if all the data reachable from the state root is stored locally */
+    synchronized boolean isComplete() {
+        return stored.isEmpty()
+                && missing.values().stream().allMatch(Deque::isEmpty)
+                && requested.values().stream().allMatch(Map::isEmpty);
+    }
+
+    /** @return the number of items of the given type downloaded so far */
+    synchronized long getDownloaded(TrieDataType type) {
+        return downloaded.get(type);
+    }
+
+    /** @return the number of items waiting to be requested or received */
+    synchronized int getPending() {
+        int count = stored.size();
+        for (TrieDataType type : TrieDataType.values()) {
+            count += missing.get(type).size() + requested.get(type).size();
+        }
+        return count;
+    }
+
+    /**
+     * Walks the locally stored nodes found so far, looking for the missing nodes below them.
+     *
+     * @param limit the maximum number of nodes to read
+     */
+    synchronized void walkStored(int limit) {
+        for (int i = 0; i < limit && !stored.isEmpty(); i++) {
+            Item item = stored.poll();
+            Optional<byte[]> value =
+                    (item.type == TrieDataType.STATE ? stateDb : storageDb).get(item.key);
+            List<Item> items = new ArrayList<>();
+            if (value.isPresent()) {
+                try {
+                    walk(item, Value.fromRlpEncoded(value.get()), item.path, items);
+                } catch (RuntimeException e) {
+                    // a corrupt local node is downloaded again
+                    items.clear();
+                    value = Optional.empty();
+                }
+            }
+            if (value.isPresent()) {
+                schedule(items);
+            } else {
+                missing.get(item.type).add(item);
+            }
+        }
+    }
+
+    /**
+     * Creates a request for missing data of a single type, preferring the world state trie.
+     *
+     * @return a request, or {@code null} if no data is missing at the moment
+     */
+    synchronized ReqTrieData nextRequest() {
+        for (TrieDataType type : TrieDataType.values()) {
+            Deque<Item> queue = missing.get(type);
+            Map<ByteArrayWrapper, Item> pending = requested.get(type);
+            List<byte[]> keys = new ArrayList<>();
+            while (keys.size() < MAX_KEYS && !queue.isEmpty()) {
+                Item item = queue.poll();
+                ByteArrayWrapper key = ByteArrayWrapper.wrap(item.key);
+                if (pending.putIfAbsent(key, item) == null) {
+                    keys.add(item.key);
+                }
+            }
+            if (!keys.isEmpty()) {
+                return new ReqTrieData(type, keys);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the requested data that was not received to the missing data, so that it can be
+     * requested from another peer.
+     */
+    synchronized void retry(TrieDataType type, List<byte[]> keys) {
+        Map<ByteArrayWrapper, Item> pending = requested.get(type);
+        for (byte[] key : keys) {
+            Item item = pending.remove(ByteArrayWrapper.wrap(key));
+            if (item != null) {
+                missing.get(type).add(item);
+            }
+        }
+    }
+
+    /**
+     * Verifies and stores received data. The data that does not match its request is dropped and
+     * stays requested until {@link #retry(TrieDataType, List)} is called.
+     *
+     * @return the number of accepted values
+     */
+    synchronized int receive(TrieDataType type, List<byte[]> keys, List<byte[]> values) {
+        Map<ByteArrayWrapper, Item> pending = requested.get(type);
+        int accepted = 0;
+        for (int i = 0; i < keys.size() && i < values.size(); i++) {
+            ByteArrayWrapper key = ByteArrayWrapper.wrap(keys.get(i));
+            Item item = pending.get(key);
+            if (item != null && accept(item, values.get(i))) {
+                pending.remove(key);
+                accepted++;
+            }
+        }
+        downloaded.put(type, downloaded.get(type) + accepted);
+        return accepted;
+    }
+
+    private boolean accept(Item item, byte[] value) {
+        List<Item> items = new ArrayList<>();
+        try {
+            if (item.type == TrieDataType.DETAILS) {
+                byte[] encoded = verifyDetails(item, value, items);
+                if (encoded == null) {
+                    return false;
+                }
+                byte[] address = addresses.get(ByteArrayWrapper.wrap(item.hash));
+                detailsDb.put(address, encoded);
+                DetailsDataStore.indexAddress(detailsDb, address);
+            } else {
+                if (!Arrays.equals(h256(value), item.hash)) {
+                    return false;
+                }
+                walk(item, Value.fromRlpEncoded(value), item.path, items);
+                (item.type == TrieDataType.STATE ? stateDb : storageDb).put(item.key, value);
+            }
+        } catch (RuntimeException e) {
+            // not a valid node or details
+            return false;
+        }
+        schedule(items);
+        return true;
+    }
+
+    /**
+     * Checks that the received details belong to the account and match its code and storage.
+     *
+     * @return the details to be stored, or {@code null} if the received details do not match
+     */
+    private byte[] verifyDetails(Item item, byte[] value, List<Item> items) {
+        AionContractDetailsImpl details = new AionContractDetailsImpl();
+        details.decode(value);
+
+        byte[] address = details.getAddress().toBytes();
+        if (!Arrays.equals(h256(address), item.hash)) {
+            return null;
+        }
+        AccountState account = item.account;
+        if (hasCode(account) && details.getCode(account.getCodeHash()).length == 0) {
+            return null;
+        }
+
+        byte[] encoded;
+        if (details.externalStorage) {
+            // the storage root of the peer can be more recent than the block
+            encoded = details.getSnapshotTo(account.getStateRoot()).getEncoded();
+            addStorageNode(account.getStateRoot(), storageKey(address), items);
+        } else if (Arrays.equals(details.getStorageHash(), account.getStateRoot())) {
+            encoded = value;
+        } else {
+            return null;
+        }
+        addresses.put(ByteArrayWrapper.wrap(item.hash), address);
+        return encoded;
+    }
+
+    /** Finds the references to other nodes and the accounts in a node and its embedded nodes. */
+    private void walk(Item parent, Value node, byte[] path, List<Item> items) {
+        List<Object> children = node.asList();
+        if (children.size() == PAIR_SIZE) {
+            byte[] packedKey = new Value(children.get(0)).asBytes();
+            byte[] nibbles = unpackToNibbles(packedKey);
+            if (hasTerminator(packedKey)) {
+                if (parent.type == TrieDataType.STATE) {
+                    byte[] keyNibbles = Arrays.copyOf(nibbles, nibbles.length - 1);
+                    addAccount(concat(path, keyNibbles), new Value(children.get(1)), items);
+                }
+            } else {
+                reference(parent, new Value(children.get(1)), concat(path, nibbles), items);
+            }
+        } else if (children.size() == LIST_SIZE) {
+            for (int i = 0; i < LIST_SIZE - 1; i++) {
+                byte[] nibble = {(byte) i};
+                reference(parent, new Value(children.get(i)), concat(path, nibble), items);
+            }
+        } else {
+            throw new IllegalArgumentException("Not a trie node.");
+        }
+    }
+
+    private void reference(Item parent, Value child, byte[] path, List<Item> items) {
+        if (child.isList()) {
+            // small nodes are embedded in their parent
+            walk(parent, child, path, items);
+        } else if (child.isHashCode()) {
+            if (parent.type == TrieDataType.STATE) {
+                addNode(child.asBytes(), path, items);
+            } else {
+                addStorageNode(child.asBytes(), parent.storageKey, items);
+            }
+        } else if (child.asBytes().length != 0) {
+            throw new IllegalArgumentException("Not a node reference.");
+        }
+    }
+
+    private void addNode(byte[] hash, byte[] path, List<Item> items) {
+        if (!Arrays.equals(hash, EMPTY_TRIE_HASH)) {
+            items.add(new Item(TrieDataType.STATE, hash, hash, path, null, null));
+        }
+    }
+
+    private void addStorageNode(byte[] hash, byte[] storageKey, List<Item> items) {
+        if (!Arrays.equals(hash, EMPTY_TRIE_HASH)) {
+            byte[] key = ByteUtil.xorAlignRight(hash, storageKey);
+            items.add(new Item(TrieDataType.STORAGE, key, hash, null, storageKey, null));
+        }
+    }
+
+    private void addAccount(byte[] path, Value value, List<Item> items) {
+        if (path.length != 64) {
+            throw new IllegalArgumentException("Not an account key.");
+        }
+        byte[] hashedAddress = new byte[32];
+        for (int i = 0; i < hashedAddress.length; i++) {
+            hashedAddress[i] = (byte) ((path[2 * i] << 4) | path[2 * i + 1]);
+        }
+
+        AccountState account = new AccountState(value.asBytes());
+        if (hasCode(account) || !Arrays.equals(account.getStateRoot(), EMPTY_TRIE_HASH)) {
+            items.add(
+                    new Item(
+                            TrieDataType.DETAILS,
+                            hashedAddress,
+                            hashedAddress,
+                            null,
+                            null,
+                            account));
+        }
+    }
+
+    /** Adds the items to the missing data, unless they are already stored locally. */
+    private void schedule(List<Item> items) {
+        for (Item item : items) {
+            switch (item.type) {
+                case STATE:
+                    (stateDb.get(item.key).isPresent() ? stored : missing.get(item.type))
+                            .add(item);
+                    break;
+                case STORAGE:
+                    (storageDb.get(item.key).isPresent() ? stored : missing.get(item.type))
+                            .add(item);
+                    break;
+                case DETAILS:
+                    List<Item> storage = new ArrayList<>();
+                    if (isStoredDetails(item, storage)) {
+                        schedule(storage);
+                    } else {
+                        missing.get(item.type).add(item);
+                    }
+                    break;
+            }
+        }
+    }
+
+    /** Checks if matching details for the account were already downloaded. */
+    private boolean isStoredDetails(Item item, List<Item> items) {
+        byte[] address = addresses.get(ByteArrayWrapper.wrap(item.hash));
+        if (address == null) {
+            return false;
+        }
+        Optional<byte[]> value = detailsDb.get(address);
+        if (!value.isPresent()) {
+            return false;
+        }
+        try {
+            return verifyDetails(item, value.get(), items) != null;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static boolean hasCode(AccountState account) {
+        return account.getCodeHash() != null
+                && !Arrays.equals(account.getCodeHash(), EMPTY_DATA_HASH);
+    }
+
+    /** @return the key of the storage trie of a contract, as used by its details */
+    private static byte[] storageKey(byte[] address) {
+        return h256(("details-storage/" + Address.wrap(address)).getBytes());
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
@@ -53,6 +53,7 @@ import org.aion.mcf.valid.BlockHeaderValidator;
 import org.aion.p2p.IP2pMgr;
 import org.aion.zero.impl.AionBlockchainImpl;
 import org.aion.zero.impl.blockchain.ChainConfiguration;
+import org.aion.zero.impl.sync.msg.ResTrieData;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.types.A0BlockHeader;
 import org.apache.commons.collections4.map.LRUMap;
@@ -73,6 +74,8 @@ public final class SyncMgr {
     // store the headers whose bodies have been requested from corresponding peer
     private final ConcurrentHashMap<Integer, HeadersWrapper> headersWithBodiesRequested =
             new ConcurrentHashMap<>();
+    // store the downloaded blocks that are waiting for transaction validation
+    private final BlockingQueue<BlocksWrapper> receivedBlocks = new LinkedBlockingQueue<>();
     // store the downloaded blocks that are ready to import
     private final BlockingQueue<BlocksWrapper> downloadedBlocks = new LinkedBlockingQueue<>();
     // store the hashes of blocks which have been successfully imported
@@ -98,11 +101,16 @@ public final class SyncMgr {
                     });
 
     private Thread syncGb = null;
+    private Thread syncVb = null;
     private Thread syncIb = null;
     private Thread syncGs = null;
     private Thread syncSs = null;
 
     private BlockHeaderValidator<A0BlockHeader> blockHeaderValidator;
+    // downloads the headers far ahead from many peers, null when disabled
+    private SkeletonSync skeletonSync = null;
+    // stores the blocks without state and downloads the world state, null when disabled
+    private FastSync fastSync = null;
     private volatile long timeUpdated = 0;
     private AtomicBoolean queueFull = new AtomicBoolean(false);
 
@@ -161,6 +169,7 @@ public final class SyncMgr {
                             _remoteTotalDiff,
                             _remoteBestBlockNumber,
                             remoteBestBlockHash);
+                    this.chain.setNetworkBestBlockNumber(_remoteBestBlockNumber);
                 }
             }
         }
@@ -171,6 +180,8 @@ public final class SyncMgr {
             final IP2pMgr _p2pMgr,
             final IEventMgr _evtMgr,
             final int _blocksQueueMax,
+            final boolean _skeletonSync,
+            final boolean _fastSync,
             final boolean _showStatus,
             final Set<StatsType> showStatistics) {
         p2pMgr = _p2pMgr;
@@ -184,6 +195,17 @@ public final class SyncMgr {
         long selfBest = chain.getBestBlock().getNumber();
         stats = new SyncStats(selfBest);
 
+        if (_skeletonSync) {
+            skeletonSync = new SkeletonSync(p2pMgr, peerStates, stats, log);
+        }
+        if (_fastSync) {
+            fastSync = new FastSync(chain, p2pMgr, log);
+            if (!fastSync.isActive()) {
+                log.info("<fast-sync skipped: the chain was already executed>");
+                fastSync = null;
+            }
+        }
+
         syncGb =
                 new Thread(
                         new TaskGetBodies(
@@ -196,6 +218,12 @@ public final class SyncMgr {
                                 log),
                         "sync-gb");
         syncGb.start();
+        syncVb =
+                new Thread(
+                        new TaskValidateBlocks(
+                                start, receivedBlocks, downloadedBlocks, p2pMgr, log),
+                        "sync-vb");
+        syncVb.start();
         syncIb =
                 new Thread(
                         new TaskImportBlocks(
@@ -205,6 +233,7 @@ public final class SyncMgr {
                                 downloadedBlocks,
                                 importedBlockHashes,
                                 peerStates,
+                                fastSync,
                                 log),
                         "sync-ib");
         syncIb.start();
@@ -238,20 +267,37 @@ public final class SyncMgr {
     }
 
     private void getHeaders(BigInteger _selfTd) {
-        if (downloadedBlocks.size() > blocksQueueMax) {
+        if (receivedBlocks.size() + downloadedBlocks.size() > blocksQueueMax) {
             if (queueFull.compareAndSet(false, true)) {
                 log.debug("Downloaded blocks queue is full. Stop requesting headers");
             }
         } else {
             if (!workers.isShutdown()) {
+                AionBlock best = chain.getBestBlock();
+                long selfNumber = best.getNumber();
+                byte[] selfHash = best.getHash();
+                long networkBest = getNetworkBestBlockNumber();
+                if (fastSync != null && fastSync.isActive()) {
+                    // continue from the blocks stored without state
+                    selfNumber = fastSync.getHeadNumber();
+                    selfHash = fastSync.getHeadHash();
+                    workers.submit(
+                            () -> fastSync.request(networkBest, System.currentTimeMillis()));
+                }
                 workers.submit(
-                        new TaskGetHeaders(
-                                p2pMgr,
-                                chain.getBestBlock().getNumber(),
-                                _selfTd,
-                                peerStates,
-                                stats,
-                                log));
+                        new TaskGetHeaders(p2pMgr, selfNumber, _selfTd, peerStates, stats, log));
+                if (skeletonSync != null) {
+                    long number = selfNumber;
+                    byte[] hash = selfHash;
+                    workers.submit(
+                            () ->
+                                    skeletonSync.request(
+                                            number,
+                                            hash,
+                                            _selfTd,
+                                            networkBest,
+                                            System.currentTimeMillis()));
+                }
                 queueFull.set(false);
             }
         }
@@ -316,6 +362,13 @@ public final class SyncMgr {
 
         // NOTE: the filtered headers is still continuous
 
+        if (skeletonSync != null) {
+            SkeletonSync.Match match = skeletonSync.accept(_nodeIdHashcode, _headers);
+            if (match == SkeletonSync.Match.SKELETON || match == SkeletonSync.Match.REJECTED) {
+                return;
+            }
+        }
+
         if (!filtered.isEmpty()) {
             downloadedHeaders.add(new HeadersWrapper(_nodeIdHashcode, _displayId, filtered));
         }
@@ -363,8 +416,21 @@ public final class SyncMgr {
                     _displayId);
         }
 
-        // add batch
-        downloadedBlocks.add(new BlocksWrapper(_nodeIdHashcode, _displayId, blocks));
+        // add batch for validation
+        receivedBlocks.add(new BlocksWrapper(_nodeIdHashcode, _displayId, blocks));
+    }
+
+    /**
+     * @param _nodeIdHashcode int
+     * @param _displayId String
+     * @param _response ResTrieData verify and store the world state data received during fast
+     *     sync
+     */
+    public void validateAndAddTrieData(
+            int _nodeIdHashcode, String _displayId, final ResTrieData _response) {
+        if (fastSync != null) {
+            fastSync.receive(_nodeIdHashcode, _displayId, _response);
+        }
     }
 
     public long getNetworkBestBlockNumber() {
@@ -378,6 +444,7 @@ public final class SyncMgr {
         workers.shutdown();
 
         interruptAndWait(syncGb, 10000);
+        interruptAndWait(syncVb, 10000);
         interruptAndWait(syncIb, 10000);
         interruptAndWait(syncGs, 10000);
         interruptAndWait(syncSs, 10000);
@@ -78,6 +78,9 @@ final class TaskImportBlocks implements Runnable {
 
     private final Map<Integer, PeerState> peerStates;
 
+    // stores the blocks without state while active, null when disabled
+    private final FastSync fastSync;
+
     private final Logger log;
 
     private SortedSet<Long> baseList;
@@ -92,6 +95,7 @@ final class TaskImportBlocks implements Runnable {
             final BlockingQueue<BlocksWrapper> _downloadedBlocks,
             final Map<ByteArrayWrapper, Object> _importedBlockHashes,
             final Map<Integer, PeerState> _peerStates,
+            final FastSync _fastSync,
             final Logger _log) {
         this.chain = _chain;
         this.start = _start;
@@ -99,6 +103,7 @@ final class TaskImportBlocks implements Runnable {
         this.downloadedBlocks = _downloadedBlocks;
         this.importedBlockHashes = _importedBlockHashes;
         this.peerStates = _peerStates;
+        this.fastSync = _fastSync;
         this.log = _log;
         this.baseList = new TreeSet<>();
         this.state = new PeerState(NORMAL, 0L);
@@ -560,7 +565,10 @@ final class TaskImportBlocks implements Runnable {
     private ImportResult importBlock(AionBlock b, String displayId, PeerState state) {
         ImportResult importResult;
         long t1 = System.currentTimeMillis();
-        importResult = this.chain.tryToConnect(b);
+        importResult =
+                fastSync != null && fastSync.isActive()
+                        ? fastSync.importBlock(b)
+                        : this.chain.tryToConnect(b);
         long t2 = System.currentTimeMillis();
         if (log.isDebugEnabled()) {
             // printing sync mode only when debug is enabled
@@ -735,6 +743,9 @@ final class TaskImportBlocks implements Runnable {
     }
 
     private long getBestBlockNumber() {
+        if (fastSync != null && fastSync.isActive()) {
+            return fastSync.getHeadNumber();
+        }
         return chain.getBestBlock() == null ? 0 : chain.getBestBlock().getNumber();
     }
 }
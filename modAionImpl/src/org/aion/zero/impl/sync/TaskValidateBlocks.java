@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.sync;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.aion.p2p.IP2pMgr;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.impl.valid.TXValidator;
+import org.aion.zero.types.AionTransaction;
+import org.slf4j.Logger;
+
+/**
+ * Pre-validates batches of downloaded blocks before they are handed to {@link TaskImportBlocks}.
+ *
+ * <p>The transactions of the whole batch are verified on all available cores: the transaction
+ * hashes and senders are computed and the signatures are checked through {@link TXValidator},
+ * whose cache makes the same checks free during the (single threaded) import. The transaction
+ * trie roots are already checked when the blocks are assembled from the network and the Equihash
+ * solutions when the headers are received.
+ *
+ * <p>A batch is truncated before the first block with an invalid transaction and the peer that
+ * sent it is reported through {@link IP2pMgr#errCheck(int, String)}, like for the other invalid
+ * sync responses.
+ */
+final class TaskValidateBlocks implements Runnable {
+
+    private final AtomicBoolean start;
+
+    private final BlockingQueue<BlocksWrapper> receivedBlocks;
+
+    private final BlockingQueue<BlocksWrapper> downloadedBlocks;
+
+    private final IP2pMgr p2pMgr;
+
+    private final Logger log;
+
+    TaskValidateBlocks(
+            final AtomicBoolean _start,
+            final BlockingQueue<BlocksWrapper> _receivedBlocks,
+            final BlockingQueue<BlocksWrapper> _downloadedBlocks,
+            final IP2pMgr _p2pMgr,
+            final Logger _log) {
+        this.start = _start;
+        this.receivedBlocks = _receivedBlocks;
+        this.downloadedBlocks = _downloadedBlocks;
+        this.p2pMgr = _p2pMgr;
+        this.log = _log;
+    }
+
+    @Override
+    public void run() {
+        while (start.get()) {
+            BlocksWrapper bw;
+            try {
+                bw = receivedBlocks.take();
+            } catch (InterruptedException ex) {
+                if (start.get()) {
+                    log.error("Validate blocks thread interrupted without shutdown request.", ex);
+                }
+                return;
+            }
+
+            List<AionBlock> blocks = bw.getBlocks();
+            int valid = countValidPrefix(blocks);
+
+            if (valid < blocks.size()) {
+                AionBlock invalid = blocks.get(valid);
+                log.warn(
+                        "<invalid-transactions in block num={} hash={} from node={}, dropping {} blocks>",
+                        invalid.getNumber(),
+                        invalid.getShortHash(),
+                        bw.getDisplayId(),
+                        blocks.size() - valid);
+                p2pMgr.errCheck(bw.getNodeIdHash(), bw.getDisplayId());
+                blocks = blocks.subList(0, valid);
+            }
+
+            if (!blocks.isEmpty()) {
+                downloadedBlocks.add(
+                        new BlocksWrapper(bw.getNodeIdHash(), bw.getDisplayId(), blocks));
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(
+                    "Thread ["
+                            + Thread.currentThread().getName()
+                            + "] performing block validation was shutdown.");
+        }
+    }
+
+    /**
+     * Verifies the transactions of all the given blocks in parallel.
+     *
+     * @param blocks a batch of consecutive blocks
+     * @return the number of blocks at the start of the batch that contain only valid transactions;
+     *     the blocks following an invalid one cannot be imported
+     */
+    @VisibleForTesting
+    static int countValidPrefix(List<AionBlock> blocks) {
+        // verify all the transactions in the batch at once to use all cores
+        blocks.parallelStream()
+                .flatMap(b -> b.getTransactionsList().stream())
+                .forEach(TaskValidateBlocks::verify);
+
+        // the results are cached at this point
+        int count = 0;
+        for (AionBlock block : blocks) {
+            for (AionTransaction tx : block.getTransactionsList()) {
+                if (!TXValidator.isValid(tx)) {
+                    return count;
+                }
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private static void verify(AionTransaction tx) {
+        if (TXValidator.isValid(tx)) {
+            // recovers and caches the sender address used during import
+            tx.getFrom();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.sync;
+
+/** The kinds of world state data exchanged by fast sync, named after the databases holding them. */
+public enum TrieDataType {
+    /** A node of the world state trie, requested by its hash. */
+    STATE,
+    /** A node of a contract storage trie, requested by its key in the storage database. */
+    STORAGE,
+    /** The encoded details of a contract, requested by the hash of the contract address. */
+    DETAILS;
+
+    private static final TrieDataType[] VALUES = values();
+
+    /** @return the type with the given encoding, or {@code null} if there is none */
+    public static TrieDataType fromByte(byte value) {
+        return value >= 0 && value < VALUES.length ? VALUES[value] : null;
+    }
+
+    public byte toByte() {
+        return (byte) ordinal();
+    }
+}
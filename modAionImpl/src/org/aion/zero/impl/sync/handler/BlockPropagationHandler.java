@@ -120,6 +120,8 @@ public class BlockPropagationHandler {
             this.cacheMap.put(hashWrapped, true);
         }
 
+        // the message is encoded once for all peers
+        BroadcastNewBlock msg = new BroadcastNewBlock(block);
         this.p2pManager
                 .getActiveNodes()
                 .values()
@@ -132,8 +134,7 @@ public class BlockPropagationHandler {
                                                 + " to="
                                                 + n.getIdShort()
                                                 + ">");
-                            this.p2pManager.send(
-                                    n.getIdHash(), n.getIdShort(), new BroadcastNewBlock(block));
+                            this.p2pManager.send(n.getIdHash(), n.getIdShort(), msg);
                         });
     }
 
@@ -261,6 +262,7 @@ public class BlockPropagationHandler {
 
         // current proposal is to send to all peers with lower blockNumbers
         AtomicBoolean sent = new AtomicBoolean();
+        BroadcastNewBlock msg = new BroadcastNewBlock(block);
         this.p2pManager
                 .getActiveNodes()
                 .values()
@@ -281,8 +283,7 @@ public class BlockPropagationHandler {
                                                 + " to-node="
                                                 + n.getIdShort()
                                                 + ">");
-                            this.p2pManager.send(
-                                    n.getIdHash(), n.getIdShort(), new BroadcastNewBlock(block));
+                            this.p2pManager.send(n.getIdHash(), n.getIdShort(), msg);
                             sent.getAndSet(true);
                         });
         return sent.get();
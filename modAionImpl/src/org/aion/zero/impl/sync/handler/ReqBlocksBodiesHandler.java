@@ -35,10 +35,10 @@
 
 package org.aion.zero.impl.sync.handler;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import org.aion.base.util.ByteArrayWrapper;
 import org.aion.base.util.ByteUtil;
 import org.aion.p2p.Ctrl;
@@ -51,8 +51,6 @@ import org.aion.zero.impl.sync.Act;
 import org.aion.zero.impl.sync.SyncMgr;
 import org.aion.zero.impl.sync.msg.ReqBlocksBodies;
 import org.aion.zero.impl.sync.msg.ResBlocksBodies;
-import org.aion.zero.impl.types.AionBlock;
-import org.apache.commons.collections4.map.LRUMap;
 import org.slf4j.Logger;
 
 /** @author chris handler for request block bodies broadcasted from network */
@@ -68,8 +66,14 @@ public final class ReqBlocksBodiesHandler extends Handler {
 
     private final IP2pMgr p2pMgr;
 
-    private final Map<ByteArrayWrapper, byte[]> cache =
-            Collections.synchronizedMap(new LRUMap<>(512));
+    /** Size in bytes of the encoded bodies kept for answering repeated requests. */
+    private static final long CACHE_SIZE = 32 * 1024 * 1024;
+
+    private final Cache<ByteArrayWrapper, byte[]> cache =
+            CacheBuilder.newBuilder()
+                    .maximumWeight(CACHE_SIZE)
+                    .<ByteArrayWrapper, byte[]>weigher((k, v) -> k.getData().length + v.length)
+                    .build();
 
     private final boolean isSyncOnlyNode;
 
@@ -111,17 +115,18 @@ public final class ReqBlocksBodiesHandler extends Handler {
                 // ref for add.
                 byte[] blockBytesForadd;
 
-                byte[] blockBytes = cache.get(ByteArrayWrapper.wrap(hash));
+                byte[] blockBytes = cache.getIfPresent(ByteArrayWrapper.wrap(hash));
 
                 // if cached , add.
                 if (blockBytes != null) {
                     blockBytesForadd = blockBytes;
                 } else {
-                    AionBlock block = blockchain.getBlockByHash(hash);
+                    // assembled from the stored block bytes without deserializing the block
+                    byte[] body = blockchain.getEncodedBodyByHash(hash);
 
-                    if (block != null) {
-                        blockBytesForadd = block.getEncodedBody();
-                        cache.put(ByteArrayWrapper.wrap(hash), block.getEncodedBody());
+                    if (body != null) {
+                        blockBytesForadd = body;
+                        cache.put(ByteArrayWrapper.wrap(hash), body);
                     } else {
                         // not found
                         break;
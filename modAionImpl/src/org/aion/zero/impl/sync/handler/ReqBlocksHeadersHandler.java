@@ -44,7 +44,6 @@ import org.aion.zero.impl.core.IAionBlockchain;
 import org.aion.zero.impl.sync.Act;
 import org.aion.zero.impl.sync.msg.ReqBlocksHeaders;
 import org.aion.zero.impl.sync.msg.ResBlocksHeaders;
-import org.aion.zero.types.A0BlockHeader;
 import org.slf4j.Logger;
 
 /**
@@ -93,10 +92,11 @@ public final class ReqBlocksHeadersHandler extends Handler {
                         take,
                         _displayId);
             }
-            List<A0BlockHeader> headers =
-                    this.blockchain.getListOfHeadersStartFrom(
+            // the headers are sent as stored, without deserializing the blocks
+            List<byte[]> headers =
+                    this.blockchain.getListOfEncodedHeadersStartFrom(
                             fromBlock, Math.min(take, MAX_NUM_OF_BLOCKS));
-            ResBlocksHeaders rbhs = new ResBlocksHeaders(headers);
+            ResBlocksHeaders rbhs = ResBlocksHeaders.fromEncoded(headers);
             this.p2pMgr.send(_nodeIdHashcode, _displayId, rbhs);
         } else {
             this.log.error(
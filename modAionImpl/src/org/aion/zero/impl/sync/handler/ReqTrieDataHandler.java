@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ *     <ether.camp> team through the ethereumJ library.
+ *     Ether.Camp Inc. (US) team through Ethereum Harmony.
+ *     John Tromp through the Equihash solver.
+ *     Samuel Neves through the BLAKE2 implementation.
+ *     Zcash project team.
+ *     Bitcoinj team.
+ */
+
+package org.aion.zero.impl.sync.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.util.ByteUtil;
+import org.aion.mcf.db.DetailsDataStore;
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Handler;
+import org.aion.p2p.IP2pMgr;
+import org.aion.p2p.P2pConstant;
+import org.aion.p2p.Ver;
+import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.sync.Act;
+import org.aion.zero.impl.sync.TrieDataType;
+import org.aion.zero.impl.sync.msg.ReqTrieData;
+import org.aion.zero.impl.sync.msg.ResTrieData;
+import org.slf4j.Logger;
+
+/**
+ * Handler for world state data requested by fast syncing peers.
+ *
+ * <p>The contract details are stored by address while they are requested by the hashed address
+ * found in the world state trie, so they are found through the hashed address index kept with the
+ * stored details.
+ */
+public final class ReqTrieDataHandler extends Handler {
+
+    /** Maximum number of keys answered at once. */
+    private static final int MAX_KEYS = 384;
+
+    private final Logger log;
+
+    private final AionRepositoryImpl repository;
+
+    private final IP2pMgr p2pMgr;
+
+    private final boolean isSyncOnlyNode;
+
+    public ReqTrieDataHandler(
+            final Logger _log,
+            final AionRepositoryImpl _repository,
+            final IP2pMgr _p2pMgr,
+            final boolean isSyncOnlyNode) {
+        super(Ver.V0, Ctrl.SYNC, Act.REQ_TRIE_DATA);
+        this.log = _log;
+        this.repository = _repository;
+        this.p2pMgr = _p2pMgr;
+        this.isSyncOnlyNode = isSyncOnlyNode;
+    }
+
+    @Override
+    public void receive(int _nodeIdHashcode, String _displayId, final byte[] _msgBytes) {
+        if (isSyncOnlyNode) return;
+
+        ReqTrieData request = ReqTrieData.decode(_msgBytes);
+        if (request != null) {
+            List<byte[]> keys = request.getKeys();
+            keys = keys.size() > MAX_KEYS ? keys.subList(0, MAX_KEYS) : keys;
+
+            List<byte[]> found = new ArrayList<>();
+            List<byte[]> values = new ArrayList<>();
+            int out = 0;
+            for (byte[] key : keys) {
+                byte[] value = get(request.getType(), key);
+                if (value == null) {
+                    // missing data is left out of the response
+                    continue;
+                }
+                if ((out += key.length + value.length) > P2pConstant.MAX_BODY_SIZE) {
+                    log.debug(
+                            "<req-trie-data-max-size-reach size={}/{}>",
+                            out,
+                            P2pConstant.MAX_BODY_SIZE);
+                    break;
+                }
+                found.add(key);
+                values.add(value);
+            }
+
+            this.p2pMgr.send(
+                    _nodeIdHashcode, _displayId, new ResTrieData(request.getType(), found, values));
+
+            if (log.isDebugEnabled()) {
+                this.log.debug(
+                        "<req-trie-data type={} req-size={} res-size={} node={}>",
+                        request.getType(),
+                        request.getKeys().size(),
+                        found.size(),
+                        _displayId);
+            }
+        } else {
+            this.log.error(
+                    "<req-trie-data decode-error, unable to decode request from {}, len: {}>",
+                    _displayId,
+                    _msgBytes.length);
+
+            if (this.log.isTraceEnabled()) {
+                this.log.trace("req-trie-data dump: {}", ByteUtil.toHexString(_msgBytes));
+            }
+        }
+    }
+
+    private byte[] get(TrieDataType type, byte[] key) {
+        switch (type) {
+            case STATE:
+                Optional<byte[]> node = repository.getStateDatabase().get(key);
+                IByteArrayKeyValueDatabase archive = repository.getStateArchiveDatabase();
+                if (!node.isPresent() && archive != null) {
+                    node = archive.get(key);
+                }
+                return node.orElse(null);
+            case STORAGE:
+                return repository.getStorageDatabase().get(key).orElse(null);
+            case DETAILS:
+                IByteArrayKeyValueDatabase details = repository.getDetailsDatabase();
+                byte[] address = DetailsDataStore.getAddress(details, key);
+                return address == null ? null : details.get(address).orElse(null);
+            default:
+                return null;
+        }
+    }
+}
@@ -40,6 +40,7 @@ import org.aion.p2p.Ctrl;
 import org.aion.p2p.Msg;
 import org.aion.p2p.Ver;
 import org.aion.rlp.RLP;
+import org.aion.rlp.RLPView;
 import org.aion.zero.impl.sync.Act;
 
 /** @author chris */
@@ -59,6 +60,7 @@ public final class BroadcastNewBlock extends Msg {
     }
 
     public static byte[] decode(final byte[] _msgBytes) {
-        return RLP.decode2OneItem(_msgBytes, 0).getRLPData();
+        RLPView block = RLP.decodeView(_msgBytes);
+        return block.isList() ? block.getEncoded() : block.asBytes();
     }
 }
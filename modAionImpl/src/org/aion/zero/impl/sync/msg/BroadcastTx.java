@@ -42,8 +42,7 @@ import org.aion.p2p.Ctrl;
 import org.aion.p2p.Msg;
 import org.aion.p2p.Ver;
 import org.aion.rlp.RLP;
-import org.aion.rlp.RLPElement;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPView;
 import org.aion.zero.impl.sync.Act;
 
 /** @author chris */
@@ -69,14 +68,19 @@ public final class BroadcastTx extends Msg {
         return RLP.encodeList(encodedTx.toArray(new byte[encodedTx.size()][]));
     }
 
+    /** Transaction gossip gives way to blocks and sync responses on busy connections. */
+    @Override
+    public boolean isLowPriority() {
+        return true;
+    }
+
     /* return the encodedData of the Transaction list, the caller function need to cast the return byte[] array
      */
     public static List<byte[]> decode(final byte[] _msgBytes) {
-        RLPList paramsList = (RLPList) RLP.decode2(_msgBytes).get(0);
+        RLPView paramsList = RLP.decodeView(_msgBytes);
         List<byte[]> txl = new ArrayList<>();
-        for (RLPElement aParamsList : paramsList) {
-            RLPList rlpData = ((RLPList) aParamsList);
-            txl.add(rlpData.getRLPData());
+        for (int i = 0; i < paramsList.size(); i++) {
+            txl.add(paramsList.get(i).getEncoded());
         }
         return txl;
     }
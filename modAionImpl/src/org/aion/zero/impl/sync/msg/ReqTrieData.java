@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ *     <ether.camp> team through the ethereumJ library.
+ *     Ether.Camp Inc. (US) team through Ethereum Harmony.
+ *     John Tromp through the Equihash solver.
+ *     Samuel Neves through the BLAKE2 implementation.
+ *     Zcash project team.
+ *     Bitcoinj team.
+ */
+package org.aion.zero.impl.sync.msg;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Msg;
+import org.aion.p2p.Ver;
+import org.aion.rlp.RLP;
+import org.aion.rlp.RLPView;
+import org.aion.zero.impl.sync.Act;
+import org.aion.zero.impl.sync.TrieDataType;
+
+/** Requests world state data of a single type by the keys it is stored under. */
+public final class ReqTrieData extends Msg {
+
+    private final TrieDataType type;
+
+    private final List<byte[]> keys;
+
+    public ReqTrieData(final TrieDataType _type, final List<byte[]> _keys) {
+        super(Ver.V0, Ctrl.SYNC, Act.REQ_TRIE_DATA);
+        this.type = _type;
+        this.keys = _keys;
+    }
+
+    public static ReqTrieData decode(final byte[] _msgBytes) {
+        if (_msgBytes == null || _msgBytes.length == 0) return null;
+        else {
+            try {
+                RLPView params = RLP.decodeView(_msgBytes);
+                TrieDataType type = TrieDataType.fromByte((byte) params.get(0).asInt());
+                if (type == null) {
+                    return null;
+                }
+                RLPView list = params.get(1);
+                List<byte[]> keys = new ArrayList<>(list.size());
+                for (int i = 0; i < list.size(); i++) {
+                    keys.add(list.get(i).asBytes());
+                }
+                return new ReqTrieData(type, keys);
+            } catch (Exception ex) {
+                return null;
+            }
+        }
+    }
+
+    public TrieDataType getType() {
+        return this.type;
+    }
+
+    public List<byte[]> getKeys() {
+        return this.keys;
+    }
+
+    @Override
+    public byte[] encode() {
+        byte[][] encodedKeys = new byte[keys.size()][];
+        for (int i = 0; i < encodedKeys.length; i++) {
+            encodedKeys[i] = RLP.encodeElement(keys.get(i));
+        }
+        return RLP.encodeList(RLP.encodeByte(type.toByte()), RLP.encodeList(encodedKeys));
+    }
+}
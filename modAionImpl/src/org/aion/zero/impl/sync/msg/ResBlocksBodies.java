@@ -41,8 +41,7 @@ import org.aion.p2p.Ctrl;
 import org.aion.p2p.Msg;
 import org.aion.p2p.Ver;
 import org.aion.rlp.RLP;
-import org.aion.rlp.RLPElement;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPView;
 import org.aion.zero.impl.sync.Act;
 
 /**
@@ -59,11 +58,10 @@ public final class ResBlocksBodies extends Msg {
     }
 
     public static ResBlocksBodies decode(final byte[] _msgBytes) {
-        RLPList paramsList = (RLPList) RLP.decode2(_msgBytes).get(0);
+        RLPView paramsList = RLP.decodeView(_msgBytes);
         List<byte[]> blocksBodies = new ArrayList<>();
-        for (RLPElement aParamsList : paramsList) {
-            RLPList rlpData = ((RLPList) aParamsList);
-            blocksBodies.add(rlpData.getRLPData());
+        for (int i = 0; i < paramsList.size(); i++) {
+            blocksBodies.add(paramsList.get(i).getEncoded());
         }
         return new ResBlocksBodies(blocksBodies);
     }
@@ -41,8 +41,7 @@ import org.aion.p2p.Ctrl;
 import org.aion.p2p.Msg;
 import org.aion.p2p.Ver;
 import org.aion.rlp.RLP;
-import org.aion.rlp.RLPElement;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPView;
 import org.aion.zero.impl.sync.Act;
 import org.aion.zero.types.A0BlockHeader;
 
@@ -51,20 +50,37 @@ public final class ResBlocksHeaders extends Msg {
 
     private final List<A0BlockHeader> blockHeaders;
 
+    // headers to be sent as encoded, null when the message was created from header objects
+    private final List<byte[]> encodedHeaders;
+
     public ResBlocksHeaders(final List<A0BlockHeader> _blockHeaders) {
+        this(_blockHeaders, null);
+    }
+
+    private ResBlocksHeaders(
+            final List<A0BlockHeader> _blockHeaders, final List<byte[]> _encodedHeaders) {
         super(Ver.V0, Ctrl.SYNC, Act.RES_BLOCKS_HEADERS);
         blockHeaders = _blockHeaders;
+        encodedHeaders = _encodedHeaders;
+    }
+
+    /**
+     * Creates a response from already encoded headers, which are sent as they are.
+     *
+     * @param _encodedHeaders the RLP encoded headers
+     */
+    public static ResBlocksHeaders fromEncoded(final List<byte[]> _encodedHeaders) {
+        return new ResBlocksHeaders(null, _encodedHeaders);
     }
 
     public static ResBlocksHeaders decode(final byte[] _msgBytes) {
         if (_msgBytes == null || _msgBytes.length == 0) return null;
         else {
             try {
-                RLPList list = (RLPList) RLP.decode2(_msgBytes).get(0);
+                RLPView list = RLP.decodeView(_msgBytes);
                 List<A0BlockHeader> blockHeaders = new ArrayList<>();
-                for (RLPElement aList : list) {
-                    RLPList rlpData = ((RLPList) aList);
-                    blockHeaders.add(A0BlockHeader.fromRLP(rlpData, true));
+                for (int i = 0; i < list.size(); i++) {
+                    blockHeaders.add(A0BlockHeader.fromRLP(list.get(i), true));
                 }
                 return new ResBlocksHeaders(blockHeaders);
             } catch (Exception ex) {
@@ -79,6 +95,10 @@ public final class ResBlocksHeaders extends Msg {
 
     @Override
     public byte[] encode() {
+        if (encodedHeaders != null) {
+            return RLP.encodeList(encodedHeaders.toArray(new byte[encodedHeaders.size()][]));
+        }
+
         List<byte[]> tempList = new ArrayList<>();
         for (A0BlockHeader blockHeader : this.blockHeaders) {
             tempList.add(blockHeader.getEncoded());
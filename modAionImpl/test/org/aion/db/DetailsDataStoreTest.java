@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.db;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.crypto.HashUtil.h256;
+
+import java.util.Properties;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.db.IContractDetails;
+import org.aion.base.db.IPruneConfig;
+import org.aion.base.db.IRepositoryConfig;
+import org.aion.base.type.Address;
+import org.aion.db.impl.DBVendor;
+import org.aion.db.impl.DatabaseFactory;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.mcf.config.CfgPrune;
+import org.aion.mcf.db.DetailsDataStore;
+import org.aion.mcf.vm.types.DataWord;
+import org.aion.zero.db.AionContractDetailsImpl;
+import org.aion.zero.impl.db.ContractDetailsAion;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DetailsDataStoreTest {
+
+    private IRepositoryConfig repoConfig =
+            new IRepositoryConfig() {
+                @Override
+                public String getDbPath() {
+                    return "";
+                }
+
+                @Override
+                public IPruneConfig getPruneConfig() {
+                    return new CfgPrune(false);
+                }
+
+                @Override
+                public IContractDetails contractDetailsImpl() {
+                    return ContractDetailsAion.createForTesting(0, 1000000).getDetails();
+                }
+
+                @Override
+                public Properties getDatabaseConfig(String db_name) {
+                    Properties props = new Properties();
+                    props.setProperty(DatabaseFactory.Props.DB_TYPE, DBVendor.MOCKDB.toValue());
+                    props.setProperty(DatabaseFactory.Props.ENABLE_HEAP_CACHE, "false");
+                    return props;
+                }
+            };
+
+    private IByteArrayKeyValueDatabase detailsDb;
+    private IByteArrayKeyValueDatabase storageDb;
+
+    @Before
+    public void setup() {
+        detailsDb = new MockDB("details");
+        storageDb = new MockDB("storage");
+        assertThat(detailsDb.open()).isTrue();
+        assertThat(storageDb.open()).isTrue();
+    }
+
+    private static AionContractDetailsImpl details(int storageEntries) {
+        AionContractDetailsImpl details = new AionContractDetailsImpl(0, 1000000);
+        details.setCode(RandomUtils.nextBytes(32));
+        for (int i = 0; i < storageEntries; i++) {
+            details.put(new DataWord(i + 1), new DataWord(RandomUtils.nextBytes(16)));
+        }
+        return details;
+    }
+
+    @Test
+    public void testSizesTrackedOnUpdateAndRemove() {
+        DetailsDataStore store = new DetailsDataStore(detailsDb, storageDb, repoConfig);
+        Address first = Address.wrap(RandomUtils.nextBytes(Address.ADDRESS_LEN));
+        Address second = Address.wrap(RandomUtils.nextBytes(Address.ADDRESS_LEN));
+
+        // stored before the sizes are counted
+        AionContractDetailsImpl details = details(1);
+        store.update(first, details);
+        long firstSize = details.getEncoded().length;
+
+        assertThat(store.getDetailsCount()).isEqualTo(-1L);
+        assertThat(store.getDetailsSize()).isEqualTo(-1L);
+
+        store.countSizes();
+        assertThat(store.getDetailsCount()).isEqualTo(1);
+        assertThat(store.getDetailsSize()).isEqualTo(firstSize);
+
+        // stored after, tracked incrementally
+        details = details(4);
+        store.update(second, details);
+        long secondSize = details.getEncoded().length;
+
+        assertThat(store.getDetailsCount()).isEqualTo(2);
+        assertThat(store.getDetailsSize()).isEqualTo(firstSize + secondSize);
+
+        // overwriting replaces the previous size
+        details = details(2);
+        store.update(first, details);
+        firstSize = details.getEncoded().length;
+
+        assertThat(store.getDetailsCount()).isEqualTo(2);
+        assertThat(store.getDetailsSize()).isEqualTo(firstSize + secondSize);
+
+        store.remove(second.toBytes());
+
+        assertThat(store.getDetailsCount()).isEqualTo(1);
+        assertThat(store.getDetailsSize()).isEqualTo(firstSize);
+
+        // removing a missing entry has no effect
+        store.remove(second.toBytes());
+        assertThat(store.getDetailsCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSizesMatchDatabaseAfterFlush() {
+        DetailsDataStore store = new DetailsDataStore(detailsDb, storageDb, repoConfig);
+        store.countSizes();
+        assertThat(store.getDetailsCount()).isEqualTo(0);
+
+        for (int i = 0; i < 10; i++) {
+            store.update(Address.wrap(RandomUtils.nextBytes(Address.ADDRESS_LEN)), details(i));
+        }
+        store.flush();
+
+        // a new store counts the entries from the database
+        DetailsDataStore reopened = new DetailsDataStore(detailsDb, storageDb, repoConfig);
+        reopened.countSizes();
+        assertThat(reopened.getDetailsCount()).isEqualTo(store.getDetailsCount());
+        assertThat(reopened.getDetailsSize()).isEqualTo(store.getDetailsSize());
+    }
+
+    @Test
+    public void testAddressIndexedOnUpdateAndRemove() {
+        DetailsDataStore store = new DetailsDataStore(detailsDb, storageDb, repoConfig);
+        Address address = Address.wrap(RandomUtils.nextBytes(Address.ADDRESS_LEN));
+        byte[] hashedAddress = h256(address.toBytes());
+
+        assertThat(DetailsDataStore.getAddress(detailsDb, hashedAddress)).isNull();
+
+        store.countSizes();
+        store.update(address, details(1));
+        assertThat(DetailsDataStore.getAddress(detailsDb, hashedAddress))
+                .isEqualTo(address.toBytes());
+
+        // the index entries are not counted as details
+        assertThat(store.getDetailsCount()).isEqualTo(1);
+        assertThat(store.keys()).hasSize(1);
+
+        store.remove(address.toBytes());
+        assertThat(DetailsDataStore.getAddress(detailsDb, hashedAddress)).isNull();
+    }
+
+    @Test
+    public void testIndexAddressesOfExistingDetails() {
+        Address address = Address.wrap(RandomUtils.nextBytes(Address.ADDRESS_LEN));
+        detailsDb.put(address.toBytes(), details(1).getEncoded());
+
+        DetailsDataStore store = new DetailsDataStore(detailsDb, storageDb, repoConfig);
+        assertThat(store.indexAddresses()).isEqualTo(1);
+        assertThat(DetailsDataStore.getAddress(detailsDb, h256(address.toBytes())))
+                .isEqualTo(address.toBytes());
+
+        // the database is only scanned once
+        assertThat(store.indexAddresses()).isEqualTo(0);
+        store.countSizes();
+        assertThat(store.getDetailsCount()).isEqualTo(1);
+    }
+}
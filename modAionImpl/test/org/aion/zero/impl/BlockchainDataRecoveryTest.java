@@ -33,6 +33,7 @@ import org.aion.base.util.ByteUtil;
 import org.aion.base.util.Hex;
 import org.aion.crypto.ECKey;
 import org.aion.log.AionLoggerFactory;
+import org.aion.mcf.config.CfgPrune;
 import org.aion.mcf.core.ImportResult;
 import org.aion.mcf.trie.TrieImpl;
 import org.aion.zero.impl.db.AionRepositoryImpl;
@@ -145,6 +146,62 @@ public class BlockchainDataRecoveryTest {
         assertThat(trie.isValidRoot(chain.getBestBlock().getStateRoot())).isTrue();
     }
 
+    /**
+     * Test the recovery of the world state after a crash that lost the state of the blocks imported
+     * since the last group commit.
+     */
+    @Test
+    public void testRecoverWorldStateAfterCrashBetweenFlushes() {
+        int interval = 4;
+        StandaloneBlockchain.Builder builder = new StandaloneBlockchain.Builder();
+        StandaloneBlockchain.Bundle bundle =
+                builder.withValidatorConfiguration("simple")
+                        .withA0Config(BlockchainTestUtils.configWithFlushInterval(interval))
+                        .withRepoConfig(new MockRepositoryConfig(new CfgPrune(false), 2))
+                        .withDefaultAccounts(accounts)
+                        .build();
+
+        StandaloneBlockchain chain = bundle.bc;
+        AionRepositoryImpl repo = chain.getRepository();
+        BlockContext context;
+        List<AionTransaction> txs;
+
+        // far behind the network the blocks are committed in groups
+        chain.setNetworkBestBlockNumber(NUMBER_OF_BLOCKS * 10);
+
+        long time = System.currentTimeMillis();
+        List<byte[]> unflushedStates = new ArrayList<>();
+        for (int i = 1; i <= NUMBER_OF_BLOCKS + interval / 2; i++) {
+            txs = BlockchainTestUtils.generateTransactions(MAX_TX_PER_BLOCK, accounts, repo);
+            context = chain.createNewBlockInternal(chain.getBestBlock(), txs, true, time / 10000L);
+            assertThat(chain.tryToConnectInternal(context.block, (time += 10)))
+                    .isEqualTo(ImportResult.IMPORTED_BEST);
+            if (i % interval == 0) {
+                unflushedStates.clear();
+            } else {
+                unflushedStates.add(context.block.getStateRoot());
+            }
+        }
+        assertThat(unflushedStates.size()).isEqualTo(interval / 2);
+
+        AionBlock bestBlock = chain.getBestBlock();
+
+        // the crash loses the state written after the last flush
+        TrieImpl trie = (TrieImpl) repo.getWorldState();
+        IByteArrayKeyValueDatabase database = repo.getStateDatabase();
+        for (byte[] key : unflushedStates) {
+            database.delete(key);
+            assertThat(trie.isValidRoot(key)).isFalse();
+        }
+
+        // the state is recovered from the last block flushed
+        boolean worked = chain.recoverWorldState(repo, bestBlock);
+
+        assertThat(worked).isTrue();
+        assertThat(chain.getBestBlockHash()).isEqualTo(bestBlock.getHash());
+        assertThat(trie.isValidRoot(bestBlock.getStateRoot())).isTrue();
+    }
+
     /** Test the recovery of the world state with start from the state of the genesis block. */
     @Test
     public void testRecoverWorldStateWithStartFromGenesis() {
@@ -570,6 +570,35 @@ public class BlockchainImplementationTest {
         assertThat(chain.getListOfHeadersStartFrom(bestNumber, qty)).isEmpty();
     }
 
+    @Test
+    public void testEncodedHeadersAndBodiesMatchBlocks() {
+        StandaloneBlockchain.Builder builder = new StandaloneBlockchain.Builder();
+        StandaloneBlockchain.Bundle bundle =
+                builder.withValidatorConfiguration("simple").withDefaultAccounts(accounts).build();
+
+        StandaloneBlockchain chain = bundle.bc;
+
+        // populate chain at random
+        generateRandomChain(chain, 12, 2, accounts, MAX_TX_PER_BLOCK);
+
+        long bestNumber = chain.getBestBlock().getNumber();
+        List<A0BlockHeader> headers = chain.getListOfHeadersStartFrom(0, (int) bestNumber + 1);
+        List<byte[]> encoded = chain.getListOfEncodedHeadersStartFrom(0, (int) bestNumber + 1);
+
+        assertThat(encoded.size()).isEqualTo(headers.size());
+        for (int i = 0; i < headers.size(); i++) {
+            assertThat(encoded.get(i)).isEqualTo(headers.get(i).getEncoded());
+
+            AionBlock block = chain.getBlockByHash(headers.get(i).getHash());
+            assertThat(chain.getEncodedBodyByHash(block.getHash()))
+                    .isEqualTo(block.getEncodedBody());
+        }
+
+        assertThat(chain.getListOfEncodedHeadersStartFrom(bestNumber + 1, 1)).isEmpty();
+        assertThat(chain.getListOfEncodedHeadersStartFrom(0, -10)).isEmpty();
+        assertThat(chain.getEncodedBodyByHash(new byte[32])).isNull();
+    }
+
     public static void assertStartFrom_expectedOne(
             StandaloneBlockchain chain, byte[] hash, long number, int qty) {
         List<A0BlockHeader> hashes = chain.getListOfHeadersStartFrom(number, qty);
@@ -585,4 +614,71 @@ public class BlockchainImplementationTest {
         assertThat(hashes.size()).isEqualTo(expected.size());
         assertThat(hashes).isEqualTo(expected);
     }
+
+    @Test
+    public void testNeedFlush() {
+        int interval = 4;
+        StandaloneBlockchain chain =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withA0Config(BlockchainTestUtils.configWithFlushInterval(interval))
+                        .withRepoConfig(new MockRepositoryConfig(new CfgPrune(false), 2))
+                        .withDefaultAccounts(accounts)
+                        .build()
+                        .bc;
+        AionBlock block = chain.getBestBlock();
+
+        // close to the network best block every block is flushed
+        assertThat(chain.needFlush(block)).isTrue();
+        chain.flush();
+
+        // far behind the network blocks are flushed once every interval
+        chain.setNetworkBestBlockNumber(block.getNumber() + 10 * interval);
+        for (int round = 0; round < 2; round++) {
+            for (int i = 1; i < interval; i++) {
+                assertThat(chain.needFlush(block)).isFalse();
+            }
+            assertThat(chain.needFlush(block)).isTrue();
+            chain.flush();
+        }
+
+        // back within the interval of the network best block
+        chain.setNetworkBestBlockNumber(block.getNumber() + interval);
+        assertThat(chain.needFlush(block)).isTrue();
+    }
+
+    @Test
+    public void testNeedFlushWithoutWriteBehind() {
+        StandaloneBlockchain chain =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withA0Config(BlockchainTestUtils.configWithFlushInterval(4))
+                        .withDefaultAccounts(accounts)
+                        .build()
+                        .bc;
+        AionBlock block = chain.getBestBlock();
+
+        // the state is written to disk for every block, so there is no group to commit
+        chain.setNetworkBestBlockNumber(block.getNumber() + 100);
+        for (int i = 0; i < 3; i++) {
+            assertThat(chain.needFlush(block)).isTrue();
+        }
+    }
+
+    @Test
+    public void testNeedFlushWithoutInterval() {
+        StandaloneBlockchain chain =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withA0Config(BlockchainTestUtils.configWithFlushInterval(1))
+                        .withDefaultAccounts(accounts)
+                        .build()
+                        .bc;
+        AionBlock block = chain.getBestBlock();
+
+        chain.setNetworkBestBlockNumber(block.getNumber() + 100);
+        for (int i = 0; i < 3; i++) {
+            assertThat(chain.needFlush(block)).isTrue();
+        }
+    }
 }
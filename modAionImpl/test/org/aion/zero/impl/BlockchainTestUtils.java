@@ -34,7 +34,11 @@ import org.aion.base.type.Address;
 import org.aion.crypto.ECKey;
 import org.aion.crypto.ECKeyFac;
 import org.aion.crypto.HashUtil;
+import org.aion.mcf.blockchain.IBlockConstants;
 import org.aion.mcf.core.ImportResult;
+import org.aion.zero.impl.blockchain.ChainConfiguration;
+import org.aion.zero.impl.core.energy.AbstractEnergyStrategyLimit;
+import org.aion.zero.impl.core.energy.TargetStrategy;
 import org.aion.zero.impl.db.AionRepositoryImpl;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.types.AionTransaction;
@@ -261,4 +265,51 @@ public class BlockchainTestUtils {
         block.setExtraData(String.valueOf(time).getBytes());
         return block;
     }
+
+    /**
+     * Creates a chain configuration for the {@link StandaloneBlockchain} that differs from the
+     * default one only in the flush interval.
+     */
+    public static A0BCConfig configWithFlushInterval(int interval) {
+        IBlockConstants constants = new ChainConfiguration().getConstants();
+        return new A0BCConfig() {
+            @Override
+            public Address getCoinbase() {
+                return Address.ZERO_ADDRESS();
+            }
+
+            @Override
+            public byte[] getExtraData() {
+                return new byte[32];
+            }
+
+            @Override
+            public boolean getExitOnBlockConflict() {
+                return false;
+            }
+
+            @Override
+            public Address getMinerCoinbase() {
+                return Address.ZERO_ADDRESS();
+            }
+
+            @Override
+            public int getFlushInterval() {
+                return interval;
+            }
+
+            @Override
+            public boolean getSpeculativeExecution() {
+                return false;
+            }
+
+            @Override
+            public AbstractEnergyStrategyLimit getEnergyLimitStrategy() {
+                return new TargetStrategy(
+                        constants.getEnergyLowerBoundLong(),
+                        constants.getEnergyDivisorLimitLong(),
+                        10_000_000L);
+            }
+        };
+    }
 }
@@ -36,6 +36,7 @@ public class MockRepositoryConfig implements IRepositoryConfig {
 
     private DBVendor vendor = DBVendor.MOCKDB;
     private IPruneConfig pruneConfig = new CfgPrune(false);
+    private int writeBehindDepth = 0;
 
     @Override
     public String getDbPath() {
@@ -57,6 +58,8 @@ public class MockRepositoryConfig implements IRepositoryConfig {
         Properties props = new Properties();
         props.setProperty(DatabaseFactory.Props.DB_TYPE, vendor.toValue());
         props.setProperty(DatabaseFactory.Props.ENABLE_HEAP_CACHE, "false");
+        props.setProperty(
+                DatabaseFactory.Props.WRITE_BEHIND_DEPTH, String.valueOf(writeBehindDepth));
         return props;
     }
 
@@ -67,4 +70,9 @@ public class MockRepositoryConfig implements IRepositoryConfig {
     public MockRepositoryConfig(IPruneConfig _pruneConfig) {
         this.pruneConfig = _pruneConfig;
     }
+
+    public MockRepositoryConfig(IPruneConfig _pruneConfig, int _writeBehindDepth) {
+        this.pruneConfig = _pruneConfig;
+        this.writeBehindDepth = _writeBehindDepth;
+    }
 }
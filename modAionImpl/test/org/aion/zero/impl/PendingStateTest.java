@@ -26,10 +26,17 @@ package org.aion.zero.impl;
 import static org.junit.Assert.assertEquals;
 
 import java.math.BigInteger;
+import java.util.Collections;
+import org.aion.base.db.IRepositoryCache;
 import org.aion.base.type.Address;
+import org.aion.base.util.Hex;
 import org.aion.crypto.ECKey;
+import org.aion.mcf.blockchain.IPendingStateInternal;
 import org.aion.mcf.blockchain.TxResponse;
+import org.aion.mcf.core.ImportResult;
+import org.aion.mcf.vm.types.DataWord;
 import org.aion.zero.impl.config.CfgAion;
+import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.types.AionTransaction;
 import org.junit.Test;
 
@@ -100,4 +107,133 @@ public class PendingStateTest {
         assertEquals(
                 hub.getPendingState().addPendingTransaction(tx), TxResponse.INVALID_TX_NRG_PRICE);
     }
+
+    @Test
+    public void TestUpdateStateOnNewBestBlock() {
+
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        .build();
+        StandaloneBlockchain bc = bundle.bc;
+
+        CfgAion.inst().setGenesis(bc.getGenesis());
+
+        AionHub hub = AionHub.createForTesting(CfgAion.inst(), bc, bc.getRepository());
+
+        ECKey signer1 = bundle.privateKeys.get(1);
+        ECKey signer2 = bundle.privateKeys.get(2);
+        Address to1 =
+                Address.wrap("a011111111111111111111111111111111111111111111111111111111111111");
+        Address to2 =
+                Address.wrap("a022222222222222222222222222222222222222222222222222222222222222");
+
+        AionTransaction tx1 = transfer(signer1, 0, to1);
+        AionTransaction tx2 = transfer(signer2, 0, to2);
+        AionTransaction tx3 = transfer(signer2, 1, to2);
+        assertEquals(hub.getPendingState().addPendingTransaction(tx1), TxResponse.SUCCESS);
+        assertEquals(hub.getPendingState().addPendingTransaction(tx2), TxResponse.SUCCESS);
+        assertEquals(hub.getPendingState().addPendingTransaction(tx3), TxResponse.SUCCESS);
+
+        // an empty block rebuilds the pending state with all the transactions
+        AionBlock block = bc.createNewBlock(bc.getBestBlock(), Collections.emptyList(), true);
+        assertEquals(bc.tryToConnect(block), ImportResult.IMPORTED_BEST);
+        hub.getPendingState().processBest(block, null);
+
+        // a block with the transaction of one sender keeps the other sender's transactions
+        block = bc.createNewBlock(bc.getBestBlock(), Collections.singletonList(tx1), true);
+        assertEquals(bc.tryToConnect(block), ImportResult.IMPORTED_BEST);
+        hub.getPendingState().processBest(block, null);
+
+        IPendingStateInternal<AionBlock, AionTransaction> pendingState = hub.getPendingState();
+        assertEquals(pendingState.getPendingTxSize(), 2);
+        assertEquals(pendingState.bestPendingStateNonce(tx1.getFrom()), BigInteger.ONE);
+        assertEquals(pendingState.bestPendingStateNonce(tx2.getFrom()), BigInteger.TWO);
+        assertEquals(pendingState.getRepository().getBalance(to1), BigInteger.TEN);
+        assertEquals(pendingState.getRepository().getBalance(to2), BigInteger.valueOf(20));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void TestUpdateStateKeepsContractStorage() {
+
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        .build();
+        StandaloneBlockchain bc = bundle.bc;
+
+        CfgAion.inst().setGenesis(bc.getGenesis());
+
+        AionHub hub = AionHub.createForTesting(CfgAion.inst(), bc, bc.getRepository());
+
+        ECKey signer1 = bundle.privateKeys.get(1);
+        ECKey signer2 = bundle.privateKeys.get(2);
+        Address to =
+                Address.wrap("a033333333333333333333333333333333333333333333333333333333333333");
+
+        // a contract that increments the value of its storage key 0 on every call
+        byte[] code = Hex.decode("600a80600b6000396000f360005460010160005500");
+        AionTransaction deploy =
+                new AionTransaction(
+                        BigInteger.ZERO.toByteArray(),
+                        null,
+                        new byte[0],
+                        code,
+                        1_000_000L,
+                        10_000_000_000L);
+        deploy.sign(signer1);
+        Address contract = deploy.getContractAddress();
+
+        AionBlock block =
+                bc.createNewBlock(bc.getBestBlock(), Collections.singletonList(deploy), true);
+        assertEquals(bc.tryToConnect(block), ImportResult.IMPORTED_BEST);
+        hub.getPendingState().processBest(block, null);
+
+        AionTransaction call1 = call(signer1, 1, contract);
+        AionTransaction call2 = call(signer1, 2, contract);
+        AionTransaction tx = transfer(signer2, 0, to);
+        assertEquals(hub.getPendingState().addPendingTransaction(call1), TxResponse.SUCCESS);
+        assertEquals(hub.getPendingState().addPendingTransaction(call2), TxResponse.SUCCESS);
+        assertEquals(hub.getPendingState().addPendingTransaction(tx), TxResponse.SUCCESS);
+
+        // the block does not touch the contract, so the calls keep their results
+        block = bc.createNewBlock(bc.getBestBlock(), Collections.singletonList(tx), true);
+        assertEquals(bc.tryToConnect(block), ImportResult.IMPORTED_BEST);
+        hub.getPendingState().processBest(block, null);
+
+        IPendingStateInternal<AionBlock, AionTransaction> pendingState = hub.getPendingState();
+        assertEquals(pendingState.getPendingTxSize(), 2);
+        assertEquals(pendingState.bestPendingStateNonce(call1.getFrom()), BigInteger.valueOf(3));
+        IRepositoryCache repository = pendingState.getRepository();
+        assertEquals(repository.getStorageValue(contract, new DataWord(0)), new DataWord(2));
+    }
+
+    private static AionTransaction call(ECKey signer, long nonce, Address contract) {
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.valueOf(nonce).toByteArray(),
+                        contract,
+                        new byte[0],
+                        new byte[0],
+                        1_000_000L,
+                        10_000_000_000L);
+        tx.sign(signer);
+        return tx;
+    }
+
+    private static AionTransaction transfer(ECKey signer, long nonce, Address to) {
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.valueOf(nonce).toByteArray(),
+                        to,
+                        BigInteger.TEN.toByteArray(),
+                        new byte[0],
+                        1_000_000L,
+                        10_000_000_000L);
+        tx.sign(signer);
+        return tx;
+    }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import org.aion.base.type.Address;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.HashUtil;
+import org.aion.mcf.core.ImportResult;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.AionTransaction;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SpeculativeExecutorTest {
+
+    private static final long NRG = 21000L;
+    private static final long NRG_PRICE = 10_000_000_000L;
+
+    private List<ECKey> keys;
+    private StandaloneBlockchain speculative;
+    private StandaloneBlockchain sequential;
+
+    @Before
+    public void setup() {
+        keys = BlockchainTestUtils.generateAccounts(10);
+        speculative = newChain(keys);
+        speculative.setSpeculativeExecution(true);
+        sequential = newChain(keys);
+        assertThat(speculative.getGenesis().getHash())
+                .isEqualTo(sequential.getGenesis().getHash());
+    }
+
+    private static StandaloneBlockchain newChain(List<ECKey> keys) {
+        return new StandaloneBlockchain.Builder()
+                .withValidatorConfiguration("simple")
+                .withDefaultAccounts(keys)
+                .build()
+                .bc;
+    }
+
+    private static AionTransaction transfer(ECKey from, long nonce, Address to, long value) {
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.valueOf(nonce).toByteArray(),
+                        to,
+                        BigInteger.valueOf(value).toByteArray(),
+                        new byte[0],
+                        NRG,
+                        NRG_PRICE);
+        tx.sign(from);
+        return tx;
+    }
+
+    private static Address address(ECKey key) {
+        return new Address(key.getAddress());
+    }
+
+    private static Address newAddress(int seed) {
+        return new Address(HashUtil.h256(BigInteger.valueOf(seed).toByteArray()));
+    }
+
+    /** Independent transfers mixed with transactions that read the writes of earlier ones. */
+    private List<AionTransaction> conflictingTransfers(StandaloneBlockchain chain) {
+        long[] nonces = new long[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            nonces[i] = chain.getRepository().getNonce(address(keys.get(i))).longValue();
+        }
+
+        List<AionTransaction> txs = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            txs.add(transfer(keys.get(i), nonces[i]++, newAddress(i), 1_000 + i));
+        }
+        // same sender as an earlier transaction
+        txs.add(transfer(keys.get(0), nonces[0]++, newAddress(100), 7));
+        // sends to a sender of an earlier transaction
+        txs.add(transfer(keys.get(1), nonces[1]++, address(keys.get(2)), 11));
+        // sends from the recipient of the previous transaction
+        txs.add(transfer(keys.get(2), nonces[2]++, address(keys.get(3)), 13));
+        // receives from two senders
+        txs.add(transfer(keys.get(4), nonces[4]++, newAddress(0), 17));
+        // invalid nonce, rejected when the block is built
+        txs.add(transfer(keys.get(5), nonces[5] + 5, newAddress(5), 19));
+        return txs;
+    }
+
+    private static void assertSameState(StandaloneBlockchain a, StandaloneBlockchain b) {
+        assertThat(a.getBestBlock().getHash()).isEqualTo(b.getBestBlock().getHash());
+        assertThat(a.getRepository().getRoot()).isEqualTo(b.getRepository().getRoot());
+    }
+
+    @Test
+    public void testSpeculativeBlockImportedSequentially() {
+        List<AionTransaction> txs = conflictingTransfers(speculative);
+        AionBlock block = speculative.createNewBlock(speculative.getBestBlock(), txs, true);
+        assertThat(block.getTransactionsList().size()).isEqualTo(txs.size() - 1);
+        // the independent transfers, one from each account, were not executed again
+        assertThat(speculative.getSpeculativeCommits()).isEqualTo((long) keys.size());
+
+        assertThat(speculative.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+        assertThat(speculative.getSpeculativeCommits()).isEqualTo(2L * keys.size());
+        // the state and receipt roots are validated against the ones computed in order
+        assertThat(sequential.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+        assertThat(sequential.getSpeculativeCommits()).isEqualTo(0L);
+        assertSameState(speculative, sequential);
+    }
+
+    @Test
+    public void testSequentialBlockImportedSpeculatively() {
+        List<AionTransaction> txs = conflictingTransfers(sequential);
+        AionBlock block = sequential.createNewBlock(sequential.getBestBlock(), txs, true);
+        assertThat(block.getTransactionsList().size()).isEqualTo(txs.size() - 1);
+
+        assertThat(sequential.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+        assertThat(speculative.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+        assertThat(speculative.getSpeculativeCommits()).isEqualTo((long) keys.size());
+        assertSameState(speculative, sequential);
+
+        // a second block built on the state written by the speculative execution
+        txs = conflictingTransfers(speculative);
+        block = speculative.createNewBlock(speculative.getBestBlock(), txs, true);
+        assertThat(speculative.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+        assertThat(sequential.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+        assertSameState(speculative, sequential);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.blockchain;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.aion.base.type.Address;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.HashUtil;
+import org.aion.mcf.blockchain.TxResponse;
+import org.aion.mcf.core.ImportResult;
+import org.aion.zero.impl.BlockchainTestUtils;
+import org.aion.zero.impl.StandaloneBlockchain;
+import org.aion.zero.impl.config.CfgAion;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.AionTransaction;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BlockTemplateBuilderTest {
+
+    private static final long NRG = 21000L;
+    private static final long NRG_PRICE = 10_000_000_000L;
+
+    private List<ECKey> keys;
+    private StandaloneBlockchain chain;
+    private AionPendingStateImpl pendingState;
+    private BlockTemplateBuilder builder;
+
+    @Before
+    public void setup() {
+        keys = BlockchainTestUtils.generateAccounts(4);
+        chain =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts(keys)
+                        .build()
+                        .bc;
+        CfgAion.inst().setGenesis(chain.getGenesis());
+
+        pendingState =
+                AionPendingStateImpl.createForTesting(
+                        CfgAion.inst(), chain, chain.getRepository());
+        pendingState.updateBest();
+        builder = new BlockTemplateBuilder(chain, pendingState);
+    }
+
+    private static AionTransaction transfer(ECKey from, long nonce, Address to, long value) {
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.valueOf(nonce).toByteArray(),
+                        to,
+                        BigInteger.valueOf(value).toByteArray(),
+                        new byte[0],
+                        NRG,
+                        NRG_PRICE);
+        tx.sign(from);
+        return tx;
+    }
+
+    private static Address newAddress(int seed) {
+        return new Address(HashUtil.h256(BigInteger.valueOf(seed).toByteArray()));
+    }
+
+    /** Two transfers from each account, the second one to the next account. */
+    private List<AionTransaction> transfers() {
+        List<AionTransaction> txs = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            txs.add(transfer(keys.get(i), 0, newAddress(i), 1_000 + i));
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            ECKey next = keys.get((i + 1) % keys.size());
+            txs.add(transfer(keys.get(i), 1, new Address(next.getAddress()), 2_000 + i));
+        }
+        return txs;
+    }
+
+    @Test
+    public void testTemplateFromPendingState() {
+        for (AionTransaction tx : transfers()) {
+            assertThat(pendingState.addPendingTransaction(tx)).isEqualTo(TxResponse.SUCCESS);
+        }
+
+        // the pending state executes the transactions on the new best block
+        AionBlock block = chain.createNewBlock(chain.getBestBlock(), Collections.emptyList(), true);
+        assertThat(chain.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+        pendingState.processBest(block, null);
+
+        List<AionTransaction> pending = pendingState.getPendingTransactions();
+        AionBlock template = builder.build(chain.getBestBlock(), pending).block;
+        AionBlock expected = chain.createNewBlock(chain.getBestBlock(), pending, false);
+
+        assertThat(template.getTransactionsList()).hasSize(pending.size());
+        assertThat(template.getStateRoot()).isEqualTo(expected.getStateRoot());
+        assertThat(template.getReceiptsRoot()).isEqualTo(expected.getReceiptsRoot());
+        assertThat(chain.tryToConnect(template)).isEqualTo(ImportResult.IMPORTED_BEST);
+    }
+
+    @Test
+    public void testTemplateIsExtended() {
+        List<AionTransaction> txs = transfers();
+        AionBlock parent = chain.getBestBlock();
+
+        AionBlock first = builder.build(parent, txs.subList(0, 2)).block;
+        AionBlock second = builder.build(parent, txs).block;
+        AionBlock expected = chain.createNewBlock(parent, txs, false);
+
+        // the earlier template is left unchanged
+        assertThat(first.getTransactionsList()).hasSize(2);
+        assertThat(second.getTransactionsList()).hasSize(txs.size());
+        assertThat(second.getStateRoot()).isEqualTo(expected.getStateRoot());
+        assertThat(second.getReceiptsRoot()).isEqualTo(expected.getReceiptsRoot());
+        assertThat(chain.tryToConnect(second)).isEqualTo(ImportResult.IMPORTED_BEST);
+    }
+
+    @Test
+    public void testTemplateIsRebuiltWhenTransactionIsDropped() {
+        List<AionTransaction> txs = transfers();
+        AionBlock parent = chain.getBestBlock();
+
+        builder.build(parent, txs);
+        List<AionTransaction> remaining = txs.subList(1, txs.size());
+        AionBlock template = builder.build(parent, remaining).block;
+        AionBlock expected = chain.createNewBlock(parent, remaining, false);
+
+        // the second transfer of the dropped sender now has an invalid nonce
+        assertThat(template.getTransactionsList()).hasSize(remaining.size() - 1);
+        assertThat(template.getStateRoot()).isEqualTo(expected.getStateRoot());
+    }
+
+    @Test
+    public void testBuildTime() {
+        assertThat(builder.getLastBuildTime()).isEqualTo(0L);
+        assertThat(builder.getAverageBuildTime()).isEqualTo(0L);
+
+        AionBlock parent = chain.getBestBlock();
+        builder.build(parent, transfers());
+        long first = builder.getLastBuildTime();
+        assertThat(first).isGreaterThan(0L);
+        assertThat(builder.getAverageBuildTime()).isEqualTo(first);
+
+        builder.build(parent, transfers());
+        long second = builder.getLastBuildTime();
+        assertThat(builder.getAverageBuildTime()).isEqualTo((first + second) / 2);
+    }
+}
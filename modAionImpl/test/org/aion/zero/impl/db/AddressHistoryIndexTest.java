@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.zero.impl.db.AddressHistoryIndex.MAX_BLOCKS_PER_UPDATE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.mcf.db.IBlockStoreBase;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.A0BlockHeader;
+import org.aion.zero.types.AionTransaction;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class AddressHistoryIndexTest {
+
+    private static final Address ALICE = address(1);
+    private static final Address BOB = address(2);
+    private static final Address CAROL = address(3);
+    private static final Address CONTRACT = address(4);
+
+    @Mock private IBlockStoreBase<AionBlock, A0BlockHeader> store;
+
+    // number => main chain block
+    private final Map<Long, AionBlock> mainChain = new HashMap<>();
+    // hash => any stored block
+    private final Map<ByteArrayWrapper, AionBlock> blocks = new HashMap<>();
+
+    private IByteArrayKeyValueDatabase db;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+
+        when(store.getChainBlockByNumber(anyLong()))
+                .thenAnswer(invocation -> mainChain.get((long) invocation.getArgument(0)));
+        when(store.getBlockHashByNumber(anyLong()))
+                .thenAnswer(
+                        invocation -> {
+                            AionBlock block = mainChain.get((long) invocation.getArgument(0));
+                            return block == null ? null : block.getHash();
+                        });
+        when(store.getBlockByHash(any()))
+                .thenAnswer(
+                        invocation ->
+                                blocks.get(ByteArrayWrapper.wrap(invocation.getArgument(0))));
+
+        db = new MockDB("addressHistory");
+        db.open();
+
+        // 0: genesis, 1: alice -> bob, 2: bob -> carol, 3: alice -> alice, 4: alice creates
+        addBlock(0, 0);
+        addBlock(1, 0, tx(1, ALICE, BOB));
+        addBlock(2, 0, tx(2, BOB, CAROL));
+        addBlock(3, 0, tx(3, ALICE, ALICE));
+        addBlock(4, 0, tx(4, ALICE, null));
+    }
+
+    private static Address address(int id) {
+        byte[] data = new byte[Address.ADDRESS_LEN];
+        data[0] = (byte) id;
+        return Address.wrap(data);
+    }
+
+    private static byte[] hash(long number, int fork) {
+        byte[] hash = new byte[32];
+        hash[0] = (byte) number;
+        hash[1] = (byte) fork;
+        return hash;
+    }
+
+    private static AionTransaction tx(int id, Address from, Address to) {
+        AionTransaction tx = mock(AionTransaction.class);
+        when(tx.getHash()).thenReturn(hash(id, 100));
+        when(tx.getFrom()).thenReturn(from);
+        when(tx.getTo()).thenReturn(to);
+        when(tx.isContractCreation()).thenReturn(to == null);
+        when(tx.getContractAddress()).thenReturn(to == null ? CONTRACT : null);
+        return tx;
+    }
+
+    private void addBlock(long number, int fork, AionTransaction... txs) {
+        AionBlock parent = mainChain.get(number - 1);
+        byte[] parentHash = parent == null ? new byte[32] : parent.getHash();
+
+        AionBlock block = mock(AionBlock.class);
+        when(block.getNumber()).thenReturn(number);
+        when(block.getHash()).thenReturn(hash(number, fork));
+        when(block.getParentHash()).thenReturn(parentHash);
+        when(block.getTransactionsList()).thenReturn(Arrays.asList(txs));
+        mainChain.put(number, block);
+        blocks.put(ByteArrayWrapper.wrap(block.getHash()), block);
+    }
+
+    private static List<Long> blockNumbers(List<AddressHistoryIndex.Entry> entries) {
+        return entries.stream()
+                .map(AddressHistoryIndex.Entry::getBlockNumber)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testTransactionsOfAccount() {
+        AddressHistoryIndex index = new AddressHistoryIndex(db);
+        index.update(store, 4);
+        assertThat(index.getIndexedBlockNumber()).isEqualTo(4);
+
+        assertThat(index.getTransactionCount(ALICE)).isEqualTo(3);
+        assertThat(index.getTransactionCount(BOB)).isEqualTo(2);
+        assertThat(index.getTransactionCount(CAROL)).isEqualTo(1);
+        assertThat(index.getTransactionCount(CONTRACT)).isEqualTo(1);
+
+        // the most recent first
+        List<AddressHistoryIndex.Entry> entries = index.getTransactions(store, ALICE, 0, 10);
+        assertThat(blockNumbers(entries)).containsExactly(4L, 3L, 1L).inOrder();
+        assertThat(entries.get(0).getTxHash()).isEqualTo(hash(4, 100));
+        assertThat(entries.get(0).getBlockHash()).isEqualTo(hash(4, 0));
+        assertThat(entries.get(0).getTxIndex()).isEqualTo(0);
+
+        assertThat(blockNumbers(index.getTransactions(store, BOB, 0, 10)))
+                .containsExactly(2L, 1L)
+                .inOrder();
+
+        // the head is persisted
+        assertThat(new AddressHistoryIndex(db).getIndexedBlockNumber()).isEqualTo(4);
+    }
+
+    @Test
+    public void testPagination() {
+        AddressHistoryIndex index = new AddressHistoryIndex(db);
+        index.update(store, 4);
+
+        assertThat(blockNumbers(index.getTransactions(store, ALICE, 0, 2)))
+                .containsExactly(4L, 3L)
+                .inOrder();
+        assertThat(blockNumbers(index.getTransactions(store, ALICE, 2, 2))).containsExactly(1L);
+        assertThat(index.getTransactions(store, ALICE, 3, 2)).isEmpty();
+        assertThat(index.getTransactions(store, address(9), 0, 2)).isEmpty();
+    }
+
+    @Test
+    public void testUpdateIsGradual() {
+        for (long number = 5; number <= 2 * MAX_BLOCKS_PER_UPDATE; number++) {
+            addBlock(number, 0);
+        }
+
+        AddressHistoryIndex index = new AddressHistoryIndex(db);
+        index.update(store, 2 * MAX_BLOCKS_PER_UPDATE);
+        assertThat(index.getIndexedBlockNumber()).isEqualTo(MAX_BLOCKS_PER_UPDATE - 1);
+
+        index.update(store, 2 * MAX_BLOCKS_PER_UPDATE);
+        assertThat(index.getIndexedBlockNumber()).isEqualTo(2 * MAX_BLOCKS_PER_UPDATE - 1);
+
+        index.update(store, 2 * MAX_BLOCKS_PER_UPDATE);
+        assertThat(index.getIndexedBlockNumber()).isEqualTo(2 * MAX_BLOCKS_PER_UPDATE);
+    }
+
+    @Test
+    public void testReplacedBlocksReverted() {
+        AddressHistoryIndex index = new AddressHistoryIndex(db);
+        index.update(store, 4);
+
+        // blocks 3 and 4 are replaced by a fork where carol pays alice
+        addBlock(3, 1, tx(5, CAROL, ALICE));
+        addBlock(4, 1);
+
+        // the replaced entries are skipped before the update
+        assertThat(blockNumbers(index.getTransactions(store, ALICE, 0, 10))).containsExactly(1L);
+
+        index.update(store, 4);
+        assertThat(index.getIndexedBlockNumber()).isEqualTo(4);
+        assertThat(index.getTransactionCount(ALICE)).isEqualTo(2);
+        assertThat(index.getTransactionCount(CAROL)).isEqualTo(2);
+        assertThat(index.getTransactionCount(CONTRACT)).isEqualTo(0);
+
+        List<AddressHistoryIndex.Entry> entries = index.getTransactions(store, ALICE, 0, 10);
+        assertThat(blockNumbers(entries)).containsExactly(3L, 1L).inOrder();
+        assertThat(entries.get(0).getTxHash()).isEqualTo(hash(5, 100));
+    }
+
+    @Test
+    public void testRevertToLowerBlock() {
+        AddressHistoryIndex index = new AddressHistoryIndex(db);
+        index.update(store, 4);
+
+        index.update(store, 2);
+        assertThat(index.getIndexedBlockNumber()).isEqualTo(2);
+        assertThat(blockNumbers(index.getTransactions(store, ALICE, 0, 10))).containsExactly(1L);
+        assertThat(index.getTransactionCount(CONTRACT)).isEqualTo(0);
+    }
+
+    @Test
+    public void testRebuild() {
+        AddressHistoryIndex index = new AddressHistoryIndex(db);
+        index.update(store, 2);
+
+        assertThat(index.rebuild(store, 4)).isEqualTo(4);
+        assertThat(blockNumbers(index.getTransactions(store, ALICE, 0, 10)))
+                .containsExactly(4L, 3L, 1L)
+                .inOrder();
+    }
+}
@@ -36,6 +36,7 @@
 package org.aion.zero.impl.db;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 
 import java.math.BigInteger;
 import java.util.Optional;
@@ -398,4 +399,45 @@ public class AionRepositoryImplTest {
         assertThat(repository.getBalance(account2)).isLessThan(snapshot.getBalance(account2));
         assertThat(repository.getBalance(account3)).isLessThan(snapshot.getBalance(account3));
     }
+
+    @Test
+    public void testReadOnlySnapshot() {
+        AionRepositoryImpl repository = AionRepositoryImpl.createForTesting(repoConfig);
+
+        final Address account = Address.wrap(value1);
+        IRepositoryCache track = repository.startTracking();
+        track.addBalance(account, BigInteger.ONE);
+        track.flush();
+        repository.flush();
+
+        AionRepositorySnapshot snapshot = repository.getReadOnlySnapshot(1, repository.getRoot());
+        assertThat(snapshot.getBlockNumber()).isEqualTo(1);
+        assertThat(repository.getOpenSnapshotCount()).isEqualTo(1);
+
+        // changes to the repository are not visible in the snapshot
+        track = repository.startTracking();
+        track.addBalance(account, BigInteger.TEN);
+        track.flush();
+        repository.flush();
+        assertThat(snapshot.getBalance(account)).isEqualTo(BigInteger.ONE);
+        assertThat(repository.getBalance(account)).isEqualTo(BigInteger.valueOf(11));
+
+        // the snapshot cannot be modified
+        IRepositoryCache snapshotTrack = snapshot.startTracking();
+        snapshotTrack.addBalance(account, BigInteger.TEN);
+        try {
+            snapshotTrack.flush();
+            fail("The snapshot is read-only.");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertThat(snapshot.getBalance(account)).isEqualTo(BigInteger.ONE);
+
+        // closing releases the snapshot without closing the shared databases
+        snapshot.close();
+        snapshot.close();
+        assertThat(snapshot.isClosed()).isTrue();
+        assertThat(repository.getOpenSnapshotCount()).isEqualTo(0);
+        assertThat(repository.getBalance(account)).isEqualTo(BigInteger.valueOf(11));
+    }
 }
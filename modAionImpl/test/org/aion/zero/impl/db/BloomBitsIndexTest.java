@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.zero.impl.db.BloomBitsIndex.CONFIRMATIONS;
+import static org.aion.zero.impl.db.BloomBitsIndex.SECTION_SIZE;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.mcf.db.IBlockStoreBase;
+import org.aion.mcf.vm.types.Bloom;
+import org.aion.zero.impl.core.BloomFilter;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.A0BlockHeader;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class BloomBitsIndexTest {
+
+    private static final byte[] HASH = new byte[32];
+    private static final byte[] OTHER_HASH = new byte[32];
+
+    static {
+        OTHER_HASH[0] = 1;
+    }
+
+    private static final byte[] ADDRESS = "some-contract-address".getBytes();
+
+    // the blocks of each section with logs from the address
+    private static final long[] MATCHES = {7, 100, SECTION_SIZE + 1};
+
+    @Mock private IBlockStoreBase<AionBlock, A0BlockHeader> store;
+    @Mock private AionBlock matchBlock;
+    @Mock private AionBlock emptyBlock;
+
+    private IByteArrayKeyValueDatabase db;
+    private Bloom[][] query;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+
+        when(matchBlock.getLogBloom()).thenReturn(BloomFilter.create(ADDRESS).getData());
+        when(matchBlock.getHash()).thenReturn(HASH);
+        when(emptyBlock.getLogBloom()).thenReturn(new Bloom().getData());
+        when(emptyBlock.getHash()).thenReturn(HASH);
+
+        when(store.getChainBlockByNumber(anyLong()))
+                .thenAnswer(
+                        invocation -> {
+                            long number = invocation.getArgument(0);
+                            for (long match : MATCHES) {
+                                if (match == number) {
+                                    return matchBlock;
+                                }
+                            }
+                            return emptyBlock;
+                        });
+        when(store.getBlockHashByNumber(anyLong())).thenReturn(HASH);
+
+        db = new MockDB("bloomBits");
+        db.open();
+
+        query = new Bloom[][] {{BloomFilter.create(ADDRESS)}};
+    }
+
+    private static List<Long> candidates(
+            BloomBitsIndex index,
+            IBlockStoreBase<AionBlock, A0BlockHeader> store,
+            long from,
+            long to,
+            Bloom[][] query) {
+        List<Long> result = new ArrayList<>();
+        index.forEachCandidate(store, from, to, query, result::add);
+        return result;
+    }
+
+    @Test
+    public void testSectionIndexedAfterConfirmations() {
+        BloomBitsIndex index = new BloomBitsIndex(db);
+
+        index.update(store, SECTION_SIZE - 2 + CONFIRMATIONS);
+        assertThat(index.getIndexedSections()).isEqualTo(0);
+
+        index.update(store, SECTION_SIZE - 1 + CONFIRMATIONS);
+        assertThat(index.getIndexedSections()).isEqualTo(1);
+
+        // the head is persisted
+        assertThat(new BloomBitsIndex(db).getIndexedSections()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCandidates() {
+        BloomBitsIndex index = new BloomBitsIndex(db);
+        index.update(store, SECTION_SIZE - 1 + CONFIRMATIONS);
+        index.update(store, 2 * SECTION_SIZE - 1 + CONFIRMATIONS);
+        assertThat(index.getIndexedSections()).isEqualTo(2);
+
+        assertThat(candidates(index, store, 0, 2 * SECTION_SIZE - 1, query))
+                .containsExactly(7L, 100L, (long) SECTION_SIZE + 1)
+                .inOrder();
+        assertThat(candidates(index, store, 8, SECTION_SIZE + 1, query))
+                .containsExactly(100L, (long) SECTION_SIZE + 1)
+                .inOrder();
+
+        // blocks past the indexed sections are all candidates
+        assertThat(candidates(index, store, 2 * SECTION_SIZE - 1, 2 * SECTION_SIZE + 2, query))
+                .containsExactly(
+                        2L * SECTION_SIZE, 2L * SECTION_SIZE + 1, 2L * SECTION_SIZE + 2)
+                .inOrder();
+
+        // an empty bloom matches all the blocks
+        assertThat(candidates(index, store, 0, 9, new Bloom[][] {{new Bloom()}})).hasSize(10);
+    }
+
+    @Test
+    public void testVisitorStopsSearch() {
+        BloomBitsIndex index = new BloomBitsIndex(db);
+        index.rebuild(store, 2 * SECTION_SIZE - 1 + CONFIRMATIONS);
+
+        List<Long> result = new ArrayList<>();
+        index.forEachCandidate(
+                store,
+                0,
+                2 * SECTION_SIZE - 1,
+                query,
+                number -> {
+                    result.add(number);
+                    return false;
+                });
+        assertThat(result).containsExactly(7L);
+    }
+
+    @Test
+    public void testReplacedSectionIgnoredAndReindexed() {
+        BloomBitsIndex index = new BloomBitsIndex(db);
+        index.update(store, SECTION_SIZE - 1 + CONFIRMATIONS);
+        assertThat(index.getIndexedSections()).isEqualTo(1);
+
+        // the section was replaced on the main chain
+        when(store.getBlockHashByNumber(anyLong())).thenReturn(OTHER_HASH);
+        assertThat(candidates(index, store, 0, SECTION_SIZE - 1, query)).hasSize(SECTION_SIZE);
+
+        when(matchBlock.getHash()).thenReturn(OTHER_HASH);
+        when(emptyBlock.getHash()).thenReturn(OTHER_HASH);
+        index.update(store, SECTION_SIZE - 1 + CONFIRMATIONS);
+        assertThat(index.getIndexedSections()).isEqualTo(1);
+        assertThat(candidates(index, store, 0, SECTION_SIZE - 1, query))
+                .containsExactly(7L, 100L)
+                .inOrder();
+    }
+
+    @Test
+    public void testUpdateLeavesBackfillToRebuild() {
+        BloomBitsIndex index = new BloomBitsIndex(db);
+
+        // the earlier sections are not indexed during the import
+        index.update(store, 3 * SECTION_SIZE - 1 + CONFIRMATIONS);
+        assertThat(index.getIndexedSections()).isEqualTo(0);
+        verify(store, never()).getChainBlockByNumber(anyLong());
+
+        assertThat(index.rebuild(store, 3 * SECTION_SIZE - 1 + CONFIRMATIONS)).isEqualTo(3);
+
+        // the next section is indexed on its own
+        index.update(store, 4 * SECTION_SIZE - 1 + CONFIRMATIONS);
+        assertThat(index.getIndexedSections()).isEqualTo(4);
+        verify(store, times(4 * SECTION_SIZE)).getChainBlockByNumber(anyLong());
+    }
+
+    @Test
+    public void testRebuild() {
+        BloomBitsIndex index = new BloomBitsIndex(db);
+        assertThat(index.rebuild(store, 2 * SECTION_SIZE - 1 + CONFIRMATIONS)).isEqualTo(2);
+        assertThat(candidates(index, store, 0, 2 * SECTION_SIZE - 1, query)).hasSize(3);
+    }
+}
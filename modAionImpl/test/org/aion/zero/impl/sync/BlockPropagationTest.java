@@ -222,6 +222,11 @@ public class BlockPropagationTest {
         @Override
         public void send(int _id, String _displayId, Msg _msg) {}
 
+        @Override
+        public boolean isCongested(int _id) {
+            return false;
+        }
+
         @Override
         public void closeSocket(SocketChannel _sc, String _reason) {}
 
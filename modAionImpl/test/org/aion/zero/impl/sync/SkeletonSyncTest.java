@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.sync;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.zero.impl.sync.SkeletonSync.REQUEST_TIMEOUT;
+import static org.aion.zero.impl.sync.SkeletonSync.SEGMENT_COUNT;
+import static org.aion.zero.impl.sync.SkeletonSync.SEGMENT_SIZE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.p2p.INode;
+import org.aion.p2p.IP2pMgr;
+import org.aion.zero.exceptions.HeaderStructureException;
+import org.aion.zero.impl.sync.SkeletonSync.Match;
+import org.aion.zero.impl.sync.msg.ReqBlocksHeaders;
+import org.aion.zero.types.A0BlockHeader;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SkeletonSyncTest {
+
+    private static final long NOW = 1_000_000L;
+    private static final long NETWORK_BEST = 10_000L;
+
+    /** A header request sent to a peer. */
+    private static final class Request {
+        private final int peer;
+        private final ReqBlocksHeaders msg;
+
+        private Request(int peer, ReqBlocksHeaders msg) {
+            this.peer = peer;
+            this.msg = msg;
+        }
+    }
+
+    private final List<Request> sent = new ArrayList<>();
+    private SkeletonSync skeletonSync;
+    private List<A0BlockHeader> chain;
+
+    @Before
+    public void setup() throws HeaderStructureException {
+        Map<Integer, INode> nodes = new HashMap<>();
+        nodes.put(1, mockNode(1, 10));
+        nodes.put(2, mockNode(2, 30));
+        nodes.put(3, mockNode(3, 20));
+
+        IP2pMgr p2p = mock(IP2pMgr.class);
+        when(p2p.getActiveNodes()).thenReturn(nodes);
+        doAnswer(
+                        invocation -> {
+                            sent.add(
+                                    new Request(
+                                            invocation.getArgument(0),
+                                            invocation.getArgument(2)));
+                            return null;
+                        })
+                .when(p2p)
+                .send(anyInt(), anyString(), any());
+
+        skeletonSync =
+                new SkeletonSync(
+                        p2p,
+                        new ConcurrentHashMap<>(),
+                        new SyncStats(0L),
+                        AionLoggerFactory.getLogger(LogEnum.SYNC.name()));
+
+        chain = generateHeaders(SEGMENT_SIZE * SEGMENT_COUNT + 1, new byte[0]);
+    }
+
+    private static INode mockNode(int idHash, long td) {
+        INode node = mock(INode.class);
+        when(node.getIdHash()).thenReturn(idHash);
+        when(node.getIdShort()).thenReturn("node" + idHash);
+        when(node.getBestBlockNumber()).thenReturn(NETWORK_BEST);
+        when(node.getTotalDifficulty()).thenReturn(BigInteger.valueOf(td));
+        return node;
+    }
+
+    /** Generates consecutive headers starting from number 0. */
+    private static List<A0BlockHeader> generateHeaders(int count, byte[] extraData)
+            throws HeaderStructureException {
+        List<A0BlockHeader> headers = new ArrayList<>();
+        byte[] parentHash = null;
+        for (int i = 0; i < count; i++) {
+            A0BlockHeader.Builder builder =
+                    new A0BlockHeader.Builder().withNumber(i).withExtraData(extraData);
+            if (parentHash != null) {
+                builder.withParentHash(parentHash);
+            }
+            A0BlockHeader header = builder.build();
+            headers.add(header);
+            parentHash = header.getHash();
+        }
+        return headers;
+    }
+
+    private void requestFromGenesis(long now) {
+        skeletonSync.request(0L, chain.get(0).getHash(), BigInteger.ONE, NETWORK_BEST, now);
+    }
+
+    /** Receives the skeleton headers from the given peer. */
+    private void receiveSkeleton(int peer) {
+        for (int i = 1; i <= SEGMENT_COUNT; i++) {
+            List<A0BlockHeader> header = List.of(chain.get(i * SEGMENT_SIZE));
+            assertThat(skeletonSync.accept(peer, header)).isEqualTo(Match.SKELETON);
+        }
+    }
+
+    private List<A0BlockHeader> segment(int index) {
+        return chain.subList(index * SEGMENT_SIZE + 1, (index + 1) * SEGMENT_SIZE + 1);
+    }
+
+    private List<Request> segmentRequests() {
+        return sent.stream()
+                .filter(r -> r.msg.getTake() == SEGMENT_SIZE)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testSkeletonRequestedFromHighestTotalDifficulty() {
+        requestFromGenesis(NOW);
+
+        assertThat(sent).hasSize(SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            Request request = sent.get(i);
+            assertThat(request.peer).isEqualTo(2);
+            assertThat(request.msg.getFromBlock()).isEqualTo((i + 1) * SEGMENT_SIZE);
+            assertThat(request.msg.getTake()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testNoSkeletonCloseToNetwork() {
+        skeletonSync.request(
+                NETWORK_BEST - 10, chain.get(0).getHash(), BigInteger.ONE, NETWORK_BEST, NOW);
+        assertThat(sent).isEmpty();
+    }
+
+    @Test
+    public void testSegmentsRequestedFromDifferentPeers() {
+        requestFromGenesis(NOW);
+        receiveSkeleton(2);
+        requestFromGenesis(NOW);
+
+        // one segment for each of the three peers
+        List<Request> segments = segmentRequests();
+        assertThat(segments).hasSize(3);
+        for (int i = 0; i < segments.size(); i++) {
+            assertThat(segments.get(i).msg.getFromBlock()).isEqualTo(i * SEGMENT_SIZE + 1);
+        }
+        assertThat(segments.stream().map(r -> r.peer).collect(Collectors.toSet()))
+                .containsExactly(1, 2, 3);
+    }
+
+    @Test
+    public void testSegmentMatchedAgainstSkeleton() throws HeaderStructureException {
+        requestFromGenesis(NOW);
+        receiveSkeleton(2);
+        requestFromGenesis(NOW);
+
+        int first = segmentRequests().get(0).peer;
+        int second = segmentRequests().get(1).peer;
+
+        // headers that were not requested from the peer
+        assertThat(skeletonSync.accept(first, segment(1))).isEqualTo(Match.UNRELATED);
+
+        // a segment from another chain does not link to the skeleton
+        List<A0BlockHeader> fork = generateHeaders(2 * SEGMENT_SIZE + 1, new byte[] {1});
+        assertThat(skeletonSync.accept(second, fork.subList(SEGMENT_SIZE + 1, fork.size())))
+                .isEqualTo(Match.REJECTED);
+
+        assertThat(skeletonSync.accept(first, segment(0))).isEqualTo(Match.SEGMENT);
+        // already received
+        assertThat(skeletonSync.accept(first, segment(0))).isEqualTo(Match.UNRELATED);
+    }
+
+    @Test
+    public void testSkeletonDroppedWhenSegmentsRejected() throws HeaderStructureException {
+        requestFromGenesis(NOW);
+        receiveSkeleton(2);
+        requestFromGenesis(NOW);
+
+        List<A0BlockHeader> fork = generateHeaders(3 * SEGMENT_SIZE + 1, new byte[] {1});
+        for (int i = 0; i < SkeletonSync.MAX_REJECTIONS; i++) {
+            Request request = segmentRequests().get(i);
+            List<A0BlockHeader> forkSegment =
+                    fork.subList(i * SEGMENT_SIZE + 1, (i + 1) * SEGMENT_SIZE + 1);
+            assertThat(skeletonSync.accept(request.peer, forkSegment)).isEqualTo(Match.REJECTED);
+        }
+
+        // the late segment of the dropped skeleton is no longer expected
+        Request late = segmentRequests().get(SkeletonSync.MAX_REJECTIONS);
+        assertThat(skeletonSync.accept(late.peer, segment(SkeletonSync.MAX_REJECTIONS)))
+                .isEqualTo(Match.UNRELATED);
+
+        // the next skeleton is requested from the best of the other peers
+        sent.clear();
+        requestFromGenesis(NOW);
+        assertThat(sent).hasSize(SEGMENT_COUNT);
+        assertThat(sent.stream().map(r -> r.peer).collect(Collectors.toSet())).containsExactly(3);
+    }
+
+    @Test
+    public void testLateSegmentRequestedFromAnotherPeer() {
+        requestFromGenesis(NOW);
+        receiveSkeleton(2);
+        requestFromGenesis(NOW);
+        int first = segmentRequests().get(0).peer;
+
+        requestFromGenesis(NOW + REQUEST_TIMEOUT + 1);
+
+        Request retry = segmentRequests().get(3);
+        assertThat(retry.msg.getFromBlock()).isEqualTo(1L);
+        assertThat(retry.peer).isNotEqualTo(first);
+    }
+}
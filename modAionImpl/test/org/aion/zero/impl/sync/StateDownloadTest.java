@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.sync;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.crypto.HashUtil.EMPTY_TRIE_HASH;
+import static org.aion.crypto.HashUtil.h256;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.db.IContractDetails;
+import org.aion.base.db.IRepositoryCache;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.db.impl.DBVendor;
+import org.aion.mcf.vm.types.DataWord;
+import org.aion.zero.impl.MockRepositoryConfig;
+import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.db.ContractDetailsAion;
+import org.aion.zero.impl.sync.msg.ReqTrieData;
+import org.junit.Test;
+
+public class StateDownloadTest {
+
+    private static final int ACCOUNTS = 200;
+    private static final int STORAGE_ROWS = 100;
+
+    private static AionRepositoryImpl newRepository(boolean externalStorage) {
+        return AionRepositoryImpl.createForTesting(
+                new MockRepositoryConfig(DBVendor.MOCKDB) {
+                    @Override
+                    public IContractDetails contractDetailsImpl() {
+                        // a zero limit stores every contract storage outside its details
+                        return ContractDetailsAion.createForTesting(
+                                        0, externalStorage ? 0 : 1000000)
+                                .getDetails();
+                    }
+                });
+    }
+
+    private static Address address(int i) {
+        byte[] bytes = new byte[Address.ADDRESS_LEN];
+        bytes[0] = (byte) 0xa0;
+        bytes[30] = (byte) (i >> 8);
+        bytes[31] = (byte) i;
+        return Address.wrap(bytes);
+    }
+
+    private static DataWord word(int i) {
+        return new DataWord(i + 1);
+    }
+
+    /** Adds accounts, a contract with code and storage and a contract with only code. */
+    private static byte[] populate(AionRepositoryImpl repository) {
+        IRepositoryCache track = repository.startTracking();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            track.addBalance(address(i), BigInteger.valueOf(i + 1));
+        }
+        track.saveCode(address(0), new byte[] {1, 2, 3});
+        for (int i = 0; i < STORAGE_ROWS; i++) {
+            track.addStorageRow(address(0), word(i), word(i * 7));
+        }
+        track.saveCode(address(1), new byte[] {4, 5, 6});
+        track.flush();
+        repository.flush();
+        return repository.getRoot();
+    }
+
+    /** Answers the requests of the download from the databases of the source repository. */
+    private static void serve(StateDownload download, AionRepositoryImpl source) {
+        Map<ByteArrayWrapper, byte[]> addresses = new HashMap<>();
+        for (byte[] address : source.getDetailsDatabase().keys()) {
+            addresses.put(ByteArrayWrapper.wrap(h256(address)), address);
+        }
+
+        for (int round = 0; round < 1_000 && !download.isComplete(); round++) {
+            download.walkStored(Integer.MAX_VALUE);
+            ReqTrieData request = download.nextRequest();
+            if (request == null) {
+                continue;
+            }
+            List<byte[]> keys = new ArrayList<>();
+            List<byte[]> values = new ArrayList<>();
+            for (byte[] key : request.getKeys()) {
+                Optional<byte[]> value = get(source, addresses, request.getType(), key);
+                if (value.isPresent()) {
+                    keys.add(key);
+                    values.add(value.get());
+                }
+            }
+            download.receive(request.getType(), keys, values);
+            download.retry(request.getType(), request.getKeys());
+        }
+    }
+
+    private static Optional<byte[]> get(
+            AionRepositoryImpl source,
+            Map<ByteArrayWrapper, byte[]> addresses,
+            TrieDataType type,
+            byte[] key) {
+        switch (type) {
+            case STATE:
+                return source.getStateDatabase().get(key);
+            case STORAGE:
+                return source.getStorageDatabase().get(key);
+            default:
+                byte[] address = addresses.get(ByteArrayWrapper.wrap(key));
+                return address == null
+                        ? Optional.empty()
+                        : source.getDetailsDatabase().get(address);
+        }
+    }
+
+    private static StateDownload downloadInto(AionRepositoryImpl target) {
+        return new StateDownload(
+                target.getStateDatabase(),
+                target.getStorageDatabase(),
+                target.getDetailsDatabase());
+    }
+
+    private static void assertSameState(
+            AionRepositoryImpl source, AionRepositoryImpl target, byte[] root) {
+        target.syncToRoot(root);
+        assertThat(target.getRoot()).isEqualTo(root);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            assertThat(target.getBalance(address(i))).isEqualTo(source.getBalance(address(i)));
+        }
+        assertThat(target.getCode(address(0))).isEqualTo(new byte[] {1, 2, 3});
+        assertThat(target.getCode(address(1))).isEqualTo(new byte[] {4, 5, 6});
+        for (int i = 0; i < STORAGE_ROWS; i++) {
+            assertThat(target.getStorageValue(address(0), word(i))).isEqualTo(word(i * 7));
+        }
+    }
+
+    @Test
+    public void testDownloadWithInlineStorage() {
+        AionRepositoryImpl source = newRepository(false);
+        byte[] root = populate(source);
+
+        AionRepositoryImpl target = newRepository(false);
+        StateDownload download = downloadInto(target);
+        download.start(root);
+        serve(download, source);
+
+        assertThat(download.isComplete()).isTrue();
+        assertThat(download.getDownloaded(TrieDataType.DETAILS)).isEqualTo(2L);
+        assertThat(download.getDownloaded(TrieDataType.STORAGE)).isEqualTo(0L);
+        assertSameState(source, target, root);
+    }
+
+    @Test
+    public void testDownloadWithExternalStorage() {
+        AionRepositoryImpl source = newRepository(true);
+        byte[] root = populate(source);
+
+        AionRepositoryImpl target = newRepository(true);
+        StateDownload download = downloadInto(target);
+        download.start(root);
+        serve(download, source);
+
+        assertThat(download.isComplete()).isTrue();
+        assertThat(download.getDownloaded(TrieDataType.STORAGE)).isGreaterThan(0L);
+        assertSameState(source, target, root);
+    }
+
+    @Test
+    public void testRestartReusesStoredNodes() {
+        AionRepositoryImpl source = newRepository(true);
+        byte[] root = populate(source);
+
+        AionRepositoryImpl target = newRepository(true);
+        StateDownload download = downloadInto(target);
+        download.start(root);
+        serve(download, source);
+        long nodes = download.getDownloaded(TrieDataType.STATE);
+
+        // a single account changes in a more recent block
+        IRepositoryCache track = source.startTracking();
+        track.addBalance(address(5), BigInteger.TEN);
+        track.flush();
+        source.flush();
+        byte[] newRoot = source.getRoot();
+
+        download.start(newRoot);
+        serve(download, source);
+
+        assertThat(download.isComplete()).isTrue();
+        long changed = download.getDownloaded(TrieDataType.STATE) - nodes;
+        assertThat(changed).isGreaterThan(0L);
+        assertThat(changed).isLessThan(nodes);
+        assertThat(download.getDownloaded(TrieDataType.DETAILS)).isEqualTo(2L);
+        assertSameState(source, target, newRoot);
+    }
+
+    @Test
+    public void testInvalidDataIsRequestedAgain() {
+        AionRepositoryImpl source = newRepository(false);
+        byte[] root = populate(source);
+
+        StateDownload download = downloadInto(newRepository(false));
+        download.start(root);
+
+        ReqTrieData request = download.nextRequest();
+        assertThat(request.getType()).isEqualTo(TrieDataType.STATE);
+        assertThat(request.getKeys()).hasSize(1);
+        byte[] key = request.getKeys().get(0);
+        assertThat(key).isEqualTo(root);
+
+        byte[] node = source.getStateDatabase().get(key).get().clone();
+        node[node.length - 1] ^= 1;
+        List<byte[]> keys = List.of(key);
+        assertThat(download.receive(TrieDataType.STATE, keys, List.of(node))).isEqualTo(0);
+        assertThat(download.isComplete()).isFalse();
+
+        // nothing else can be requested until the root is received
+        assertThat(download.nextRequest()).isNull();
+        download.retry(TrieDataType.STATE, keys);
+        assertThat(download.nextRequest().getKeys().get(0)).isEqualTo(root);
+    }
+
+    @Test
+    public void testEmptyState() {
+        StateDownload download = downloadInto(newRepository(false));
+        download.start(EMPTY_TRIE_HASH);
+        assertThat(download.isComplete()).isTrue();
+        assertThat(download.nextRequest()).isNull();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.sync;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.zero.impl.sync.TaskValidateBlocks.countValidPrefix;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.aion.base.type.Address;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.AionTransaction;
+import org.junit.Test;
+
+public class TaskValidateBlocksTest {
+
+    private static final ECKey key = ECKeyFac.inst().create();
+    private static final Address to = new Address(ECKeyFac.inst().create().getAddress());
+
+    private static int nonce = 0;
+
+    private static AionTransaction transaction(long nrg) {
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.valueOf(nonce++).toByteArray(),
+                        to,
+                        new byte[0],
+                        new byte[0],
+                        nrg,
+                        10_000_000_000L);
+        tx.sign(key);
+        return tx;
+    }
+
+    private static AionTransaction validTransaction() {
+        return transaction(1_000_000L);
+    }
+
+    private static AionTransaction invalidTransaction() {
+        // below the energy needed by any transaction
+        return transaction(1L);
+    }
+
+    private static AionBlock block(AionTransaction... txs) {
+        AionBlock block = mock(AionBlock.class);
+        List<AionTransaction> list = new ArrayList<>();
+        Collections.addAll(list, txs);
+        when(block.getTransactionsList()).thenReturn(list);
+        return block;
+    }
+
+    @Test
+    public void testCountValidPrefixOfValidBatch() {
+        List<AionBlock> blocks = new ArrayList<>();
+        blocks.add(block(validTransaction(), validTransaction()));
+        blocks.add(block());
+        blocks.add(block(validTransaction()));
+
+        assertThat(countValidPrefix(blocks)).isEqualTo(3);
+    }
+
+    @Test
+    public void testCountValidPrefixStopsAtInvalidBlock() {
+        List<AionBlock> blocks = new ArrayList<>();
+        blocks.add(block(validTransaction()));
+        blocks.add(block(validTransaction(), invalidTransaction()));
+        blocks.add(block(validTransaction()));
+
+        // the blocks after the invalid one are dropped even if valid
+        assertThat(countValidPrefix(blocks)).isEqualTo(1);
+    }
+
+    @Test
+    public void testCountValidPrefixOfEmptyBatch() {
+        assertThat(countValidPrefix(Collections.emptyList())).isEqualTo(0);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ *     The aion network project leverages useful source code from other
+ *     open source projects. We greatly appreciate the effort that was
+ *     invested in these projects and we thank the individual contributors
+ *     for their work. For provenance information and contributors
+ *     please see <https://github.com/aionnetwork/aion/wiki/Contributors>.
+ *
+ * Contributors to the aion source files in decreasing order of code volume:
+ *     Aion foundation.
+ *     <ether.camp> team through the ethereumJ library.
+ *     Ether.Camp Inc. (US) team through Ethereum Harmony.
+ *     John Tromp through the Equihash solver.
+ *     Samuel Neves through the BLAKE2 implementation.
+ *     Zcash project team.
+ *     Bitcoinj team.
+ */
+package org.aion.zero.impl.sync.msg;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.aion.base.util.ByteUtil;
+import org.aion.zero.impl.sync.TrieDataType;
+import org.junit.Test;
+
+public class TrieDataTest {
+
+    private static final byte[] key1 = ByteUtil.hexStringToBytes("0102");
+    private static final byte[] key2 = new byte[32];
+    private static final byte[] value = ByteUtil.hexStringToBytes("c3010203");
+
+    @Test
+    public void testRequestEncoding() {
+        for (TrieDataType type : TrieDataType.values()) {
+            ReqTrieData decoded =
+                    ReqTrieData.decode(new ReqTrieData(type, Arrays.asList(key1, key2)).encode());
+
+            assertThat(decoded.getType()).isEqualTo(type);
+            assertThat(decoded.getKeys()).hasSize(2);
+            assertThat(decoded.getKeys().get(0)).isEqualTo(key1);
+            assertThat(decoded.getKeys().get(1)).isEqualTo(key2);
+        }
+    }
+
+    @Test
+    public void testResponseEncoding() {
+        ResTrieData decoded =
+                ResTrieData.decode(
+                        new ResTrieData(
+                                        TrieDataType.STORAGE,
+                                        Arrays.asList(key1, key2),
+                                        Arrays.asList(value, ByteUtil.EMPTY_BYTE_ARRAY))
+                                .encode());
+
+        assertThat(decoded.getType()).isEqualTo(TrieDataType.STORAGE);
+        assertThat(decoded.getKeys().get(1)).isEqualTo(key2);
+        assertThat(decoded.getValues().get(0)).isEqualTo(value);
+        assertThat(decoded.getValues().get(1)).isEmpty();
+    }
+
+    @Test
+    public void testEmptyResponse() {
+        List<byte[]> empty = Collections.emptyList();
+        ResTrieData decoded =
+                ResTrieData.decode(new ResTrieData(TrieDataType.STATE, empty, empty).encode());
+
+        assertThat(decoded.getType()).isEqualTo(TrieDataType.STATE);
+        assertThat(decoded.getKeys()).isEmpty();
+    }
+
+    @Test
+    public void testInvalidEncoding() {
+        assertThat(ReqTrieData.decode(null)).isNull();
+        assertThat(ReqTrieData.decode(new byte[] {0x01})).isNull();
+
+        // a request is not a valid response
+        byte[] request =
+                new ReqTrieData(TrieDataType.STATE, Collections.singletonList(key1)).encode();
+        assertThat(ResTrieData.decode(request)).isNull();
+    }
+}
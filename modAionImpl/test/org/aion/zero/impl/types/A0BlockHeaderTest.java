@@ -169,6 +169,68 @@ public class A0BlockHeaderTest {
         byte[] difficulty = reconstructed.getDifficulty();
     }
 
+    @Test
+    public void testHashUpdatedBySetters() throws Exception {
+        A0BlockHeader header =
+                new A0BlockHeader.Builder()
+                        .withCoinbase(Address.wrap(COINBASE))
+                        .withStateRoot(STATE_ROOT)
+                        .withTxTrieRoot(TRIE_ROOT)
+                        .withReceiptTrieRoot(RECEIPT_ROOT)
+                        .withNumber(NUMBER_BYTES)
+                        .withEnergyLimit(ENERGY_LIMIT_BYTES)
+                        .withParentHash(PARENT_HASH)
+                        .build();
+
+        byte[] hash = header.getHash();
+        assertThat(header.getHash()).isEqualTo(hash);
+        assertThat(header.getHash()).isEqualTo(HashUtil.h256(header.getEncoded(true)));
+
+        header.setNonce(NONCE_BYTES);
+        byte[] withNonce = header.getHash();
+        assertThat(withNonce).isNotEqualTo(hash);
+        assertThat(withNonce).isEqualTo(HashUtil.h256(header.getEncoded(true)));
+
+        byte[] solution = new byte[1408];
+        solution[0] = 1;
+        header.setSolution(solution);
+        byte[] withSolution = header.getHash();
+        assertThat(withSolution).isNotEqualTo(withNonce);
+        assertThat(withSolution).isEqualTo(HashUtil.h256(header.getEncoded(true)));
+
+        header.setEnergyConsumed(ENERGY_CONSUMED);
+        assertThat(header.getHash()).isNotEqualTo(withSolution);
+        assertThat(header.getEncoded()).isEqualTo(header.getEncoded(true));
+
+        A0BlockHeader copy = new A0BlockHeader(header);
+        assertThat(copy.getHash()).isEqualTo(header.getHash());
+    }
+
+    @Test
+    public void testCachedValuesNotModifiedByCallers() throws Exception {
+        A0BlockHeader header =
+                new A0BlockHeader.Builder()
+                        .withCoinbase(Address.wrap(COINBASE))
+                        .withStateRoot(STATE_ROOT)
+                        .withTxTrieRoot(TRIE_ROOT)
+                        .withReceiptTrieRoot(RECEIPT_ROOT)
+                        .withNumber(NUMBER_BYTES)
+                        .withEnergyLimit(ENERGY_LIMIT_BYTES)
+                        .withParentHash(PARENT_HASH)
+                        .build();
+
+        byte[] hash = header.getHash();
+        byte[] encoded = header.getEncoded();
+        byte[] expectedHash = hash.clone();
+        byte[] expectedEncoded = encoded.clone();
+
+        hash[0] ^= 1;
+        encoded[0] ^= 1;
+
+        assertThat(header.getHash()).isEqualTo(expectedHash);
+        assertThat(header.getEncoded()).isEqualTo(expectedEncoded);
+    }
+
     // verification tests, test that no properties are being violated
 
     @Test(expected = HeaderStructureException.class)
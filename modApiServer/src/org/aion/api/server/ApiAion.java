@@ -66,6 +66,7 @@ import org.aion.zero.impl.blockchain.IAionChain;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.core.IAionBlockchain;
 import org.aion.zero.impl.db.AionBlockStore;
+import org.aion.zero.impl.db.AionRepositorySnapshot;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.impl.types.AionBlockSummary;
 import org.aion.zero.impl.types.AionTxInfo;
@@ -194,8 +195,8 @@ public abstract class ApiAion extends Api {
 
                 currentTemplate =
                         ac.getAionHub()
-                                .getBlockchain()
-                                .createNewBlockContext(bestBlock, new ArrayList<>(ret), false);
+                                .getBlockTemplateBuilder()
+                                .build(bestBlock, new ArrayList<>(ret));
             }
         } finally {
             blockTemplateLock.unlock();
@@ -377,7 +378,9 @@ public abstract class ApiAion extends Api {
     }
 
     public byte[] getCode(Address addr) {
-        return this.ac.getRepository().getCode(addr);
+        try (AionRepositorySnapshot snapshot = getBestStateSnapshot()) {
+            return snapshot.getCode(addr);
+        }
     }
 
     /* NOTE: only use this if you need receipts for one or small number transactions in a block.
@@ -535,19 +538,31 @@ public abstract class ApiAion extends Api {
 
     // Transaction Level
     public BigInteger getBalance(String _address) {
-        return this.ac.getRepository().getBalance(Address.wrap(_address));
+        return getBalance(Address.wrap(_address));
     }
 
     public BigInteger getBalance(Address _address) {
-        return this.ac.getRepository().getBalance(_address);
+        try (AionRepositorySnapshot snapshot = getBestStateSnapshot()) {
+            return snapshot.getBalance(_address);
+        }
     }
 
     public BigInteger getNonce(String _address) {
-        return this.ac.getRepository().getNonce(Address.wrap(_address));
+        return getNonce(Address.wrap(_address));
     }
 
     public BigInteger getNonce(Address _address) {
-        return this.ac.getRepository().getNonce(_address);
+        try (AionRepositorySnapshot snapshot = getBestStateSnapshot()) {
+            return snapshot.getNonce(_address);
+        }
+    }
+
+    /**
+     * The state of the best block is read from a snapshot so that the queries are not blocked by
+     * the import of the following blocks.
+     */
+    private AionRepositorySnapshot getBestStateSnapshot() {
+        return this.ac.getReadOnlySnapshot(this.ac.getBlockchain().getBestBlock());
     }
 
     protected ApiTxResponse sendTransaction(ArgTxCall _params) {
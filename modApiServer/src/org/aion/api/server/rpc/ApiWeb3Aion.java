@@ -93,15 +93,18 @@ import org.aion.mcf.vm.types.DataWord;
 import org.aion.mcf.vm.types.Log;
 import org.aion.p2p.INode;
 import org.aion.zero.impl.AionBlockchainImpl;
+import org.aion.zero.impl.AionHub;
 import org.aion.zero.impl.BlockContext;
 import org.aion.zero.impl.Version;
 import org.aion.zero.impl.blockchain.AionImpl;
+import org.aion.zero.impl.blockchain.BlockTemplateBuilder;
 import org.aion.zero.impl.blockchain.IAionChain;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.config.CfgConsensusPow;
 import org.aion.zero.impl.config.CfgEnergyStrategy;
+import org.aion.zero.impl.db.AddressHistoryIndex;
 import org.aion.zero.impl.db.AionBlockStore;
-import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.db.AionRepositorySnapshot;
 import org.aion.zero.impl.sync.PeerState;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.impl.types.AionBlockSummary;
@@ -122,6 +125,7 @@ public class ApiWeb3Aion extends ApiAion {
 
     private final int OPS_RECENT_ENTITY_COUNT = 32;
     private final int OPS_RECENT_ENTITY_CACHE_TIME_SECONDS = 4;
+    private final int OPS_TX_HISTORY_MAX_LIMIT = 100;
 
     private final int STRATUM_RECENT_BLK_COUNT = 128;
     private final int STRATUM_BLKTIME_INCLUDED_COUNT = 32;
@@ -1122,14 +1126,21 @@ public class ApiWeb3Aion extends ApiAion {
             // installation.
 
             toBlock = toBlock == null ? getBestBlock() : toBlock;
-            for (long i = fromBlock.getNumber(); i <= toBlock.getNumber(); i++) {
-                if (filter.isFull()) {
-                    break;
-                }
-                filter.onBlock(
-                        this.ac.getBlockchain().getBlockByNumber(i),
-                        this.ac.getAionHub().getBlockchain());
-            }
+
+            // only the blocks not excluded by the bloom index are loaded
+            AionHub hub = this.ac.getAionHub();
+            hub.getBloomBitsIndex()
+                    .forEachCandidate(
+                            hub.getBlockStore(),
+                            fromBlock.getNumber(),
+                            toBlock.getNumber(),
+                            filter.getFilterBlooms(),
+                            number -> {
+                                filter.onBlock(
+                                        this.ac.getBlockchain().getBlockByNumber(number),
+                                        hub.getBlockchain());
+                                return !filter.isFull();
+                            });
         }
 
         return filter;
@@ -1816,9 +1827,12 @@ public class ApiWeb3Aion extends ApiAion {
             return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid address provided.");
         }
 
-        long latestBlkNum = this.getBestBlock().getNumber();
-        AccountState accountState =
-                ((AionRepositoryImpl) this.ac.getRepository()).getAccountState(address);
+        AionBlock latestBlk = this.getBestBlock();
+        long latestBlkNum = latestBlk.getNumber();
+        AccountState accountState;
+        try (AionRepositorySnapshot snapshot = this.ac.getReadOnlySnapshot(latestBlk)) {
+            accountState = snapshot.getAccountState(address);
+        }
 
         BigInteger nonce = BigInteger.ZERO;
         BigInteger balance = BigInteger.ZERO;
@@ -2182,6 +2196,69 @@ public class ApiWeb3Aion extends ApiAion {
         return new RpcMsg(result);
     }
 
+    // the transactions of an account from the account history index, the most recent first
+    public RpcMsg ops_getTransactionsByAddress(Object _params) {
+        String _address;
+        Object _offset;
+        Object _limit;
+        if (_params instanceof JSONArray) {
+            _address = ((JSONArray) _params).get(0) + "";
+            _offset = ((JSONArray) _params).opt(1);
+            _limit = ((JSONArray) _params).opt(2);
+        } else if (_params instanceof JSONObject) {
+            _address = ((JSONObject) _params).get("address") + "";
+            _offset = ((JSONObject) _params).opt("offset");
+            _limit = ((JSONObject) _params).opt("limit");
+        } else {
+            return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid parameters");
+        }
+
+        Address address;
+        long offset;
+        int limit;
+        try {
+            address = new Address(_address);
+            offset = _offset == null ? 0L : Long.parseLong(_offset + "");
+            limit =
+                    _limit == null
+                            ? OPS_TX_HISTORY_MAX_LIMIT
+                            : Math.min(Integer.parseInt(_limit + ""), OPS_TX_HISTORY_MAX_LIMIT);
+        } catch (Exception e) {
+            return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid parameters");
+        }
+
+        if (offset < 0 || limit < 1) {
+            return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid parameters");
+        }
+
+        AionHub hub = this.ac.getAionHub();
+        AddressHistoryIndex index = hub.getAddressHistoryIndex();
+        if (index == null) {
+            return new RpcMsg(
+                    null, RpcError.INTERNAL_ERROR, "The account history index is disabled.");
+        }
+
+        JSONArray transactions = new JSONArray();
+        for (AddressHistoryIndex.Entry entry :
+                index.getTransactions(hub.getBlockStore(), address, offset, limit)) {
+            JSONObject tx = new JSONObject();
+            tx.put("transactionHash", TypeConverter.toJsonHex(entry.getTxHash()));
+            tx.put("blockNumber", entry.getBlockNumber());
+            tx.put("blockHash", TypeConverter.toJsonHex(entry.getBlockHash()));
+            tx.put("transactionIndex", entry.getTxIndex());
+            transactions.put(tx);
+        }
+
+        JSONObject response = new JSONObject();
+        response.put("address", address.toString());
+        response.put("indexedBlockNumber", index.getIndexedBlockNumber());
+        response.put("total", index.getTransactionCount(address));
+        response.put("offset", offset);
+        response.put("transactions", transactions);
+
+        return new RpcMsg(response);
+    }
+
     public RpcMsg ops_getBlock(Object _params) {
         String _bnOrHash;
         boolean _fullTx;
@@ -2522,6 +2599,11 @@ public class ApiWeb3Aion extends ApiAion {
         obj.put("difficulty", bestBlock.getDifficultyBI().toString(16));
         obj.put("testnet", true);
 
+        // the time taken to build the block templates, in milliseconds
+        BlockTemplateBuilder templateBuilder = this.ac.getAionHub().getBlockTemplateBuilder();
+        obj.put("templatebuildtime", templateBuilder.getLastBuildTime() / 1_000_000.0);
+        obj.put("avgtemplatebuildtime", templateBuilder.getAverageBuildTime() / 1_000_000.0);
+
         return new RpcMsg(obj);
     }
 
@@ -149,6 +149,9 @@ public class RpcMethods {
                             "ops_getChainHeadViewBestBlock",
                             (params) -> api.ops_getChainHeadViewBestBlock()),
                     Map.entry("ops_getTransaction", (params) -> api.ops_getTransaction(params)),
+                    Map.entry(
+                            "ops_getTransactionsByAddress",
+                            (params) -> api.ops_getTransactionsByAddress(params)),
                     Map.entry("ops_getBlock", (params) -> api.ops_getBlock(params)),
                     Map.entry("ops_getChainHeadView", (params) -> api.ops_getChainHeadView()),
                     Map.entry("eth_getBalance", (params) -> api.eth_getBalance(params)),
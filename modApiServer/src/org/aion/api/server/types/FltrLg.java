@@ -154,6 +154,15 @@ public final class FltrLg extends Fltr {
         }
     }
 
+    /**
+     * @return the blooms a block must match: one bloom of each group, where an empty bloom matches
+     *     any block
+     */
+    public Bloom[][] getFilterBlooms() {
+        initBlooms();
+        return filterBlooms;
+    }
+
     public boolean matchBloom(Bloom blockBloom) {
         initBlooms();
         for (Bloom[] andBloom : filterBlooms) {
@@ -27,6 +27,7 @@ import static org.aion.base.util.TypeConverter.StringHexToBigInteger;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import org.aion.base.type.Address;
 import org.aion.mcf.account.AccountManager;
@@ -231,4 +232,13 @@ public class ApiWeb3AionTest {
         assertEquals(JSONObject.NULL, rsp.getResult());
 
     }
+
+    @Test
+    public void testGetMiningInfoTemplateBuildTime() {
+        assertNotNull(web3Api.stratum_getwork());
+
+        JSONObject info = (JSONObject) web3Api.stratum_getmininginfo().getResult();
+        assertTrue(info.getDouble("templatebuildtime") > 0);
+        assertTrue(info.getDouble("avgtemplatebuildtime") > 0);
+    }
 }
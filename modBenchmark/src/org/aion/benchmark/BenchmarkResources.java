@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import org.aion.base.db.IContractDetails;
+import org.aion.base.db.IPruneConfig;
+import org.aion.base.db.IRepositoryConfig;
+import org.aion.db.impl.DBVendor;
+import org.aion.db.impl.DatabaseFactory;
+import org.aion.log.AionLoggerFactory;
+import org.aion.mcf.config.CfgPrune;
+import org.aion.zero.impl.db.ContractDetailsAion;
+
+/** Data and configuration shared by the benchmarks. */
+public final class BenchmarkResources {
+
+    /**
+     * System property overriding the location of the mainnet block data, by default the file used
+     * by the unit tests of the modAionImpl module.
+     */
+    public static final String BLOCK_DATA_PROPERTY = "aion.benchmark.blocks";
+
+    private static final String DEFAULT_BLOCK_DATA =
+            Paths.get("..", "modAionImpl", "test_resources", "raw-block-data.txt").toString();
+
+    /** Repository configuration keeping all the data in memory without pruning. */
+    public static final IRepositoryConfig IN_MEMORY_REPOSITORY =
+            new IRepositoryConfig() {
+                @Override
+                public String getDbPath() {
+                    return "";
+                }
+
+                @Override
+                public IPruneConfig getPruneConfig() {
+                    return new CfgPrune(false);
+                }
+
+                @Override
+                public IContractDetails contractDetailsImpl() {
+                    return ContractDetailsAion.createForTesting(0, 1000000).getDetails();
+                }
+
+                @Override
+                public Properties getDatabaseConfig(String db_name) {
+                    Properties props = new Properties();
+                    props.setProperty(DatabaseFactory.Props.DB_TYPE, DBVendor.MOCKDB.toValue());
+                    props.setProperty(DatabaseFactory.Props.ENABLE_HEAP_CACHE, "false");
+                    return props;
+                }
+            };
+
+    private BenchmarkResources() {}
+
+    /** Limits the kernel logs to warnings so that they do not interfere with the measurements. */
+    public static void initLogging() {
+        AionLoggerFactory.init(Collections.emptyMap());
+    }
+
+    /**
+     * Reads the encoded mainnet blocks, one per line as comma separated signed bytes.
+     *
+     * @throws IOException when the block data cannot be read
+     */
+    public static List<byte[]> mainnetBlocks() throws IOException {
+        File file = new File(System.getProperty(BLOCK_DATA_PROPERTY, DEFAULT_BLOCK_DATA));
+
+        List<byte[]> blocks = new ArrayList<>();
+        for (String line : Files.readAllLines(file.toPath())) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] values = line.split(", ");
+            byte[] block = new byte[values.length];
+            for (int i = 0; i < values.length; i++) {
+                block[i] = Byte.parseByte(values[i]);
+            }
+            blocks.add(block);
+        }
+        return blocks;
+    }
+
+    /** @return an array of the given length filled from the given (seeded) generator */
+    public static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Compares two JMH result files in the JSON format, e.g. the results of two releases, and prints
+ * the relative change of each score.
+ *
+ * <p>A change is marked as significant when the difference between the scores is larger than the
+ * sum of their errors. Benchmarks that only appear in one of the files are listed as added or
+ * removed.
+ */
+public final class ResultsDiff {
+
+    static final class Score {
+        final String mode;
+        final double value;
+        final double error;
+        final String unit;
+
+        Score(String mode, double value, double error, String unit) {
+            this.mode = mode;
+            this.value = value;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        /** @return {@code true} when higher scores are better, i.e. for throughput */
+        boolean higherIsBetter() {
+            return mode.equals("thrpt");
+        }
+    }
+
+    private ResultsDiff() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: ResultsDiff <baseline.json> <current.json>");
+            System.exit(1);
+        }
+        Map<String, Score> baseline = parse(read(args[0]));
+        Map<String, Score> current = parse(read(args[1]));
+        System.out.print(diff(baseline, current));
+    }
+
+    private static String read(String file) throws IOException {
+        return new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the primary scores from the JSON output of JMH.
+     *
+     * @return the scores by benchmark name followed by its parameters, in the order of the file
+     */
+    static Map<String, Score> parse(String json) {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        JSONArray results = new JSONArray(json);
+        for (int i = 0; i < results.length(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            JSONObject metric = result.getJSONObject("primaryMetric");
+
+            // the error is not a number when there are too few measurements
+            double error = metric.optDouble("scoreError", 0);
+            Score score =
+                    new Score(
+                            result.getString("mode"),
+                            metric.getDouble("score"),
+                            Double.isNaN(error) ? 0 : error,
+                            metric.getString("scoreUnit"));
+            scores.put(name(result), score);
+        }
+        return scores;
+    }
+
+    private static String name(JSONObject result) {
+        String name = result.getString("benchmark");
+        JSONObject params = result.optJSONObject("params");
+        if (params == null || params.length() == 0) {
+            return name;
+        }
+
+        // sorted so that the names do not depend on the order of the parameters in the file
+        Map<String, Object> sorted = new TreeMap<>();
+        Iterator<String> keys = params.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            sorted.put(key, params.get(key));
+        }
+        return name + sorted;
+    }
+
+    /** @return one line for each benchmark in either result set */
+    static String diff(Map<String, Score> baseline, Map<String, Score> current) {
+        Set<String> names = new LinkedHashSet<>(baseline.keySet());
+        names.addAll(current.keySet());
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(
+                String.format(
+                        "%-80s %6s %14s %14s %-8s %9s%n",
+                        "Benchmark", "Mode", "Baseline", "Current", "Units", "Change"));
+        for (String name : names) {
+            Score before = baseline.get(name);
+            Score after = current.get(name);
+            if (after == null) {
+                sb.append(
+                        String.format(
+                                "%-80s %6s %14.3f %14s %-8s %9s%n",
+                                name, before.mode, before.value, "-", before.unit, "removed"));
+            } else if (before == null) {
+                sb.append(
+                        String.format(
+                                "%-80s %6s %14s %14.3f %-8s %9s%n",
+                                name, after.mode, "-", after.value, after.unit, "added"));
+            } else {
+                sb.append(
+                        String.format(
+                                "%-80s %6s %14.3f %14.3f %-8s %+8.1f%%",
+                                name,
+                                after.mode,
+                                before.value,
+                                after.value,
+                                after.unit,
+                                (after.value - before.value) * 100 / before.value));
+                String verdict = verdict(before, after);
+                if (!verdict.isEmpty()) {
+                    sb.append(' ').append(verdict);
+                }
+                sb.append(System.lineSeparator());
+            }
+        }
+        return sb.toString();
+    }
+
+    /** @return whether the change is a significant improvement or regression */
+    static String verdict(Score before, Score after) {
+        if (!before.mode.equals(after.mode) || !before.unit.equals(after.unit)) {
+            return "(not comparable)";
+        }
+        double change = after.value - before.value;
+        if (Math.abs(change) <= before.error + after.error) {
+            return "";
+        }
+        return (change > 0) == after.higherIsBetter() ? "improved" : "regressed";
+    }
+}
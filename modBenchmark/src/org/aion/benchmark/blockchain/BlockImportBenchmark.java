@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.benchmark.blockchain;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteUtil;
+import org.aion.benchmark.BenchmarkResources;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.HashUtil;
+import org.aion.mcf.core.ImportResult;
+import org.aion.zero.impl.StandaloneBlockchain;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.AionTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Import of synthetic blocks into a {@link StandaloneBlockchain}. Each block is created on top of
+ * the best block before the measured import, either with value transfers to new accounts or with
+ * calls to a contract writing to its storage.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlockImportBenchmark {
+
+    public enum BlockType {
+        TRANSFER,
+        CONTRACT
+    }
+
+    /**
+     * A contract whose {@code put()} function writes a new storage row on each call, see {@code
+     * BlockchainAccountStateBenchmark}.
+     */
+    private static final String STORAGE_CONTRACT =
+            "0x605060405260006001600050909055341561001a5760006000fd5b61001f565b6101688061002e6000396000f30060506040526000356c01000000000000000000000000900463ffffffff16806331e658a514610049578063549262ba1461008957806361bc221a1461009f57610043565b60006000fd5b34156100555760006000fd5b610073600480808060100135903590916020019091929050506100c9565b6040518082815260100191505060405180910390f35b34156100955760006000fd5b61009d6100eb565b005b34156100ab5760006000fd5b6100b3610133565b6040518082815260100191505060405180910390f35b6000600050602052818160005260105260306000209050600091509150505481565b6001600060005060006001600050546000825281601001526020019081526010016000209050600050819090905550600160008181505480929190600101919050909055505b565b600160005054815600a165627a7a72305820c615f3373321aa7e9c05d9a69e49508147861fb2a54f2945fbbaa7d851125fe80029";
+
+    private static final byte[] PUT = Arrays.copyOf(HashUtil.keccak256("put()".getBytes()), 4);
+
+    private static final byte[] EMPTY_DATA = new byte[0];
+
+    @Param({"TRANSFER", "CONTRACT"})
+    public BlockType blockType;
+
+    @Param({"100"})
+    public int transactionCount;
+
+    private StandaloneBlockchain chain;
+    private ECKey sender;
+    private BigInteger nonce;
+    private Address contract;
+    private AionBlock block;
+
+    /** Starts a new chain for each iteration, so that the state size does not keep growing. */
+    @Setup(Level.Iteration)
+    public void createChain() {
+        BenchmarkResources.initLogging();
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withDefaultAccounts()
+                        .withValidatorConfiguration("simple")
+                        .build();
+        chain = bundle.bc;
+        sender = bundle.privateKeys.get(0);
+        nonce = chain.getRepository().getNonce(new Address(sender.getAddress()));
+
+        if (blockType == BlockType.CONTRACT) {
+            AionTransaction deploy =
+                    new AionTransaction(
+                            nonce.toByteArray(),
+                            Address.EMPTY_ADDRESS(),
+                            BigInteger.ZERO.toByteArray(),
+                            ByteUtil.hexStringToBytes(STORAGE_CONTRACT),
+                            1_000_000L,
+                            1L);
+            deploy.sign(sender);
+            nonce = nonce.add(BigInteger.ONE);
+
+            block =
+                    chain.createNewBlock(
+                            chain.getBestBlock(), Collections.singletonList(deploy), true);
+            chain.tryToConnect(block);
+            checkImported();
+            contract = deploy.getContractAddress();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeChain() {
+        chain.getRepository().close();
+    }
+
+    @Setup(Level.Invocation)
+    public void createBlock() {
+        List<AionTransaction> transactions = new ArrayList<>(transactionCount);
+        for (int i = 0; i < transactionCount; i++) {
+            AionTransaction tx;
+            if (blockType == BlockType.TRANSFER) {
+                tx =
+                        new AionTransaction(
+                                nonce.toByteArray(),
+                                new Address(HashUtil.h256(nonce.toByteArray())),
+                                BigInteger.ONE.toByteArray(),
+                                EMPTY_DATA,
+                                21_000L,
+                                1L);
+            } else {
+                tx =
+                        new AionTransaction(
+                                nonce.toByteArray(),
+                                contract,
+                                BigInteger.ZERO.toByteArray(),
+                                PUT,
+                                200_000L,
+                                1L);
+            }
+            tx.sign(sender);
+            transactions.add(tx);
+            nonce = nonce.add(BigInteger.ONE);
+        }
+
+        block = chain.createNewBlock(chain.getBestBlock(), transactions, true);
+        // persist the previous imports outside of the measurement
+        chain.getRepository().flush();
+    }
+
+    /** Fails the run when a block was not imported, since the measurement would be meaningless. */
+    @TearDown(Level.Invocation)
+    public void checkImported() {
+        if (!Arrays.equals(chain.getBestBlock().getHash(), block.getHash())) {
+            throw new IllegalStateException(
+                    "The block " + block.getShortDescr() + " was not imported.");
+        }
+    }
+
+    @Benchmark
+    public ImportResult importBlock() {
+        return chain.tryToConnect(block);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.benchmark.crypto;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.aion.base.type.Address;
+import org.aion.benchmark.BenchmarkResources;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.crypto.ISignature;
+import org.aion.crypto.SignatureFac;
+import org.aion.zero.impl.valid.TXValidator;
+import org.aion.zero.types.AionTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Verification of signed transactions. The checks go through {@link TXValidator#isValid0} since
+ * {@link TXValidator#isValid} caches the result for each transaction hash.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TxValidationBenchmark {
+
+    private static final int TX_COUNT = 256;
+
+    private AionTransaction[] transactions;
+    private byte[][] encoded;
+    private byte[][] rawHashes;
+    private ISignature[] signatures;
+    private int next;
+
+    @Setup
+    public void setup() {
+        BenchmarkResources.initLogging();
+        Random random = new Random(TX_COUNT);
+        ECKey sender = ECKeyFac.inst().create();
+
+        transactions = new AionTransaction[TX_COUNT];
+        encoded = new byte[TX_COUNT][];
+        rawHashes = new byte[TX_COUNT][];
+        signatures = new ISignature[TX_COUNT];
+        for (int i = 0; i < TX_COUNT; i++) {
+            AionTransaction tx =
+                    new AionTransaction(
+                            BigInteger.valueOf(i).toByteArray(),
+                            Address.wrap(
+                                    BenchmarkResources.randomBytes(random, Address.ADDRESS_LEN)),
+                            BigInteger.ONE.toByteArray(),
+                            BenchmarkResources.randomBytes(random, random.nextInt(128)),
+                            100_000L,
+                            10_000_000_000L);
+            tx.sign(sender);
+            transactions[i] = tx;
+            encoded[i] = tx.getEncoded();
+            rawHashes[i] = tx.getRawHash();
+            signatures[i] = tx.getSignature();
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (next + 1) % TX_COUNT;
+        return index;
+    }
+
+    /** Verifies the Ed25519 signature of a transaction hash. */
+    @Benchmark
+    public boolean verifySignature() {
+        int index = nextIndex();
+        return SignatureFac.verify(rawHashes[index], signatures[index]);
+    }
+
+    /** Runs all the checks of a transaction received from the network, including the signature. */
+    @Benchmark
+    public boolean validate() {
+        return TXValidator.isValid0(transactions[nextIndex()]);
+    }
+
+    /** Decodes a transaction from the network encoding and recovers its sender. */
+    @Benchmark
+    public Address decodeAndRecoverSender() {
+        return new AionTransaction(encoded[nextIndex()]).getFrom();
+    }
+}
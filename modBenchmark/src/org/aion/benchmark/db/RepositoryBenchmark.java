@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.benchmark.db;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.aion.base.db.IRepositoryCache;
+import org.aion.base.type.Address;
+import org.aion.base.vm.IDataWord;
+import org.aion.benchmark.BenchmarkResources;
+import org.aion.mcf.vm.types.DataWord;
+import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads and writes through an in-memory {@link AionRepositoryImpl} holding plain accounts and
+ * contracts with storage. The repository is recreated for each iteration since the flushed state is
+ * never pruned.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+
+    private static final int ACCOUNT_COUNT = 10_000;
+    private static final int CONTRACT_COUNT = 100;
+    private static final int STORAGE_ROWS = 100;
+
+    /** The number of balance updates flushed at once, close to a block of value transfers. */
+    private static final int UPDATED_ACCOUNTS = 100;
+
+    /** The number of storage updates flushed at once. */
+    private static final int UPDATED_ROWS = 20;
+
+    private Address[] accounts;
+    private Address[] contracts;
+    private IDataWord[] storageKeys;
+    private AionRepositoryImpl repository;
+    private int nextAccount;
+    private int nextRow;
+    // above the initial values so that each write changes the storage
+    private long writtenValue = STORAGE_ROWS;
+
+    @Setup(Level.Trial)
+    public void createAddresses() {
+        BenchmarkResources.initLogging();
+        Random random = new Random(ACCOUNT_COUNT);
+
+        accounts = new Address[ACCOUNT_COUNT];
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            accounts[i] = Address.wrap(BenchmarkResources.randomBytes(random, Address.ADDRESS_LEN));
+        }
+        contracts = new Address[CONTRACT_COUNT];
+        for (int i = 0; i < CONTRACT_COUNT; i++) {
+            contracts[i] =
+                    Address.wrap(BenchmarkResources.randomBytes(random, Address.ADDRESS_LEN));
+        }
+        storageKeys = new IDataWord[STORAGE_ROWS];
+        for (int i = 0; i < STORAGE_ROWS; i++) {
+            storageKeys[i] = new DataWord(BenchmarkResources.randomBytes(random, DataWord.BYTES));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void createRepository() {
+        repository = AionRepositoryImpl.createForTesting(BenchmarkResources.IN_MEMORY_REPOSITORY);
+
+        IRepositoryCache track = repository.startTracking();
+        for (Address account : accounts) {
+            track.addBalance(account, BigInteger.valueOf(1_000_000L));
+        }
+        for (Address contract : contracts) {
+            for (int i = 0; i < STORAGE_ROWS; i++) {
+                track.addStorageRow(contract, storageKeys[i], new DataWord(i + 1));
+            }
+        }
+        track.flush();
+        repository.flush();
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeRepository() {
+        repository.close();
+    }
+
+    /** Reads the balance of an existing account. */
+    @Benchmark
+    public BigInteger getBalance() {
+        Address account = accounts[nextAccount];
+        nextAccount = (nextAccount + 1) % ACCOUNT_COUNT;
+        return repository.getBalance(account);
+    }
+
+    /** Reads an existing storage value. */
+    @Benchmark
+    public IDataWord getStorageValue() {
+        Address contract = contracts[nextRow / STORAGE_ROWS];
+        IDataWord key = storageKeys[nextRow % STORAGE_ROWS];
+        nextRow = (nextRow + 1) % (CONTRACT_COUNT * STORAGE_ROWS);
+        return repository.getStorageValue(contract, key);
+    }
+
+    /**
+     * Updates balances and storage rows through a tracking cache as done when importing a block,
+     * then flushes the repository to the database.
+     */
+    @Benchmark
+    public byte[] updateAndFlush() {
+        IRepositoryCache track = repository.startTracking();
+        for (int i = 0; i < UPDATED_ACCOUNTS; i++) {
+            track.addBalance(accounts[nextAccount], BigInteger.ONE);
+            nextAccount = (nextAccount + 1) % ACCOUNT_COUNT;
+        }
+        for (int i = 0; i < UPDATED_ROWS; i++) {
+            track.addStorageRow(
+                    contracts[nextRow / STORAGE_ROWS],
+                    storageKeys[nextRow % STORAGE_ROWS],
+                    new DataWord(++writtenValue));
+            nextRow = (nextRow + 1) % (CONTRACT_COUNT * STORAGE_ROWS);
+        }
+        track.flush();
+        repository.flush();
+        return repository.getRoot();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.benchmark.p2p;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.aion.benchmark.BenchmarkResources;
+import org.aion.zero.impl.sync.msg.ResBlocksBodies;
+import org.aion.zero.impl.sync.msg.ResBlocksHeaders;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.A0BlockHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Encoding and decoding of the sync responses carrying the headers and bodies of the mainnet
+ * blocks in the test resources. Each operation handles one message with all the blocks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SyncMessageBenchmark {
+
+    private List<byte[]> encodedHeaders;
+    private List<byte[]> bodies;
+    private byte[] headersMessage;
+    private byte[] bodiesMessage;
+
+    // the headers matching the bodies, as received before requesting the bodies
+    private List<A0BlockHeader> headers;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkResources.initLogging();
+        encodedHeaders = new ArrayList<>();
+        bodies = new ArrayList<>();
+        for (byte[] encoded : BenchmarkResources.mainnetBlocks()) {
+            AionBlock block = new AionBlock(encoded);
+            encodedHeaders.add(block.getHeader().getEncoded());
+            bodies.add(block.getEncodedBody());
+        }
+
+        headersMessage = ResBlocksHeaders.fromEncoded(encodedHeaders).encode();
+        bodiesMessage = new ResBlocksBodies(bodies).encode();
+        headers = ResBlocksHeaders.decode(headersMessage).getHeaders();
+    }
+
+    /** Encodes a headers response from the stored header encodings. */
+    @Benchmark
+    public byte[] encodeHeaders() {
+        return ResBlocksHeaders.fromEncoded(encodedHeaders).encode();
+    }
+
+    /** Decodes a headers response into header objects. */
+    @Benchmark
+    public List<A0BlockHeader> decodeHeaders() {
+        return ResBlocksHeaders.decode(headersMessage).getHeaders();
+    }
+
+    /** Encodes a bodies response from the stored body encodings. */
+    @Benchmark
+    public byte[] encodeBodies() {
+        return new ResBlocksBodies(bodies).encode();
+    }
+
+    /**
+     * Decodes a bodies response and assembles the blocks with the matching headers, including the
+     * check of the transaction trie roots.
+     */
+    @Benchmark
+    public void decodeBodiesIntoBlocks(Blackhole blackhole) {
+        List<byte[]> received = ResBlocksBodies.decode(bodiesMessage).getBlocksBodies();
+        for (int i = 0; i < received.size(); i++) {
+            blackhole.consume(AionBlock.createBlockFromNetwork(headers.get(i), received.get(i)));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.benchmark.rlp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.aion.benchmark.BenchmarkResources;
+import org.aion.rlp.RLP;
+import org.aion.rlp.RLPView;
+import org.aion.zero.impl.types.AionBlock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * RLP encoding and decoding of the mainnet blocks in the test resources. Each operation processes
+ * the whole set of blocks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RlpBenchmark {
+
+    private List<byte[]> blocks;
+
+    // the payloads of the header items of each block
+    private List<byte[][]> headerFields;
+
+    // the encodings of the transactions of each block
+    private List<byte[][]> transactions;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkResources.initLogging();
+        blocks = BenchmarkResources.mainnetBlocks();
+        headerFields = new ArrayList<>(blocks.size());
+        transactions = new ArrayList<>(blocks.size());
+
+        for (byte[] encoded : blocks) {
+            RLPView block = RLP.decodeView(encoded);
+
+            RLPView header = block.get(0);
+            byte[][] fields = new byte[header.size()][];
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = header.get(i).asBytes();
+            }
+            headerFields.add(fields);
+
+            RLPView txs = block.get(1);
+            byte[][] encodedTxs = new byte[txs.size()][];
+            for (int i = 0; i < encodedTxs.length; i++) {
+                encodedTxs[i] = txs.get(i).getEncoded();
+            }
+            transactions.add(encodedTxs);
+        }
+    }
+
+    /** Eagerly decodes the blocks with {@link RLP#decode2(byte[])}. */
+    @Benchmark
+    public void decode2(Blackhole blackhole) {
+        for (byte[] block : blocks) {
+            blackhole.consume(RLP.decode2(block));
+        }
+    }
+
+    /** Decodes the blocks through views, reading every item in the same way as {@link #decode2}. */
+    @Benchmark
+    public void decodeView(Blackhole blackhole) {
+        for (byte[] block : blocks) {
+            readAll(RLP.decodeView(block), blackhole);
+        }
+    }
+
+    /** Parses the blocks and their transactions as done for the blocks received from peers. */
+    @Benchmark
+    public void parseBlocks(Blackhole blackhole) {
+        for (byte[] encoded : blocks) {
+            AionBlock block = new AionBlock(encoded);
+            blackhole.consume(block.getHeader());
+            blackhole.consume(block.getTransactionsList());
+        }
+    }
+
+    /** Encodes the items of the block headers into lists. */
+    @Benchmark
+    public void encodeHeaders(Blackhole blackhole) {
+        for (byte[][] fields : headerFields) {
+            byte[][] elements = new byte[fields.length][];
+            for (int i = 0; i < fields.length; i++) {
+                elements[i] = RLP.encodeElement(fields[i]);
+            }
+            blackhole.consume(RLP.encodeList(elements));
+        }
+    }
+
+    /** Encodes the transaction lists of the block bodies from the transaction encodings. */
+    @Benchmark
+    public void encodeTransactionLists(Blackhole blackhole) {
+        for (byte[][] txs : transactions) {
+            blackhole.consume(RLP.encodeList(txs));
+        }
+    }
+
+    private static void readAll(RLPView view, Blackhole blackhole) {
+        if (view.isList()) {
+            for (int i = 0; i < view.size(); i++) {
+                readAll(view.get(i), blackhole);
+            }
+        } else {
+            blackhole.consume(view.asBytes());
+        }
+    }
+}
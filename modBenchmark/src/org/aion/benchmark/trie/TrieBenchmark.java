@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.benchmark.trie;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.aion.benchmark.BenchmarkResources;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.mcf.trie.TrieImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads and updates of a {@link TrieImpl} over an in-memory database, filled with the given number
+ * of random 32 byte keys as in the state trie.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrieBenchmark {
+
+    /** The number of updates applied before each root hash computation. */
+    private static final int UPDATES_PER_ROOT = 64;
+
+    // the number of distinct values, reused in turn by the updates
+    private static final int VALUE_COUNT = 1024;
+
+    @Param({"1000", "100000"})
+    public int keyCount;
+
+    private MockDB database;
+    private TrieImpl trie;
+    private byte[][] keys;
+    private byte[][] values;
+    private int nextKey;
+    // offset from the initial values so that the updates change the trie
+    private int nextValue = 1;
+
+    @Setup
+    public void setup() {
+        BenchmarkResources.initLogging();
+        Random random = new Random(keyCount);
+
+        keys = new byte[keyCount][];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = BenchmarkResources.randomBytes(random, 32);
+        }
+        values = new byte[VALUE_COUNT][];
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            values[i] = BenchmarkResources.randomBytes(random, 1 + random.nextInt(64));
+        }
+
+        database = new MockDB("trie");
+        database.open();
+        // replaced nodes are dropped so that the updates do not grow the database indefinitely
+        trie = new TrieImpl(database).withPruningEnabled(true);
+        for (int i = 0; i < keyCount; i++) {
+            trie.update(keys[i], values[i % VALUE_COUNT]);
+        }
+        trie.sync();
+    }
+
+    /** Writes the nodes created by the updates to the database. */
+    @TearDown(Level.Iteration)
+    public void sync() {
+        trie.sync();
+    }
+
+    @TearDown
+    public void close() {
+        database.close();
+    }
+
+    /** Looks up a present key. */
+    @Benchmark
+    public byte[] get() {
+        byte[] key = keys[nextKey];
+        nextKey = (nextKey + 1) % keyCount;
+        return trie.get(key);
+    }
+
+    /** Updates present keys with new values and computes the resulting root hash. */
+    @Benchmark
+    @OperationsPerInvocation(UPDATES_PER_ROOT)
+    public byte[] updateAndGetRootHash() {
+        for (int i = 0; i < UPDATES_PER_ROOT; i++) {
+            trie.update(keys[nextKey], values[nextValue]);
+            nextKey = (nextKey + 1) % keyCount;
+            nextValue = (nextValue + 1) % VALUE_COUNT;
+        }
+        return trie.getRootHash();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.benchmark.txpool;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.aion.base.type.Address;
+import org.aion.benchmark.BenchmarkResources;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.txpool.zero.TxPoolA0;
+import org.aion.zero.types.AionTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Adding transactions to a {@link TxPoolA0} and taking the snapshot used for a block template. The
+ * transactions come from several senders with consecutive nonces and different energy prices. The
+ * snapshot of a large sorted pool shows the cost of selecting a block from a full pool, which
+ * should depend on the selected transactions rather than on the size of the pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TxPoolBenchmark {
+
+    private static final int SENDER_COUNT = 10;
+    private static final int TXS_PER_SENDER = 100;
+
+    private static final int LARGE_SENDER_COUNT = 10_000;
+    private static final int LARGE_TXS_PER_SENDER = 5;
+
+    private static List<AionTransaction> createTransactions(int senderCount, int txsPerSender) {
+        Random random = new Random(senderCount);
+
+        List<AionTransaction> transactions = new ArrayList<>(senderCount * txsPerSender);
+        for (int s = 0; s < senderCount; s++) {
+            ECKey sender = ECKeyFac.inst().create();
+            for (int n = 0; n < txsPerSender; n++) {
+                AionTransaction tx =
+                        new AionTransaction(
+                                BigInteger.valueOf(n).toByteArray(),
+                                Address.wrap(
+                                        BenchmarkResources.randomBytes(
+                                                random, Address.ADDRESS_LEN)),
+                                BigInteger.ONE.toByteArray(),
+                                new byte[0],
+                                21_000L,
+                                10_000_000_000L + random.nextInt(10) * 1_000_000_000L);
+                tx.sign(sender);
+                tx.setNrgConsume(21_000L);
+                // recovers the sender once, outside of the measurements
+                tx.getFrom();
+                transactions.add(tx);
+            }
+        }
+        return transactions;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Transactions {
+
+        List<AionTransaction> transactions;
+
+        @Setup
+        public void create() {
+            BenchmarkResources.initLogging();
+            transactions = createTransactions(SENDER_COUNT, TXS_PER_SENDER);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class EmptyPool {
+
+        TxPoolA0<AionTransaction> pool;
+
+        @Setup(Level.Invocation)
+        public void create() {
+            pool = new TxPoolA0<>();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FullPool {
+
+        TxPoolA0<AionTransaction> pool;
+
+        @Setup
+        public void create(Transactions txs) {
+            pool = new TxPoolA0<>();
+            pool.add(txs.transactions);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LargePool {
+
+        TxPoolA0<AionTransaction> pool;
+
+        @Setup
+        public void create() {
+            BenchmarkResources.initLogging();
+            pool = new TxPoolA0<>();
+            pool.add(createTransactions(LARGE_SENDER_COUNT, LARGE_TXS_PER_SENDER));
+            // the first snapshot sorts the added transactions
+            pool.snapshot();
+        }
+    }
+
+    /** Adds all the transactions to an empty pool at once, as for a batch received from a peer. */
+    @Benchmark
+    public List<AionTransaction> add(Transactions txs, EmptyPool empty) {
+        return empty.pool.add(txs.transactions);
+    }
+
+    /** Selects the transactions for a new block. */
+    @Benchmark
+    public List<AionTransaction> snapshot(FullPool full) {
+        return full.pool.snapshot();
+    }
+
+    /** Selects the transactions for a new block from a pool of 50k sorted transactions. */
+    @Benchmark
+    public List<AionTransaction> snapshotLargePool(LargePool large) {
+        return large.pool.snapshot();
+    }
+}
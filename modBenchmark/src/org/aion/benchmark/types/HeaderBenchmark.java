@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.benchmark.types;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.aion.benchmark.BenchmarkResources;
+import org.aion.crypto.HashUtil;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.A0BlockHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Retrieval of the hash and encoding of the headers of the mainnet blocks in the test resources,
+ * compared with computing them on every call. Each operation processes the whole set of headers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HeaderBenchmark {
+
+    private List<byte[]> blocks;
+
+    private List<A0BlockHeader> headers;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkResources.initLogging();
+        blocks = BenchmarkResources.mainnetBlocks();
+        headers = new ArrayList<>(blocks.size());
+
+        for (byte[] encoded : blocks) {
+            A0BlockHeader header = new AionBlock(encoded).getHeader();
+            // fills the cached hash and encoding
+            header.getHash();
+            headers.add(header);
+        }
+    }
+
+    /** Returns the cached hashes. */
+    @Benchmark
+    public void getHash(Blackhole blackhole) {
+        for (A0BlockHeader header : headers) {
+            blackhole.consume(header.getHash());
+        }
+    }
+
+    /** Encodes and hashes the headers, as done before the hash was cached. */
+    @Benchmark
+    public void computeHash(Blackhole blackhole) {
+        for (A0BlockHeader header : headers) {
+            blackhole.consume(HashUtil.h256(header.getEncoded(true)));
+        }
+    }
+
+    /** Returns the cached encodings. */
+    @Benchmark
+    public void getEncoded(Blackhole blackhole) {
+        for (A0BlockHeader header : headers) {
+            blackhole.consume(header.getEncoded());
+        }
+    }
+
+    /** Encodes the headers, as done before the encoding was cached. */
+    @Benchmark
+    public void computeEncoded(Blackhole blackhole) {
+        for (A0BlockHeader header : headers) {
+            blackhole.consume(header.getEncoded(true));
+        }
+    }
+
+    /** Parses the blocks and hashes their headers, as done for the blocks received from peers. */
+    @Benchmark
+    public void parseAndHash(Blackhole blackhole) {
+        for (byte[] encoded : blocks) {
+            blackhole.consume(new AionBlock(encoded).getHeader().getHash());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.benchmark;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Map;
+import org.aion.benchmark.ResultsDiff.Score;
+import org.junit.Test;
+
+public class ResultsDiffTest {
+
+    private static String result(String benchmark, String mode, String params, String score) {
+        return "{\"benchmark\":\""
+                + benchmark
+                + "\",\"mode\":\""
+                + mode
+                + "\",\"params\":{"
+                + params
+                + "},\"primaryMetric\":{\"score\":"
+                + score
+                + ",\"scoreError\":1.0,\"scoreUnit\":\"us/op\"}}";
+    }
+
+    @Test
+    public void testParseNamesIncludeSortedParameters() {
+        String json =
+                "["
+                        + result("a.B.get", "avgt", "\"y\":\"2\",\"x\":\"1\"", "10.0")
+                        + ","
+                        + result("a.B.put", "avgt", "", "20.0")
+                        + "]";
+
+        Map<String, Score> scores = ResultsDiff.parse(json);
+        assertThat(scores.keySet()).containsExactly("a.B.get{x=1, y=2}", "a.B.put").inOrder();
+        assertThat(scores.get("a.B.put").value).isEqualTo(20.0);
+        assertThat(scores.get("a.B.put").error).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testVerdict() {
+        Score before = new Score("avgt", 10.0, 1.0, "us/op");
+
+        // within the errors
+        assertThat(ResultsDiff.verdict(before, new Score("avgt", 11.5, 1.0, "us/op"))).isEmpty();
+        // lower times are better
+        assertThat(ResultsDiff.verdict(before, new Score("avgt", 5.0, 1.0, "us/op")))
+                .isEqualTo("improved");
+        assertThat(ResultsDiff.verdict(before, new Score("avgt", 15.0, 1.0, "us/op")))
+                .isEqualTo("regressed");
+        // higher throughput is better
+        Score thrpt = new Score("thrpt", 10.0, 1.0, "ops/s");
+        assertThat(ResultsDiff.verdict(thrpt, new Score("thrpt", 15.0, 1.0, "ops/s")))
+                .isEqualTo("improved");
+        assertThat(ResultsDiff.verdict(before, new Score("thrpt", 15.0, 1.0, "ops/s")))
+                .isEqualTo("(not comparable)");
+    }
+
+    @Test
+    public void testDiffListsAddedAndRemoved() {
+        Map<String, Score> baseline =
+                ResultsDiff.parse(
+                        "["
+                                + result("a.B.get", "avgt", "", "10.0")
+                                + ","
+                                + result("a.B.old", "avgt", "", "1.0")
+                                + "]");
+        Map<String, Score> current =
+                ResultsDiff.parse(
+                        "["
+                                + result("a.B.get", "avgt", "", "20.0")
+                                + ","
+                                + result("a.B.new", "avgt", "", "2.0")
+                                + "]");
+
+        String[] lines = ResultsDiff.diff(baseline, current).split(System.lineSeparator());
+        assertThat(lines).hasLength(4);
+        assertThat(lines[1]).startsWith("a.B.get");
+        assertThat(lines[1]).contains("+100.0%");
+        assertThat(lines[1]).endsWith("regressed");
+        assertThat(lines[2]).startsWith("a.B.old");
+        assertThat(lines[2]).endsWith("removed");
+        assertThat(lines[3]).startsWith("a.B.new");
+        assertThat(lines[3]).endsWith("added");
+    }
+}
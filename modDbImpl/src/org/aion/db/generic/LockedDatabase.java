@@ -29,6 +29,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
@@ -234,6 +235,21 @@ public class LockedDatabase implements IByteArrayKeyValueDatabase {
         }
     }
 
+    @Override
+    public void forEachEntry(BiConsumer<byte[], byte[]> visitor) {
+        // acquire read lock
+        lock.readLock().lock();
+
+        try {
+            database.forEachEntry(visitor);
+        } catch (Exception e) {
+            throw e;
+        } finally {
+            // releasing read lock
+            lock.readLock().unlock();
+        }
+    }
+
     @Override
     public Optional<byte[]> get(byte[] key) {
         // acquire read lock
@@ -306,6 +322,19 @@ public class LockedDatabase implements IByteArrayKeyValueDatabase {
         }
     }
 
+    @Override
+    public void putBatchOrFail(Map<byte[], byte[]> keyValuePairs) {
+        // acquire write lock
+        lock.writeLock().lock();
+
+        try {
+            database.putBatchOrFail(keyValuePairs);
+        } finally {
+            // releasing write lock
+            lock.writeLock().unlock();
+        }
+    }
+
     @Override
     public void putToBatch(byte[] key, byte[] value) {
         // acquire write lock
@@ -96,6 +96,19 @@ public class SpecialLockedDatabase extends LockedDatabase implements IByteArrayK
         }
     }
 
+    @Override
+    public void putBatchOrFail(Map<byte[], byte[]> keyValuePairs) {
+        // acquire write lock
+        lock.readLock().lock();
+
+        try {
+            database.putBatchOrFail(keyValuePairs);
+        } finally {
+            // releasing write lock
+            lock.readLock().unlock();
+        }
+    }
+
     @Override
     public void deleteBatch(Collection<byte[]> keys) {
         // acquire write lock
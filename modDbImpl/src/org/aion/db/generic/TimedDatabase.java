@@ -27,6 +27,7 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
 import org.aion.base.util.Hex;
 import org.aion.log.AionLoggerFactory;
@@ -183,6 +184,15 @@ public class TimedDatabase implements IByteArrayKeyValueDatabase {
         return result;
     }
 
+    @Override
+    public void forEachEntry(BiConsumer<byte[], byte[]> visitor) {
+        long t1 = System.nanoTime();
+        database.forEachEntry(visitor);
+        long t2 = System.nanoTime();
+
+        LOG.debug(database.toString() + " forEachEntry(visitor) in " + (t2 - t1) + " ns.");
+    }
+
     @Override
     public Optional<byte[]> get(byte[] key) {
         long t1 = System.nanoTime();
@@ -246,6 +256,21 @@ public class TimedDatabase implements IByteArrayKeyValueDatabase {
                         + " ns.");
     }
 
+    @Override
+    public void putBatchOrFail(Map<byte[], byte[]> keyValuePairs) {
+        long t1 = System.nanoTime();
+        database.putBatchOrFail(keyValuePairs);
+        long t2 = System.nanoTime();
+
+        LOG.debug(
+                database.toString()
+                        + " putBatchOrFail("
+                        + (keyValuePairs != null ? keyValuePairs.size() : "null")
+                        + ") in "
+                        + (t2 - t1)
+                        + " ns.");
+    }
+
     @Override
     public void putToBatch(byte[] key, byte[] value) {
         long t1 = System.nanoTime();
@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.db.generic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.util.ByteArrayWrapper;
+
+/**
+ * Keeps the writes to a database in memory and persists them in the background through a {@link
+ * WriteBehindWriter}.
+ *
+ * <p>The writes are collected until the next {@link #commit()}, which seals them into a batch
+ * handed to the writer. Reads check the collected writes, then the sealed batches that are not yet
+ * persisted, from the most recent one, and only then the database.
+ *
+ * <p>Instances are created with {@link WriteBehindWriter#wrap(IByteArrayKeyValueDatabase)}.
+ */
+public class WriteBehindDatabase implements IByteArrayKeyValueDatabase {
+
+    /** Marks a deleted key. Compared by reference, so it cannot be confused with an empty value. */
+    private static final byte[] DELETED = new byte[0];
+
+    private final IByteArrayKeyValueDatabase database;
+    private final WriteBehindWriter writer;
+
+    /** Writes since the last commit. Replaced when sealed, under the instance monitor. */
+    private volatile Map<ByteArrayWrapper, byte[]> pending = new ConcurrentHashMap<>();
+
+    /** Sealed batches not yet persisted, the most recent first. */
+    private final ConcurrentLinkedDeque<Map<ByteArrayWrapper, byte[]>> sealed =
+            new ConcurrentLinkedDeque<>();
+
+    /** Separates the reads from the database and the batches written to it in the background. */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    WriteBehindDatabase(IByteArrayKeyValueDatabase database, WriteBehindWriter writer) {
+        this.database = database;
+        this.writer = writer;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + " over " + database.toString();
+    }
+
+    /**
+     * Seals the writes since the last commit.
+     *
+     * @return the sealed writes or {@code null} if there are none
+     */
+    synchronized Map<ByteArrayWrapper, byte[]> seal() {
+        if (pending.isEmpty()) {
+            return null;
+        }
+        Map<ByteArrayWrapper, byte[]> batch = pending;
+        // visible to reads before the writes are removed from the pending map
+        sealed.addFirst(batch);
+        pending = new ConcurrentHashMap<>();
+        return batch;
+    }
+
+    /** Writes the oldest sealed batch, which must be the given one, to the database. */
+    void persist(Map<ByteArrayWrapper, byte[]> batch) {
+        Map<byte[], byte[]> writes = new HashMap<>();
+        // a null value deletes the key
+        batch.forEach((k, v) -> writes.put(k.getData(), v == DELETED ? null : v));
+
+        lock.writeLock().lock();
+        try {
+            // a failed write must stop the writer instead of being counted as persisted
+            database.putBatchOrFail(writes);
+            if (!database.isAutoCommitEnabled() && !database.commit()) {
+                throw new IllegalStateException("Unable to commit the writes to " + database + ".");
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // readable from the database from now on
+        sealed.pollLast();
+    }
+
+    // IDatabase functionality
+    // -----------------------------------------------------------------------------------------
+
+    @Override
+    public boolean open() {
+        return database.open();
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.flush();
+        } finally {
+            database.close();
+        }
+    }
+
+    /**
+     * Seals the writes of all the databases wrapped by the same writer and schedules them for
+     * persistence.
+     */
+    @Override
+    public boolean commit() {
+        writer.commit();
+        return true;
+    }
+
+    @Override
+    public void compact() {
+        database.compact();
+    }
+
+    @Override
+    public void drop() {
+        writer.flush();
+        database.drop();
+    }
+
+    @Override
+    public Optional<String> getName() {
+        return database.getName();
+    }
+
+    @Override
+    public Optional<String> getPath() {
+        return database.getPath();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return database.isOpen();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return database.isClosed();
+    }
+
+    @Override
+    public boolean isLocked() {
+        return database.isLocked();
+    }
+
+    @Override
+    public boolean isAutoCommitEnabled() {
+        // the writes are persisted only after a commit
+        return false;
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return database.isPersistent();
+    }
+
+    @Override
+    public boolean isCreatedOnDisk() {
+        return database.isCreatedOnDisk();
+    }
+
+    @Override
+    public long approximateSize() {
+        // does not include the writes that are not yet persisted
+        return database.approximateSize();
+    }
+
+    // IKeyValueStore functionality
+    // ------------------------------------------------------------------------------------
+
+    /**
+     * @implNote Served from the writes that are not yet persisted merged with the database, without
+     *     waiting for them to be persisted.
+     */
+    @Override
+    public boolean isEmpty() {
+        boolean deletes = false;
+        for (Map<ByteArrayWrapper, byte[]> batch : overlay()) {
+            for (byte[] value : batch.values()) {
+                if (value != DELETED) {
+                    return false;
+                }
+                deletes = true;
+            }
+        }
+        if (!deletes) {
+            lock.readLock().lock();
+            try {
+                return database.isEmpty();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        // the deletes may remove all the stored keys
+        return keys().isEmpty();
+    }
+
+    /**
+     * @implNote Served from the writes that are not yet persisted merged with the database, without
+     *     waiting for them to be persisted.
+     */
+    @Override
+    public Set<byte[]> keys() {
+        Set<ByteArrayWrapper> merged = new HashSet<>();
+        List<Map<ByteArrayWrapper, byte[]>> overlay;
+
+        lock.readLock().lock();
+        try {
+            // the batches are read under the lock, so that none is persisted in the meantime
+            overlay = overlay();
+            for (byte[] key : database.keys()) {
+                merged.add(ByteArrayWrapper.wrap(key));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // applied from the oldest to the most recent writes
+        for (int i = overlay.size() - 1; i >= 0; i--) {
+            overlay.get(i)
+                    .forEach(
+                            (k, v) -> {
+                                if (v == DELETED) {
+                                    merged.remove(k);
+                                } else {
+                                    merged.add(k);
+                                }
+                            });
+        }
+
+        Set<byte[]> keys = new HashSet<>();
+        for (ByteArrayWrapper key : merged) {
+            keys.add(key.getData());
+        }
+        return keys;
+    }
+
+    /** @return the writes that are not yet persisted, the most recent first */
+    private List<Map<ByteArrayWrapper, byte[]>> overlay() {
+        List<Map<ByteArrayWrapper, byte[]>> overlay = new ArrayList<>();
+        overlay.add(pending);
+        overlay.addAll(sealed);
+        return overlay;
+    }
+
+    @Override
+    public Optional<byte[]> get(byte[] key) {
+        check(key);
+        ByteArrayWrapper wrappedKey = ByteArrayWrapper.wrap(key);
+
+        byte[] value = pending.get(wrappedKey);
+        if (value == null) {
+            for (Map<ByteArrayWrapper, byte[]> batch : sealed) {
+                value = batch.get(wrappedKey);
+                if (value != null) {
+                    break;
+                }
+            }
+        }
+        if (value != null) {
+            return value == DELETED ? Optional.empty() : Optional.of(value);
+        }
+
+        lock.readLock().lock();
+        try {
+            return database.get(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public synchronized void put(byte[] key, byte[] value) {
+        check(key);
+        pending.put(ByteArrayWrapper.wrap(key), value == null ? DELETED : value);
+    }
+
+    @Override
+    public synchronized void delete(byte[] key) {
+        check(key);
+        pending.put(ByteArrayWrapper.wrap(key), DELETED);
+    }
+
+    @Override
+    public synchronized void putBatch(Map<byte[], byte[]> keyValuePairs) {
+        keyValuePairs.forEach(this::put);
+    }
+
+    @Override
+    public void putToBatch(byte[] key, byte[] value) {
+        // the writes are already batched until the next commit
+        put(key, value);
+    }
+
+    @Override
+    public void commitBatch() {
+        // the writes are already visible and are persisted by the next commit
+    }
+
+    @Override
+    public synchronized void deleteBatch(Collection<byte[]> keys) {
+        keys.forEach(this::delete);
+    }
+
+    @Override
+    public void check() {
+        database.check();
+    }
+
+    private static void check(byte[] key) {
+        if (key == null) {
+            throw new IllegalArgumentException("The database does not accept null keys.");
+        }
+    }
+}
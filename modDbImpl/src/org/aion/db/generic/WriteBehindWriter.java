@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.db.generic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.slf4j.Logger;
+
+/**
+ * Persists the writes of a group of {@link WriteBehindDatabase}s on a background thread.
+ *
+ * <p>A commit on any of the databases seals the pending writes of all of them into one group.
+ * The groups are persisted one at a time in the order in which they were sealed and the databases
+ * of a group in the order in which they were wrapped, so that the data on disk is always a prefix
+ * of the committed changes. Until its group is persisted, a sealed batch remains readable from the
+ * database that wrapped it.
+ *
+ * <p>At most {@code maxPendingGroups} groups wait to be persisted. A commit exceeding this bound
+ * blocks until the oldest group is written, which limits the memory held by the sealed batches.
+ */
+public class WriteBehindWriter {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    /** The wrapped databases in the order in which their batches are persisted. */
+    private final List<WriteBehindDatabase> databases = new ArrayList<>();
+
+    private final ExecutorService executor;
+    private final Semaphore pendingGroups;
+
+    private volatile RuntimeException failure = null;
+    private boolean closed = false;
+
+    public WriteBehindWriter(int maxPendingGroups) {
+        if (maxPendingGroups < 1) {
+            throw new IllegalArgumentException(
+                    "The number of pending groups must be positive: " + maxPendingGroups);
+        }
+        this.pendingGroups = new Semaphore(maxPendingGroups);
+        this.executor =
+                Executors.newSingleThreadExecutor(
+                        r -> {
+                            Thread t = new Thread(r, "db-write-behind");
+                            t.setDaemon(true);
+                            return t;
+                        });
+    }
+
+    /**
+     * Wraps the given database so that its writes are persisted by this writer.
+     *
+     * @return the wrapped database or {@code null} for a {@code null} database
+     */
+    public synchronized IByteArrayKeyValueDatabase wrap(IByteArrayKeyValueDatabase database) {
+        if (database == null) {
+            return null;
+        }
+        WriteBehindDatabase wrapped = new WriteBehindDatabase(database, this);
+        databases.add(wrapped);
+        return wrapped;
+    }
+
+    /**
+     * Moves the given databases, in the given order, to the end of the persistence order of a
+     * group. Databases that were not wrapped by this writer are ignored.
+     */
+    public synchronized void persistLast(IByteArrayKeyValueDatabase... last) {
+        for (IByteArrayKeyValueDatabase database : last) {
+            if (database != null && databases.remove(database)) {
+                databases.add((WriteBehindDatabase) database);
+            }
+        }
+    }
+
+    /**
+     * Seals the pending writes of all the wrapped databases into a group and schedules it for
+     * persistence. Blocks while the maximum number of groups is waiting to be persisted.
+     *
+     * @throws IllegalStateException when a previous group could not be persisted
+     */
+    public synchronized void commit() {
+        if (failure != null) {
+            throw new IllegalStateException("Unable to persist previous writes.", failure);
+        }
+
+        List<WriteBehindDatabase> group = new ArrayList<>();
+        List<Map<ByteArrayWrapper, byte[]>> batches = new ArrayList<>();
+        for (WriteBehindDatabase database : databases) {
+            Map<ByteArrayWrapper, byte[]> batch = database.seal();
+            if (batch != null) {
+                group.add(database);
+                batches.add(batch);
+            }
+        }
+
+        if (group.isEmpty()) {
+            return;
+        }
+
+        if (closed) {
+            // persisted by the caller once the background thread is stopped
+            persist(group, batches);
+            return;
+        }
+
+        pendingGroups.acquireUninterruptibly();
+        executor.execute(
+                () -> {
+                    try {
+                        persist(group, batches);
+                    } finally {
+                        pendingGroups.release();
+                    }
+                });
+    }
+
+    private void persist(
+            List<WriteBehindDatabase> group, List<Map<ByteArrayWrapper, byte[]>> batches) {
+        if (failure != null) {
+            // later groups are not written to keep the persisted data consistent
+            return;
+        }
+        try {
+            for (int i = 0; i < group.size(); i++) {
+                group.get(i).persist(batches.get(i));
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Unable to persist the sealed writes. Later writes are kept in memory.", e);
+            failure = e;
+        }
+    }
+
+    /** Commits the pending writes and waits until all the sealed groups are persisted. */
+    public void flush() {
+        commit();
+        awaitPersisted();
+    }
+
+    private void awaitPersisted() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+        }
+        try {
+            executor.submit(() -> {}).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOG.error("Unable to wait for the sealed writes to be persisted.", e);
+        }
+    }
+
+    /**
+     * Persists all the pending writes and stops the background thread. Later commits are persisted
+     * by the calling thread.
+     */
+    public void close() {
+        flush();
+        synchronized (this) {
+            // later commits wait for the last group to be persisted before writing their own
+            closed = true;
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    LOG.error("Timed out waiting for the write-behind thread to stop.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -34,6 +34,7 @@ import org.aion.db.impl.leveldb.LevelDB;
 import org.aion.db.impl.leveldb.LevelDBConstants;
 import org.aion.db.impl.mockdb.MockDB;
 import org.aion.db.impl.mockdb.PersistentMockDB;
+import org.aion.db.impl.rocksdb.RocksDBColumnFamily;
 import org.aion.db.impl.rocksdb.RocksDBConstants;
 import org.aion.db.impl.rocksdb.RocksDBWrapper;
 import org.aion.log.AionLoggerFactory;
@@ -56,12 +57,18 @@ public abstract class DatabaseFactory {
         public static final String DB_PATH = "db_path";
 
         public static final String CHECK_INTEGRITY = "check_integrity";
+        public static final String INDEX_ADDRESS_HISTORY = "index_address_history";
+        public static final String WRITE_BEHIND_DEPTH = "write_behind_depth";
         public static final String PERSISTENT = "persistent";
 
         public static final String ENABLE_AUTO_COMMIT = "enable_auto_commit";
         public static final String ENABLE_DB_CACHE = "enable_db_cache";
         public static final String ENABLE_DB_COMPRESSION = "enable_db_compression";
         public static final String DB_CACHE_SIZE = "cache_size";
+        public static final String SHARED_CACHE_SIZE = "shared_cache_size";
+        public static final String BLOCK_CACHE_SIZE = "block_cache_size";
+        public static final String INDEX_CACHE_SIZE = "index_cache_size";
+        public static final String CODE_CACHE_SIZE = "code_cache_size";
 
         public static final String ENABLE_HEAP_CACHE = "enable_heap_cache";
         public static final String ENABLE_HEAP_CACHE_STATS = "enable_heap_cache_stats";
@@ -74,6 +81,8 @@ public abstract class DatabaseFactory {
 
         public static final String WRITE_BUFFER_SIZE = "write_buffer_size";
         public static final String READ_BUFFER_SIZE = "read_buffer_size";
+
+        public static final String TRIE_CACHE_SIZE = "trie_cache_size";
     }
 
     public static IByteArrayKeyValueDatabase connect(Properties info) {
@@ -113,6 +122,21 @@ public abstract class DatabaseFactory {
         }
     }
 
+    /**
+     * Registers the settings of a database stored as a column family of a shared RocksDB instance
+     * without connecting to it. The column families stored on disk are all opened by the first
+     * database that connects, so the settings of the others must be registered before. Has no
+     * effect for the other vendors.
+     */
+    public static void configureColumnFamily(Properties info) {
+        if (DBVendor.fromString(info.getProperty(Props.DB_TYPE)) == DBVendor.ROCKSDB_CF) {
+            AbstractDB db = connectBasic(info);
+            if (db != null) {
+                ((RocksDBColumnFamily) db).configure();
+            }
+        }
+    }
+
     /**
      * If enabled, the topmost database will be the one enforcing the locking functionality.
      *
@@ -124,7 +148,9 @@ public abstract class DatabaseFactory {
             return new LockedDatabase(connectWithCache(info));
         } else {
             DBVendor vendor = DBVendor.fromString(info.getProperty(Props.DB_TYPE));
-            if (vendor == DBVendor.LEVELDB || vendor == DBVendor.ROCKSDB) {
+            if (vendor == DBVendor.LEVELDB
+                    || vendor == DBVendor.ROCKSDB
+                    || vendor == DBVendor.ROCKSDB_CF) {
                 return new SpecialLockedDatabase(connectBasic(info));
             } else {
                 return new LockedDatabase(connectBasic(info));
@@ -210,6 +236,24 @@ public abstract class DatabaseFactory {
                             getInt(info, Props.READ_BUFFER_SIZE, RocksDBConstants.READ_BUFFER_SIZE),
                             getInt(info, Props.DB_CACHE_SIZE, RocksDBConstants.CACHE_SIZE));
                 }
+            case ROCKSDB_CF:
+                {
+                    return new RocksDBColumnFamily(
+                            dbName,
+                            dbPath,
+                            enableDbCache,
+                            enableDbCompression,
+                            getInt(info, Props.MAX_FD_ALLOC, RocksDBConstants.MAX_OPEN_FILES),
+                            getInt(info, Props.BLOCK_SIZE, RocksDBConstants.BLOCK_SIZE),
+                            getInt(
+                                    info,
+                                    Props.WRITE_BUFFER_SIZE,
+                                    RocksDBConstants.WRITE_BUFFER_SIZE),
+                            getLong(
+                                    info,
+                                    Props.SHARED_CACHE_SIZE,
+                                    RocksDBConstants.SHARED_CACHE_SIZE));
+                }
             case H2:
                 {
                     return new H2MVMap(dbName, dbPath, enableDbCache, enableDbCompression);
@@ -255,4 +299,8 @@ public abstract class DatabaseFactory {
     private static int getInt(Properties info, String prop, int defaultValue) {
         return Integer.parseInt(info.getProperty(prop, String.valueOf(defaultValue)));
     }
+
+    private static long getLong(Properties info, String prop, long defaultValue) {
+        return Long.parseLong(info.getProperty(prop, String.valueOf(defaultValue)));
+    }
 }
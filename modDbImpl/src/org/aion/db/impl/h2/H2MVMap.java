@@ -40,6 +40,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import org.aion.base.util.ByteArrayWrapper;
 import org.aion.db.impl.AbstractDB;
 import org.h2.mvstore.FileStore;
@@ -249,6 +250,15 @@ public class H2MVMap extends AbstractDB {
         return keys;
     }
 
+    @Override
+    public void forEachEntry(BiConsumer<byte[], byte[]> visitor) {
+        check();
+
+        for (Entry<byte[], byte[]> entry : map.entrySet()) {
+            visitor.accept(entry.getKey(), entry.getValue());
+        }
+    }
+
     @Override
     public byte[] getInternal(byte[] k) {
         return map.get(k);
@@ -40,6 +40,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import org.aion.base.util.ByteArrayWrapper;
 import org.aion.db.impl.AbstractDB;
 import org.fusesource.leveldbjni.JniDBFactory;
@@ -303,6 +304,20 @@ public class LevelDB extends AbstractDB {
         return set;
     }
 
+    @Override
+    public void forEachEntry(BiConsumer<byte[], byte[]> visitor) {
+        check();
+
+        try (DBIterator itr = db.iterator()) {
+            for (itr.seekToFirst(); itr.hasNext(); itr.next()) {
+                Map.Entry<byte[], byte[]> entry = itr.peekNext();
+                visitor.accept(entry.getKey(), entry.getValue());
+            }
+        } catch (IOException e) {
+            LOG.error("Unable to close the iterator of database " + this.toString() + ".", e);
+        }
+    }
+
     @Override
     public byte[] getInternal(byte[] k) {
         try {
@@ -341,6 +356,25 @@ public class LevelDB extends AbstractDB {
 
         check();
 
+        try {
+            writeBatch(inputMap);
+        } catch (DBException e) {
+            LOG.error(
+                    "Unable to execute batch put/update operation on " + this.toString() + ".", e);
+        }
+    }
+
+    @Override
+    public void putBatchOrFail(Map<byte[], byte[]> inputMap) {
+        check(inputMap.keySet());
+
+        check();
+
+        // the DBException thrown on a failed write reaches the caller
+        writeBatch(inputMap);
+    }
+
+    private void writeBatch(Map<byte[], byte[]> inputMap) {
         // try-with-resources will automatically close the batch object
         try (WriteBatch batch = db.createWriteBatch()) {
             // add put and delete operations to batch
@@ -357,9 +391,6 @@ public class LevelDB extends AbstractDB {
 
             // bulk atomic update
             db.write(batch);
-        } catch (DBException e) {
-            LOG.error(
-                    "Unable to execute batch put/update operation on " + this.toString() + ".", e);
         } catch (IOException e) {
             LOG.error("Unable to close WriteBatch object in " + this.toString() + ".", e);
         }
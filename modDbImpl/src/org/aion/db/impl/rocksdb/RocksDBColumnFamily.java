@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.db.impl.rocksdb;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.db.impl.AbstractDB;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+
+/**
+ * A database stored as a column family of a RocksDB instance shared by all the databases with the
+ * same path, located in the {@link RocksDBConstants#SHARED_DB_NAME} directory.
+ *
+ * <p>All the databases share the block cache of the instance, while each has its own compression,
+ * block size, write buffer and bloom filter. The operations added by a thread through {@link
+ * #putToBatch(byte[], byte[])} on any of them are committed together when the same thread calls
+ * {@link #commitBatch()}.
+ */
+public class RocksDBColumnFamily extends AbstractDB {
+
+    private final int maxOpenFiles;
+    private final long sharedCacheSize;
+    private final RocksDBSharedInstance.FamilySettings settings;
+
+    private RocksDBSharedInstance instance;
+    private ColumnFamilyHandle handle;
+
+    public RocksDBColumnFamily(
+            String name,
+            String path,
+            boolean enableDbCache,
+            boolean enableDbCompression,
+            int maxOpenFiles,
+            int blockSize,
+            int writeBufferSize,
+            long sharedCacheSize) {
+        super(name, path, enableDbCache, enableDbCompression);
+
+        // all the column families are stored in the directory of the shared instance
+        this.path = new File(path, RocksDBConstants.SHARED_DB_NAME).getAbsolutePath();
+
+        this.maxOpenFiles = maxOpenFiles;
+        this.sharedCacheSize = sharedCacheSize;
+        this.settings =
+                new RocksDBSharedInstance.FamilySettings(
+                        enableDbCompression, blockSize, writeBufferSize);
+
+        RocksDB.loadLibrary();
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + ":" + propertiesInfo();
+    }
+
+    /**
+     * Registers the settings of this database without connecting to it, so that they are used if
+     * its column family is opened by another database connecting to the shared instance first.
+     */
+    public void configure() {
+        RocksDBSharedInstance.configure(path, name, settings);
+    }
+
+    // IDatabase Functionality
+    @Override
+    public boolean open() {
+        if (isOpen()) {
+            return true;
+        }
+
+        LOG.debug("Initialising RocksDB column family {}", this.toString());
+
+        try {
+            instance =
+                    RocksDBSharedInstance.connect(
+                            path, name, maxOpenFiles, sharedCacheSize, settings);
+            handle = instance.getHandle(name);
+        } catch (RocksDBException e) {
+            if (e.getMessage() != null && e.getMessage().contains("lock")) {
+                LOG.error(
+                        "Failed to open the database "
+                                + this.toString()
+                                + "\nCheck if you have two instances running on the same database."
+                                + "\nFailure due to: ",
+                        e);
+            } else {
+                LOG.error("Failed to open the database " + this.toString() + " due to: ", e);
+            }
+            instance = null;
+            handle = null;
+        }
+
+        return isOpen();
+    }
+
+    @Override
+    public void close() {
+        // do nothing if already closed
+        if (instance == null) {
+            return;
+        }
+
+        LOG.info("Closing database " + this.toString());
+
+        handle = null;
+        RocksDBSharedInstance.disconnect(instance, name);
+        instance = null;
+    }
+
+    @Override
+    public void drop() {
+        check();
+
+        try {
+            handle = instance.recreateFamily(name);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to drop " + this.toString() + ".", e);
+        }
+    }
+
+    @Override
+    public void compact() {
+        LOG.info("Compacting " + this.toString() + ".");
+        try {
+            instance.getDb().compactRange(handle);
+        } catch (RocksDBException e) {
+            LOG.error("Cannot compact data of " + this.toString() + ".", e);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return handle != null;
+    }
+
+    @Override
+    public boolean isCreatedOnDisk() {
+        // the family is created when the database is opened
+        return isOpen() && new File(path, "CURRENT").exists();
+    }
+
+    @Override
+    public long approximateSize() {
+        check();
+
+        try {
+            return instance.getDb().getLongProperty(handle, "rocksdb.estimate-live-data-size");
+        } catch (RocksDBException e) {
+            LOG.error("Unable to estimate the size of " + this.toString() + ".", e);
+        }
+
+        return -1L;
+    }
+
+    // IKetValueStore functionality
+
+    @Override
+    public boolean isEmpty() {
+        check();
+
+        try (RocksIterator itr = instance.getDb().newIterator(handle)) {
+            itr.seekToFirst();
+
+            // check if there is at least one valid item
+            return !itr.isValid();
+        } catch (Exception e) {
+            LOG.error("Unable to extract information from database " + this.toString() + ".", e);
+        }
+
+        return true;
+    }
+
+    @Override
+    public Set<byte[]> keys() {
+        Set<byte[]> set = new HashSet<>();
+
+        check();
+
+        try (RocksIterator itr = instance.getDb().newIterator(handle)) {
+            itr.seekToFirst();
+            // extract keys
+            while (itr.isValid()) {
+                set.add(itr.key());
+                itr.next();
+            }
+        } catch (Exception e) {
+            LOG.error("Unable to extract keys from database " + this.toString() + ".", e);
+        }
+
+        // empty when retrieval failed
+        return set;
+    }
+
+    @Override
+    public void forEachEntry(BiConsumer<byte[], byte[]> visitor) {
+        check();
+
+        try (RocksIterator itr = instance.getDb().newIterator(handle)) {
+            for (itr.seekToFirst(); itr.isValid(); itr.next()) {
+                visitor.accept(itr.key(), itr.value());
+            }
+            // the iterator is also invalid when it failed before the end
+            itr.status();
+        } catch (RocksDBException e) {
+            throw new RuntimeException("Unable to iterate over " + this.toString() + ".", e);
+        }
+    }
+
+    @Override
+    protected byte[] getInternal(byte[] k) {
+        try {
+            return instance.getDb().get(handle, k);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to get key " + Arrays.toString(k) + ". " + e);
+        }
+
+        return null;
+    }
+
+    // AbstractDB functionality
+
+    @Override
+    public void put(byte[] k, byte[] v) {
+        check(k);
+
+        check();
+
+        try {
+            if (v == null) {
+                instance.getDb().delete(handle, k);
+            } else {
+                instance.getDb().put(handle, k, v);
+            }
+        } catch (RocksDBException e) {
+            LOG.error("Unable to put / delete key " + Arrays.toString(k) + ". " + e);
+        }
+    }
+
+    @Override
+    public void delete(byte[] k) {
+        check(k);
+
+        check();
+
+        try {
+            instance.getDb().delete(handle, k);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to delete key " + Arrays.toString(k) + ". " + e);
+        }
+    }
+
+    @Override
+    public void putToBatch(byte[] key, byte[] value) {
+        check(key);
+
+        check();
+
+        try {
+            instance.putToBatch(handle, key, value);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to add to batch operation on " + this.toString() + ".", e);
+            // attempting to write directly since batch operation didn't work
+            put(key, value);
+        }
+    }
+
+    @Override
+    public void commitBatch() {
+        check();
+
+        try {
+            instance.commitBatch();
+        } catch (RocksDBException e) {
+            LOG.error(
+                    "Unable to execute batch put/update operation on " + this.toString() + ".", e);
+        }
+    }
+
+    @Override
+    public void putBatch(Map<byte[], byte[]> inputMap) {
+        check(inputMap.keySet());
+
+        check();
+
+        try {
+            writeBatch(inputMap);
+        } catch (RocksDBException e) {
+            LOG.error(
+                    "Unable to execute batch put/update operation on " + this.toString() + ".", e);
+        }
+    }
+
+    @Override
+    public void putBatchOrFail(Map<byte[], byte[]> inputMap) {
+        check(inputMap.keySet());
+
+        check();
+
+        try {
+            writeBatch(inputMap);
+        } catch (RocksDBException e) {
+            throw new RuntimeException(
+                    "Unable to execute batch put/update operation on " + this.toString() + ".", e);
+        }
+    }
+
+    private void writeBatch(Map<byte[], byte[]> inputMap) throws RocksDBException {
+        // try-with-resources will automatically close the batch object
+        try (WriteBatch batch = new WriteBatch();
+                WriteOptions options = new WriteOptions()) {
+            // add put and delete operations to batch
+            for (Map.Entry<byte[], byte[]> e : inputMap.entrySet()) {
+                byte[] key = e.getKey();
+                byte[] value = e.getValue();
+
+                if (value == null) {
+                    batch.delete(handle, key);
+                } else {
+                    batch.put(handle, key, value);
+                }
+            }
+
+            // bulk atomic update
+            instance.getDb().write(options, batch);
+        }
+    }
+
+    @Override
+    public void deleteBatch(Collection<byte[]> keys) {
+        check(keys);
+
+        check();
+
+        try (WriteBatch batch = new WriteBatch();
+                WriteOptions options = new WriteOptions()) {
+            // add delete operations to batch
+            for (byte[] k : keys) {
+                batch.delete(handle, k);
+            }
+
+            // bulk atomic update
+            instance.getDb().write(options, batch);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to execute batch delete operation on " + this.toString() + ".", e);
+        }
+    }
+
+    @Override
+    public boolean commitCache(Map<ByteArrayWrapper, byte[]> cache) {
+        boolean success = false;
+
+        check();
+
+        // try-with-resources will automatically close to batch object
+        try (WriteBatch batch = new WriteBatch();
+                WriteOptions options = new WriteOptions()) {
+            for (Map.Entry<ByteArrayWrapper, byte[]> e : cache.entrySet()) {
+                if (e.getValue() == null) {
+                    batch.delete(handle, e.getKey().getData());
+                } else {
+                    batch.put(handle, e.getKey().getData(), e.getValue());
+                }
+            }
+
+            // bulk atomic update
+            instance.getDb().write(options, batch);
+
+            success = true;
+        } catch (RocksDBException e) {
+            LOG.error("Unable to commit heap cache to " + this.toString() + ".", e);
+        }
+
+        return success;
+    }
+}
@@ -30,5 +30,10 @@ public class RocksDBConstants {
     public static int READ_BUFFER_SIZE = 64 * 1024 * 1024;
     public static int CACHE_SIZE = 128 * 1024 * 1024;
 
+    // settings used when all the databases are column families of one instance
+    public static final String SHARED_DB_NAME = "rocksdb_cf";
+    public static int BLOOM_FILTER_BITS = 10;
+    public static long SHARED_CACHE_SIZE = 512L * 1024 * 1024;
+
     private RocksDBConstants() {}
 }
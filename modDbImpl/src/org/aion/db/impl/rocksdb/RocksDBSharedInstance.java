@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.db.impl.rocksdb;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompressionType;
+import org.rocksdb.DBOptions;
+import org.rocksdb.LRUCache;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.slf4j.Logger;
+
+/**
+ * A RocksDB instance shared by all the {@link RocksDBColumnFamily} databases with the same path.
+ *
+ * <p>The instance is opened by the first column family that connects to it and closed when the
+ * last one is closed. All the families use one LRU block cache, sized when the instance is opened,
+ * so that the whole node shares a single memory budget. Each family has its own options, built
+ * from the settings of its database: compression, write buffer and a table with its own block size
+ * and bloom filter, with the index and filter blocks cached and the ones of level 0 pinned in the
+ * cache. The families stored on disk are all opened with the instance, so their settings must be
+ * registered through {@link #configure(String, String, FamilySettings)} before the first family
+ * connects.
+ *
+ * @implNote Each thread has its own write batch, so that the operations it adds through any of the
+ *     families are written atomically without including the ones added by other threads.
+ */
+final class RocksDBSharedInstance {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    private static final Map<String, RocksDBSharedInstance> instances = new HashMap<>();
+
+    /** The registered settings of the column families, by instance path and family name. */
+    private static final Map<String, Map<String, FamilySettings>> configured = new HashMap<>();
+
+    private final String path;
+    private final DBOptions dbOptions;
+    private final LRUCache blockCache;
+    private final Map<String, FamilyOptions> familyOptions = new HashMap<>();
+    private final Map<String, ColumnFamilyHandle> handles = new HashMap<>();
+    private final Map<String, Integer> connections = new HashMap<>();
+    private final Map<Thread, WriteBatch> batches = new HashMap<>();
+    private RocksDB db;
+
+    /** The settings of a column family, taken from the configuration of its database. */
+    static final class FamilySettings {
+        private final boolean enableCompression;
+        private final int blockSize;
+        private final int writeBufferSize;
+
+        FamilySettings(boolean enableCompression, int blockSize, int writeBufferSize) {
+            this.enableCompression = enableCompression;
+            this.blockSize = blockSize;
+            this.writeBufferSize = writeBufferSize;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FamilySettings that = (FamilySettings) o;
+            return enableCompression == that.enableCompression
+                    && blockSize == that.blockSize
+                    && writeBufferSize == that.writeBufferSize;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(enableCompression, blockSize, writeBufferSize);
+        }
+
+        @Override
+        public String toString() {
+            return "compression="
+                    + enableCompression
+                    + ", block_size="
+                    + blockSize
+                    + ", write_buffer_size="
+                    + writeBufferSize;
+        }
+    }
+
+    /** The native options of an open column family, which must be closed after the family. */
+    private static final class FamilyOptions {
+        private final FamilySettings settings;
+        private final BloomFilter bloomFilter;
+        private final ColumnFamilyOptions options;
+
+        FamilyOptions(FamilySettings settings, LRUCache blockCache) {
+            this.settings = settings;
+
+            bloomFilter = new BloomFilter(RocksDBConstants.BLOOM_FILTER_BITS, false);
+
+            BlockBasedTableConfig tableConfig = new BlockBasedTableConfig();
+            tableConfig.setBlockSize(settings.blockSize);
+            tableConfig.setBlockCache(blockCache);
+            tableConfig.setFilterPolicy(bloomFilter);
+            tableConfig.setCacheIndexAndFilterBlocks(true);
+            tableConfig.setPinL0FilterAndIndexBlocksInCache(true);
+
+            options = new ColumnFamilyOptions();
+            options.setCompressionType(
+                    settings.enableCompression
+                            ? CompressionType.SNAPPY_COMPRESSION
+                            : CompressionType.NO_COMPRESSION);
+            options.setWriteBufferSize(settings.writeBufferSize);
+            options.setTableFormatConfig(tableConfig);
+        }
+
+        void close() {
+            options.close();
+            bloomFilter.close();
+        }
+    }
+
+    private RocksDBSharedInstance(String path, int maxOpenFiles, long sharedCacheSize) {
+        this.path = path;
+
+        blockCache = new LRUCache(sharedCacheSize);
+
+        dbOptions = new DBOptions();
+        dbOptions.setCreateIfMissing(true);
+        dbOptions.setCreateMissingColumnFamilies(true);
+        dbOptions.setParanoidChecks(true);
+        dbOptions.setMaxOpenFiles(maxOpenFiles);
+    }
+
+    /**
+     * Registers the settings of a column family of the instance with the given path, used when the
+     * family is opened. The families stored on disk without registered settings are opened with
+     * the settings of the family that opens the instance.
+     */
+    static synchronized void configure(String path, String family, FamilySettings settings) {
+        configured.computeIfAbsent(path, p -> new HashMap<>()).put(family, settings);
+    }
+
+    /**
+     * Connects a column family to the instance with the given path, opening the instance if
+     * needed. The maximum number of open files and the size of the shared block cache are used only
+     * when the instance is opened.
+     *
+     * @return the instance, on which {@link #getHandle(String)} returns the family handle
+     * @throws RocksDBException when the instance or the column family cannot be opened
+     */
+    static synchronized RocksDBSharedInstance connect(
+            String path,
+            String family,
+            int maxOpenFiles,
+            long sharedCacheSize,
+            FamilySettings settings)
+            throws RocksDBException {
+        configure(path, family, settings);
+
+        RocksDBSharedInstance instance = instances.get(path);
+        if (instance == null) {
+            instance = new RocksDBSharedInstance(path, maxOpenFiles, sharedCacheSize);
+            try {
+                instance.open(settings);
+            } catch (RocksDBException e) {
+                instance.close();
+                throw e;
+            }
+            instances.put(path, instance);
+        }
+
+        try {
+            instance.openFamily(family, settings);
+        } catch (RocksDBException e) {
+            if (instance.connections.isEmpty()) {
+                instances.remove(path);
+                instance.close();
+            }
+            throw e;
+        }
+        return instance;
+    }
+
+    /** Disconnects a column family, closing the instance when no families are connected. */
+    static synchronized void disconnect(RocksDBSharedInstance instance, String family) {
+        Integer count = instance.connections.get(family);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            instance.connections.put(family, count - 1);
+            return;
+        }
+
+        instance.connections.remove(family);
+        if (instance.connections.isEmpty()) {
+            instances.remove(instance.path);
+            instance.close();
+        }
+    }
+
+    private void open(FamilySettings defaultSettings) throws RocksDBException {
+        File dir = new File(path);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new RocksDBException("Unable to create the directory " + path + ".");
+        }
+
+        // all the families stored on disk must be opened
+        List<String> names = new ArrayList<>();
+        names.add(defaultFamilyName());
+        if (new File(dir, "CURRENT").exists()) {
+            try (Options options = new Options()) {
+                for (byte[] name : RocksDB.listColumnFamilies(options, path)) {
+                    String family = new String(name, UTF_8);
+                    if (!family.equals(defaultFamilyName())) {
+                        names.add(family);
+                    }
+                }
+            }
+        }
+
+        Map<String, FamilySettings> settings =
+                configured.getOrDefault(path, Collections.emptyMap());
+        List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+        for (String family : names) {
+            FamilyOptions options =
+                    new FamilyOptions(settings.getOrDefault(family, defaultSettings), blockCache);
+            familyOptions.put(family, options);
+            descriptors.add(new ColumnFamilyDescriptor(family.getBytes(UTF_8), options.options));
+        }
+
+        List<ColumnFamilyHandle> opened = new ArrayList<>();
+        db = RocksDB.open(dbOptions, path, descriptors, opened);
+        for (int i = 0; i < names.size(); i++) {
+            handles.put(names.get(i), opened.get(i));
+        }
+        LOG.debug("Opened shared RocksDB at {} with column families {}.", path, handles.keySet());
+    }
+
+    private static String defaultFamilyName() {
+        return new String(RocksDB.DEFAULT_COLUMN_FAMILY, UTF_8);
+    }
+
+    private void openFamily(String family, FamilySettings settings) throws RocksDBException {
+        if (!handles.containsKey(family)) {
+            FamilyOptions options = new FamilyOptions(settings, blockCache);
+            try {
+                handles.put(family, createFamily(family, options));
+            } catch (RocksDBException e) {
+                options.close();
+                throw e;
+            }
+            familyOptions.put(family, options);
+        } else if (!familyOptions.get(family).settings.equals(settings)) {
+            LOG.warn(
+                    "The column family {} at {} is open with the settings [{}]."
+                            + " The settings [{}] will be used after a restart.",
+                    family,
+                    path,
+                    familyOptions.get(family).settings,
+                    settings);
+        }
+        connections.merge(family, 1, Integer::sum);
+    }
+
+    private ColumnFamilyHandle createFamily(String family, FamilyOptions options)
+            throws RocksDBException {
+        return db.createColumnFamily(
+                new ColumnFamilyDescriptor(family.getBytes(UTF_8), options.options));
+    }
+
+    private void close() {
+        if (db != null) {
+            LOG.info("Closing shared RocksDB at " + path + ".");
+            for (WriteBatch batch : batches.values()) {
+                batch.close();
+            }
+            batches.clear();
+            // the handles must be closed before the database
+            for (ColumnFamilyHandle handle : handles.values()) {
+                handle.close();
+            }
+            handles.clear();
+            db.close();
+            db = null;
+        }
+        // the options must be closed after the families that use them
+        for (FamilyOptions options : familyOptions.values()) {
+            options.close();
+        }
+        familyOptions.clear();
+        blockCache.close();
+        dbOptions.close();
+    }
+
+    RocksDB getDb() {
+        return db;
+    }
+
+    synchronized ColumnFamilyHandle getHandle(String family) {
+        return handles.get(family);
+    }
+
+    /**
+     * Deletes all the data of a column family by dropping and recreating it.
+     *
+     * @return the handle of the recreated family
+     */
+    synchronized ColumnFamilyHandle recreateFamily(String family) throws RocksDBException {
+        ColumnFamilyHandle handle = handles.remove(family);
+        if (handle != null) {
+            db.dropColumnFamily(handle);
+            handle.close();
+        }
+        handle = createFamily(family, familyOptions.get(family));
+        handles.put(family, handle);
+        return handle;
+    }
+
+    /** Adds an operation on the given family to the batch of the calling thread. */
+    synchronized void putToBatch(ColumnFamilyHandle handle, byte[] key, byte[] value)
+            throws RocksDBException {
+        WriteBatch batch = batches.computeIfAbsent(Thread.currentThread(), t -> new WriteBatch());
+        if (value == null) {
+            batch.delete(handle, key);
+        } else {
+            batch.put(handle, key, value);
+        }
+    }
+
+    /**
+     * Atomically writes the operations added by the calling thread through any family, leaving the
+     * batches of the other threads pending.
+     */
+    synchronized void commitBatch() throws RocksDBException {
+        WriteBatch batch = batches.remove(Thread.currentThread());
+        if (batch != null) {
+            try (WriteOptions options = new WriteOptions()) {
+                db.write(options, batch);
+            } finally {
+                batch.close();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + ":<path=" + path + ">";
+    }
+}
@@ -28,10 +28,12 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import org.aion.base.util.ByteArrayWrapper;
 import org.aion.db.impl.AbstractDB;
 import org.rocksdb.BlockBasedTableConfig;
 import org.rocksdb.CompressionType;
+import org.rocksdb.LRUCache;
 import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
@@ -47,6 +49,7 @@ public class RocksDBWrapper extends AbstractDB {
     private final int writeBufferSize;
     private final int readBufferSize;
     private final int cacheSize;
+    private LRUCache blockCache;
 
     public RocksDBWrapper(
             String name,
@@ -95,7 +98,8 @@ public class RocksDBWrapper extends AbstractDB {
     private BlockBasedTableConfig setupBlockBasedTableConfig() {
         BlockBasedTableConfig bbtc = new BlockBasedTableConfig();
         bbtc.setBlockSize(this.blockSize);
-        bbtc.setBlockCacheSize(this.cacheSize);
+        blockCache = new LRUCache(this.cacheSize);
+        bbtc.setBlockCache(blockCache);
 
         return bbtc;
     }
@@ -147,6 +151,7 @@ public class RocksDBWrapper extends AbstractDB {
     public void close() {
         // do nothing if already closed
         if (db == null) {
+            closeBlockCache();
             return;
         }
 
@@ -155,6 +160,16 @@ public class RocksDBWrapper extends AbstractDB {
         // attempt to close the database
         db.close();
         db = null;
+
+        // the cache must be closed after the database that uses it
+        closeBlockCache();
+    }
+
+    private void closeBlockCache() {
+        if (blockCache != null) {
+            blockCache.close();
+            blockCache = null;
+        }
     }
 
     @Override
@@ -163,8 +178,7 @@ public class RocksDBWrapper extends AbstractDB {
         try {
             db.compactRange(new byte[] {(byte) 0x00}, new byte[] {(byte) 0xff});
         } catch (RocksDBException e) {
-            LOG.error("Cannot compact data.");
-            e.printStackTrace();
+            LOG.error("Cannot compact data of " + this.toString() + ".", e);
         }
     }
 
@@ -240,6 +254,21 @@ public class RocksDBWrapper extends AbstractDB {
         return set;
     }
 
+    @Override
+    public void forEachEntry(BiConsumer<byte[], byte[]> visitor) {
+        check();
+
+        try (RocksIterator itr = db.newIterator()) {
+            for (itr.seekToFirst(); itr.isValid(); itr.next()) {
+                visitor.accept(itr.key(), itr.value());
+            }
+            // the iterator is also invalid when it failed before the end
+            itr.status();
+        } catch (RocksDBException e) {
+            throw new RuntimeException("Unable to iterate over " + this.toString() + ".", e);
+        }
+    }
+
     @Override
     protected byte[] getInternal(byte[] k) {
         try {
@@ -331,6 +360,29 @@ public class RocksDBWrapper extends AbstractDB {
 
         check();
 
+        try {
+            writeBatch(inputMap);
+        } catch (RocksDBException e) {
+            LOG.error(
+                    "Unable to execute batch put/update operation on " + this.toString() + ".", e);
+        }
+    }
+
+    @Override
+    public void putBatchOrFail(Map<byte[], byte[]> inputMap) {
+        check(inputMap.keySet());
+
+        check();
+
+        try {
+            writeBatch(inputMap);
+        } catch (RocksDBException e) {
+            throw new RuntimeException(
+                    "Unable to execute batch put/update operation on " + this.toString() + ".", e);
+        }
+    }
+
+    private void writeBatch(Map<byte[], byte[]> inputMap) throws RocksDBException {
         // try-with-resources will automatically close the batch object
         try (WriteBatch batch = new WriteBatch()) {
             // add put and delete operations to batch
@@ -347,9 +399,6 @@ public class RocksDBWrapper extends AbstractDB {
 
             // bulk atomic update
             db.write(new WriteOptions(), batch);
-        } catch (RocksDBException e) {
-            LOG.error(
-                    "Unable to execute batch put/update operation on " + this.toString() + ".", e);
         }
     }
 
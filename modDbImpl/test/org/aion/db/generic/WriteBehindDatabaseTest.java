@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.db.generic;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.db.impl.mockdb.MockDB;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WriteBehindDatabaseTest {
+
+    private static final byte[] key = "key".getBytes();
+    private static final byte[] value = "value".getBytes();
+    private static final byte[] other = "other".getBytes();
+
+    /** Blocks the background writes until released. */
+    private static class BlockingDB extends MockDB {
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingDB(String name) {
+            super(name);
+        }
+
+        @Override
+        public void putBatch(Map<byte[], byte[]> inputMap) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.putBatch(inputMap);
+        }
+    }
+
+    private WriteBehindWriter writer;
+    private MockDB first, second;
+
+    @Before
+    public void setUp() {
+        writer = new WriteBehindWriter(2);
+        first = new MockDB("first");
+        second = new MockDB("second");
+        first.open();
+        second.open();
+    }
+
+    @After
+    public void tearDown() {
+        writer.close();
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void testWritesPersistedAfterCommit() {
+        IByteArrayKeyValueDatabase db = writer.wrap(first);
+        assertThat(db.isAutoCommitEnabled()).isFalse();
+
+        db.put(key, value);
+        assertThat(db.get(key).get()).isEqualTo(value);
+        assertThat(first.get(key).isPresent()).isFalse();
+
+        db.commit();
+        writer.flush();
+        assertThat(first.get(key).get()).isEqualTo(value);
+        assertThat(db.get(key).get()).isEqualTo(value);
+    }
+
+    @Test
+    public void testDeleteHidesPersistedValue() {
+        first.put(key, value);
+        IByteArrayKeyValueDatabase db = writer.wrap(first);
+
+        db.delete(key);
+        assertThat(db.get(key).isPresent()).isFalse();
+        assertThat(first.get(key).isPresent()).isTrue();
+
+        db.put(other, null);
+        assertThat(db.get(other).isPresent()).isFalse();
+
+        writer.flush();
+        assertThat(first.get(key).isPresent()).isFalse();
+    }
+
+    @Test
+    public void testCommitSealsAllDatabases() {
+        IByteArrayKeyValueDatabase db1 = writer.wrap(first);
+        IByteArrayKeyValueDatabase db2 = writer.wrap(second);
+
+        db1.put(key, value);
+        db2.put(key, other);
+
+        // a commit on one database also persists the writes to the other
+        db1.commit();
+        writer.flush();
+        assertThat(first.get(key).get()).isEqualTo(value);
+        assertThat(second.get(key).get()).isEqualTo(other);
+    }
+
+    @Test
+    public void testSealedWritesReadableUntilPersisted() throws InterruptedException {
+        BlockingDB blocking = new BlockingDB("blocking");
+        blocking.open();
+        IByteArrayKeyValueDatabase db = writer.wrap(blocking);
+
+        db.put(key, value);
+        db.commit();
+        db.put(key, other);
+
+        // the newest write is returned while the sealed one is not persisted
+        assertThat(db.get(key).get()).isEqualTo(other);
+        db.delete(key);
+        assertThat(db.get(key).isPresent()).isFalse();
+
+        blocking.release.countDown();
+        writer.flush();
+        assertThat(blocking.get(key).isPresent()).isFalse();
+        assertThat(db.get(key).isPresent()).isFalse();
+        blocking.close();
+    }
+
+    @Test
+    public void testWritesAfterClosePersistedByCaller() {
+        IByteArrayKeyValueDatabase db = writer.wrap(first);
+        writer.close();
+
+        db.put(key, value);
+        db.commit();
+        assertThat(first.get(key).get()).isEqualTo(value);
+    }
+
+    @Test
+    public void testKeysIncludePendingWrites() {
+        IByteArrayKeyValueDatabase db = writer.wrap(first);
+        db.put(key, value);
+
+        assertThat(db.keys()).hasSize(1);
+        assertThat(db.isEmpty()).isFalse();
+        // served without persisting the pending writes
+        assertThat(first.get(key).isPresent()).isFalse();
+    }
+
+    @Test
+    public void testKeysMergeSealedWritesAndDeletes() {
+        first.put(other, value);
+        IByteArrayKeyValueDatabase db = writer.wrap(first);
+
+        // the sealed write is merged whether or not it is already persisted
+        db.put(key, value);
+        db.commit();
+        db.delete(other);
+        assertThat(db.keys()).hasSize(1);
+        assertThat(db.isEmpty()).isFalse();
+
+        db.delete(key);
+        assertThat(db.keys()).isEmpty();
+        assertThat(db.isEmpty()).isTrue();
+        // the pending deletes are not persisted
+        assertThat(first.get(other).isPresent()).isTrue();
+
+        writer.flush();
+        assertThat(first.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testFailedWriteStopsWriter() {
+        MockDB failing =
+                new MockDB("failing") {
+                    @Override
+                    public void putBatchOrFail(Map<byte[], byte[]> inputMap) {
+                        throw new RuntimeException("write failed");
+                    }
+                };
+        failing.open();
+        // with one pending group, a commit is scheduled only after the previous group is written
+        IByteArrayKeyValueDatabase db = new WriteBehindWriter(1).wrap(failing);
+
+        try {
+            db.put(key, value);
+            db.commit();
+            db.put(key, other);
+            db.commit();
+            db.put(other, value);
+            db.commit();
+            fail("The commit after a failed write must throw.");
+        } catch (IllegalStateException e) {
+            assertThat(e.getCause()).hasMessageThat().isEqualTo("write failed");
+        }
+        assertThat(failing.get(key).isPresent()).isFalse();
+        failing.close();
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.db.impl.rocksdb;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.db.impl.DatabaseFactory.Props;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.db.impl.DBVendor;
+import org.aion.db.impl.DatabaseFactory;
+import org.aion.db.utils.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+
+public class RocksDBColumnFamilyTest {
+
+    private static final File testDir = new File(System.getProperty("user.dir"), "tmp");
+
+    private static final byte[] key = "key".getBytes();
+    private static final byte[] value1 = "value1".getBytes();
+    private static final byte[] value2 = "value2".getBytes();
+
+    @After
+    public void deleteFromDisk() {
+        FileUtils.deleteRecursively(testDir);
+    }
+
+    private static Properties props(String name) {
+        Properties props = new Properties();
+        props.setProperty(Props.DB_TYPE, DBVendor.ROCKSDB_CF.toValue());
+        props.setProperty(Props.DB_NAME, name);
+        props.setProperty(Props.DB_PATH, testDir.getAbsolutePath());
+        props.setProperty(Props.SHARED_CACHE_SIZE, String.valueOf(8 * 1024 * 1024));
+        return props;
+    }
+
+    private static IByteArrayKeyValueDatabase open(String name) {
+        IByteArrayKeyValueDatabase db = DatabaseFactory.connect(props(name));
+        assertThat(db).isInstanceOf(RocksDBColumnFamily.class);
+        assertThat(db.open()).isTrue();
+        return db;
+    }
+
+    @Test
+    public void testFamiliesShareOneInstance() {
+        IByteArrayKeyValueDatabase state = open("state");
+        IByteArrayKeyValueDatabase block = open("block");
+
+        File shared = new File(testDir, RocksDBConstants.SHARED_DB_NAME);
+        assertThat(state.getPath().get()).isEqualTo(shared.getAbsolutePath());
+        assertThat(block.getPath().get()).isEqualTo(shared.getAbsolutePath());
+        assertThat(state.isCreatedOnDisk()).isTrue();
+        assertThat(new File(testDir, "state").exists()).isFalse();
+
+        // the same key is stored separately in each family
+        state.put(key, value1);
+        block.put(key, value2);
+        assertThat(state.get(key).get()).isEqualTo(value1);
+        assertThat(block.get(key).get()).isEqualTo(value2);
+        assertThat(state.keys()).hasSize(1);
+
+        state.close();
+        // the instance stays open for the other family
+        assertThat(block.get(key).get()).isEqualTo(value2);
+        block.close();
+    }
+
+    @Test
+    public void testFamiliesReopened() {
+        IByteArrayKeyValueDatabase state = open("state");
+        IByteArrayKeyValueDatabase block = open("block");
+        state.putBatch(Map.of(key, value1));
+        block.put(key, value2);
+        state.close();
+        block.close();
+
+        // opening one family reopens all the families stored on disk
+        block = open("block");
+        state = open("state");
+        assertThat(state.get(key).get()).isEqualTo(value1);
+        assertThat(block.get(key).get()).isEqualTo(value2);
+        state.close();
+        block.close();
+    }
+
+    @Test
+    public void testFamiliesReopenedWithRegisteredSettings() {
+        IByteArrayKeyValueDatabase state = open("state");
+        IByteArrayKeyValueDatabase block = open("block");
+        state.put(key, value1);
+        block.put(key, value2);
+        state.close();
+        block.close();
+
+        // the state family is opened with its own settings by the block database
+        Properties stateProps = props("state");
+        stateProps.setProperty(Props.ENABLE_DB_COMPRESSION, "true");
+        stateProps.setProperty(Props.WRITE_BUFFER_SIZE, String.valueOf(1024 * 1024));
+        DatabaseFactory.configureColumnFamily(stateProps);
+
+        block = open("block");
+        state = DatabaseFactory.connect(stateProps);
+        assertThat(state.open()).isTrue();
+        assertThat(state.get(key).get()).isEqualTo(value1);
+        assertThat(block.get(key).get()).isEqualTo(value2);
+        state.close();
+        block.close();
+    }
+
+    @Test
+    public void testForEachEntryVisitsOneFamily() {
+        IByteArrayKeyValueDatabase state = open("state");
+        IByteArrayKeyValueDatabase block = open("block");
+        state.putBatch(Map.of(key, value1, value1, value2));
+        block.put(value2, value2);
+
+        Map<ByteArrayWrapper, byte[]> visited = new HashMap<>();
+        state.forEachEntry((k, v) -> visited.put(ByteArrayWrapper.wrap(k), v));
+        assertThat(visited).hasSize(2);
+        assertThat(visited.get(ByteArrayWrapper.wrap(key))).isEqualTo(value1);
+        assertThat(visited.get(ByteArrayWrapper.wrap(value1))).isEqualTo(value2);
+
+        state.close();
+        block.close();
+    }
+
+    @Test
+    public void testBatchSharedByFamilies() {
+        IByteArrayKeyValueDatabase state = open("state");
+        IByteArrayKeyValueDatabase block = open("block");
+
+        state.putToBatch(key, value1);
+        block.putToBatch(key, value2);
+        assertThat(state.get(key).isPresent()).isFalse();
+        assertThat(block.get(key).isPresent()).isFalse();
+
+        // one commit writes the operations of both families
+        block.commitBatch();
+        assertThat(state.get(key).get()).isEqualTo(value1);
+        assertThat(block.get(key).get()).isEqualTo(value2);
+
+        state.putToBatch(key, null);
+        state.commitBatch();
+        assertThat(state.get(key).isPresent()).isFalse();
+        assertThat(block.get(key).isPresent()).isTrue();
+
+        state.close();
+        block.close();
+    }
+
+    @Test
+    public void testBatchOfOtherThreadNotCommitted() throws InterruptedException {
+        IByteArrayKeyValueDatabase state = open("state");
+        IByteArrayKeyValueDatabase block = open("block");
+
+        Thread other = new Thread(() -> state.putToBatch(key, value1));
+        other.start();
+        other.join();
+
+        // the commit writes only the operations added by the calling thread
+        block.putToBatch(key, value2);
+        block.commitBatch();
+        assertThat(state.get(key).isPresent()).isFalse();
+        assertThat(block.get(key).get()).isEqualTo(value2);
+
+        state.close();
+        block.close();
+    }
+
+    @Test
+    public void testDropClearsOneFamily() {
+        IByteArrayKeyValueDatabase state = open("state");
+        IByteArrayKeyValueDatabase block = open("block");
+        state.put(key, value1);
+        block.put(key, value2);
+
+        state.drop();
+        assertThat(state.isOpen()).isTrue();
+        assertThat(state.isEmpty()).isTrue();
+        assertThat(block.get(key).get()).isEqualTo(value2);
+
+        state.close();
+        block.close();
+    }
+}
@@ -53,7 +53,10 @@ public class CfgDb {
 
         public static final String STATE = "state";
         public static final String STATE_ARCHIVE = "stateArchive";
+        public static final String STATE_JOURNAL = "stateJournal";
         public static final String TRANSACTION = "transaction";
+        public static final String BLOOM_BITS = "bloomBits";
+        public static final String ADDRESS_HISTORY = "addressHistory";
 
         public static final String TX_CACHE = "pendingtxCache";
         public static final String TX_POOL = "pendingtxPool";
@@ -63,6 +66,12 @@ public class CfgDb {
     private String vendor;
     private boolean compression;
     private boolean check_integrity;
+    private boolean index_address_history;
+    private int write_behind_depth;
+    private long shared_cache_size;
+    private long block_cache_size;
+    private long index_cache_size;
+    private long code_cache_size;
     private CfgPrune prune;
     private PruneOption prune_option;
 
@@ -81,6 +90,12 @@ public class CfgDb {
         this.vendor = DBVendor.LEVELDB.toValue();
         this.compression = false;
         this.check_integrity = true;
+        this.index_address_history = false;
+        this.write_behind_depth = 0;
+        this.shared_cache_size = 512 * Utils.MEGA_BYTE;
+        this.block_cache_size = 16 * Utils.MEGA_BYTE;
+        this.index_cache_size = 4 * Utils.MEGA_BYTE;
+        this.code_cache_size = 32 * Utils.MEGA_BYTE;
         this.prune = new CfgPrune(false);
         this.prune_option = PruneOption.FULL;
 
@@ -104,6 +119,32 @@ public class CfgDb {
                         case "check_integrity":
                             this.check_integrity = Boolean.parseBoolean(Cfg.readValue(sr));
                             break;
+                        case Props.INDEX_ADDRESS_HISTORY:
+                            this.index_address_history = Boolean.parseBoolean(Cfg.readValue(sr));
+                            break;
+                        case Props.WRITE_BEHIND_DEPTH:
+                            this.write_behind_depth = Integer.parseInt(Cfg.readValue(sr));
+                            break;
+                        case Props.SHARED_CACHE_SIZE:
+                            this.shared_cache_size =
+                                    Utils.parseSize(Cfg.readValue(sr))
+                                            .orElse(this.shared_cache_size);
+                            break;
+                        case Props.BLOCK_CACHE_SIZE:
+                            this.block_cache_size =
+                                    Utils.parseSize(Cfg.readValue(sr))
+                                            .orElse(this.block_cache_size);
+                            break;
+                        case Props.INDEX_CACHE_SIZE:
+                            this.index_cache_size =
+                                    Utils.parseSize(Cfg.readValue(sr))
+                                            .orElse(this.index_cache_size);
+                            break;
+                        case Props.CODE_CACHE_SIZE:
+                            this.code_cache_size =
+                                    Utils.parseSize(Cfg.readValue(sr))
+                                            .orElse(this.code_cache_size);
+                            break;
                         case "state-storage":
                             setPrune(Cfg.readValue(sr));
                             break;
@@ -223,6 +264,54 @@ public class CfgDb {
             xmlWriter.writeCharacters(String.valueOf(this.check_integrity));
             xmlWriter.writeEndElement();
 
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "Boolean value. Enable/disable the index of the transactions of each account used by the API.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement(Props.INDEX_ADDRESS_HISTORY);
+            xmlWriter.writeCharacters(String.valueOf(this.index_address_history));
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "Integer value. Number of flushes persisted in the background while the next blocks are imported, 0 to persist them on the import thread.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement(Props.WRITE_BEHIND_DEPTH);
+            xmlWriter.writeCharacters(String.valueOf(this.write_behind_depth));
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "Size of the block cache shared by all the databases when using the rocksdb_cf implementation.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement(Props.SHARED_CACHE_SIZE);
+            xmlWriter.writeCharacters(this.shared_cache_size / Utils.MEGA_BYTE + "MB");
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "Size of the encoded blocks kept in memory by the block store to avoid reading them from the database.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement(Props.BLOCK_CACHE_SIZE);
+            xmlWriter.writeCharacters(this.block_cache_size / Utils.MEGA_BYTE + "MB");
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "Size of the encoded block index levels kept in memory by the block store.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement(Props.INDEX_CACHE_SIZE);
+            xmlWriter.writeCharacters(this.index_cache_size / Utils.MEGA_BYTE + "MB");
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "Size of the contract code kept in memory, shared by all the repositories.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement(Props.CODE_CACHE_SIZE);
+            xmlWriter.writeCharacters(this.code_cache_size / Utils.MEGA_BYTE + "MB");
+            xmlWriter.writeEndElement();
+
             xmlWriter.writeCharacters("\r\n\t\t");
             xmlWriter.writeComment(
                     "Data pruning behavior for the state database. Options: FULL, TOP, SPREAD.");
@@ -242,7 +331,7 @@ public class CfgDb {
             if (!expert) {
                 xmlWriter.writeCharacters("\r\n\t\t");
                 xmlWriter.writeComment(
-                        "Database implementation used to store data; supported options: leveldb, h2, rocksdb.");
+                        "Database implementation used to store data; supported options: leveldb, h2, rocksdb, rocksdb_cf.");
                 xmlWriter.writeCharacters("\r\n\t\t");
                 xmlWriter.writeComment(
                         "Caution: changing implementation requires re-syncing from genesis!");
@@ -286,10 +375,62 @@ public class CfgDb {
         this.path = path;
     }
 
+    public String getVendor() {
+        return vendor;
+    }
+
     public void setVendor(String vendor) {
         this.vendor = vendor;
     }
 
+    public boolean isAddressHistoryIndexed() {
+        return index_address_history;
+    }
+
+    public void setAddressHistoryIndexed(boolean value) {
+        this.index_address_history = value;
+    }
+
+    public int getWriteBehindDepth() {
+        return write_behind_depth;
+    }
+
+    public void setWriteBehindDepth(int value) {
+        this.write_behind_depth = value;
+    }
+
+    public long getSharedCacheSize() {
+        return shared_cache_size;
+    }
+
+    public void setSharedCacheSize(long value) {
+        this.shared_cache_size = value;
+    }
+
+    public long getBlockCacheSize() {
+        return block_cache_size;
+    }
+
+    public void setBlockCacheSize(long value) {
+        this.block_cache_size = value;
+    }
+
+    public long getIndexCacheSize() {
+        return index_cache_size;
+    }
+
+    public void setIndexCacheSize(long value) {
+        this.index_cache_size = value;
+    }
+
+    public long getCodeCacheSize() {
+        return code_cache_size;
+    }
+
+    public void setCodeCacheSize(long value) {
+        this.code_cache_size = value;
+    }
+
     public CfgPrune getPrune() {
         return this.prune;
     }
@@ -377,12 +518,26 @@ public class CfgDb {
 
             Properties props = propSet.get(Names.DEFAULT);
             props.setProperty(Props.CHECK_INTEGRITY, String.valueOf(this.check_integrity));
+            props.setProperty(
+                    Props.INDEX_ADDRESS_HISTORY, String.valueOf(this.index_address_history));
+            props.setProperty(Props.WRITE_BEHIND_DEPTH, String.valueOf(this.write_behind_depth));
+            props.setProperty(Props.SHARED_CACHE_SIZE, String.valueOf(this.shared_cache_size));
+            props.setProperty(Props.BLOCK_CACHE_SIZE, String.valueOf(this.block_cache_size));
+            props.setProperty(Props.INDEX_CACHE_SIZE, String.valueOf(this.index_cache_size));
+            props.setProperty(Props.CODE_CACHE_SIZE, String.valueOf(this.code_cache_size));
             props.setProperty(Props.PERSISTENT, String.valueOf(isPersistent));
         } else {
             Properties props = new Properties();
             props.setProperty(Props.DB_TYPE, this.vendor);
             props.setProperty(Props.ENABLE_DB_COMPRESSION, String.valueOf(this.compression));
             props.setProperty(Props.CHECK_INTEGRITY, String.valueOf(this.check_integrity));
+            props.setProperty(
+                    Props.INDEX_ADDRESS_HISTORY, String.valueOf(this.index_address_history));
+            props.setProperty(Props.WRITE_BEHIND_DEPTH, String.valueOf(this.write_behind_depth));
+            props.setProperty(Props.SHARED_CACHE_SIZE, String.valueOf(this.shared_cache_size));
+            props.setProperty(Props.BLOCK_CACHE_SIZE, String.valueOf(this.block_cache_size));
+            props.setProperty(Props.INDEX_CACHE_SIZE, String.valueOf(this.index_cache_size));
+            props.setProperty(Props.CODE_CACHE_SIZE, String.valueOf(this.code_cache_size));
             boolean isPersistent = DBVendor.fromString(this.vendor).getPersistence();
             props.setProperty(Props.PERSISTENT, String.valueOf(isPersistent));
 
@@ -398,6 +553,7 @@ public class CfgDb {
             props.setProperty(Props.BLOCK_SIZE, String.valueOf(16 * (int) Utils.MEGA_BYTE));
             props.setProperty(Props.WRITE_BUFFER_SIZE, String.valueOf(64 * (int) Utils.MEGA_BYTE));
             props.setProperty(Props.READ_BUFFER_SIZE, String.valueOf(64 * (int) Utils.MEGA_BYTE));
+            props.setProperty(Props.TRIE_CACHE_SIZE, String.valueOf(64 * (int) Utils.MEGA_BYTE));
 
             propSet.put(Names.DEFAULT, props);
         }
@@ -425,6 +581,12 @@ public class CfgDb {
         CfgDb cfgDb = (CfgDb) o;
         return compression == cfgDb.compression
                 && check_integrity == cfgDb.check_integrity
+                && index_address_history == cfgDb.index_address_history
+                && write_behind_depth == cfgDb.write_behind_depth
+                && shared_cache_size == cfgDb.shared_cache_size
+                && block_cache_size == cfgDb.block_cache_size
+                && index_cache_size == cfgDb.index_cache_size
+                && code_cache_size == cfgDb.code_cache_size
                 && expert == cfgDb.expert
                 && Objects.equal(path, cfgDb.path)
                 && Objects.equal(vendor, cfgDb.vendor)
@@ -440,6 +602,12 @@ public class CfgDb {
                 vendor,
                 compression,
                 check_integrity,
+                index_address_history,
+                write_behind_depth,
+                shared_cache_size,
+                block_cache_size,
+                index_cache_size,
+                code_cache_size,
                 prune,
                 prune_option,
                 expert,
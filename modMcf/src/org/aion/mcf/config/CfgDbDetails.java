@@ -40,6 +40,7 @@ public class CfgDbDetails {
     public static final String DEFAULT_WRITE_BUFFER_SIZE = "64mB";
     public static final String DEFAULT_READ_BUFFER_SIZE = "64mB";
     public static final String DEFAULT_CACHE_SIZE = "128mB";
+    public static final String DEFAULT_TRIE_CACHE_SIZE = "64mB";
 
     public CfgDbDetails() {
         this.vendor = DBVendor.LEVELDB.toValue();
@@ -62,6 +63,9 @@ public class CfgDbDetails {
 
         // corresponds to DEFAULT_CACHE_SIZE
         this.cache_size = 128 * (int) Utils.MEGA_BYTE;
+
+        // corresponds to DEFAULT_TRIE_CACHE_SIZE
+        this.trie_cache_size = 64 * (int) Utils.MEGA_BYTE;
     }
 
     public String vendor;
@@ -115,6 +119,14 @@ public class CfgDbDetails {
      */
     public int cache_size;
 
+    /**
+     * The maximum size in bytes of the heap cache for clean trie nodes that is kept across
+     * commits.
+     *
+     * <p>This parameter is specific to the state database.
+     */
+    public int trie_cache_size;
+
     public void fromXML(final XMLStreamReader sr) throws XMLStreamException {
         loop:
         while (sr.hasNext()) {
@@ -162,6 +174,10 @@ public class CfgDbDetails {
                         case Props.DB_CACHE_SIZE:
                             this.cache_size = parseFileSizeSafe(Cfg.readValue(sr), this.cache_size);
                             break;
+                        case Props.TRIE_CACHE_SIZE:
+                            this.trie_cache_size =
+                                    parseFileSizeSafe(Cfg.readValue(sr), this.trie_cache_size);
+                            break;
                         default:
                             Cfg.skipElement(sr);
                             break;
@@ -261,6 +277,7 @@ public class CfgDbDetails {
         props.setProperty(Props.BLOCK_SIZE, String.valueOf(this.block_size));
         props.setProperty(Props.WRITE_BUFFER_SIZE, String.valueOf(this.write_buffer_size));
         props.setProperty(Props.READ_BUFFER_SIZE, String.valueOf(this.read_buffer_size));
+        props.setProperty(Props.TRIE_CACHE_SIZE, String.valueOf(this.trie_cache_size));
 
         return props;
     }
@@ -280,6 +297,7 @@ public class CfgDbDetails {
                 && write_buffer_size == that.write_buffer_size
                 && read_buffer_size == that.read_buffer_size
                 && cache_size == that.cache_size
+                && trie_cache_size == that.trie_cache_size
                 && Objects.equal(vendor, that.vendor)
                 && Objects.equal(max_heap_cache_size, that.max_heap_cache_size);
     }
@@ -298,6 +316,7 @@ public class CfgDbDetails {
                 max_fd_open_alloc,
                 write_buffer_size,
                 read_buffer_size,
-                cache_size);
+                cache_size,
+                trie_cache_size);
     }
 }
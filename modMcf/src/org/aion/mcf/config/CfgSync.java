@@ -40,13 +40,29 @@ public final class CfgSync {
 
     private int blocksQueueMax;
 
+    private int flushInterval;
+
+    private boolean skeletonSync;
+
+    private boolean fastSync;
+
+    private boolean speculativeExecution;
+
     private boolean showStatus;
     private Set<StatsType> showStatistics;
 
     private static int BLOCKS_QUEUE_MAX = 32;
 
+    private static int FLUSH_INTERVAL = 32;
+    // kept below the minimum number of blocks for which the state is stored when pruning
+    private static int FLUSH_INTERVAL_MAX = 100;
+
     public CfgSync() {
         this.blocksQueueMax = BLOCKS_QUEUE_MAX;
+        this.flushInterval = FLUSH_INTERVAL;
+        this.skeletonSync = false;
+        this.fastSync = false;
+        this.speculativeExecution = false;
         this.showStatus = false;
         this.showStatistics = new HashSet<>();
         this.showStatistics.add(StatsType.NONE);
@@ -63,6 +79,18 @@ public final class CfgSync {
                         case "blocks-queue-max":
                             this.blocksQueueMax = Integer.parseInt(Cfg.readValue(sr));
                             break;
+                        case "flush-interval":
+                            setFlushInterval(Integer.parseInt(Cfg.readValue(sr)));
+                            break;
+                        case "skeleton-sync":
+                            this.skeletonSync = Boolean.parseBoolean(Cfg.readValue(sr));
+                            break;
+                        case "fast-sync":
+                            this.fastSync = Boolean.parseBoolean(Cfg.readValue(sr));
+                            break;
+                        case "speculative-execution":
+                            this.speculativeExecution = Boolean.parseBoolean(Cfg.readValue(sr));
+                            break;
                         case "show-status":
                             this.showStatus = Boolean.parseBoolean(Cfg.readValue(sr));
                             break;
@@ -127,6 +155,42 @@ public final class CfgSync {
             xmlWriter.writeCharacters(BLOCKS_QUEUE_MAX + "");
             xmlWriter.writeEndElement();
 
+            // sub-element flush-interval
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "Blocks committed to disk together while far behind the network; requires db write_behind_depth > 0");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("flush-interval");
+            xmlWriter.writeCharacters(this.flushInterval + "");
+            xmlWriter.writeEndElement();
+
+            // sub-element skeleton-sync
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "Download headers from many peers in parallel while far behind the network");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("skeleton-sync");
+            xmlWriter.writeCharacters(this.skeletonSync + "");
+            xmlWriter.writeEndElement();
+
+            // sub-element fast-sync
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "Download the world state at a recent block instead of executing the history");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("fast-sync");
+            xmlWriter.writeCharacters(this.fastSync + "");
+            xmlWriter.writeEndElement();
+
+            // sub-element speculative-execution
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "Execute the independent value transfers of each block in parallel before applying it in order");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("speculative-execution");
+            xmlWriter.writeCharacters(this.speculativeExecution + "");
+            xmlWriter.writeEndElement();
+
             // sub-element show-status
             xmlWriter.writeCharacters("\r\n\t\t");
             xmlWriter.writeStartElement("show-status");
@@ -192,6 +256,40 @@ public final class CfgSync {
         return this.blocksQueueMax;
     }
 
+    /**
+     * Returns the number of blocks whose state, receipts and block data are committed to disk
+     * together while the node is far behind the network.
+     *
+     * @return a value between 1 (commit after every block) and {@link #FLUSH_INTERVAL_MAX}
+     */
+    public int getFlushInterval() {
+        return this.flushInterval;
+    }
+
+    public void setFlushInterval(int flushInterval) {
+        this.flushInterval = Math.max(1, Math.min(flushInterval, FLUSH_INTERVAL_MAX));
+    }
+
+    public boolean getSkeletonSync() {
+        return this.skeletonSync;
+    }
+
+    /**
+     * Returns whether a new node downloads the world state of a recent block from its peers
+     * instead of executing all the blocks before it.
+     */
+    public boolean getFastSync() {
+        return this.fastSync;
+    }
+
+    /**
+     * Returns whether the value transfers of a block that do not depend on each other are executed
+     * in parallel before the block is applied in order.
+     */
+    public boolean getSpeculativeExecution() {
+        return this.speculativeExecution;
+    }
+
     public boolean getShowStatus() {
         return this.showStatus;
     }
@@ -205,11 +303,22 @@ public final class CfgSync {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         CfgSync cfgSync = (CfgSync) o;
-        return blocksQueueMax == cfgSync.blocksQueueMax && showStatus == cfgSync.showStatus;
+        return blocksQueueMax == cfgSync.blocksQueueMax
+                && flushInterval == cfgSync.flushInterval
+                && skeletonSync == cfgSync.skeletonSync
+                && fastSync == cfgSync.fastSync
+                && speculativeExecution == cfgSync.speculativeExecution
+                && showStatus == cfgSync.showStatus;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(blocksQueueMax, showStatus);
+        return Objects.hashCode(
+                blocksQueueMax,
+                flushInterval,
+                skeletonSync,
+                fastSync,
+                speculativeExecution,
+                showStatus);
     }
 }
@@ -24,6 +24,7 @@ package org.aion.mcf.db;
 
 import static org.aion.db.impl.DatabaseFactory.Props;
 import static org.aion.mcf.db.DatabaseUtils.connectAndOpen;
+import static org.aion.mcf.db.DatabaseUtils.deleteRecursively;
 import static org.aion.mcf.db.DatabaseUtils.verifyAndBuildPath;
 
 import java.io.File;
@@ -39,6 +40,8 @@ import org.aion.base.db.IRepositoryConfig;
 import org.aion.base.type.IBlockHeader;
 import org.aion.base.type.ITransaction;
 import org.aion.base.vm.IDataWord;
+import org.aion.db.generic.WriteBehindWriter;
+import org.aion.db.impl.DatabaseFactory;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.mcf.config.CfgDb.Names;
@@ -68,6 +71,8 @@ public abstract class AbstractRepository<
 
     /** ********* Database Name Constants ********** */
     protected static final String TRANSACTION_DB = Names.TRANSACTION;
+    protected static final String BLOOM_BITS_DB = Names.BLOOM_BITS;
+    protected static final String ADDRESS_HISTORY_DB = Names.ADDRESS_HISTORY;
 
     protected static final String INDEX_DB = Names.INDEX;
     protected static final String BLOCK_DB = Names.BLOCK;
@@ -76,6 +81,7 @@ public abstract class AbstractRepository<
     protected static final String STORAGE_DB = Names.STORAGE;
     protected static final String STATE_DB = Names.STATE;
     protected static final String STATE_ARCHIVE_DB = Names.STATE_ARCHIVE;
+    protected static final String STATE_JOURNAL_DB = Names.STATE_JOURNAL;
     protected static final String PENDING_TX_POOL_DB = Names.TX_POOL;
     protected static final String PENDING_TX_CACHE_DB = Names.TX_CACHE;
 
@@ -88,6 +94,8 @@ public abstract class AbstractRepository<
 
     /** ******** Database and Cache parameters ************* */
     protected IByteArrayKeyValueDatabase transactionDatabase;
+    protected IByteArrayKeyValueDatabase bloomBitsDatabase;
+    protected IByteArrayKeyValueDatabase addressHistoryDatabase;
 
     protected IByteArrayKeyValueDatabase detailsDatabase;
     protected IByteArrayKeyValueDatabase storageDatabase;
@@ -95,11 +103,15 @@ public abstract class AbstractRepository<
     protected IByteArrayKeyValueDatabase blockDatabase;
     protected IByteArrayKeyValueDatabase stateDatabase;
     protected IByteArrayKeyValueDatabase stateArchiveDatabase;
+    protected IByteArrayKeyValueDatabase stateJournalDatabase;
     protected IByteArrayKeyValueDatabase txPoolDatabase;
     protected IByteArrayKeyValueDatabase pendingTxCacheDatabase;
 
     protected Collection<IByteArrayKeyValueDatabase> databaseGroup;
 
+    // Persists the chain databases in the background when enabled.
+    protected WriteBehindWriter writeBehind;
+
     protected ArchivedDataSource stateWithArchive;
     protected JournalPruneDataSource stateDSPrune;
     protected DetailsDataStore<BLK, BH> detailsDS;
@@ -124,6 +136,16 @@ public abstract class AbstractRepository<
 
     protected boolean checkIntegrity = true;
 
+    // Flag to see if the account transaction history is indexed on block import.
+    protected boolean indexAddressHistory = false;
+
+    // Size in bytes of the clean node cache for the world state trie.
+    protected long stateTrieCacheSize = 0;
+
+    // Sizes in bytes of the encoded blocks and index levels cached by the block store.
+    protected long blockCacheSize = 16 * 1024 * 1024;
+    protected long indexCacheSize = 4 * 1024 * 1024;
+
     /**
      * Initializes all necessary databases and caches.
      *
@@ -184,6 +206,35 @@ public abstract class AbstractRepository<
                     Boolean.valueOf(
                             cfg.getDatabaseConfig(Names.DEFAULT)
                                     .getProperty(Props.CHECK_INTEGRITY));
+            indexAddressHistory =
+                    Boolean.valueOf(
+                            cfg.getDatabaseConfig(Names.DEFAULT)
+                                    .getProperty(Props.INDEX_ADDRESS_HISTORY));
+            int writeBehindDepth =
+                    Integer.parseInt(
+                            cfg.getDatabaseConfig(Names.DEFAULT)
+                                    .getProperty(Props.WRITE_BEHIND_DEPTH, "0"));
+            writeBehind = writeBehindDepth > 0 ? new WriteBehindWriter(writeBehindDepth) : null;
+            blockCacheSize =
+                    Long.parseLong(
+                            cfg.getDatabaseConfig(Names.DEFAULT)
+                                    .getProperty(
+                                            Props.BLOCK_CACHE_SIZE,
+                                            String.valueOf(blockCacheSize)));
+            indexCacheSize =
+                    Long.parseLong(
+                            cfg.getDatabaseConfig(Names.DEFAULT)
+                                    .getProperty(
+                                            Props.INDEX_CACHE_SIZE,
+                                            String.valueOf(indexCacheSize)));
+            ContractCodeCache.configure(
+                    Long.parseLong(
+                            cfg.getDatabaseConfig(Names.DEFAULT)
+                                    .getProperty(
+                                            Props.CODE_CACHE_SIZE,
+                                            String.valueOf(ContractCodeCache.DEFAULT_MAX_SIZE))));
+
+            configureColumnFamilies();
 
             // getting state specific properties
             sharedProps = cfg.getDatabaseConfig(STATE_DB);
@@ -191,7 +242,9 @@ public abstract class AbstractRepository<
             sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
             sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
             sharedProps.setProperty(Props.DB_NAME, STATE_DB);
-            this.stateDatabase = connectAndOpen(sharedProps, LOG);
+            this.stateTrieCacheSize =
+                    Long.parseLong(sharedProps.getProperty(Props.TRIE_CACHE_SIZE, "0"));
+            this.stateDatabase = withWriteBehind(connectAndOpen(sharedProps, LOG));
             if (stateDatabase == null || stateDatabase.isClosed()) {
                 throw newException(STATE_DB, sharedProps);
             }
@@ -202,18 +255,40 @@ public abstract class AbstractRepository<
             sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
             sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
             sharedProps.setProperty(Props.DB_NAME, TRANSACTION_DB);
-            this.transactionDatabase = connectAndOpen(sharedProps, LOG);
+            this.transactionDatabase = withWriteBehind(connectAndOpen(sharedProps, LOG));
             if (transactionDatabase == null || transactionDatabase.isClosed()) {
                 throw newException(TRANSACTION_DB, sharedProps);
             }
             databaseGroup.add(transactionDatabase);
 
+            // getting bloom bits specific properties
+            sharedProps = cfg.getDatabaseConfig(BLOOM_BITS_DB);
+            sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
+            sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
+            sharedProps.setProperty(Props.DB_NAME, BLOOM_BITS_DB);
+            this.bloomBitsDatabase = withWriteBehind(connectAndOpen(sharedProps, LOG));
+            if (bloomBitsDatabase == null || bloomBitsDatabase.isClosed()) {
+                throw newException(BLOOM_BITS_DB, sharedProps);
+            }
+            databaseGroup.add(bloomBitsDatabase);
+
+            // getting address history specific properties
+            sharedProps = cfg.getDatabaseConfig(ADDRESS_HISTORY_DB);
+            sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
+            sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
+            sharedProps.setProperty(Props.DB_NAME, ADDRESS_HISTORY_DB);
+            this.addressHistoryDatabase = withWriteBehind(connectAndOpen(sharedProps, LOG));
+            if (addressHistoryDatabase == null || addressHistoryDatabase.isClosed()) {
+                throw newException(ADDRESS_HISTORY_DB, sharedProps);
+            }
+            databaseGroup.add(addressHistoryDatabase);
+
             // getting details specific properties
             sharedProps = cfg.getDatabaseConfig(DETAILS_DB);
             sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
             sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
             sharedProps.setProperty(Props.DB_NAME, DETAILS_DB);
-            this.detailsDatabase = connectAndOpen(sharedProps, LOG);
+            this.detailsDatabase = withWriteBehind(connectAndOpen(sharedProps, LOG));
             if (detailsDatabase == null || detailsDatabase.isClosed()) {
                 throw newException(DETAILS_DB, sharedProps);
             }
@@ -224,7 +299,7 @@ public abstract class AbstractRepository<
             sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
             sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
             sharedProps.setProperty(Props.DB_NAME, STORAGE_DB);
-            this.storageDatabase = connectAndOpen(sharedProps, LOG);
+            this.storageDatabase = withWriteBehind(connectAndOpen(sharedProps, LOG));
             if (storageDatabase == null || storageDatabase.isClosed()) {
                 throw newException(STORAGE_DB, sharedProps);
             }
@@ -235,7 +310,7 @@ public abstract class AbstractRepository<
             sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
             sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
             sharedProps.setProperty(Props.DB_NAME, INDEX_DB);
-            this.indexDatabase = connectAndOpen(sharedProps, LOG);
+            this.indexDatabase = withWriteBehind(connectAndOpen(sharedProps, LOG));
             if (indexDatabase == null || indexDatabase.isClosed()) {
                 throw newException(INDEX_DB, sharedProps);
             }
@@ -246,7 +321,7 @@ public abstract class AbstractRepository<
             sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
             sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
             sharedProps.setProperty(Props.DB_NAME, BLOCK_DB);
-            this.blockDatabase = connectAndOpen(sharedProps, LOG);
+            this.blockDatabase = withWriteBehind(connectAndOpen(sharedProps, LOG));
             if (blockDatabase == null || blockDatabase.isClosed()) {
                 throw newException(BLOCK_DB, sharedProps);
             }
@@ -280,23 +355,53 @@ public abstract class AbstractRepository<
 
             // Setup the cache for transaction data source.
             this.detailsDS = new DetailsDataStore<>(detailsDatabase, storageDatabase, this.cfg);
+            int indexed = detailsDS.indexAddresses();
+            if (indexed > 0) {
+                LOGGEN.info("Indexed the hashed addresses of {} stored contracts.", indexed);
+            }
+            if (LOG.isDebugEnabled()) {
+                // counted here once so that the sizes logged on flush do not require a scan
+                detailsDS.countSizes();
+            }
 
             // pruning config
             pruneEnabled = this.cfg.getPruneConfig().isEnabled();
             pruneBlockCount = this.cfg.getPruneConfig().getCurrentCount();
             archiveRate = this.cfg.getPruneConfig().getArchiveRate();
 
+            if (pruneEnabled) {
+                // using state config for state_journal
+                sharedProps = cfg.getDatabaseConfig(STATE_DB);
+                sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
+                sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
+                sharedProps.setProperty(Props.DB_NAME, STATE_JOURNAL_DB);
+                this.stateJournalDatabase = withWriteBehind(connectAndOpen(sharedProps, LOG));
+                if (stateJournalDatabase == null || stateJournalDatabase.isClosed()) {
+                    throw newException(STATE_JOURNAL_DB, sharedProps);
+                }
+                databaseGroup.add(stateJournalDatabase);
+            } else {
+                stateJournalDatabase = null;
+
+                // the journal of a previous run with pruning no longer matches the state
+                File journalDir = new File(cfg.getDbPath(), STATE_JOURNAL_DB);
+                if (journalDir.exists()) {
+                    LOGGEN.info("Pruning disabled. Removing the pruning journal.");
+                    deleteRecursively(journalDir);
+                }
+            }
+
             if (pruneEnabled && this.cfg.getPruneConfig().isArchived()) {
                 // using state config for state_archive
                 sharedProps = cfg.getDatabaseConfig(STATE_DB);
                 sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
                 sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
                 sharedProps.setProperty(Props.DB_NAME, STATE_ARCHIVE_DB);
-                this.stateArchiveDatabase = connectAndOpen(sharedProps, LOG);
+                this.stateArchiveDatabase = withWriteBehind(connectAndOpen(sharedProps, LOG));
                 databaseGroup.add(stateArchiveDatabase);
 
                 stateWithArchive = new ArchivedDataSource(stateDatabase, stateArchiveDatabase);
-                stateDSPrune = new JournalPruneDataSource(stateWithArchive);
+                stateDSPrune = new JournalPruneDataSource(stateWithArchive, stateJournalDatabase);
 
                 LOGGEN.info(
                         "Pruning and archiving ENABLED. Top block count set to {} and archive rate set to {}.",
@@ -305,7 +410,7 @@ public abstract class AbstractRepository<
             } else {
                 stateArchiveDatabase = null;
                 stateWithArchive = null;
-                stateDSPrune = new JournalPruneDataSource(stateDatabase);
+                stateDSPrune = new JournalPruneDataSource(stateDatabase, stateJournalDatabase);
 
                 if (pruneEnabled) {
                     LOGGEN.info("Pruning ENABLED. Top block count set to {}.", pruneBlockCount);
@@ -313,11 +418,65 @@ public abstract class AbstractRepository<
             }
 
             stateDSPrune.setPruneEnabled(pruneEnabled);
+
+            if (writeBehind != null) {
+                // the stored chain must not refer to data that is not yet persisted
+                writeBehind.persistLast(blockDatabase, indexDatabase);
+                LOGGEN.info(
+                        "Write-behind ENABLED. Up to {} flushes persisted in the background.",
+                        writeBehindDepth);
+            }
         } catch (Exception e) { // Setting up databases and caches went wrong.
             throw e;
         }
     }
 
+    /**
+     * @return {@code true} when the writes to the chain databases are held in memory until the next
+     *     flush and persisted in the background, {@code false} when they are written as they are
+     *     made
+     */
+    public boolean isWriteBehindEnabled() {
+        return writeBehind != null;
+    }
+
+    /**
+     * Wraps a chain database so that its writes are persisted in the background when write-behind
+     * is enabled. The databases are persisted in the order in which they are wrapped.
+     */
+    private IByteArrayKeyValueDatabase withWriteBehind(IByteArrayKeyValueDatabase database) {
+        return writeBehind == null ? database : writeBehind.wrap(database);
+    }
+
+    /**
+     * Registers the settings of all the databases before any of them connects, since the column
+     * families of a shared RocksDB instance stored on disk are all opened by the first one.
+     */
+    private void configureColumnFamilies() {
+        String[] names = {
+            STATE_DB,
+            STATE_JOURNAL_DB,
+            STATE_ARCHIVE_DB,
+            TRANSACTION_DB,
+            BLOOM_BITS_DB,
+            ADDRESS_HISTORY_DB,
+            DETAILS_DB,
+            STORAGE_DB,
+            INDEX_DB,
+            BLOCK_DB,
+            PENDING_TX_POOL_DB,
+            PENDING_TX_CACHE_DB
+        };
+        for (String name : names) {
+            // the pruning databases use the state config
+            boolean pruning = name.equals(STATE_JOURNAL_DB) || name.equals(STATE_ARCHIVE_DB);
+            Properties props = cfg.getDatabaseConfig(pruning ? STATE_DB : name);
+            props.setProperty(Props.DB_PATH, cfg.getDbPath());
+            props.setProperty(Props.DB_NAME, name);
+            DatabaseFactory.configureColumnFamily(props);
+        }
+    }
+
     private InvalidFilePathException newException(String dbName, Properties props) {
         return new InvalidFilePathException(
                 "The «"
@@ -28,7 +28,9 @@ import static org.aion.crypto.HashUtil.h256;
 import java.math.BigInteger;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.aion.base.db.IContractDetails;
@@ -303,7 +305,9 @@ public abstract class AbstractRepositoryCache<BSB extends IBlockStoreBase<?, ?>>
             contractDetails.setDirty(true);
 
             // update the code hash
-            getAccountState(address).setCodeHash(h256(code));
+            byte[] codeHash = h256(code);
+            getAccountState(address).setCodeHash(codeHash);
+            ContractCodeCache.getInstance().put(codeHash, code);
         } finally {
             fullyWriteUnlock();
         }
@@ -311,14 +315,30 @@ public abstract class AbstractRepositoryCache<BSB extends IBlockStoreBase<?, ?>>
 
     @Override
     public byte[] getCode(Address address) {
-        if (!hasAccountState(address)) {
-            return EMPTY_BYTE_ARRAY;
+        AccountState accountState;
+        lockAccounts.readLock().lock();
+        try {
+            accountState = cachedAccounts.get(address);
+        } finally {
+            lockAccounts.readLock().unlock();
         }
 
-        byte[] codeHash = getAccountState(address).getCodeHash();
+        if (accountState == null) {
+            // the code is read without loading the account and its details into this cache
+            return repository.getCode(address);
+        }
+        if (accountState.isDeleted()) {
+            return EMPTY_BYTE_ARRAY;
+        }
 
-        // TODO: why use codeHash here? may require refactoring
-        return getContractDetails(address).getCode(codeHash);
+        byte[] codeHash = accountState.getCodeHash();
+        byte[] code = ContractCodeCache.getInstance().get(codeHash);
+        if (code == null) {
+            // TODO: why use codeHash here? may require refactoring
+            code = getContractDetails(address).getCode(codeHash);
+            ContractCodeCache.getInstance().put(codeHash, code);
+        }
+        return code;
     }
 
     @Override
@@ -400,4 +420,19 @@ public abstract class AbstractRepositoryCache<BSB extends IBlockStoreBase<?, ?>>
     public boolean isSnapshot() {
         return repository.isSnapshot();
     }
+
+    /**
+     * Returns the addresses of the accounts currently held by this cache, i.e. the accounts that
+     * were loaded or modified since the last flush.
+     *
+     * @return a copy of the set of cached account addresses
+     */
+    public Set<Address> getCachedAddresses() {
+        lockAccounts.readLock().lock();
+        try {
+            return new HashSet<>(cachedAccounts.keySet());
+        } finally {
+            lockAccounts.readLock().unlock();
+        }
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.mcf.db;
+
+import static org.aion.base.util.ByteUtil.EMPTY_BYTE_ARRAY;
+import static org.aion.crypto.HashUtil.EMPTY_DATA_HASH;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.Arrays;
+import org.aion.base.util.ByteArrayWrapper;
+
+/**
+ * Bounded cache of contract code keyed by code hash.
+ *
+ * <p>Since the code stored under a hash never changes, a single instance is shared by all the
+ * repositories and their caches. Lookups by code hash avoid loading the contract details of the
+ * account only to retrieve its code. The cache stores and returns copies of the code, so callers
+ * are free to modify the arrays they pass in or get back.
+ */
+public final class ContractCodeCache {
+
+    // 32 MB of code, unless configured otherwise
+    public static final long DEFAULT_MAX_SIZE = 32L * 1024 * 1024;
+    // approximate size of the key and the entry objects
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private static volatile ContractCodeCache instance;
+
+    private final long maxSize;
+    private final Cache<ByteArrayWrapper, byte[]> codes;
+
+    private ContractCodeCache(long maxSize) {
+        this.maxSize = maxSize;
+        this.codes =
+                CacheBuilder.newBuilder()
+                        .maximumWeight(maxSize)
+                        .<ByteArrayWrapper, byte[]>weigher(
+                                (k, v) -> k.getData().length + v.length + ENTRY_OVERHEAD)
+                        .recordStats()
+                        .build();
+    }
+
+    public static ContractCodeCache getInstance() {
+        ContractCodeCache cache = instance;
+        if (cache == null) {
+            synchronized (ContractCodeCache.class) {
+                cache = instance;
+                if (cache == null) {
+                    cache = new ContractCodeCache(DEFAULT_MAX_SIZE);
+                    instance = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Sets the maximum size in bytes of the cached code. The shared instance is replaced, dropping
+     * the cached code, only when the size differs from its current one, so this should be called
+     * on startup before the cache is used.
+     */
+    public static synchronized void configure(long maxSize) {
+        if (instance == null || instance.maxSize != maxSize) {
+            instance = new ContractCodeCache(maxSize);
+        }
+    }
+
+    /**
+     * Retrieves the code with the given hash.
+     *
+     * @return a copy of the cached code, the empty array for the empty code hash or {@code null}
+     *     when the code is not cached
+     */
+    public byte[] get(byte[] codeHash) {
+        if (Arrays.equals(codeHash, EMPTY_DATA_HASH)) {
+            return EMPTY_BYTE_ARRAY;
+        }
+        byte[] code = codes.getIfPresent(ByteArrayWrapper.wrap(codeHash));
+        return code == null ? null : code.clone();
+    }
+
+    /** Stores a copy of the given code under its hash. Empty code is not cached. */
+    public void put(byte[] codeHash, byte[] code) {
+        if (code != null && code.length > 0) {
+            codes.put(ByteArrayWrapper.wrap(codeHash), code.clone());
+        }
+    }
+
+    public long size() {
+        return codes.size();
+    }
+
+    /** @return the hit, miss and eviction counts since the cache was created */
+    public CacheStats getStats() {
+        return codes.stats();
+    }
+
+    public void clear() {
+        codes.invalidateAll();
+    }
+}
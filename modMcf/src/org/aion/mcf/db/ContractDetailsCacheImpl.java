@@ -24,8 +24,10 @@ package org.aion.mcf.db;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.aion.base.db.IByteArrayKeyValueStore;
 import org.aion.base.db.IContractDetails;
 import org.aion.base.type.Address;
@@ -37,6 +39,13 @@ public class ContractDetailsCacheImpl extends AbstractContractDetails<IDataWord>
 
     private Map<IDataWord, IDataWord> storage = new HashMap<>();
 
+    /**
+     * Keys that were written through this cache. Values that were only read from the original
+     * contract are cached in {@link #storage} but are not pushed back on {@link #commit()}, since
+     * re-inserting them would re-hash the storage trie without changing it.
+     */
+    private Set<IDataWord> dirtyKeys = new HashSet<>();
+
     public IContractDetails<IDataWord> origContract;
 
     public ContractDetailsCacheImpl(IContractDetails<IDataWord> origContract) {
@@ -54,6 +63,7 @@ public class ContractDetailsCacheImpl extends AbstractContractDetails<IDataWord>
         ContractDetailsCacheImpl copy = new ContractDetailsCacheImpl(cache.origContract);
         copy.setCodes(new HashMap<>(cache.getCodes()));
         copy.storage = new HashMap<>(cache.storage);
+        copy.dirtyKeys = new HashSet<>(cache.dirtyKeys);
         copy.setDirty(cache.isDirty());
         copy.setDeleted(cache.isDeleted());
         copy.prune = cache.prune;
@@ -71,6 +81,7 @@ public class ContractDetailsCacheImpl extends AbstractContractDetails<IDataWord>
     @Override
     public void put(IDataWord key, IDataWord value) {
         storage.put(key, value);
+        dirtyKeys.add(key);
         setDirty(true);
     }
 
@@ -149,6 +160,20 @@ public class ContractDetailsCacheImpl extends AbstractContractDetails<IDataWord>
         return storage;
     }
 
+    /**
+     * Returns a copy of the key-value pairs written through this cache, without the pairs that
+     * were only read from the original contract.
+     *
+     * @return the written mappings.
+     */
+    public Map<IDataWord, IDataWord> getDirtyStorage() {
+        Map<IDataWord, IDataWord> written = new HashMap<>();
+        for (IDataWord key : dirtyKeys) {
+            written.put(key.copy(), storage.get(key).copy());
+        }
+        return written;
+    }
+
     /**
      * Sets the storage to contain the specified keys and values. This method creates pairings of
      * the keys and values by mapping the i'th key in storageKeys to the i'th value in
@@ -212,9 +237,10 @@ public class ContractDetailsCacheImpl extends AbstractContractDetails<IDataWord>
     }
 
     /**
-     * Puts all of the key-value pairs in this ContractDetailsCacheImple into the original contract
-     * injected into this class' constructor, transfers over any code and sets the original contract
-     * to dirty only if it already is dirty or if this class is dirty, otherwise sets it as clean.
+     * Puts all of the key-value pairs written to this ContractDetailsCacheImpl into the original
+     * contract injected into this class' constructor, transfers over any code and sets the original
+     * contract to dirty only if it already is dirty or if this class is dirty, otherwise sets it as
+     * clean. Pairs that were only read are not written back to the original contract.
      */
     public void commit() {
 
@@ -222,7 +248,7 @@ public class ContractDetailsCacheImpl extends AbstractContractDetails<IDataWord>
             return;
         }
 
-        for (IDataWord key : storage.keySet()) {
+        for (IDataWord key : dirtyKeys) {
             origContract.put(key, storage.get(key));
         }
 
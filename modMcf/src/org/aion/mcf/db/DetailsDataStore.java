@@ -35,6 +35,7 @@
 package org.aion.mcf.db;
 
 import static org.aion.base.util.ByteArrayWrapper.wrap;
+import static org.aion.crypto.HashUtil.h256;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -53,16 +54,33 @@ import org.aion.base.vm.IDataWord;
 import org.aion.mcf.trie.JournalPruneDataSource;
 import org.aion.mcf.types.AbstractBlock;
 
-/** Detail data storage , */
+/**
+ * Detail data storage.
+ *
+ * <p>The details are stored by address. Each address is also indexed by its hash, which is the key
+ * of the account in the world state trie, under keys that start with {@link #HASH_PREFIX} and so
+ * never collide with an address.
+ */
 public class DetailsDataStore<
         BLK extends AbstractBlock<BH, ? extends ITransaction>, BH extends IBlockHeader> {
 
+    private static final byte[] HASH_PREFIX = "hash/".getBytes();
+    // marks a database whose stored addresses were all indexed
+    private static final byte[] INDEXED_KEY = "hash-indexed".getBytes();
+
     private JournalPruneDataSource storageDSPrune;
     private IRepositoryConfig repoConfig;
 
     private IByteArrayKeyValueDatabase detailsSrc;
     private IByteArrayKeyValueDatabase storageSrc;
     private Set<ByteArrayWrapper> removes = new HashSet<>();
+    // details written since the last storage sync
+    private Set<ByteArrayWrapper> updated = new HashSet<>();
+
+    // the sizes are counted once by countSizes() and then updated incrementally
+    private boolean sizesLoaded = false;
+    private long detailsCount = 0;
+    private long detailsSize = 0;
 
     public DetailsDataStore() {}
 
@@ -121,54 +139,94 @@ public class DetailsDataStore<
 
         // Put into cache.
         byte[] rawDetails = contractDetails == null ? null : contractDetails.getEncoded();
+        if (sizesLoaded) {
+            discountSize(key.toBytes());
+            detailsCount++;
+            detailsSize += rawDetails.length;
+        }
         detailsSrc.put(key.toBytes(), rawDetails);
+        detailsSrc.put(hashKey(key.toBytes()), key.toBytes());
 
         contractDetails.syncStorage();
 
         // Remove from the remove set.
         removes.remove(wrappedKey);
+        updated.add(wrappedKey);
     }
 
     public synchronized void remove(byte[] key) {
         ByteArrayWrapper wrappedKey = wrap(key);
+        if (sizesLoaded) {
+            discountSize(key);
+        }
         detailsSrc.put(key, null);
+        detailsSrc.put(hashKey(key), null);
 
         removes.add(wrappedKey);
+        updated.remove(wrappedKey);
     }
 
-    public synchronized void flush() {
-        flushInternal();
+    /** Removes the currently stored details for the given key from the size accounting. */
+    private void discountSize(byte[] key) {
+        Optional<byte[]> rawDetails = detailsSrc.get(key);
+        if (rawDetails.isPresent()) {
+            detailsCount--;
+            detailsSize -= rawDetails.get().length;
+        }
     }
 
-    private long flushInternal() {
-        long totalSize = 0;
+    /**
+     * Counts the stored details, which are then kept up to date incrementally by the updates and
+     * removals. Requires a scan of the database the first time it is called, so it should not be
+     * called while holding locks needed by the block import.
+     */
+    public synchronized void countSizes() {
+        if (!sizesLoaded) {
+            for (byte[] key : detailsSrc.keys()) {
+                if (!isAddress(key)) {
+                    continue;
+                }
+                Optional<byte[]> rawDetails = detailsSrc.get(key);
+                if (rawDetails.isPresent()) {
+                    detailsCount++;
+                    detailsSize += rawDetails.get().length;
+                }
+            }
+            sizesLoaded = true;
+        }
+    }
 
-        syncLargeStorage();
+    /**
+     * @return the number of stored contract details, or {@code -1} if {@link #countSizes()} was
+     *     not called yet
+     */
+    public synchronized long getDetailsCount() {
+        return sizesLoaded ? detailsCount : -1L;
+    }
 
-        // Get everything from the cache and calculate the size.
-        Set<byte[]> keysFromSource = detailsSrc.keys();
-        for (byte[] keyInSource : keysFromSource) {
-            // Fetch the value given the keys.
-            Optional<byte[]> valFromKey = detailsSrc.get(keyInSource);
+    /**
+     * @return the total size in bytes of the encoded contract details, or {@code -1} if {@link
+     *     #countSizes()} was not called yet
+     */
+    public synchronized long getDetailsSize() {
+        return sizesLoaded ? detailsSize : -1L;
+    }
 
-            // Add to total size given size of the value
-            totalSize += valFromKey.map(rawDetails -> rawDetails.length).orElse(0);
-        }
+    public synchronized void flush() {
+        syncLargeStorage();
 
         // Flushes both details and storage.
         detailsSrc.commit();
         storageSrc.commit();
-
-        return totalSize;
     }
 
-    public void syncLargeStorage() {
+    /** Syncs the storage of the details updated since the last call. */
+    public synchronized void syncLargeStorage() {
 
-        Set<byte[]> keysFromSource = detailsSrc.keys();
-        for (byte[] keyInSource : keysFromSource) {
+        for (ByteArrayWrapper key : updated) {
 
             // Fetch the value given the keys.
-            Optional<byte[]> rawDetails = detailsSrc.get(keyInSource);
+            Optional<byte[]> rawDetails = detailsSrc.get(key.getData());
 
             // If it is null, just continue
             if (!rawDetails.isPresent()) {
@@ -184,6 +242,66 @@ public class DetailsDataStore<
             // IContractDetails details = entry.getValue();
             detailsImpl.syncStorage();
         }
+        updated.clear();
+    }
+
+    /**
+     * Indexes the addresses of details stored before the index was kept. Requires a scan of the
+     * database the first time it is called on a database, which is then marked as indexed.
+     *
+     * @return the number of indexed addresses
+     */
+    public synchronized int indexAddresses() {
+        if (detailsSrc.get(INDEXED_KEY).isPresent()) {
+            return 0;
+        }
+        int count = 0;
+        for (byte[] key : detailsSrc.keys()) {
+            if (isAddress(key)) {
+                detailsSrc.put(hashKey(key), key);
+                count++;
+            }
+        }
+        detailsSrc.put(INDEXED_KEY, new byte[] {1});
+        detailsSrc.commit();
+        return count;
+    }
+
+    /**
+     * Indexes an address by its hash in a details database written directly.
+     *
+     * @param db the details database
+     * @param address the address of the stored details
+     */
+    public static void indexAddress(IByteArrayKeyValueDatabase db, byte[] address) {
+        db.put(hashKey(address), address);
+    }
+
+    /**
+     * Finds the address of stored details by its hash.
+     *
+     * @param db the details database
+     * @param hashedAddress the hash of the address, as used in the world state trie
+     * @return the address, or {@code null} if no details are stored for it
+     */
+    public static byte[] getAddress(IByteArrayKeyValueDatabase db, byte[] hashedAddress) {
+        return db.get(indexKey(hashedAddress)).orElse(null);
+    }
+
+    private static byte[] hashKey(byte[] address) {
+        return indexKey(h256(address));
+    }
+
+    private static byte[] indexKey(byte[] hashedAddress) {
+        byte[] key = new byte[HASH_PREFIX.length + hashedAddress.length];
+        System.arraycopy(HASH_PREFIX, 0, key, 0, HASH_PREFIX.length);
+        System.arraycopy(hashedAddress, 0, key, HASH_PREFIX.length, hashedAddress.length);
+        return key;
+    }
+
+    /** @return {@code true} if the key is the address of stored details, not an index entry */
+    private static boolean isAddress(byte[] key) {
+        return key.length == Address.ADDRESS_LEN;
     }
 
     public JournalPruneDataSource getStorageDSPrune() {
@@ -194,7 +312,9 @@ public class DetailsDataStore<
         // TODO - @yao do we wanted a sorted set?
         Set<ByteArrayWrapper> keys = new HashSet<>();
         for (byte[] key : detailsSrc.keys()) {
-            keys.add(wrap(key));
+            if (isAddress(key)) {
+                keys.add(wrap(key));
+            }
         }
         return keys;
     }
@@ -212,7 +332,9 @@ public class DetailsDataStore<
         ArrayList<ByteArrayWrapper> keys = new ArrayList<>();
 
         for (byte[] key : ds.keys()) {
-            keys.add(wrap(key));
+            if (isAddress(key)) {
+                keys.add(wrap(key));
+            }
         }
 
         Collections.sort(keys);
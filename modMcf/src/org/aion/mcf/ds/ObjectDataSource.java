@@ -22,10 +22,13 @@
  */
 package org.aion.mcf.ds;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.io.Closeable;
 import java.util.Optional;
 import org.aion.base.db.Flushable;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.util.ByteArrayWrapper;
 
 /**
  * Object Datasource.
@@ -37,9 +40,36 @@ public class ObjectDataSource<V> implements Flushable, Closeable {
     private IByteArrayKeyValueDatabase src;
     Serializer<V, byte[]> serializer;
 
+    /** Encodings of recently used objects, weighted by their size. May be {@code null}. */
+    private final Cache<ByteArrayWrapper, byte[]> encodings;
+
     public ObjectDataSource(IByteArrayKeyValueDatabase src, Serializer<V, byte[]> serializer) {
+        this(src, serializer, 0);
+    }
+
+    /**
+     * @param src the underlying database
+     * @param serializer converts the stored objects to and from bytes
+     * @param cacheSize the maximum total size in bytes of the encodings kept in memory to avoid
+     *     reading them from the database; the cache is disabled when the size is {@code 0}
+     * @implNote The cache holds the encodings, which are never modified, instead of the objects,
+     *     so that every call to {@link #get(byte[])} returns a new object that the caller may
+     *     modify.
+     */
+    public ObjectDataSource(
+            IByteArrayKeyValueDatabase src, Serializer<V, byte[]> serializer, long cacheSize) {
         this.src = src;
         this.serializer = serializer;
+
+        if (cacheSize > 0) {
+            this.encodings =
+                    CacheBuilder.newBuilder()
+                            .maximumWeight(cacheSize)
+                            .<ByteArrayWrapper, byte[]>weigher((k, v) -> v.length)
+                            .build();
+        } else {
+            this.encodings = null;
+        }
     }
 
     public void flush() {
@@ -58,12 +88,18 @@ public class ObjectDataSource<V> implements Flushable, Closeable {
         // TODO @yao - Don't know if just writing to cache is correct logic
         // or what this was intended to be. Why do a flush then?
         src.put(key, bytes);
+        cache(key, bytes);
     }
 
     /** @apiNote A null value is interpreted as a delete of the key. */
     public void putToBatch(byte[] key, V value) {
         byte[] bytes = value == null ? null : serializer.serialize(value);
         src.putToBatch(key, bytes);
+        if (value == null) {
+            invalidate(key);
+        } else {
+            cache(key, bytes);
+        }
     }
 
     public void flushBatch() {
@@ -72,14 +108,48 @@ public class ObjectDataSource<V> implements Flushable, Closeable {
 
     public void delete(byte[] key) {
         src.delete(key);
+        invalidate(key);
     }
 
     public V get(byte[] key) {
+        byte[] bytes = getEncoded(key);
+        return bytes == null ? null : serializer.deserialize(bytes);
+    }
 
-        // Fetch the results from cache or database. Return null if doesn't
-        // exist.
+    /**
+     * Retrieves the stored encoding of the object without deserializing it.
+     *
+     * @return the serialized object or {@code null} if the key is not stored
+     * @implNote The returned array may be cached and must not be modified.
+     */
+    public byte[] getEncoded(byte[] key) {
+        if (encodings != null) {
+            byte[] bytes = encodings.getIfPresent(ByteArrayWrapper.wrap(key));
+            if (bytes != null) {
+                return bytes;
+            }
+        }
+
+        // Fetch the results from the database. Return null if doesn't exist.
         Optional<byte[]> val = src.get(key);
-        return val.map(serializer::deserialize).orElse(null);
+        if (!val.isPresent()) {
+            return null;
+        }
+
+        cache(key, val.get());
+        return val.get();
+    }
+
+    private void cache(byte[] key, byte[] bytes) {
+        if (encodings != null && bytes != null) {
+            encodings.put(ByteArrayWrapper.wrap(key), bytes);
+        }
+    }
+
+    private void invalidate(byte[] key) {
+        if (encodings != null) {
+            encodings.invalidate(ByteArrayWrapper.wrap(key));
+        }
     }
 
     /**
@@ -102,6 +172,9 @@ public class ObjectDataSource<V> implements Flushable, Closeable {
 
     @Override
     public void close() {
+        if (encodings != null) {
+            encodings.invalidateAll();
+        }
         src.close();
     }
 }
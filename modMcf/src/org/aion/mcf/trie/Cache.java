@@ -37,6 +37,9 @@ package org.aion.mcf.trie;
 import static org.aion.base.util.ByteArrayWrapper.wrap;
 import static org.aion.rlp.Value.fromRlpEncoded;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -52,24 +55,92 @@ import org.aion.log.LogEnum;
 import org.aion.rlp.Value;
 import org.slf4j.Logger;
 
-/** Cache class */
+/**
+ * Cache class
+ *
+ * <p>The {@link #nodes} map holds the working set of the trie, i.e. nodes created or modified
+ * since the last commit. Optionally, a second size-bounded LRU cache holds clean nodes (that are
+ * known to be stored in the data source) and survives commits, so that nodes read frequently do
+ * not have to be reloaded from the database after every flush. Nodes deleted from the data source
+ * without going through this class, e.g. by pruning, must be dropped with {@link #evict}.
+ */
 public class Cache {
 
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
 
+    /** Approximate heap overhead of a cached entry in addition to the key and encoding sizes. */
+    private static final int ENTRY_OVERHEAD = 64;
+
     private IByteArrayKeyValueStore dataSource;
     private Map<ByteArrayWrapper, Node> nodes = new LinkedHashMap<>();
     private Set<ByteArrayWrapper> removedNodes = new HashSet<>();
     private boolean isDirty;
 
+    /** Clean nodes bounded by their encoded size in bytes; {@code null} when disabled. */
+    private final com.google.common.cache.Cache<ByteArrayWrapper, CleanNode> cleanNodes;
+
+    /** A clean node with the size of its encoding, which is not retained. */
+    private static final class CleanNode {
+        private final Value value;
+        private final int size;
+
+        private CleanNode(Value value, int size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+
     public Cache(IByteArrayKeyValueStore dataSource) {
+        this(dataSource, 0);
+    }
+
+    /**
+     * @param dataSource the store containing the trie nodes
+     * @param cleanCacheSize the maximum size in bytes of the clean node cache, which is disabled
+     *     when the size is not positive
+     */
+    public Cache(IByteArrayKeyValueStore dataSource, long cleanCacheSize) {
         this.dataSource = dataSource;
+
+        if (cleanCacheSize > 0) {
+            this.cleanNodes =
+                    CacheBuilder.newBuilder()
+                            .maximumWeight(cleanCacheSize)
+                            .<ByteArrayWrapper, CleanNode>weigher(
+                                    (k, v) -> k.getData().length + v.size + ENTRY_OVERHEAD)
+                            .recordStats()
+                            .build();
+        } else {
+            this.cleanNodes = null;
+        }
+    }
+
+    private Cache(
+            IByteArrayKeyValueStore dataSource,
+            com.google.common.cache.Cache<ByteArrayWrapper, CleanNode> cleanNodes) {
+        this.dataSource = dataSource;
+        this.cleanNodes = cleanNodes;
+    }
+
+    /**
+     * Creates a cache with an empty working set that shares the clean nodes of this cache. The
+     * clean nodes are keyed by their hash, so they remain valid for a trie over the same data
+     * source with a different root, e.g. a snapshot of an older state.
+     *
+     * @param dataSource the store containing the trie nodes
+     * @return a new cache whose clean nodes are those of this cache
+     */
+    public Cache withSharedCleanNodes(IByteArrayKeyValueStore dataSource) {
+        return new Cache(dataSource, cleanNodes);
     }
 
     public synchronized void markRemoved(byte[] key) {
         ByteArrayWrapper keyW = new ByteArrayWrapper(key);
         removedNodes.add(keyW);
         nodes.remove(keyW);
+        if (cleanNodes != null) {
+            cleanNodes.invalidate(keyW);
+        }
     }
 
     /**
@@ -101,13 +172,24 @@ public class Cache {
             // cachehits++;
             return node.getValue();
         }
+        if (cleanNodes != null) {
+            CleanNode clean = cleanNodes.getIfPresent(wrappedKey);
+            if (clean != null) {
+                return clean.value;
+            }
+        }
         if (this.dataSource != null) {
             Optional<byte[]> data =
                     (this.dataSource == null) ? Optional.empty() : this.dataSource.get(key);
             if (data.isPresent()) {
                 // dbhits++;
                 Value val = fromRlpEncoded(data.get());
-                nodes.put(wrappedKey, new Node(val, false));
+                if (cleanNodes != null) {
+                    // clean nodes are kept out of the working set
+                    cleanNodes.put(wrappedKey, new CleanNode(val, data.get().length));
+                } else {
+                    nodes.put(wrappedKey, new Node(val, false));
+                }
                 return val;
             }
         }
@@ -118,12 +200,29 @@ public class Cache {
     public synchronized void delete(byte[] key) {
         ByteArrayWrapper wrappedKey = wrap(key);
         this.nodes.remove(wrappedKey);
+        if (cleanNodes != null) {
+            cleanNodes.invalidate(wrappedKey);
+        }
 
         if (dataSource != null) {
             this.dataSource.delete(key);
         }
     }
 
+    /**
+     * Drops the given keys from the clean node cache after they were deleted from the data source
+     * by another writer.
+     *
+     * @param keys the keys deleted from the data source
+     */
+    public synchronized void evict(Collection<byte[]> keys) {
+        if (cleanNodes != null) {
+            for (byte[] key : keys) {
+                cleanNodes.invalidate(wrap(key));
+            }
+        }
+    }
+
     public synchronized void commit() {
         commit(true);
     }
@@ -156,11 +255,23 @@ public class Cache {
                 byte[] key = nodeKey.getData();
 
                 batch.put(key, value);
+
+                if (cleanNodes != null) {
+                    if (node != null) {
+                        // the node is clean after the batch is written
+                        cleanNodes.put(nodeKey, new CleanNode(node.getValue(), value.length));
+                    } else {
+                        cleanNodes.invalidate(nodeKey);
+                    }
+                }
                 // batchMemorySize += length(key, value);
             }
         }
         for (ByteArrayWrapper removedNode : removedNodes) {
             batch.put(removedNode.getData(), null);
+            if (cleanNodes != null) {
+                cleanNodes.invalidate(removedNode);
+            }
         }
 
         this.dataSource.putBatch(batch);
@@ -242,9 +353,33 @@ public class Cache {
 
         kvds.putBatch(rows);
         this.dataSource = kvds;
+
+        if (cleanNodes != null) {
+            cleanNodes.invalidateAll();
+        }
     }
 
     public int getSize() {
         return nodes.size();
     }
+
+    /** @return {@code true} if clean nodes are retained across commits, {@code false} otherwise */
+    public boolean isCleanCacheEnabled() {
+        return cleanNodes != null;
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts of the clean node cache.
+     *
+     * @return the clean node cache statistics or an empty {@link CacheStats} when the clean node
+     *     cache is disabled
+     */
+    public CacheStats getCleanCacheStats() {
+        return cleanNodes != null ? cleanNodes.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+    }
+
+    /** @return the approximate number of clean nodes currently cached */
+    public long getCleanCacheSize() {
+        return cleanNodes != null ? cleanNodes.size() : 0L;
+    }
 }
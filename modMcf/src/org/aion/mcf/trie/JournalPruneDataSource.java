@@ -34,8 +34,10 @@
  */
 package org.aion.mcf.trie;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -52,6 +54,9 @@ import org.aion.base.util.ByteArrayWrapper;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.mcf.ds.ArchivedDataSource;
+import org.aion.rlp.RLP;
+import org.aion.rlp.RLPElement;
+import org.aion.rlp.RLPList;
 import org.slf4j.Logger;
 
 /**
@@ -60,6 +65,10 @@ import org.slf4j.Logger;
  * [storeBlockChanges] call). When the [prune] is called for a block the deletes for this block are
  * submitted to the underlying DataSource with respect to following inserts. E.g. if the key was
  * deleted at block N and then inserted at block N + 10 this delete is not passed.
+ *
+ * <p>When a journal store is provided, the changes of each block are also written to it upon
+ * [storeBlockChanges] and removed upon [prune], so that the journal can be recovered after a
+ * restart.
  */
 public class JournalPruneDataSource implements IByteArrayKeyValueStore {
 
@@ -100,10 +109,93 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
     private Updates currentUpdates = new Updates();
     private AtomicBoolean enabled = new AtomicBoolean(false);
     private final boolean hasArchive;
+    // block hash => encoded updates, may be null
+    private final IByteArrayKeyValueStore journal;
 
     public JournalPruneDataSource(IByteArrayKeyValueStore src) {
+        this(src, null);
+    }
+
+    /**
+     * @param src the data store being pruned
+     * @param journal a store for persisting the block updates or {@code null} to keep them only in
+     *     memory; the updates already present in the store are loaded on creation
+     */
+    public JournalPruneDataSource(IByteArrayKeyValueStore src, IByteArrayKeyValueStore journal) {
         this.src = src;
         this.hasArchive = src instanceof ArchivedDataSource;
+        this.journal = journal;
+
+        if (journal != null) {
+            recover();
+        }
+    }
+
+    /**
+     * Loads the block updates saved in the journal store and rebuilds the reference counts.
+     *
+     * @implNote The keys inserted by the recovered blocks are marked as referenced from the
+     *     database, since that information is not stored. As a result, rolling back a recovered
+     *     fork block will not remove its inserted keys. This can leave behind some unused nodes,
+     *     but never removes a node still in use.
+     */
+    private void recover() {
+        List<Updates> recovered = new ArrayList<>();
+        for (byte[] key : journal.keys()) {
+            Optional<byte[]> encoding = journal.get(key);
+            if (encoding.isPresent()) {
+                recovered.add(decode(key, encoding.get()));
+            }
+        }
+        recovered.sort(Comparator.comparingLong(u -> u.blockNumber));
+
+        for (Updates updates : recovered) {
+            blockUpdates.put(updates.blockHeader, updates);
+            for (ByteArrayWrapper key : updates.insertedKeys) {
+                refCount.computeIfAbsent(key, k -> new Ref(true)).journalRefs++;
+            }
+        }
+
+        if (!recovered.isEmpty()) {
+            LOG.info(
+                    "Recovered the pruning journal for {} blocks tracking {} keys.",
+                    recovered.size(),
+                    refCount.size());
+        }
+    }
+
+    private static byte[] encode(Updates updates) {
+        return RLP.encodeList(
+                RLP.encodeBigInteger(BigInteger.valueOf(updates.blockNumber)),
+                encodeKeys(updates.insertedKeys),
+                encodeKeys(updates.deletedKeys));
+    }
+
+    private static byte[] encodeKeys(Set<ByteArrayWrapper> keys) {
+        byte[][] elements = new byte[keys.size()][];
+        int i = 0;
+        for (ByteArrayWrapper key : keys) {
+            elements[i++] = RLP.encodeElement(key.getData());
+        }
+        return RLP.encodeList(elements);
+    }
+
+    private Updates decode(byte[] blockHash, byte[] encoding) {
+        RLPList list = (RLPList) RLP.decode2(encoding).get(0);
+
+        Updates updates = new Updates();
+        updates.blockHeader = ByteArrayWrapper.wrap(blockHash);
+        byte[] number = list.get(0).getRLPData();
+        updates.blockNumber = number == null ? 0 : new BigInteger(1, number).longValue();
+        decodeKeys((RLPList) list.get(1), updates.insertedKeys);
+        decodeKeys((RLPList) list.get(2), updates.deletedKeys);
+        return updates;
+    }
+
+    private static void decodeKeys(RLPList list, Set<ByteArrayWrapper> keys) {
+        for (RLPElement element : list) {
+            keys.add(ByteArrayWrapper.wrap(element.getRLPData()));
+        }
     }
 
     public void setPruneEnabled(boolean _enabled) {
@@ -127,8 +219,9 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
                 // Check to see the value exists.
                 if (value != null) {
                     // If it exists and pruning is enabled.
-                    currentUpdates.insertedKeys.add(keyW);
-                    incRef(keyW);
+                    if (currentUpdates.insertedKeys.add(keyW)) {
+                        incRef(keyW);
+                    }
 
                     // put to source database.
                     src.put(key, value);
@@ -195,8 +288,9 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
                 for (Map.Entry<byte[], byte[]> entry : inputMap.entrySet()) {
                     ByteArrayWrapper keyW = ByteArrayWrapper.wrap(entry.getKey());
                     if (entry.getValue() != null) {
-                        currentUpdates.insertedKeys.add(keyW);
-                        incRef(keyW);
+                        if (currentUpdates.insertedKeys.add(keyW)) {
+                            incRef(keyW);
+                        }
                         insertsOnly.put(entry.getKey(), entry.getValue());
                     } else {
                         currentUpdates.deletedKeys.add(keyW);
@@ -251,15 +345,24 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
             currentUpdates.blockHeader = hash;
             currentUpdates.blockNumber = blockNumber;
             blockUpdates.put(hash, currentUpdates);
+            if (journal != null) {
+                journal.put(blockHash, encode(currentUpdates));
+            }
             currentUpdates = new Updates();
         } finally {
             lock.writeLock().unlock();
         }
     }
 
-    public void prune(byte[] blockHash, long blockNumber) {
+    /**
+     * Applies the delayed deletes of the given block and rolls back the fork blocks at its level.
+     *
+     * @return the keys deleted from the data source, which must also be dropped by any cache of it
+     */
+    public List<byte[]> prune(byte[] blockHash, long blockNumber) {
+        List<byte[]> batchRemove = new ArrayList<>();
         if (!enabled.get()) {
-            return;
+            return batchRemove;
         }
 
         lock.writeLock().lock();
@@ -268,11 +371,13 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
             ByteArrayWrapper blockHashW = ByteArrayWrapper.wrap(blockHash);
             Updates updates = blockUpdates.remove(blockHashW);
             if (updates != null) {
+                List<byte[]> journalRemove = new ArrayList<>();
+                journalRemove.add(blockHash);
+
                 for (ByteArrayWrapper insertedKey : updates.insertedKeys) {
                     decRef(insertedKey).dbRef = true;
                 }
 
-                List<byte[]> batchRemove = new ArrayList<>();
                 for (ByteArrayWrapper key : updates.deletedKeys) {
                     Ref ref = refCount.get(key);
                     if (ref == null || ref.journalRefs == 0) {
@@ -283,22 +388,37 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
                 }
                 src.deleteBatch(batchRemove);
 
-                rollbackForkBlocks(blockNumber);
+                batchRemove.addAll(rollbackForkBlocks(blockNumber, journalRemove));
+
+                if (journal != null) {
+                    journal.deleteBatch(journalRemove);
+                }
             }
         } finally {
             lock.writeLock().unlock();
         }
+        return batchRemove;
     }
 
-    private void rollbackForkBlocks(long blockNum) {
+    /**
+     * Rolls back the blocks that can no longer become part of the main chain, i.e. the ones at the
+     * pruned level and below. The blocks below the pruned level are normally already removed, but
+     * may remain after a restart with a different prune block count.
+     *
+     * @return the keys deleted from the data source
+     */
+    private List<byte[]> rollbackForkBlocks(long blockNum, List<byte[]> journalRemove) {
+        List<byte[]> removed = new ArrayList<>();
         for (Updates updates : new ArrayList<>(blockUpdates.values())) {
-            if (updates.blockNumber == blockNum) {
-                rollback(updates.blockHeader);
+            if (updates.blockNumber <= blockNum) {
+                removed.addAll(rollback(updates.blockHeader));
+                journalRemove.add(updates.blockHeader.getData());
             }
         }
+        return removed;
     }
 
-    private void rollback(ByteArrayWrapper blockHashW) {
+    private List<byte[]> rollback(ByteArrayWrapper blockHashW) {
         Updates updates = blockUpdates.remove(blockHashW);
         List<byte[]> batchRemove = new ArrayList<>();
         for (ByteArrayWrapper insertedKey : updates.insertedKeys) {
@@ -308,6 +428,7 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
             }
         }
         src.deleteBatch(batchRemove);
+        return batchRemove;
     }
 
     public Map<ByteArrayWrapper, Ref> getRefCount() {
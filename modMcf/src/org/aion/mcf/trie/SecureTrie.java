@@ -50,6 +50,10 @@ public class SecureTrie extends TrieImpl implements Trie {
         super(db, root);
     }
 
+    public SecureTrie(IByteArrayKeyValueStore db, Object root, long cleanCacheSize) {
+        super(db, root, cleanCacheSize);
+    }
+
     @Override
     public byte[] get(byte[] key) {
         return super.get(h256(key));
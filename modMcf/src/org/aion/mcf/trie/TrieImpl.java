@@ -116,7 +116,15 @@ public class TrieImpl implements Trie {
     }
 
     public TrieImpl(IByteArrayKeyValueStore db, Object root) {
-        this.cache = new Cache(db);
+        this(db, root, 0);
+    }
+
+    /**
+     * @param cleanCacheSize the maximum size in bytes of the clean node cache kept across commits,
+     *     see {@link Cache#Cache(IByteArrayKeyValueStore, long)}
+     */
+    public TrieImpl(IByteArrayKeyValueStore db, Object root, long cleanCacheSize) {
+        this.cache = new Cache(db, cleanCacheSize);
         this.root = root;
         this.prevRoot = root;
     }
@@ -66,6 +66,10 @@ public abstract class AbstractTxTask<TX extends ITransaction, P2P extends IP2pMg
             Map<Integer, INode> activeNodes = this.p2pMgr.getActiveNodes();
             if (activeNodes != null) {
                 for (Map.Entry<Integer, INode> e : activeNodes.entrySet()) {
+                    // gossip is optional, leave slow peers to catch up
+                    if (this.p2pMgr.isCongested(e.getKey())) {
+                        continue;
+                    }
                     this.p2pMgr.send(e.getKey(), e.getValue().getIdShort(), this.msg);
                 }
             }
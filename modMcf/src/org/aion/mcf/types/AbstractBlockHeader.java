@@ -115,10 +115,17 @@ public abstract class AbstractBlockHeader {
 
     public void setSolution(byte[] solution) {
         this.solution = solution;
+        onUpdate();
     }
 
     public AbstractBlockHeader() {}
 
+    /**
+     * Called after any of the header fields is modified through a setter. Allows implementations to
+     * drop values derived from the header fields, such as the encoding and the hash.
+     */
+    protected void onUpdate() {}
+
     public byte[] getParentHash() {
         return parentHash;
     }
@@ -129,6 +136,7 @@ public abstract class AbstractBlockHeader {
 
     public void setCoinbase(Address coinbase) {
         this.coinbase = coinbase;
+        onUpdate();
     }
 
     public byte[] getStateRoot() {
@@ -137,6 +145,7 @@ public abstract class AbstractBlockHeader {
 
     public void setStateRoot(byte[] stateRoot) {
         this.stateRoot = stateRoot;
+        onUpdate();
     }
 
     public byte[] getTxTrieRoot() {
@@ -145,10 +154,12 @@ public abstract class AbstractBlockHeader {
 
     public void setTxTrieRoot(byte[] txTrieRoot) {
         this.txTrieRoot = txTrieRoot;
+        onUpdate();
     }
 
     public void setReceiptsRoot(byte[] receiptTrieRoot) {
         this.receiptTrieRoot = receiptTrieRoot;
+        onUpdate();
     }
 
     public byte[] getReceiptsRoot() {
@@ -157,6 +168,7 @@ public abstract class AbstractBlockHeader {
 
     public void setTransactionsRoot(byte[] stateRoot) {
         this.txTrieRoot = stateRoot;
+        onUpdate();
     }
 
     public byte[] getLogsBloom() {
@@ -185,6 +197,7 @@ public abstract class AbstractBlockHeader {
 
     public void setDifficulty(byte[] difficulty) {
         this.difficulty = difficulty;
+        onUpdate();
     }
 
     public long getTimestamp() {
@@ -193,6 +206,7 @@ public abstract class AbstractBlockHeader {
 
     public void setTimestamp(long timestamp) {
         this.timestamp = timestamp;
+        onUpdate();
     }
 
     public long getNumber() {
@@ -201,6 +215,7 @@ public abstract class AbstractBlockHeader {
 
     public void setNumber(long number) {
         this.number = number;
+        onUpdate();
     }
 
     public byte[] getExtraData() {
@@ -213,14 +228,17 @@ public abstract class AbstractBlockHeader {
 
     public void setNonce(byte[] nonce) {
         this.nonce = nonce;
+        onUpdate();
     }
 
     public void setLogsBloom(byte[] logsBloom) {
         this.logsBloom = logsBloom;
+        onUpdate();
     }
 
     public void setExtraData(byte[] extraData) {
         this.extraData = extraData;
+        onUpdate();
     }
 
     public boolean isGenesis() {
@@ -242,5 +260,6 @@ public abstract class AbstractBlockHeader {
 
     public void setVersion(byte version) {
         this.version = version;
+        onUpdate();
     }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.mcf.config;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.junit.Test;
+
+/** Tests for CfgSync.java */
+public class CfgSyncTest {
+
+    @Test
+    public void testFlushIntervalDefault() {
+        CfgSync config = new CfgSync();
+        assertEquals(32, config.getFlushInterval());
+    }
+
+    @Test
+    public void testFlushIntervalBounds() {
+        CfgSync config = new CfgSync();
+
+        config.setFlushInterval(0);
+        assertEquals(1, config.getFlushInterval());
+
+        config.setFlushInterval(64);
+        assertEquals(64, config.getFlushInterval());
+
+        config.setFlushInterval(1_000);
+        assertEquals(100, config.getFlushInterval());
+    }
+
+    @Test
+    public void testFlushIntervalFromXML() throws XMLStreamException {
+        CfgSync config = new CfgSync();
+        config.fromXML(reader("<sync><flush-interval>8</flush-interval></sync>"));
+        assertEquals(8, config.getFlushInterval());
+
+        // the written configuration is read back
+        CfgSync copy = new CfgSync();
+        copy.fromXML(reader(config.toXML()));
+        assertEquals(config, copy);
+    }
+
+    @Test
+    public void testSkeletonSyncFromXML() throws XMLStreamException {
+        CfgSync config = new CfgSync();
+        assertEquals(false, config.getSkeletonSync());
+
+        config.fromXML(reader("<sync><skeleton-sync>true</skeleton-sync></sync>"));
+        assertEquals(true, config.getSkeletonSync());
+
+        // the written configuration is read back
+        CfgSync copy = new CfgSync();
+        copy.fromXML(reader(config.toXML()));
+        assertEquals(config, copy);
+    }
+
+    @Test
+    public void testFastSyncFromXML() throws XMLStreamException {
+        CfgSync config = new CfgSync();
+        assertEquals(false, config.getFastSync());
+
+        config.fromXML(reader("<sync><fast-sync>true</fast-sync></sync>"));
+        assertEquals(true, config.getFastSync());
+
+        // the written configuration is read back
+        CfgSync copy = new CfgSync();
+        copy.fromXML(reader(config.toXML()));
+        assertEquals(config, copy);
+    }
+
+    @Test
+    public void testSpeculativeExecutionFromXML() throws XMLStreamException {
+        CfgSync config = new CfgSync();
+        assertEquals(false, config.getSpeculativeExecution());
+
+        config.fromXML(
+                reader("<sync><speculative-execution>true</speculative-execution></sync>"));
+        assertEquals(true, config.getSpeculativeExecution());
+
+        // the written configuration is read back
+        CfgSync copy = new CfgSync();
+        copy.fromXML(reader(config.toXML()));
+        assertEquals(config, copy);
+    }
+
+    private static XMLStreamReader reader(String xml) throws XMLStreamException {
+        XMLStreamReader sr =
+                XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml));
+        // position the reader inside the sync element, as done by Cfg
+        while (!(sr.isStartElement() && sr.getLocalName().equals("sync"))) {
+            sr.next();
+        }
+        return sr;
+    }
+}
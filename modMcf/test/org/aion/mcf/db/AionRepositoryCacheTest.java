@@ -22,6 +22,7 @@
  */
 package org.aion.mcf.db;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
@@ -34,6 +35,7 @@ import org.aion.base.db.IPruneConfig;
 import org.aion.base.db.IRepositoryConfig;
 import org.aion.base.type.Address;
 import org.aion.base.vm.IDataWord;
+import org.aion.crypto.HashUtil;
 import org.aion.db.impl.DBVendor;
 import org.aion.db.impl.DatabaseFactory;
 import org.aion.mcf.config.CfgPrune;
@@ -48,6 +50,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 public class AionRepositoryCacheTest {
+    private AionRepositoryImpl repository;
     private AionRepositoryCache cache;
 
     @Before
@@ -77,12 +80,14 @@ public class AionRepositoryCacheTest {
                         return props;
                     }
                 };
-        cache = new AionRepositoryCache(AionRepositoryImpl.createForTesting(repoConfig));
+        repository = AionRepositoryImpl.createForTesting(repoConfig);
+        cache = new AionRepositoryCache(repository);
     }
 
     @After
     public void tearDown() {
         cache = null;
+        repository = null;
     }
 
     @Test
@@ -202,6 +207,41 @@ public class AionRepositoryCacheTest {
         }
     }
 
+    @Test
+    public void testGetCodeFromCodeCache() {
+        Address address = getNewAddress();
+        byte[] code = RandomUtils.nextBytes(100);
+        byte[] codeHash = HashUtil.h256(code);
+
+        // saving the code populates the cache
+        ContractCodeCache.getInstance().clear();
+        cache.createAccount(address);
+        cache.saveCode(address, code);
+        assertArrayEquals(code, ContractCodeCache.getInstance().get(codeHash));
+        cache.flush();
+
+        // the cached code is not modified through the arrays passed in or returned
+        code[0] ^= 1;
+        ContractCodeCache.getInstance().get(codeHash)[1] ^= 1;
+        code[0] ^= 1;
+        assertArrayEquals(code, ContractCodeCache.getInstance().get(codeHash));
+
+        // the code is read from the cache by the repository and its trackers
+        ContractCodeCache.getInstance().clear();
+        long hits = ContractCodeCache.getInstance().getStats().hitCount();
+        assertArrayEquals(code, repository.getCode(address));
+        assertArrayEquals(code, repository.startTracking().getCode(address));
+        assertArrayEquals(code, repository.startTracking().startTracking().getCode(address));
+        assertEquals(hits + 2, ContractCodeCache.getInstance().getStats().hitCount());
+
+        // accounts without code are not cached
+        Address other = getNewAddress();
+        cache.createAccount(other);
+        assertArrayEquals(new byte[0], cache.getCode(other));
+        assertArrayEquals(new byte[0], cache.getCode(getNewAddress()));
+        assertEquals(1, ContractCodeCache.getInstance().size());
+    }
+
     // <-----------------------------------------HELPERS-------------------------------------------->
 
     /** Returns a new random address. */
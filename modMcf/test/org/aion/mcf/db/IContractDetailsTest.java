@@ -222,6 +222,32 @@ public class IContractDetailsTest {
         checkKeyValueMapping(cache2, storage);
     }
 
+    /**
+     * This test is specific to the ContractDetailsCacheImpl class, which has a commit method.
+     * Checks that values which were only read through the cache are not written back to the
+     * original contract on commit.
+     */
+    @Test
+    public void testCommitSkipsReadOnlyKeys() {
+        IDataWord readKey = new DataWord(RandomUtils.nextBytes(DataWord.BYTES));
+        IDataWord writeKey = new DataWord(RandomUtils.nextBytes(DataWord.BYTES));
+        IDataWord readValue = new DataWord(RandomUtils.nextBytes(DataWord.BYTES));
+        IDataWord writeValue = new DataWord(RandomUtils.nextBytes(DataWord.BYTES));
+        IDataWord updatedValue = new DataWord(RandomUtils.nextBytes(DataWord.BYTES));
+
+        cache2.put(readKey, readValue);
+        ContractDetailsCacheImpl impl = new ContractDetailsCacheImpl(cache2);
+        assertEquals(readValue, impl.get(readKey));
+        impl.put(writeKey, writeValue);
+
+        // the original is updated after the read; commit must not overwrite it with the stale value
+        cache2.put(readKey, updatedValue);
+        impl.commit();
+
+        assertEquals(updatedValue, cache2.get(readKey));
+        assertEquals(writeValue, cache2.get(writeKey));
+    }
+
     /**
      * This test is specific to the ContractDetailsCacheImpl class, which has a commit method. This
      * test class is not concerned with testing all of the functionality of this method, only with
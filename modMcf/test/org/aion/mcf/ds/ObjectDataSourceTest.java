@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.mcf.ds;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.db.impl.mockdb.MockDB;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for the encoding cache of {@link ObjectDataSource}. */
+public class ObjectDataSourceTest {
+
+    private static final byte[] key = "key".getBytes();
+
+    private IByteArrayKeyValueDatabase db;
+    private int reads;
+
+    private final Serializer<StringBuilder, byte[]> serializer =
+            new Serializer<>() {
+                @Override
+                public byte[] serialize(StringBuilder object) {
+                    return object.toString().getBytes();
+                }
+
+                @Override
+                public StringBuilder deserialize(byte[] stream) {
+                    return new StringBuilder(new String(stream));
+                }
+            };
+
+    @Before
+    public void beforeTest() {
+        // counts the reads from the database to detect cache hits
+        db =
+                new MockDB("test_database") {
+                    @Override
+                    protected byte[] getInternal(byte[] k) {
+                        reads++;
+                        return super.getInternal(k);
+                    }
+                };
+        db.open();
+        reads = 0;
+    }
+
+    @After
+    public void afterTest() {
+        db.close();
+    }
+
+    @Test
+    public void testGetAfterPutIsCached() {
+        ObjectDataSource<StringBuilder> source = new ObjectDataSource<>(db, serializer, 1024);
+        source.put(key, new StringBuilder("value"));
+
+        assertThat(source.get(key).toString()).isEqualTo("value");
+        assertThat(reads).isEqualTo(0);
+    }
+
+    @Test
+    public void testGetFromDatabaseIsCached() {
+        db.put(key, "value".getBytes());
+        ObjectDataSource<StringBuilder> source = new ObjectDataSource<>(db, serializer, 1024);
+
+        assertThat(source.get(key).toString()).isEqualTo("value");
+        assertThat(source.get(key).toString()).isEqualTo("value");
+        assertThat(source.getEncoded(key)).isEqualTo("value".getBytes());
+        assertThat(reads).isEqualTo(1);
+    }
+
+    @Test
+    public void testCachedObjectsAreNotShared() {
+        ObjectDataSource<StringBuilder> source = new ObjectDataSource<>(db, serializer, 1024);
+        source.put(key, new StringBuilder("value"));
+
+        StringBuilder first = source.get(key);
+        first.append("-modified");
+
+        assertThat(source.get(key)).isNotSameAs(first);
+        assertThat(source.get(key).toString()).isEqualTo("value");
+        assertThat(reads).isEqualTo(0);
+    }
+
+    @Test
+    public void testDeleteInvalidatesCache() {
+        ObjectDataSource<StringBuilder> source = new ObjectDataSource<>(db, serializer, 1024);
+        source.put(key, new StringBuilder("value"));
+        source.delete(key);
+        assertThat(source.get(key)).isNull();
+
+        source.put(key, new StringBuilder("value"));
+        source.putToBatch(key, null);
+        source.flushBatch();
+        assertThat(source.get(key)).isNull();
+    }
+
+    @Test
+    public void testCacheDisabled() {
+        ObjectDataSource<StringBuilder> source = new ObjectDataSource<>(db, serializer);
+        source.put(key, new StringBuilder("value"));
+
+        assertThat(source.get(key).toString()).isEqualTo("value");
+        assertThat(source.get(key).toString()).isEqualTo("value");
+        assertThat(reads).isEqualTo(2);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.mcf.trie;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.List;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.db.impl.DatabaseFactory;
+import org.aion.rlp.Value;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CacheTest {
+
+    private static final String dbName = "TestDB";
+    private static IByteArrayKeyValueDatabase source_db = DatabaseFactory.connect(dbName);
+
+    // encodes to more than 32 bytes so that the node is stored by hash
+    private static final Object[] node =
+            new Object[] {"a-key-that-is-long-enough", "a-value-that-is-long-enough"};
+
+    @Before
+    public void open() {
+        assertThat(source_db.open()).isTrue();
+    }
+
+    @After
+    public void close() {
+        source_db.close();
+        assertThat(source_db.isClosed()).isTrue();
+    }
+
+    @Test
+    public void testCleanNodesKeptAfterCommit() {
+        Cache cache = new Cache(source_db, 1024 * 1024);
+        assertThat(cache.isCleanCacheEnabled()).isTrue();
+
+        byte[] hash = (byte[]) cache.put(node);
+        cache.commit(true);
+
+        // the working set is cleared, but the node is still cached as clean
+        assertThat(cache.getSize()).isEqualTo(0);
+        assertThat(cache.getCleanCacheSize()).isEqualTo(1);
+        assertThat(source_db.get(hash).isPresent()).isTrue();
+
+        Value value = cache.get(hash);
+        assertThat(value.encode()).isEqualTo(new Value(node).encode());
+        assertThat(cache.getCleanCacheStats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCleanNodesLoadedOutsideWorkingSet() {
+        Cache writer = new Cache(source_db);
+        byte[] hash = (byte[]) writer.put(node);
+        writer.commit(true);
+
+        Cache cache = new Cache(source_db, 1024 * 1024);
+        assertThat(cache.get(hash)).isNotNull();
+        assertThat(cache.getSize()).isEqualTo(0);
+        assertThat(cache.getCleanCacheStats().missCount()).isEqualTo(1);
+
+        assertThat(cache.get(hash)).isNotNull();
+        assertThat(cache.getCleanCacheStats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testMarkRemovedInvalidatesCleanNode() {
+        Cache cache = new Cache(source_db, 1024 * 1024);
+        byte[] hash = (byte[]) cache.put(node);
+        cache.commit(true);
+        assertThat(cache.getCleanCacheSize()).isEqualTo(1);
+
+        cache.markRemoved(hash);
+        assertThat(cache.getCleanCacheSize()).isEqualTo(0);
+
+        cache.setDirty(true);
+        cache.commit(true);
+        assertThat(source_db.get(hash).isPresent()).isFalse();
+        assertThat(cache.get(hash)).isNull();
+    }
+
+    @Test
+    public void testPrunedNodeEvicted() {
+        JournalPruneDataSource pruneSource = new JournalPruneDataSource(source_db);
+        pruneSource.setPruneEnabled(true);
+        byte[] first = "first-block".getBytes();
+        byte[] second = "second-block".getBytes();
+
+        Cache cache = new Cache(pruneSource, 1024 * 1024);
+        byte[] hash = (byte[]) cache.put(node);
+        cache.commit(true);
+        pruneSource.storeBlockChanges(first, 1);
+
+        // deleted by another writer of the data source
+        pruneSource.delete(hash);
+        pruneSource.storeBlockChanges(second, 2);
+
+        pruneSource.prune(first, 1);
+        List<byte[]> pruned = pruneSource.prune(second, 2);
+        assertThat(source_db.get(hash).isPresent()).isFalse();
+        assertThat(cache.getCleanCacheSize()).isEqualTo(1);
+
+        cache.evict(pruned);
+        assertThat(cache.getCleanCacheSize()).isEqualTo(0);
+        assertThat(cache.get(hash)).isNull();
+    }
+
+    @Test
+    public void testSharedCleanNodesReadBySnapshot() {
+        Cache live = new Cache(source_db, 1024 * 1024);
+        byte[] hash = (byte[]) live.put(node);
+        live.commit(true);
+
+        Cache snapshot = live.withSharedCleanNodes(source_db);
+        assertThat(snapshot.isCleanCacheEnabled()).isTrue();
+        assertThat(snapshot.get(hash)).isNotNull();
+        assertThat(snapshot.getSize()).isEqualTo(0);
+        assertThat(live.getCleanCacheStats().hitCount()).isEqualTo(1);
+
+        // evicting a pruned node drops it for both caches
+        live.evict(List.of(hash));
+        assertThat(snapshot.getCleanCacheSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCleanCacheIsBounded() {
+        Cache cache = new Cache(source_db, 1);
+        byte[] hash = (byte[]) cache.put(node);
+        cache.commit(true);
+
+        assertThat(cache.getCleanCacheSize()).isEqualTo(0);
+        assertThat(cache.get(hash)).isNotNull();
+        assertThat(cache.getCleanCacheStats().evictionCount()).isAtLeast(1L);
+    }
+
+    @Test
+    public void testCleanCacheDisabledByDefault() {
+        Cache cache = new Cache(source_db);
+        assertThat(cache.isCleanCacheEnabled()).isFalse();
+
+        byte[] hash = (byte[]) cache.put(node);
+        cache.commit(true);
+
+        assertThat(cache.getCleanCacheSize()).isEqualTo(0);
+        assertThat(cache.get(hash)).isNotNull();
+        // without the clean cache the loaded node is part of the working set
+        assertThat(cache.getSize()).isEqualTo(1);
+    }
+}
@@ -1559,4 +1559,74 @@ public class JournalPruneDataSourceTest {
         assertThat(source_db.get(k5).get()).isEqualTo(v5);
         assertThat(source_db.get(k6).get()).isEqualTo(v6);
     }
+
+    @Test
+    public void pruningTest_wRecoveredJournal() {
+        IByteArrayKeyValueDatabase journal_db = DatabaseFactory.connect("TestJournalDB");
+        assertThat(journal_db.open()).isTrue();
+
+        db = new JournalPruneDataSource(source_db, journal_db);
+        db.setPruneEnabled(true);
+
+        // block 0
+        db.put(k1, v1);
+        db.put(k2, v2);
+        db.put(k3, v3);
+        db.storeBlockChanges(b0, 0);
+
+        // block 1
+        db.put(k4, v4);
+        db.delete(k2);
+        db.storeBlockChanges(b1, 1);
+
+        // block 2
+        db.put(k2, v3);
+        db.delete(k3);
+        db.storeBlockChanges(b2, 2);
+        assertThat(journal_db.keys().size()).isEqualTo(3);
+
+        // restart
+        db = new JournalPruneDataSource(source_db, journal_db);
+        db.setPruneEnabled(true);
+        assertThat(db.getBlockUpdates().size()).isEqualTo(3);
+        assertThat(db.getRefCount().size()).isEqualTo(4);
+
+        // prune block 0
+        db.prune(b0, 0);
+        assertThat(db.getBlockUpdates().size()).isEqualTo(2);
+        assertThat(journal_db.get(b0).isPresent()).isFalse();
+
+        // prune block 1
+        db.prune(b1, 1);
+        assertThat(source_db.get(k4).get()).isEqualTo(v4);
+        // not deleted due to block 2 insert
+        assertThat(source_db.get(k2).get()).isEqualTo(v3);
+
+        // prune block 2
+        db.prune(b2, 2);
+        assertThat(db.getBlockUpdates().size()).isEqualTo(0);
+        assertThat(db.getRefCount().size()).isEqualTo(0);
+        assertThat(journal_db.isEmpty()).isTrue();
+
+        assertThat(source_db.get(k2).get()).isEqualTo(v3);
+        assertThat(source_db.get(k3).isPresent()).isFalse();
+
+        journal_db.close();
+    }
+
+    @Test
+    public void pruningTest_wRepeatedInsert() {
+        db.setPruneEnabled(true);
+
+        // block 0
+        db.put(k1, v1);
+        db.put(k1, v1);
+        db.storeBlockChanges(b0, 0);
+        assertThat(db.getRefCount().size()).isEqualTo(1);
+
+        // the reference is released when the block is pruned
+        db.prune(b0, 0);
+        assertThat(db.getRefCount().size()).isEqualTo(0);
+        assertThat(source_db.get(k1).get()).isEqualTo(v1);
+    }
 }
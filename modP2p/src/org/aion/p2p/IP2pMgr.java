@@ -46,6 +46,15 @@ public interface IP2pMgr {
      */
     void send(int _id, String _displayId, final Msg _msg);
 
+    /**
+     * Indicates that messages to the node are backing up, so that optional traffic such as
+     * transaction gossip can be held back by the caller.
+     *
+     * @param _id int
+     * @return true if the outgoing queue of the node is congested
+     */
+    boolean isCongested(int _id);
+
     /** Used to hook up with kernel to shutdown threads in network module. */
     void shutdown();
 
@@ -23,11 +23,16 @@
 
 package org.aion.p2p;
 
+import java.nio.ByteBuffer;
+
 /** @author chris */
 public abstract class Msg {
 
     private final Header header;
 
+    // header and body encoding shared by all the destinations of the message
+    private ByteBuffer frame;
+
     /**
      * @param _ver short
      * @param _ctrl byte
@@ -50,4 +55,42 @@ public abstract class Msg {
      * @return
      */
     public abstract byte[] encode();
+
+    /**
+     * Indicates whether the message may be delayed behind, or dropped in favour of, other traffic
+     * to the same peer when the connection cannot keep up.
+     *
+     * @return false by default
+     */
+    public boolean isLowPriority() {
+        return false;
+    }
+
+    /**
+     * Returns the encoding of the header and body of the message, ready to be written to a
+     * channel. The message is encoded only on the first call; the returned buffers share the same
+     * content but have their own position, so the same message can be written to several peers.
+     *
+     * @return a read-only buffer positioned at the start of the message
+     * @implNote The message must not be modified after its first call to this method.
+     */
+    public synchronized ByteBuffer getFrame() {
+        if (frame == null) {
+            /*
+             * @warning header set len (body len) before header encode
+             */
+            byte[] bodyBytes = encode();
+            int bodyLen = bodyBytes == null ? 0 : bodyBytes.length;
+            header.setLen(bodyLen);
+
+            ByteBuffer buf = ByteBuffer.allocate(Header.LEN + bodyLen);
+            buf.put(header.encode());
+            if (bodyBytes != null) {
+                buf.put(bodyBytes);
+            }
+            buf.flip();
+            frame = buf.asReadOnlyBuffer();
+        }
+        return frame.duplicate();
+    }
 }
@@ -23,9 +23,11 @@
 
 package org.aion.p2p;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.nio.ByteBuffer;
 import org.junit.Test;
 
 public class MsgTest {
@@ -82,4 +84,47 @@ public class MsgTest {
         assertEquals(hdr.getAction(), (byte) 255);
         assertEquals(hdr.getLen(), (byte) 0);
     }
+
+    @Test
+    public void testGetFrame() {
+        int[] encodeCount = new int[1];
+        Msg msg =
+                new MockMsg((short) 0, (byte) 1, (byte) 2) {
+                    @Override
+                    public byte[] encode() {
+                        encodeCount[0]++;
+                        return new byte[] {1, 2, 3};
+                    }
+                };
+
+        ByteBuffer frame = msg.getFrame();
+        assertEquals(frame.remaining(), Header.LEN + 3);
+        assertEquals(msg.getHeader().getLen(), 3);
+
+        byte[] header = new byte[Header.LEN];
+        frame.get(header);
+        assertArrayEquals(header, msg.getHeader().encode());
+        byte[] body = new byte[3];
+        frame.get(body);
+        assertArrayEquals(body, new byte[] {1, 2, 3});
+
+        // a new frame is not affected by the reads and does not encode again
+        ByteBuffer frame2 = msg.getFrame();
+        assertEquals(frame2.remaining(), Header.LEN + 3);
+        assertEquals(encodeCount[0], 1);
+    }
+
+    @Test
+    public void testGetFrameNullBody() {
+        Msg msg =
+                new MockMsg((short) 0, (byte) 0, (byte) 0) {
+                    @Override
+                    public byte[] encode() {
+                        return null;
+                    }
+                };
+
+        assertEquals(msg.getFrame().remaining(), Header.LEN);
+        assertEquals(msg.getHeader().getLen(), 0);
+    }
 }
@@ -45,6 +45,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.p2p.Ctrl;
@@ -64,6 +65,7 @@ import org.aion.p2p.impl.zero.msg.ReqHandshake1;
 import org.aion.p2p.impl.zero.msg.ResHandshake1;
 import org.aion.p2p.impl1.tasks.MsgIn;
 import org.aion.p2p.impl1.tasks.MsgOut;
+import org.aion.p2p.impl1.tasks.SendQueue;
 import org.aion.p2p.impl1.tasks.TaskClear;
 import org.aion.p2p.impl1.tasks.TaskConnectPeers;
 import org.aion.p2p.impl1.tasks.TaskInbound;
@@ -104,7 +106,8 @@ public final class P2pMgr implements IP2pMgr {
     private Selector selector;
     private ScheduledExecutorService scheduledWorkers;
     private int errTolerance;
-    private BlockingQueue<MsgOut> sendMsgQue = new LinkedBlockingQueue<>();
+    private SendQueue sendMsgQue = new SendQueue(WORKER);
+    private final AtomicLong droppedMsgs = new AtomicLong();
     private BlockingQueue<MsgIn> receiveMsgQue = new LinkedBlockingQueue<>();
 
     private static ReqHandshake1 cachedReqHandshake1;
@@ -289,7 +292,31 @@ public final class P2pMgr implements IP2pMgr {
 
     @Override
     public void send(int _nodeIdHash, String _nodeIdShort, final Msg _msg) {
-        sendMsgQue.add(new MsgOut(_nodeIdHash, _nodeIdShort, _msg, Dest.ACTIVE));
+        if (!sendMsgQue.offer(new MsgOut(_nodeIdHash, _nodeIdShort, _msg, Dest.ACTIVE))) {
+            long dropped = droppedMsgs.incrementAndGet();
+            // low priority messages are expected to be dropped when the peer falls behind
+            if (!_msg.isLowPriority()) {
+                p2pLOG.warn(
+                        "send-queue-full drop-msg to-node={} total-dropped={}",
+                        _nodeIdShort,
+                        dropped);
+            } else if (p2pLOG.isDebugEnabled()) {
+                p2pLOG.debug(
+                        "send-queue-full drop-low-priority-msg to-node={} total-dropped={}",
+                        _nodeIdShort,
+                        dropped);
+            }
+        }
+    }
+
+    /** @return the number of messages dropped since startup because their send lane was full */
+    public long getDroppedMessageCount() {
+        return droppedMsgs.get();
+    }
+
+    @Override
+    public boolean isCongested(int _nodeIdHash) {
+        return sendMsgQue.isCongested(_nodeIdHash);
     }
 
     @Override
@@ -25,7 +25,11 @@ package org.aion.p2p.impl1.tasks;
 
 import static org.aion.p2p.impl1.P2pMgr.p2pLOG;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -49,6 +53,10 @@ class ChannelBuffer {
 
     private Map<Integer, RouteStatus> routes = new HashMap<>();
 
+    // messages waiting for the channel to become writable, guarded by lock
+    private final Deque<ByteBuffer> pendingWrites = new ArrayDeque<>();
+    private long pendingWriteSize = 0;
+
     ChannelBuffer() {}
 
     public String getDisplayId() {
@@ -188,6 +196,44 @@ class ChannelBuffer {
         return header;
     }
 
+    /** @implNote The caller must hold the {@link #lock}. */
+    boolean hasPendingWrites() {
+        return !pendingWrites.isEmpty();
+    }
+
+    /** @implNote The caller must hold the {@link #lock}. */
+    long getPendingWriteSize() {
+        return pendingWriteSize;
+    }
+
+    /**
+     * Queues the remaining part of a message to be written when the channel becomes writable.
+     *
+     * @implNote The caller must hold the {@link #lock}.
+     */
+    void addPendingWrite(ByteBuffer buf) {
+        pendingWrites.addLast(buf);
+        pendingWriteSize += buf.remaining();
+    }
+
+    /**
+     * Writes as much of the queued messages as the channel accepts without blocking.
+     *
+     * @return {@code true} if all the queued messages were written, {@code false} otherwise
+     * @implNote The caller must hold the {@link #lock}.
+     */
+    boolean writePending(SocketChannel sc) throws IOException {
+        while (!pendingWrites.isEmpty()) {
+            ByteBuffer buf = pendingWrites.peekFirst();
+            pendingWriteSize -= sc.write(buf);
+            if (buf.hasRemaining()) {
+                return false;
+            }
+            pendingWrites.pollFirst();
+        }
+        return true;
+    }
+
     public void setHeader(Header _header) {
         header = _header;
     }
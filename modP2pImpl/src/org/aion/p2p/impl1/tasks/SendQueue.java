@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.p2p.impl1.tasks;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Outgoing messages waiting for a {@link TaskSend} thread.
+ *
+ * <p>Each send lane has its own bounded queues, so a thread only ever takes messages for the
+ * peers it serves. Within a lane, messages marked as {@link org.aion.p2p.Msg#isLowPriority() low
+ * priority} (e.g. transaction gossip) are only sent when no other message is waiting, and they
+ * are the first to be rejected when the lane falls behind. The low priority messages are also
+ * counted per destination, so that a peer is reported as congested based on its own backlog
+ * rather than the traffic of the other peers sharing its lane.
+ */
+public class SendQueue {
+
+    static final int HIGH_PRIORITY_CAPACITY = 4096;
+    static final int LOW_PRIORITY_CAPACITY = 1024;
+
+    // number of queued low priority messages from which a peer is reported as congested
+    static final int CONGESTION_THRESHOLD = LOW_PRIORITY_CAPACITY / 8;
+
+    private final Lane[] lanes;
+
+    // number of queued low priority messages per destination node, absent when zero
+    private final Map<Integer, Integer> lowPriorityPending = new ConcurrentHashMap<>();
+
+    /** @param laneCount the number of send lanes, must cover the range of lane ids */
+    public SendQueue(int laneCount) {
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane();
+        }
+    }
+
+    /**
+     * Queues a message on the lane of its destination.
+     *
+     * @return {@code false} if the message was rejected because its lane is full
+     */
+    public boolean offer(MsgOut mo) {
+        if (!mo.getMsg().isLowPriority()) {
+            return lanes[mo.getLane()].offer(mo);
+        }
+
+        // counted before queuing so that the count never drops below zero when taken
+        lowPriorityPending.merge(mo.getNodeId(), 1, Integer::sum);
+        if (lanes[mo.getLane()].offer(mo)) {
+            return true;
+        }
+        removeLowPriority(mo.getNodeId());
+        return false;
+    }
+
+    /** Waits for the next message of the given lane, high priority messages first. */
+    MsgOut take(int lane) throws InterruptedException {
+        MsgOut mo = lanes[lane].take();
+        if (mo.getMsg().isLowPriority()) {
+            removeLowPriority(mo.getNodeId());
+        }
+        return mo;
+    }
+
+    private void removeLowPriority(int nodeIdHash) {
+        lowPriorityPending.computeIfPresent(nodeIdHash, (k, v) -> v > 1 ? v - 1 : null);
+    }
+
+    /**
+     * @param nodeIdHash the destination node
+     * @return {@code true} if the low priority messages for the node are backing up, or if its
+     *     lane cannot accept any more of them
+     */
+    public boolean isCongested(int nodeIdHash) {
+        return lowPriorityPending.getOrDefault(nodeIdHash, 0) >= CONGESTION_THRESHOLD
+                || lanes[TaskSend.hash2Lane(nodeIdHash)].isLowPriorityFull();
+    }
+
+    /** @return the number of messages waiting on all lanes */
+    public int size() {
+        int size = 0;
+        for (Lane lane : lanes) {
+            size += lane.size();
+        }
+        return size;
+    }
+
+    private static final class Lane {
+
+        private final BlockingQueue<MsgOut> high =
+                new ArrayBlockingQueue<>(HIGH_PRIORITY_CAPACITY);
+        private final BlockingQueue<MsgOut> low = new ArrayBlockingQueue<>(LOW_PRIORITY_CAPACITY);
+
+        // one permit per queued message
+        private final Semaphore available = new Semaphore(0);
+
+        boolean offer(MsgOut mo) {
+            BlockingQueue<MsgOut> queue = mo.getMsg().isLowPriority() ? low : high;
+            if (queue.offer(mo)) {
+                available.release();
+                return true;
+            }
+            return false;
+        }
+
+        MsgOut take() throws InterruptedException {
+            available.acquire();
+            MsgOut mo = high.poll();
+            return mo != null ? mo : low.poll();
+        }
+
+        int size() {
+            return high.size() + low.size();
+        }
+
+        boolean isLowPriorityFull() {
+            return low.remainingCapacity() == 0;
+        }
+    }
+}
@@ -30,7 +30,6 @@ import java.net.InetSocketAddress;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.p2p.INode;
 import org.aion.p2p.INodeMgr;
@@ -47,7 +46,7 @@ public class TaskConnectPeers implements Runnable {
     private final int maxActiveNodes;
     private final IP2pMgr mgr;
     private final AtomicBoolean start;
-    private final BlockingQueue<MsgOut> sendMsgQue;
+    private final SendQueue sendMsgQue;
     private final Selector selector;
     private final ReqHandshake1 cachedReqHS;
 
@@ -57,7 +56,7 @@ public class TaskConnectPeers implements Runnable {
             final INodeMgr _nodeMgr,
             final int _maxActiveNodes,
             final Selector _selector,
-            final BlockingQueue<MsgOut> _sendMsgQue,
+            final SendQueue _sendMsgQue,
             final ReqHandshake1 _cachedReqHS) {
 
         this.start = _start;
@@ -65,7 +65,7 @@ public class TaskInbound implements Runnable {
     private final INodeMgr nodeMgr;
     private final Map<Integer, List<Handler>> handlers;
     private final AtomicBoolean start;
-    private final BlockingQueue<MsgOut> sendMsgQue;
+    private final SendQueue sendMsgQue;
     private final ResHandshake1 cachedResHandshake1;
     private final BlockingQueue<MsgIn> receiveMsgQue;
 
@@ -75,7 +75,7 @@ public class TaskInbound implements Runnable {
             final AtomicBoolean _start,
             final INodeMgr _nodeMgr,
             final Map<Integer, List<Handler>> _handlers,
-            final BlockingQueue<MsgOut> _sendMsgQue,
+            final SendQueue _sendMsgQue,
             final ResHandshake1 _cachedResHandshake1,
             final BlockingQueue<MsgIn> _receiveMsgQue) {
 
@@ -133,6 +133,15 @@ public class TaskInbound implements Runnable {
                             }
                             readBuffer(key, cb, readBuf);
                         }
+
+                        if (key.isValid() && key.isWritable()) {
+                            cb = (ChannelBuffer) key.attachment();
+                            if (cb == null) {
+                                p2pLOG.error("inbound exception: attachment is null");
+                                continue;
+                            }
+                            writePending(key, cb);
+                        }
                     } catch (Exception e) {
                         this.mgr.closeSocket(
                                 key != null ? (SocketChannel) key.channel() : null,
@@ -153,6 +162,22 @@ public class TaskInbound implements Runnable {
         p2pLOG.info("p2p-pi shutdown");
     }
 
+    /**
+     * Resumes writing the messages that did not fit in the socket buffer. Stops watching for the
+     * channel to become writable once all of them are written.
+     */
+    private void writePending(final SelectionKey _sk, final ChannelBuffer _cb)
+            throws IOException {
+        _cb.lock.lock();
+        try {
+            if (_cb.writePending((SocketChannel) _sk.channel())) {
+                _sk.interestOps(_sk.interestOps() & ~SelectionKey.OP_WRITE);
+            }
+        } finally {
+            _cb.lock.unlock();
+        }
+    }
+
     private void accept(ServerSocketChannel _channel) throws Exception {
         if (this.nodeMgr.activeNodesSize() >= this.mgr.getMaxActiveNodes()) {
             return;
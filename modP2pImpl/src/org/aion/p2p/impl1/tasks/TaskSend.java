@@ -26,7 +26,6 @@ import static org.aion.p2p.impl1.P2pMgr.p2pLOG;
 
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
@@ -42,7 +41,7 @@ public class TaskSend implements Runnable {
 
     private final IP2pMgr mgr;
     private final AtomicBoolean start;
-    private final BlockingQueue<MsgOut> sendMsgQue;
+    private final SendQueue sendMsgQue;
     private final INodeMgr nodeMgr;
     private final Selector selector;
     private final int lane;
@@ -52,7 +51,7 @@ public class TaskSend implements Runnable {
     public TaskSend(
             final IP2pMgr _mgr,
             final int _lane,
-            final BlockingQueue<MsgOut> _sendMsgQue,
+            final SendQueue _sendMsgQue,
             final AtomicBoolean _start,
             final INodeMgr _nodeMgr,
             final Selector _selector) {
@@ -77,7 +76,7 @@ public class TaskSend implements Runnable {
     public void run() {
         while (start.get()) {
             try {
-                MsgOut mo = sendMsgQue.take();
+                MsgOut mo = sendMsgQue.take(lane);
 
                 // if timeout , throw away this msg.
                 long now = System.currentTimeMillis();
@@ -88,12 +87,6 @@ public class TaskSend implements Runnable {
                     continue;
                 }
 
-                // if not belong to current lane, put it back.
-                if (mo.getLane() != lane) {
-                    sendMsgQue.offer(mo);
-                    continue;
-                }
-
                 INode node = null;
                 switch (mo.getDest()) {
                     case ACTIVE:
@@ -115,6 +108,7 @@ public class TaskSend implements Runnable {
                             tpe.execute(
                                     new TaskWrite(
                                             node.getIdShort(),
+                                            sk,
                                             node.getChannel(),
                                             mo.getMsg(),
                                             (ChannelBuffer) attachment,
@@ -32,13 +32,13 @@ public class TaskStatus implements Runnable {
 
     private final INodeMgr nodeMgr;
     private final String selfShortId;
-    private final BlockingQueue<MsgOut> sendMsgQue;
+    private final SendQueue sendMsgQue;
     private final BlockingQueue<MsgIn> receiveMsgQue;
 
     public TaskStatus(
             final INodeMgr _nodeMgr,
             final String _selfShortId,
-            final BlockingQueue<MsgOut> _sendMsgQue,
+            final SendQueue _sendMsgQue,
             final BlockingQueue<MsgIn> _receiveMsgQue) {
         this.nodeMgr = _nodeMgr;
         this.selfShortId = _selfShortId;
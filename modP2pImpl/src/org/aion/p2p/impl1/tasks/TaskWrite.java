@@ -27,6 +27,7 @@ import static org.aion.p2p.impl1.P2pMgr.p2pLOG;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import org.aion.p2p.Header;
 import org.aion.p2p.IP2pMgr;
@@ -35,7 +36,11 @@ import org.aion.p2p.Msg;
 /** @author chris */
 public class TaskWrite implements Runnable {
 
+    // messages are dropped when more than this many bytes are waiting to be written to the peer
+    private static final long MAX_PENDING_WRITE_SIZE = 8 * 1024 * 1024;
+
     private final String nodeShortId;
+    private final SelectionKey sk;
     private final SocketChannel sc;
     private final Msg msg;
     private final ChannelBuffer channelBuffer;
@@ -43,11 +48,13 @@ public class TaskWrite implements Runnable {
 
     TaskWrite(
             final String _nodeShortId,
+            final SelectionKey _sk,
             final SocketChannel _sc,
             final Msg _msg,
             final ChannelBuffer _cb,
             final IP2pMgr _p2pMgr) {
         this.nodeShortId = _nodeShortId;
+        this.sk = _sk;
         this.sc = _sc;
         this.msg = _msg;
         this.channelBuffer = _cb;
@@ -67,14 +74,9 @@ public class TaskWrite implements Runnable {
         try {
             channelBuffer.lock.lock();
 
-            /*
-             * @warning header set len (body len) before header encode
-             */
-            byte[] bodyBytes = msg.encode();
-            int bodyLen = bodyBytes == null ? 0 : bodyBytes.length;
+            // encoded only once for all the peers receiving the message
+            ByteBuffer buf = msg.getFrame();
             Header h = msg.getHeader();
-            h.setLen(bodyLen);
-            byte[] headerBytes = h.encode();
 
             if (p2pLOG.isTraceEnabled()) {
                 p2pLOG.trace(
@@ -85,38 +87,31 @@ public class TaskWrite implements Runnable {
                         h.getAction());
             }
 
-            ByteBuffer buf = ByteBuffer.allocate(headerBytes.length + bodyLen);
-            buf.put(headerBytes);
-            if (bodyBytes != null) {
-                buf.put(bodyBytes);
-            }
-            buf.flip();
-
-            long t1 = System.nanoTime(), t2;
-            int wrote = 0;
             try {
-                do {
-                    int result = sc.write(buf);
-                    wrote += result;
-
-                    if (result == 0) {
-                        // @Attention:  very important sleep , otherwise when NIO write buffer full,
-                        // without sleep will hangup this thread.
-                        Thread.sleep(0, 1);
+                if (channelBuffer.hasPendingWrites()) {
+                    // keep the order of the messages
+                    if (channelBuffer.getPendingWriteSize() >= MAX_PENDING_WRITE_SIZE) {
+                        if (p2pLOG.isDebugEnabled()) {
+                            p2pLOG.debug(
+                                    "write-queue-full node={} pending={} dropped={}",
+                                    nodeShortId,
+                                    channelBuffer.getPendingWriteSize(),
+                                    buf.remaining());
+                        }
+                        return;
+                    }
+                    channelBuffer.addPendingWrite(buf);
+                } else {
+                    // the channel is non-blocking, so this writes only what fits in the socket
+                    // buffer; the rest is written by the inbound thread when the channel is
+                    // writable again
+                    while (buf.hasRemaining() && sc.write(buf) > 0) {}
+
+                    if (buf.hasRemaining()) {
+                        channelBuffer.addPendingWrite(buf);
+                        sk.interestOps(sk.interestOps() | SelectionKey.OP_WRITE);
                     }
-
-                    t2 = System.nanoTime() - t1;
-                } while (buf.hasRemaining() && (t2 < 100_000_000));
-
-                if (p2pLOG.isTraceEnabled() && (t2 > 10_000_000)) {
-                    p2pLOG.trace(
-                            "msg write: id {} size {} time {} ms length {}",
-                            nodeShortId,
-                            wrote,
-                            t2,
-                            buf.array().length);
                 }
-
             } catch (ClosedChannelException ex1) {
                 if (p2pLOG.isDebugEnabled()) {
                     p2pLOG.debug("closed-channel-exception node=" + this.nodeShortId, ex1);
@@ -128,13 +123,8 @@ public class TaskWrite implements Runnable {
                     p2pLOG.debug(
                             "write-msg-io-exception node="
                                     + this.nodeShortId
-                                    + " headerBytes="
-                                    + String.valueOf(headerBytes.length)
-                                    + " bodyLen="
-                                    + String.valueOf(bodyLen)
-                                    + " time="
-                                    + String.valueOf(System.nanoTime()- t1)
-                                    + "ns",
+                                    + " length="
+                                    + String.valueOf(buf.limit()),
                             ex2);
                 }
 
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.p2p.impl1.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import org.aion.p2p.Msg;
+import org.aion.p2p.impl1.P2pMgr.Dest;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class SendQueueTest {
+
+    @Mock private Msg highMsg;
+
+    @Mock private Msg lowMsg;
+
+    private SendQueue queue;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        when(lowMsg.isLowPriority()).thenReturn(true);
+        queue = new SendQueue(32);
+    }
+
+    @Test(timeout = 10_000)
+    public void testHighPriorityFirst() throws InterruptedException {
+        MsgOut low = new MsgOut(0, "0", lowMsg, Dest.ACTIVE);
+        MsgOut high = new MsgOut(0, "0", highMsg, Dest.ACTIVE);
+
+        assertTrue(queue.offer(low));
+        assertTrue(queue.offer(high));
+        assertEquals(2, queue.size());
+
+        assertSame(high, queue.take(low.getLane()));
+        assertSame(low, queue.take(low.getLane()));
+        assertEquals(0, queue.size());
+    }
+
+    @Test(timeout = 10_000)
+    public void testLanesAreSeparate() throws InterruptedException {
+        int nodeId = 1;
+        MsgOut mo = new MsgOut(nodeId, "1", highMsg, Dest.ACTIVE);
+        assertTrue(queue.offer(mo));
+
+        // the message only shows up on the lane of its destination
+        assertSame(mo, queue.take(TaskSend.hash2Lane(nodeId)));
+    }
+
+    @Test
+    public void testLowPriorityBounded() {
+        for (int i = 0; i < SendQueue.LOW_PRIORITY_CAPACITY; i++) {
+            assertTrue(queue.offer(new MsgOut(0, "0", lowMsg, Dest.ACTIVE)));
+        }
+        assertFalse(queue.offer(new MsgOut(0, "0", lowMsg, Dest.ACTIVE)));
+
+        // other traffic to the same lane is still accepted
+        assertTrue(queue.offer(new MsgOut(0, "0", highMsg, Dest.ACTIVE)));
+        assertEquals(SendQueue.LOW_PRIORITY_CAPACITY + 1, queue.size());
+    }
+
+    @Test(timeout = 10_000)
+    public void testCongested() throws InterruptedException {
+        assertFalse(queue.isCongested(0));
+        for (int i = 0; i < SendQueue.CONGESTION_THRESHOLD; i++) {
+            queue.offer(new MsgOut(0, "0", lowMsg, Dest.ACTIVE));
+        }
+        assertTrue(queue.isCongested(0));
+
+        // sending a message clears the congestion
+        queue.take(TaskSend.hash2Lane(0));
+        assertFalse(queue.isCongested(0));
+    }
+
+    @Test
+    public void testCongestionIgnoresHighPriority() {
+        for (int i = 0; i < SendQueue.CONGESTION_THRESHOLD; i++) {
+            queue.offer(new MsgOut(0, "0", highMsg, Dest.ACTIVE));
+        }
+        assertFalse(queue.isCongested(0));
+    }
+
+    @Test
+    public void testCongestionPerPeer() {
+        // a different peer on the same lane
+        int other = 32;
+        assertEquals(TaskSend.hash2Lane(0), TaskSend.hash2Lane(other));
+
+        for (int i = 0; i < SendQueue.CONGESTION_THRESHOLD; i++) {
+            queue.offer(new MsgOut(other, "32", lowMsg, Dest.ACTIVE));
+        }
+        assertTrue(queue.isCongested(other));
+        assertFalse(queue.isCongested(0));
+    }
+}
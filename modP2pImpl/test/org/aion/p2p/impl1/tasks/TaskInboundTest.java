@@ -69,7 +69,7 @@ public class TaskInboundTest {
 
     @Mock private IP2pMgr p2pMgr;
 
-    @Mock private BlockingQueue<MsgOut> msgOutQue;
+    @Mock private SendQueue msgOutQue;
 
     @Mock private BlockingQueue<MsgIn> msgInQue;
 
@@ -25,6 +25,7 @@ package org.aion.p2p.impl1.tasks;
 
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
@@ -34,7 +35,6 @@ import java.nio.channels.SocketChannel;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
@@ -55,7 +55,7 @@ public class TaskSendTest {
 
     @Mock private IP2pMgr p2pMgr;
 
-    @Mock private BlockingQueue<MsgOut> sendMsgQue;
+    @Mock private SendQueue sendMsgQue;
 
     @Mock private INode node;
 
@@ -103,7 +103,7 @@ public class TaskSendTest {
 
         MsgOut mo = new MsgOut(r.nextInt(), "1", msg, Dest.OUTBOUND);
         assertNotNull(mo);
-        when(sendMsgQue.take()).thenReturn(mo);
+        when(sendMsgQue.take(anyInt())).thenReturn(mo);
         Thread.sleep(5000);
 
         Thread t = new Thread(ts);
@@ -125,7 +125,7 @@ public class TaskSendTest {
         MsgOut mo = new MsgOut(1, "1", msg, Dest.OUTBOUND);
         assertNotNull(mo);
 
-        when(sendMsgQue.take()).thenReturn(mo);
+        when(sendMsgQue.take(anyInt())).thenReturn(mo);
 
         Thread t = new Thread(ts);
         t.start();
@@ -146,7 +146,7 @@ public class TaskSendTest {
         MsgOut mo = new MsgOut(0, "1", msg, Dest.OUTBOUND);
         assertNotNull(mo);
 
-        when(sendMsgQue.take()).thenReturn(mo);
+        when(sendMsgQue.take(anyInt())).thenReturn(mo);
         when(nodeMgr.getOutboundNode(0)).thenReturn(node);
 
         ChannelBuffer cb = new ChannelBuffer();
@@ -178,7 +178,7 @@ public class TaskSendTest {
         MsgOut mo = new MsgOut(0, "1", msg, Dest.ACTIVE);
         assertNotNull(mo);
 
-        when(sendMsgQue.take()).thenReturn(mo);
+        when(sendMsgQue.take(anyInt())).thenReturn(mo);
         when(nodeMgr.getActiveNode(0)).thenReturn(node);
 
         ChannelBuffer cb = new ChannelBuffer();
@@ -210,7 +210,7 @@ public class TaskSendTest {
         MsgOut mo = new MsgOut(0, "1", msg, Dest.INBOUND);
         assertNotNull(mo);
 
-        when(sendMsgQue.take()).thenReturn(mo);
+        when(sendMsgQue.take(anyInt())).thenReturn(mo);
         when(nodeMgr.getInboundNode(0)).thenReturn(node);
 
         ChannelBuffer cb = new ChannelBuffer();
@@ -242,7 +242,7 @@ public class TaskSendTest {
         MsgOut mo = new MsgOut(0, "1", msg, Dest.INBOUND);
         assertNotNull(mo);
 
-        when(sendMsgQue.take()).thenReturn(mo);
+        when(sendMsgQue.take(anyInt())).thenReturn(mo);
         when(nodeMgr.getInboundNode(0)).thenReturn(null);
 
         Thread t = new Thread(ts);
@@ -43,7 +43,7 @@ import org.mockito.MockitoAnnotations;
 
 public class TaskStatusTest {
 
-    @Mock private BlockingQueue<MsgOut> msgOutQue;
+    @Mock private SendQueue msgOutQue;
 
     @Mock private BlockingQueue<MsgIn> msgInQue;
 
@@ -74,7 +74,7 @@ public class RLP {
      * value 0x80 plus the length of the string followed by the string. The range of the first byte
      * is thus [0x80, 0xb7].
      */
-    private static final int OFFSET_SHORT_ITEM = 0x80;
+    static final int OFFSET_SHORT_ITEM = 0x80;
 
     /**
      * [0xb7] If a string is more than 55 bytes long, the RLP encoding consists of a single byte
@@ -83,7 +83,7 @@ public class RLP {
      * encoded as \xb9\x04\x00 followed by the string. The range of the first byte is thus [0xb8,
      * 0xbf].
      */
-    private static final int OFFSET_LONG_ITEM = 0xb7;
+    static final int OFFSET_LONG_ITEM = 0xb7;
 
     /**
      * [0xc0] If the total payload of a list (i.e. the combined length of all its items) is 0-55
@@ -91,7 +91,7 @@ public class RLP {
      * list followed by the concatenation of the RLP encodings of the items. The range of the first
      * byte is thus [0xc0, 0xf7].
      */
-    private static final int OFFSET_SHORT_LIST = 0xc0;
+    static final int OFFSET_SHORT_LIST = 0xc0;
 
     /**
      * [0xf7] If the total payload of a list is more than 55 bytes long, the RLP encoding consists
@@ -99,7 +99,7 @@ public class RLP {
      * followed by the length of the list, followed by the concatenation of the RLP encodings of the
      * items. The range of the first byte is thus [0xf8, 0xff].
      */
-    private static final int OFFSET_LONG_LIST = 0xf7;
+    static final int OFFSET_LONG_LIST = 0xf7;
 
     // DECODING
 
@@ -185,6 +185,20 @@ public class RLP {
         return rlpList;
     }
 
+    /**
+     * Decodes the first element of the given data without copying it. The items of lists are
+     * located and decoded only when accessed.
+     *
+     * @param msgData - raw RLP data
+     * @return a view over the first element encoded in the data
+     */
+    public static RLPView decodeView(byte[] msgData) {
+        if (msgData == null || msgData.length == 0) {
+            throw new RuntimeException("RLP wrong encoding (empty data)");
+        }
+        return new RLPView(msgData, 0, msgData.length);
+    }
+
     /** @implNote Considers only encodings of one byte. */
     public static RLPElement decode2OneItem(byte[] msgData, int startPos) {
         RLPList rlpList = new RLPList();
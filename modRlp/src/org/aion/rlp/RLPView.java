@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.rlp;
+
+import static org.aion.rlp.RLP.OFFSET_LONG_ITEM;
+import static org.aion.rlp.RLP.OFFSET_LONG_LIST;
+import static org.aion.rlp.RLP.OFFSET_SHORT_ITEM;
+import static org.aion.rlp.RLP.OFFSET_SHORT_LIST;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A view over one RLP encoded element that reads directly from the encoded array.
+ *
+ * <p>Unlike {@link RLP#decode2(byte[])}, no bytes are copied while decoding: the items of a list
+ * are only located when the list is accessed and the values are read on demand through the typed
+ * accessors. The encoded array must not be modified while views over it are in use.
+ *
+ * @see RLP#decodeView(byte[])
+ */
+public final class RLPView {
+
+    private final byte[] data;
+    // the position of the prefix
+    private final int offset;
+    private final int payloadOffset;
+    private final int payloadLength;
+    private final boolean list;
+
+    // the items of a list, located on first access
+    private volatile RLPView[] items;
+
+    /**
+     * Reads the prefix of the element starting at the given offset.
+     *
+     * @throws RuntimeException when the element does not fit before the given limit
+     */
+    RLPView(byte[] data, int offset, int limit) {
+        if (offset >= limit) {
+            throw wrongEncoding(offset);
+        }
+        this.data = data;
+        this.offset = offset;
+
+        int prefix = data[offset] & 0xFF;
+        if (prefix < OFFSET_SHORT_ITEM) {
+            // the byte is its own encoding
+            list = false;
+            payloadOffset = offset;
+            payloadLength = 1;
+        } else if (prefix <= OFFSET_LONG_ITEM) {
+            list = false;
+            payloadOffset = offset + 1;
+            payloadLength = prefix - OFFSET_SHORT_ITEM;
+        } else if (prefix < OFFSET_SHORT_LIST) {
+            int lengthOfLength = prefix - OFFSET_LONG_ITEM;
+            list = false;
+            payloadOffset = offset + 1 + lengthOfLength;
+            payloadLength = readLength(data, offset, lengthOfLength, limit);
+        } else if (prefix <= OFFSET_LONG_LIST) {
+            list = true;
+            payloadOffset = offset + 1;
+            payloadLength = prefix - OFFSET_SHORT_LIST;
+        } else {
+            int lengthOfLength = prefix - OFFSET_LONG_LIST;
+            list = true;
+            payloadOffset = offset + 1 + lengthOfLength;
+            payloadLength = readLength(data, offset, lengthOfLength, limit);
+        }
+
+        if (payloadLength > limit - payloadOffset) {
+            throw wrongEncoding(offset);
+        }
+    }
+
+    private static int readLength(byte[] data, int offset, int lengthOfLength, int limit) {
+        if (lengthOfLength > limit - offset - 1) {
+            throw wrongEncoding(offset);
+        }
+        long length = 0;
+        for (int i = 1; i <= lengthOfLength; i++) {
+            length = (length << 8) | (data[offset + i] & 0xFF);
+            if (length > Integer.MAX_VALUE) {
+                throw wrongEncoding(offset);
+            }
+        }
+        return (int) length;
+    }
+
+    private static RuntimeException wrongEncoding(int offset) {
+        return new RuntimeException("RLP wrong encoding at position " + offset);
+    }
+
+    public boolean isList() {
+        return list;
+    }
+
+    /** @return the number of items in this list */
+    public int size() {
+        return items().length;
+    }
+
+    /**
+     * Returns the item at the given position in this list. Nested lists are not decoded until they
+     * are accessed themselves.
+     */
+    public RLPView get(int index) {
+        return items()[index];
+    }
+
+    private RLPView[] items() {
+        RLPView[] located = items;
+        if (located == null) {
+            if (!list) {
+                throw new IllegalStateException("The RLP element is not a list.");
+            }
+            List<RLPView> found = new ArrayList<>();
+            int end = payloadOffset + payloadLength;
+            int pos = payloadOffset;
+            while (pos < end) {
+                RLPView item = new RLPView(data, pos, end);
+                found.add(item);
+                pos = item.payloadOffset + item.payloadLength;
+            }
+            located = found.toArray(new RLPView[0]);
+            items = located;
+        }
+        return located;
+    }
+
+    /** @return the length of the payload, excluding the prefix */
+    public int length() {
+        return payloadLength;
+    }
+
+    /** @return a copy of the payload, excluding the prefix */
+    public byte[] asBytes() {
+        return Arrays.copyOfRange(data, payloadOffset, payloadOffset + payloadLength);
+    }
+
+    /** @return a copy of the full encoding of this element, including the prefix */
+    public byte[] getEncoded() {
+        return Arrays.copyOfRange(data, offset, payloadOffset + payloadLength);
+    }
+
+    /**
+     * @return the payload interpreted as a 32 byte hash
+     * @throws RuntimeException when the payload has a different length
+     */
+    public byte[] asHash() {
+        if (list || payloadLength != 32) {
+            throw new RuntimeException("The RLP element is not a hash.");
+        }
+        return asBytes();
+    }
+
+    /**
+     * @return the payload interpreted as an unsigned number, truncated to the lowest 64 bits in the
+     *     same way as {@link BigInteger#longValue()}
+     */
+    public long asLong() {
+        long value = 0;
+        for (int i = payloadOffset; i < payloadOffset + payloadLength; i++) {
+            value = (value << 8) | (data[i] & 0xFF);
+        }
+        return value;
+    }
+
+    /** @see #asLong() */
+    public int asInt() {
+        return (int) asLong();
+    }
+
+    /** @return the payload interpreted as an unsigned number */
+    public BigInteger asBigInteger() {
+        return new BigInteger(1, data, payloadOffset, payloadLength);
+    }
+
+    /**
+     * @return the element decoded in the format of {@link RLP#decode(byte[], int)}: a byte array
+     *     for items, with the empty item decoded to an empty string, and an object array for lists
+     */
+    public Object asObject() {
+        if (list) {
+            RLPView[] located = items();
+            Object[] decoded = new Object[located.length];
+            for (int i = 0; i < located.length; i++) {
+                decoded[i] = located[i].asObject();
+            }
+            return decoded;
+        } else if ((data[offset] & 0xFF) == OFFSET_SHORT_ITEM) {
+            return "";
+        } else {
+            return asBytes();
+        }
+    }
+}
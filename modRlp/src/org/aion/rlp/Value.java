@@ -53,6 +53,9 @@ public class Value {
 
     private boolean decoded = false;
 
+    // used to read single items before the value is fully decoded
+    private RLPView view;
+
     public static Value fromRlpEncoded(byte[] data) {
 
         if (data != null && data.length != 0) {
@@ -179,6 +182,20 @@ public class Value {
     }
 
     public Value get(int index) {
+        if (!decoded) {
+            // decodes only the requested item
+            RLPView rlpView = view();
+            if (rlpView.isList()) {
+                if (rlpView.size() <= index) {
+                    return new Value(null);
+                }
+                if (index < 0) {
+                    throw new RuntimeException("Negative index not allowed");
+                }
+                return new Value(rlpView.get(index).asObject());
+            }
+            return new Value(null);
+        }
         if (isList()) {
             // Guard for OutOfBounds
             if (asList().size() <= index) {
@@ -195,10 +212,18 @@ public class Value {
 
     // Utility
 
+    private RLPView view() {
+        if (view == null) {
+            view = RLP.decodeView(rlp);
+        }
+        return view;
+    }
+
     private void decode() {
         if (!this.decoded) {
             this.value = RLP.decode(rlp, 0).getDecoded();
             this.decoded = true;
+            this.view = null;
         }
     }
 
@@ -280,6 +305,10 @@ public class Value {
     }
 
     public int length() {
+        if (!decoded) {
+            RLPView rlpView = view();
+            return rlpView.isList() ? rlpView.size() : rlpView.length();
+        }
         decode();
         if (isList()) {
             return asList().size();
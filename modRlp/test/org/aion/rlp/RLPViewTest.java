@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.rlp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import org.aion.base.util.Hex;
+import org.junit.Test;
+
+public class RLPViewTest {
+
+    private static final byte[] hash =
+            Hex.decode("b2f2a36ef41bc50f2b7b88e17883e7df01e3d94a5e22c39b2e5d66ec24c8b9b3");
+
+    // [[0x01, "", [hash]], 1024, long string]
+    private static final byte[] nested =
+            RLP.encodeList(
+                    RLP.encodeList(
+                            RLP.encodeByte((byte) 1),
+                            RLP.encodeElement(new byte[0]),
+                            RLP.encodeList(RLP.encodeElement(hash))),
+                    RLP.encodeInt(1024),
+                    RLP.encodeElement(new byte[100]));
+
+    private static void assertSameAsDecode2(RLPView view, RLPElement element) {
+        if (element instanceof RLPList) {
+            RLPList list = (RLPList) element;
+            assertThat(view.isList()).isTrue();
+            assertThat(view.getEncoded()).isEqualTo(list.getRLPData());
+            assertThat(view.size()).isEqualTo(list.size());
+            for (int i = 0; i < list.size(); i++) {
+                assertSameAsDecode2(view.get(i), list.get(i));
+            }
+        } else {
+            assertThat(view.isList()).isFalse();
+            assertThat(view.asBytes()).isEqualTo(element.getRLPData());
+        }
+    }
+
+    @Test
+    public void testNestedListsMatchDecode2() {
+        RLPView view = RLP.decodeView(nested);
+        assertSameAsDecode2(view, RLP.decode2(nested).get(0));
+        assertThat(view.getEncoded()).isEqualTo(nested);
+    }
+
+    @Test
+    public void testAsObjectMatchesDecode() {
+        Object expected = RLP.decode(nested, 0).getDecoded();
+        assertThat(RLP.encode(RLP.decodeView(nested).asObject())).isEqualTo(RLP.encode(expected));
+        assertThat(((Object[]) ((Object[]) RLP.decodeView(nested).asObject())[0])[1])
+                .isEqualTo("");
+    }
+
+    @Test
+    public void testTypedAccessors() {
+        RLPView view = RLP.decodeView(nested);
+
+        assertThat(view.get(0).get(0).asLong()).isEqualTo(1L);
+        assertThat(view.get(0).get(1).asLong()).isEqualTo(0L);
+        assertThat(view.get(0).get(1).length()).isEqualTo(0);
+        assertThat(view.get(0).get(2).get(0).asHash()).isEqualTo(hash);
+        assertThat(view.get(1).asInt()).isEqualTo(1024);
+        assertThat(view.get(1).asBigInteger()).isEqualTo(BigInteger.valueOf(1024));
+
+        byte[] large = RLP.encodeBigInteger(new BigInteger("123456789abcdef0123", 16));
+        assertThat(RLP.decodeView(large).asBigInteger())
+                .isEqualTo(new BigInteger("123456789abcdef0123", 16));
+        // truncated like BigInteger#longValue
+        assertThat(RLP.decodeView(large).asLong())
+                .isEqualTo(new BigInteger("123456789abcdef0123", 16).longValue());
+    }
+
+    @Test
+    public void testItemsLocatedOnAccess() {
+        // the second item claims more bytes than available
+        byte[] truncated = Hex.decode("c482010283");
+        RLPView view = RLP.decodeView(truncated);
+        assertThat(view.isList()).isTrue();
+
+        try {
+            view.size();
+        } catch (RuntimeException e) {
+            return;
+        }
+        throw new AssertionError("the wrong encoding was not detected");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testWrongLength() {
+        RLP.decodeView(Hex.decode("c5820102"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testEmptyData() {
+        RLP.decodeView(new byte[0]);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testHashOfWrongLength() {
+        RLP.decodeView(RLP.encodeInt(1024)).asHash();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testItemIsNotList() {
+        RLP.decodeView(RLP.encodeInt(1024)).size();
+    }
+
+    @Test
+    public void testValueReadsSingleItem() {
+        Value value = Value.fromRlpEncoded(nested);
+        assertThat(value.length()).isEqualTo(3);
+        assertThat(value.get(1).asInt()).isEqualTo(1024);
+        assertThat(value.get(3).isNull()).isTrue();
+        assertThat(value.get(0).get(2).get(0).asBytes()).isEqualTo(hash);
+
+        Value decoded = Value.fromRlpEncoded(nested);
+        decoded.asObj();
+        assertThat(decoded.length()).isEqualTo(3);
+        assertThat(decoded.get(1).asInt()).isEqualTo(1024);
+    }
+}
@@ -27,12 +27,13 @@ import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
@@ -81,12 +82,12 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
     private final SortedMap<Long, LinkedHashSet<ByteArrayWrapper>> timeView =
             Collections.synchronizedSortedMap(new TreeMap<>());
     /**
-     * feeView : SortedMap<BigInteger, LinkedHashSet<TxPoolList<ByteArrayWrapper>>> @BigInteger
-     * energy cost = energy consumption * energy price @LinkedHashSet<TxPoolList<ByteArrayWrapper>>
-     * the TxPoolList of the first transaction hash
+     * feeView : SortedMap<Long, FeeBucket> @Long energy cost = energy consumption * energy
+     * price @FeeBucket the TxDependLists of the given fee ordered by their first transaction
+     * timestamp
      */
-    private final SortedMap<BigInteger, Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>>
-            feeView = Collections.synchronizedSortedMap(new TreeMap<>(Collections.reverseOrder()));
+    private final SortedMap<Long, FeeBucket> feeView =
+            Collections.synchronizedSortedMap(new TreeMap<>(Collections.reverseOrder()));
     /**
      * accountView : Map<ByteArrayWrapper, AccountState> @ByteArrayWrapper account
      * address @AccountState
@@ -102,6 +103,15 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
 
     private final Map<Address, BigInteger> bestNonce = new ConcurrentHashMap<>();
 
+    /**
+     * The transactions, accounts and pool states changed since they were last sorted, so that a
+     * snapshot of an unchanged pool only walks the fee view up to the selected transactions.
+     */
+    private final Set<ByteArrayWrapper> unsortedTx = ConcurrentHashMap.newKeySet();
+
+    private final Set<Address> dirtyAccounts = ConcurrentHashMap.newKeySet();
+    private final Set<Address> changedPoolStates = ConcurrentHashMap.newKeySet();
+
     protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
     public abstract List<TX> add(List<TX> txl);
@@ -118,11 +128,52 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
         return this.mainMap;
     }
 
-    protected SortedMap<BigInteger, Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>>
-            getFeeView() {
+    /** Adds new transactions to the pool, to be sorted by the next {@link #sortTxn()}. */
+    protected void addToMainMap(Map<ByteArrayWrapper, TXState> txs) {
+        this.mainMap.putAll(txs);
+        this.unsortedTx.addAll(txs.keySet());
+    }
+
+    /** Marks the transactions of an account as changed, to be sorted again into pool states. */
+    protected void setDirty(Address acc) {
+        getAccView(acc).setDirty();
+        this.dirtyAccounts.add(acc);
+    }
+
+    /** Removes and returns the elements of a set that other threads may be adding to. */
+    private static <T> List<T> drain(Set<T> set) {
+        List<T> elements = new ArrayList<>();
+        for (Iterator<T> it = set.iterator(); it.hasNext(); ) {
+            elements.add(it.next());
+            it.remove();
+        }
+        return elements;
+    }
+
+    protected SortedMap<Long, FeeBucket> getFeeView() {
         return this.feeView;
     }
 
+    /**
+     * Computes the energy charge of the transaction, saturating at {@link Long#MAX_VALUE} rather
+     * than overflowing so that the charge can be used as a primitive fee key.
+     */
+    protected static long nrgCharge(ITransaction tx) {
+        try {
+            return Math.multiplyExact(tx.getNrgPrice(), tx.getNrgConsume());
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
     protected AccountState getAccView(Address acc) {
 
         this.accountView.computeIfAbsent(acc, k -> new AccountState());
@@ -159,23 +210,25 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
         this.accountView.clear();
         this.poolStateView.clear();
         this.outDated.clear();
+        this.unsortedTx.clear();
+        this.dirtyAccounts.clear();
+        this.changedPoolStates.clear();
     }
 
     protected void sortTxn() {
 
-        Map<Address, Map<BigInteger, SimpleEntry<ByteArrayWrapper, BigInteger>>> accMap =
+        Map<Address, Map<BigInteger, SimpleEntry<ByteArrayWrapper, Long>>> accMap =
                 new ConcurrentHashMap<>();
         SortedMap<Long, LinkedHashSet<ByteArrayWrapper>> timeMap =
                 Collections.synchronizedSortedMap(new TreeMap<>());
 
         Map<ITransaction, Long> updatedTx = new HashMap<>();
-        this.mainMap
-                .entrySet()
+        drain(this.unsortedTx)
                 .parallelStream()
                 .forEach(
-                        e -> {
-                            TXState ts = e.getValue();
-                            if (ts.sorted()) {
+                        hash -> {
+                            TXState ts = this.mainMap.get(hash);
+                            if (ts == null || ts.sorted()) {
                                 return;
                             }
 
@@ -184,7 +237,7 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                             // Gen temp timeMap
                             long timestamp = tx.getTimeStampBI().longValue() / multiplyM;
 
-                            Map<BigInteger, SimpleEntry<ByteArrayWrapper, BigInteger>> nonceMap;
+                            Map<BigInteger, SimpleEntry<ByteArrayWrapper, Long>> nonceMap;
                             ITransaction replacedTx = null;
                             synchronized (accMap) {
                                 if (accMap.get(tx.getFrom()) != null) {
@@ -196,16 +249,14 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                                 // considering refactor later
                                 BigInteger nonce = tx.getNonceBI();
 
-                                BigInteger nrgCharge =
-                                        BigInteger.valueOf(tx.getNrgPrice())
-                                                .multiply(BigInteger.valueOf(tx.getNrgConsume()));
+                                long nrgCharge = nrgCharge(tx);
 
                                 if (LOG.isTraceEnabled()) {
                                     LOG.trace(
                                             "AbstractTxPool.sortTxn Put tx into nonceMap: nonce:[{}] ts:[{}] nrgCharge:[{}]",
                                             nonce,
-                                            ByteUtils.toHexString(e.getKey().getData()),
-                                            nrgCharge.toString());
+                                            ByteUtils.toHexString(hash.getData()),
+                                            nrgCharge);
                                 }
 
                                 // considering same nonce tx, only put the latest tx.
@@ -224,7 +275,7 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                                             updatedTx.put(replacedTx, timestamp);
                                             nonceMap.put(
                                                     nonce,
-                                                    new SimpleEntry<>(e.getKey(), nrgCharge));
+                                                    new SimpleEntry<>(hash, nrgCharge));
                                         }
                                     } catch (Exception ex) {
                                         LOG.error(
@@ -233,7 +284,7 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                                                 tx.toString());
                                     }
                                 } else {
-                                    nonceMap.put(nonce, new SimpleEntry<>(e.getKey(), nrgCharge));
+                                    nonceMap.put(nonce, new SimpleEntry<>(hash, nrgCharge));
                                 }
 
                                 if (LOG.isTraceEnabled()) {
@@ -254,7 +305,7 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                                     lhs = new LinkedHashSet<>();
                                 }
 
-                                lhs.add(e.getKey());
+                                lhs.add(hash);
 
                                 if (LOG.isTraceEnabled()) {
                                     LOG.trace(
@@ -314,6 +365,7 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                                         e.getKey(), k -> new AccountState());
                                 this.accountView.get(e.getKey()).updateMap(e.getValue());
                                 lock.writeLock().unlock();
+                                this.dirtyAccounts.add(e.getKey());
                             });
 
             updateAccPoolState();
@@ -327,18 +379,18 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
 
     protected void updateAccPoolState() {
 
-        // iterate tx by account
+        // iterate tx by changed account
         List<Address> clearAddr = new ArrayList<>();
-        for (Entry<Address, AccountState> e : this.accountView.entrySet()) {
-            AccountState as = e.getValue();
-            if (as.isDirty()) {
+        for (Address addr : drain(this.dirtyAccounts)) {
+            AccountState as = this.accountView.get(addr);
+            if (as != null && as.isDirty()) {
 
                 if (as.getMap().isEmpty()) {
-                    this.poolStateView.remove(e.getKey());
-                    clearAddr.add(e.getKey());
+                    this.poolStateView.remove(addr);
+                    clearAddr.add(addr);
                 } else {
                     // checking AccountState given by account
-                    List<PoolState> psl = this.poolStateView.get(e.getKey());
+                    List<PoolState> psl = this.poolStateView.get(addr);
                     if (psl == null) {
                         psl = new LinkedList<>();
                     }
@@ -373,11 +425,11 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                                 // remove old poolState in the feeMap
                                 if (this.feeView.get(ps.getFee()) != null) {
 
-                                    if (e.getValue().getMap().get(ps.firstNonce) != null) {
+                                    if (as.getMap().get(ps.firstNonce) != null) {
                                         this.feeView
                                                 .get(ps.getFee())
                                                 .remove(
-                                                        e.getValue()
+                                                        as
                                                                 .getMap()
                                                                 .get(ps.firstNonce)
                                                                 .getKey());
@@ -398,10 +450,10 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                     }
 
                     int cnt = 0;
-                    BigInteger fee = BigInteger.ZERO;
-                    BigInteger totalFee = BigInteger.ZERO;
+                    long fee = 0;
+                    long totalFee = 0;
 
-                    for (Entry<BigInteger, SimpleEntry<ByteArrayWrapper, BigInteger>> en :
+                    for (Entry<BigInteger, SimpleEntry<ByteArrayWrapper, Long>> en :
                             as.getMap().entrySet()) {
                         if (LOG.isTraceEnabled()) {
                             LOG.trace(
@@ -416,27 +468,27 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                                         txNonceStart != null
                                                 ? txNonceStart.add(BigInteger.valueOf(cnt))
                                                 : null)) {
-                            if (en.getValue().getValue().compareTo(fee) > -1) {
+                            if (en.getValue().getValue() >= fee) {
                                 fee = en.getValue().getValue();
-                                totalFee = totalFee.add(fee);
+                                totalFee = saturatedAdd(totalFee, fee);
 
                                 if (++cnt == seqTxCountMax) {
                                     if (LOG.isTraceEnabled()) {
                                         LOG.trace(
                                                 "AbstractTxPool.updateAccPoolState case1 - nonce:[{}] totalFee:[{}] cnt:[{}]",
                                                 txNonceStart,
-                                                totalFee.toString(),
+                                                totalFee,
                                                 cnt);
                                     }
                                     newPoolState.add(
                                             new PoolState(
                                                     txNonceStart,
-                                                    totalFee.divide(BigInteger.valueOf(cnt)),
+                                                    totalFee / cnt,
                                                     cnt));
 
                                     txNonceStart = en.getKey().add(BigInteger.ONE);
-                                    totalFee = BigInteger.ZERO;
-                                    fee = BigInteger.ZERO;
+                                    totalFee = 0;
+                                    fee = 0;
                                     cnt = 0;
                                 }
                             } else {
@@ -444,13 +496,13 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                                     LOG.trace(
                                             "AbstractTxPool.updateAccPoolState case2 - nonce:[{}] totalFee:[{}] cnt:[{}]",
                                             txNonceStart,
-                                            totalFee.toString(),
+                                            totalFee,
                                             cnt);
                                 }
                                 newPoolState.add(
                                         new PoolState(
                                                 txNonceStart,
-                                                totalFee.divide(BigInteger.valueOf(cnt)),
+                                                totalFee / cnt,
                                                 cnt));
 
                                 // next PoolState
@@ -462,25 +514,26 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                         }
                     }
 
-                    if (totalFee.signum() == 1) {
+                    if (totalFee > 0) {
 
                         if (LOG.isTraceEnabled()) {
                             LOG.trace(
                                     "AbstractTxPool.updateAccPoolState case3 - nonce:[{}] totalFee:[{}] cnt:[{}] bw:[{}]",
                                     txNonceStart,
-                                    totalFee.toString(),
+                                    totalFee,
                                     cnt,
-                                    e.getKey().toString());
+                                    addr.toString());
                         }
 
                         newPoolState.add(
                                 new PoolState(
                                         txNonceStart,
-                                        totalFee.divide(BigInteger.valueOf(cnt)),
+                                        totalFee / cnt,
                                         cnt));
                     }
 
-                    this.poolStateView.put(e.getKey(), newPoolState);
+                    this.poolStateView.put(addr, newPoolState);
+                    this.changedPoolStates.add(addr);
 
                     if (LOG.isTraceEnabled()) {
                         this.poolStateView.forEach(
@@ -525,24 +578,30 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
     }
 
     protected void updateFeeMap() {
-        for (Entry<Address, List<PoolState>> e : this.poolStateView.entrySet()) {
+        // only the accounts with new pool states have lists missing from the fee view
+        for (Address addr : drain(this.changedPoolStates)) {
+            List<PoolState> psl = this.poolStateView.get(addr);
+            if (psl == null) {
+                continue;
+            }
+
             ByteArrayWrapper dependTx = null;
-            for (PoolState ps : e.getValue()) {
+            for (PoolState ps : psl) {
 
                 if (LOG.isTraceEnabled()) {
                     LOG.trace(
                             "updateFeeMap addr[{}] inFp[{}] fn[{}] cb[{}] fee[{}]",
-                            e.getKey().toString(),
+                            addr.toString(),
                             ps.isInFeePool(),
                             ps.getFirstNonce().toString(),
                             ps.getCombo(),
-                            ps.getFee().toString());
+                            ps.getFee());
                 }
 
                 if (ps.isInFeePool()) {
                     dependTx =
                             this.accountView
-                                    .get(e.getKey())
+                                    .get(addr)
                                     .getMap()
                                     .get(ps.getFirstNonce())
                                     .getKey();
@@ -558,7 +617,7 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                             i = i.add(BigInteger.ONE)) {
 
                         ByteArrayWrapper bw =
-                                this.accountView.get(e.getKey()).getMap().get(i).getKey();
+                                this.accountView.get(addr).getMap().get(i).getKey();
                         if (i.equals(ps.firstNonce)) {
                             timestamp = this.mainMap.get(bw).getTx().getTimeStampBI();
                         }
@@ -569,13 +628,12 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                     if (!txl.isEmpty()) {
                         txl.setDependTx(dependTx);
                         dependTx = txl.getTxList().get(0);
-                        txl.setAddress(e.getKey());
+                        txl.setAddress(addr);
                         txl.setTimeStamp(timestamp);
                     }
 
                     if (this.feeView.get(ps.fee) == null) {
-                        Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> set =
-                                new LinkedHashMap<>();
+                        FeeBucket set = new FeeBucket();
                         set.put(txl.getTxList().get(0), txl);
 
                         if (LOG.isTraceEnabled()) {
@@ -647,11 +705,11 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
 
     protected class PoolState {
         private final AtomicBoolean inFeePool = new AtomicBoolean(false);
-        private BigInteger fee;
+        private long fee;
         private BigInteger firstNonce;
         private int combo;
 
-        PoolState(BigInteger nonce, BigInteger fee, int combo) {
+        PoolState(BigInteger nonce, long fee, int combo) {
             this.firstNonce = nonce;
             this.combo = combo;
             this.fee = fee;
@@ -662,7 +720,7 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                     && (bi.compareTo(firstNonce.add(BigInteger.valueOf(combo))) < 0);
         }
 
-        public BigInteger getFee() {
+        public long getFee() {
             return fee;
         }
 
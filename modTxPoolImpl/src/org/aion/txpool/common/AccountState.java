@@ -32,12 +32,12 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.base.util.ByteArrayWrapper;
 
 public class AccountState {
-    private final SortedMap<BigInteger, AbstractMap.SimpleEntry<ByteArrayWrapper, BigInteger>>
+    private final SortedMap<BigInteger, AbstractMap.SimpleEntry<ByteArrayWrapper, Long>>
             txMap = Collections.synchronizedSortedMap(new TreeMap<>());
     private final AtomicBoolean dirty = new AtomicBoolean(false);
 
     public void updateMap(
-            Map<BigInteger, AbstractMap.SimpleEntry<ByteArrayWrapper, BigInteger>> map) {
+            Map<BigInteger, AbstractMap.SimpleEntry<ByteArrayWrapper, Long>> map) {
         if (map != null && !map.isEmpty()) {
             txMap.putAll(map);
             setDirty();
@@ -48,7 +48,7 @@ public class AccountState {
         dirty.set(true);
     }
 
-    public SortedMap<BigInteger, AbstractMap.SimpleEntry<ByteArrayWrapper, BigInteger>> getMap() {
+    public SortedMap<BigInteger, AbstractMap.SimpleEntry<ByteArrayWrapper, Long>> getMap() {
         return txMap;
     }
 
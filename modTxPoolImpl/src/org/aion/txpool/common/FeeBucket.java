@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.txpool.common;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import org.aion.base.type.Address;
+import org.aion.base.util.ByteArrayWrapper;
+
+/**
+ * The transaction sequences sharing the same average fee in the pool's fee view.
+ *
+ * <p>The sequences are kept ordered by the timestamp of their first transaction (ties resolved by
+ * insertion order) as they are added, so that a block template can be assembled by walking the
+ * buckets directly instead of sorting each of them on every snapshot.
+ */
+public class FeeBucket {
+
+    private static final Comparator<TxDependList<ByteArrayWrapper>> BY_TIME =
+            Comparator.comparing((TxDependList<ByteArrayWrapper> l) -> l.getTimeStamp())
+                    .thenComparingLong(TxDependList::getSequence);
+
+    private final Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> byFirstTx =
+            new HashMap<>();
+    private final TreeSet<TxDependList<ByteArrayWrapper>> byTime = new TreeSet<>(BY_TIME);
+
+    private long sequence = 0;
+
+    /** Adds the sequence, replacing any previous one starting with the same transaction. */
+    public void put(ByteArrayWrapper firstTx, TxDependList<ByteArrayWrapper> txl) {
+        remove(firstTx);
+        txl.setSequence(sequence++);
+        byFirstTx.put(firstTx, txl);
+        byTime.add(txl);
+    }
+
+    public TxDependList<ByteArrayWrapper> remove(ByteArrayWrapper firstTx) {
+        TxDependList<ByteArrayWrapper> txl = byFirstTx.remove(firstTx);
+        if (txl != null) {
+            byTime.remove(txl);
+        }
+        return txl;
+    }
+
+    /** Removes all the sequences sent from the given account. */
+    public void removeAll(Address address) {
+        Iterator<TxDependList<ByteArrayWrapper>> it = byTime.iterator();
+        while (it.hasNext()) {
+            TxDependList<ByteArrayWrapper> txl = it.next();
+            if (txl.getAddress().equals(address)) {
+                byFirstTx.remove(txl.getTxList().get(0));
+                it.remove();
+            }
+        }
+    }
+
+    /** @return the sequences ordered by the timestamp of their first transaction */
+    public Collection<TxDependList<ByteArrayWrapper>> values() {
+        return Collections.unmodifiableSet(byTime);
+    }
+
+    public boolean isEmpty() {
+        return byFirstTx.isEmpty();
+    }
+
+    public int size() {
+        return byFirstTx.size();
+    }
+}
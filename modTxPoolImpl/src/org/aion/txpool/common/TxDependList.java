@@ -32,6 +32,7 @@ public class TxDependList<BW> {
     private BW dependTx;
     private Address address;
     private BigInteger timeStamp;
+    private long sequence;
 
     public TxDependList() {
         txList = new ArrayList<>();
@@ -77,6 +78,14 @@ public class TxDependList<BW> {
         this.timeStamp = timeStamp;
     }
 
+    long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
     public int compare(TxDependList<BW> td) {
         return timeStamp.compareTo(td.timeStamp);
     }
@@ -29,6 +29,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -36,7 +37,6 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.stream.Collectors;
 import org.aion.base.type.Address;
 import org.aion.base.type.ITransaction;
@@ -45,6 +45,7 @@ import org.aion.base.util.TimeInstant;
 import org.aion.txpool.ITxPool;
 import org.aion.txpool.common.AbstractTxPool;
 import org.aion.txpool.common.AccountState;
+import org.aion.txpool.common.FeeBucket;
 import org.aion.txpool.common.TxDependList;
 import org.spongycastle.pqc.math.linearalgebra.ByteUtils;
 
@@ -125,7 +126,10 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
     public List<BigInteger> getFeeList() {
         List<BigInteger> nl = Collections.synchronizedList(new ArrayList<>());
 
-        this.getFeeView().entrySet().parallelStream().forEach(e -> nl.add(e.getKey()));
+        this.getFeeView()
+                .entrySet()
+                .parallelStream()
+                .forEach(e -> nl.add(BigInteger.valueOf(e.getKey())));
 
         return nl.parallelStream().sorted(Collections.reverseOrder()).collect(Collectors.toList());
     }
@@ -166,7 +170,7 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
                 snapshot();
             }
 
-            AbstractMap.SimpleEntry<ByteArrayWrapper, BigInteger> entry =
+            AbstractMap.SimpleEntry<ByteArrayWrapper, Long> entry =
                     this.getAccView(tx.getFrom()).getMap().get(txNonce);
             if (entry != null) {
                 if (LOG.isTraceEnabled()) {
@@ -190,7 +194,7 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
             setBestNonce(tx.getFrom(), txNonce);
         }
 
-        this.getMainMap().putAll(mainMap);
+        this.addToMainMap(mainMap);
 
         if (LOG.isTraceEnabled()) {
             LOG.trace("new add tx! np[{}] tx[{}]", newPendingTx.size(), txl.size());
@@ -214,11 +218,11 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
         for (Map.Entry<Address, BigInteger> en1 : accNonce.entrySet()) {
             AccountState as = this.getAccView(en1.getKey());
             lock.writeLock().lock();
-            Iterator<Map.Entry<BigInteger, AbstractMap.SimpleEntry<ByteArrayWrapper, BigInteger>>>
+            Iterator<Map.Entry<BigInteger, AbstractMap.SimpleEntry<ByteArrayWrapper, Long>>>
                     it = as.getMap().entrySet().iterator();
 
             while (it.hasNext()) {
-                Map.Entry<BigInteger, AbstractMap.SimpleEntry<ByteArrayWrapper, BigInteger>> en =
+                Map.Entry<BigInteger, AbstractMap.SimpleEntry<ByteArrayWrapper, Long>> en =
                         it.next();
                 if (en1.getValue().compareTo(en.getKey()) > 0) {
                     bwList.add(en.getValue().getKey());
@@ -229,34 +233,22 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
             }
             lock.writeLock().unlock();
 
-            Set<BigInteger> fee = Collections.synchronizedSet(new HashSet<>());
+            Set<Long> fee = new HashSet<>();
             if (this.getPoolStateView(en1.getKey()) != null) {
-                this.getPoolStateView(en1.getKey())
-                        .parallelStream()
-                        .forEach(ps -> fee.add(ps.getFee()));
+                this.getPoolStateView(en1.getKey()).forEach(ps -> fee.add(ps.getFee()));
             }
 
-            fee.parallelStream()
-                    .forEach(
-                            bi -> {
-                                if (this.getFeeView().get(bi) != null) {
-                                    this.getFeeView()
-                                            .get(bi)
-                                            .entrySet()
-                                            .removeIf(
-                                                    byteArrayWrapperTxDependListEntry ->
-                                                            byteArrayWrapperTxDependListEntry
-                                                                    .getValue()
-                                                                    .getAddress()
-                                                                    .equals(en1.getKey()));
-
-                                    if (this.getFeeView().get(bi).isEmpty()) {
-                                        this.getFeeView().remove(bi);
-                                    }
-                                }
-                            });
+            for (Long bi : fee) {
+                FeeBucket bucket = this.getFeeView().get(bi);
+                if (bucket != null) {
+                    bucket.removeAll(en1.getKey());
+                    if (bucket.isEmpty()) {
+                        this.getFeeView().remove(bi);
+                    }
+                }
+            }
 
-            as.setDirty();
+            this.setDirty(en1.getKey());
         }
 
         List<TX> removedTxl = Collections.synchronizedList(new ArrayList<>());
@@ -337,34 +329,22 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
 
             // remove the all transactions belong to the given address in the feeView
             Address address = tx.getFrom();
-            Set<BigInteger> fee = Collections.synchronizedSet(new HashSet<>());
+            Set<Long> fee = new HashSet<>();
             if (!checkedAddress.contains(address)) {
 
                 if (this.getPoolStateView(tx.getFrom()) != null) {
-                    this.getPoolStateView(tx.getFrom())
-                            .parallelStream()
-                            .forEach(ps -> fee.add(ps.getFee()));
+                    this.getPoolStateView(tx.getFrom()).forEach(ps -> fee.add(ps.getFee()));
                 }
 
-                fee.parallelStream()
-                        .forEach(
-                                bi -> {
-                                    if (this.getFeeView().get(bi) != null) {
-                                        this.getFeeView()
-                                                .get(bi)
-                                                .entrySet()
-                                                .removeIf(
-                                                        byteArrayWrapperTxDependListEntry ->
-                                                                byteArrayWrapperTxDependListEntry
-                                                                        .getValue()
-                                                                        .getAddress()
-                                                                        .equals(address));
-
-                                        if (this.getFeeView().get(bi).isEmpty()) {
-                                            this.getFeeView().remove(bi);
-                                        }
-                                    }
-                                });
+                for (Long bi : fee) {
+                    FeeBucket bucket = this.getFeeView().get(bi);
+                    if (bucket != null) {
+                        bucket.removeAll(address);
+                        if (bucket.isEmpty()) {
+                            this.getFeeView().remove(bi);
+                        }
+                    }
+                }
 
                 checkedAddress.add(address);
             }
@@ -375,7 +355,7 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
             as.getMap().remove(tx.getNonceBI());
             lock.writeLock().unlock();
 
-            as.setDirty();
+            this.setDirty(tx.getFrom());
         }
 
         this.updateAccPoolState();
@@ -423,7 +403,7 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
 
         lock.readLock().lock();
         try {
-            AbstractMap.SimpleEntry<ByteArrayWrapper, BigInteger> entry =
+            AbstractMap.SimpleEntry<ByteArrayWrapper, Long> entry =
                     this.getAccView(from).getMap().get(txNonce);
             return (entry == null ? null : this.getMainMap().get(entry.getKey()).getTx());
         } finally {
@@ -439,7 +419,7 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
 
         List<TX> rtn = new ArrayList<>();
         for (Map.Entry<Address, AccountState> as : this.getFullAcc().entrySet()) {
-            for (Map.Entry<ByteArrayWrapper, BigInteger> txMap : as.getValue().getMap().values()) {
+            for (Map.Entry<ByteArrayWrapper, Long> txMap : as.getValue().getMap().values()) {
                 if (this.getMainMap().get(txMap.getKey()) == null) {
                     LOG.error("can't find the tx in the mainMap");
                     continue;
@@ -472,33 +452,20 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
         long cnt_nrg = 0;
         List<TX> rtn = new ArrayList<>();
         Set<ByteArrayWrapper> snapshotSet = new HashSet<>();
-        Map<ByteArrayWrapper, Entry<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>> nonPickedTx =
-                new HashMap<>();
-        for (Entry<BigInteger, Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>> e :
-                this.getFeeView().entrySet()) {
+        Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> nonPickedTx = new HashMap<>();
+        for (Entry<Long, FeeBucket> e : this.getFeeView().entrySet()) {
 
             if (LOG.isTraceEnabled()) {
-                LOG.trace("snapshot  fee[{}]", e.getKey().toString());
-            }
-
-            SortedMap<BigInteger, Entry<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>>
-                    timeTxDep = Collections.synchronizedSortedMap(new TreeMap<>());
-            for (Entry<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> pair :
-                    e.getValue().entrySet()) {
-                BigInteger ts = pair.getValue().getTimeStamp();
-                while (timeTxDep.get(ts.add(BigInteger.ONE)) != null) {
-                    ts = ts.add(BigInteger.ONE);
-                }
-                timeTxDep.put(ts, pair);
+                LOG.trace("snapshot  fee[{}]", e.getKey());
             }
 
-            for (Entry<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> pair :
-                    timeTxDep.values()) {
+            // the bucket is already ordered by the timestamp of the first tx of each list
+            for (TxDependList<ByteArrayWrapper> pair : e.getValue().values()) {
                 // Check the small nonce tx must been picked before put the high nonce tx
-                ByteArrayWrapper dependTx = pair.getValue().getDependTx();
+                ByteArrayWrapper dependTx = pair.getDependTx();
                 if (dependTx == null || snapshotSet.contains(dependTx)) {
                     boolean firstTx = true;
-                    for (ByteArrayWrapper bw : pair.getValue().getTxList()) {
+                    for (ByteArrayWrapper bw : pair.getTxList()) {
                         ITransaction itx = this.getMainMap().get(bw).getTx();
 
                         cnt_txSz += itx.getEncoded().length;
@@ -541,11 +508,10 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
                         }
                     }
 
-                    ByteArrayWrapper ancestor = pair.getKey();
+                    ByteArrayWrapper ancestor = pair.getTxList().get(0);
                     while (nonPickedTx.get(ancestor) != null) {
                         firstTx = true;
-                        for (ByteArrayWrapper bw :
-                                nonPickedTx.get(ancestor).getValue().getTxList()) {
+                        for (ByteArrayWrapper bw : nonPickedTx.get(ancestor).getTxList()) {
                             ITransaction itx = this.getMainMap().get(bw).getTx();
 
                             cnt_txSz += itx.getEncoded().length;
@@ -589,11 +555,11 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
                             }
                         }
 
-                        ancestor = nonPickedTx.get(ancestor).getKey();
+                        ancestor = nonPickedTx.get(ancestor).getTxList().get(0);
                     }
                 } else {
                     // one low fee small nonce tx has been picked,and then search from this map.
-                    nonPickedTx.put(pair.getValue().getDependTx(), pair);
+                    nonPickedTx.put(pair.getDependTx(), pair);
                 }
             }
         }
@@ -620,19 +586,17 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
     private void removeTimeoutTxn() {
 
         long ts = TimeInstant.now().toEpochSec() - txn_timeout;
-        List<TX> txl = Collections.synchronizedList(new ArrayList<>());
-
-        this.getTimeView()
-                .entrySet()
-                .parallelStream()
-                .forEach(
-                        e -> {
-                            if (e.getKey() < ts) {
-                                for (ByteArrayWrapper bw : e.getValue()) {
-                                    txl.add(this.getMainMap().get(bw).getTx());
-                                }
-                            }
-                        });
+        List<TX> txl = new ArrayList<>();
+
+        // only visit the expired part of the time view instead of the whole pool
+        SortedMap<Long, LinkedHashSet<ByteArrayWrapper>> timeView = this.getTimeView();
+        synchronized (timeView) {
+            for (LinkedHashSet<ByteArrayWrapper> hashes : timeView.headMap(ts).values()) {
+                for (ByteArrayWrapper bw : hashes) {
+                    txl.add(this.getMainMap().get(bw).getTx());
+                }
+            }
+        }
 
         if (txl.isEmpty()) {
             return;
@@ -1244,6 +1244,67 @@ public class TxnPoolTest {
         }
     }
 
+    @Test
+    /* 50K new transactions from 10K accounts with different energy prices
+
+      the block template is assembled by walking the fee buckets, which are kept ordered by
+      timestamp as the transactions are added, instead of re-sorting the buckets on every call
+    */ public void benchmarkSnapshot6() {
+        Properties config = new Properties();
+        config.put("tx-timeout", "100");
+
+        TxPoolA0<ITransaction> tp = new TxPoolA0<>(config);
+
+        List<ITransaction> txnl = new ArrayList<>();
+        int cnt = 5;
+        for (int k = 0; k < key2.size(); k++) {
+            ECKey aKey = key2.get(k);
+            Address acc = Address.wrap(aKey.getAddress());
+            for (int i = 0; i < cnt; i++) {
+                ITransaction txn =
+                        new AionTransaction(
+                                BigInteger.valueOf(i).toByteArray(),
+                                acc,
+                                Address.wrap(
+                                        "0000000000000000000000000000000000000000000000000000000000000001"),
+                                ByteUtils.fromHexString("1"),
+                                ByteUtils.fromHexString("1"),
+                                10000L,
+                                1L + (k % 50));
+                ((AionTransaction) txn).sign(aKey);
+                txn.setNrgConsume(100L);
+                txnl.add(txn);
+            }
+        }
+
+        tp.add(txnl);
+        assertTrue(tp.size() == cnt * key2.size());
+
+        // sort the inserted txs
+        long start = System.currentTimeMillis();
+        tp.snapshot();
+        System.out.println("1st time spent: " + (System.currentTimeMillis() - start) + " ms.");
+
+        start = System.currentTimeMillis();
+        List<ITransaction> picked = tp.snapshot();
+        System.out.println("2nd time spent: " + (System.currentTimeMillis() - start) + " ms.");
+
+        assertTrue(!picked.isEmpty());
+
+        // the txs of every account must be picked in nonce order
+        Map<Address, BigInteger> nextNonce = new HashMap<>();
+        long nrgPrice = Long.MAX_VALUE;
+        for (ITransaction tx : picked) {
+            BigInteger expected = nextNonce.getOrDefault(tx.getFrom(), BigInteger.ZERO);
+            assertEquals(expected, tx.getNonceBI());
+            nextNonce.put(tx.getFrom(), expected.add(BigInteger.ONE));
+
+            // and the higher fee accounts before the lower fee ones
+            assertTrue(tx.getNrgPrice() <= nrgPrice);
+            nrgPrice = tx.getNrgPrice();
+        }
+    }
+
     @Test
     public void testSnapshotAll() {
         ECKeyFac.setType(ECKeyFac.ECKeyType.ED25519);
@@ -47,6 +47,7 @@ public abstract class AbstractExecutor {
     protected IExecutionResult exeResult;
     private long blockRemainingNrg;
     private boolean askNonce = true;
+    private boolean isConcurrent = false;
 
     public AbstractExecutor(
             IRepository _repo, boolean _localCall, long _blkRemainingNrg, Logger _logger) {
@@ -58,39 +59,46 @@ public abstract class AbstractExecutor {
     }
 
     protected ITxExecSummary execute(ITransaction tx, long contextNrgLmit) {
+        if (isConcurrent) {
+            return executeUnlocked(tx, contextNrgLmit);
+        }
         synchronized (lock) {
-            // prepare, preliminary check
-            if (prepare(tx, contextNrgLmit)) {
-
-                if (!isLocalCall) {
-                    IRepositoryCache track = repo.startTracking();
-                    // increase nonce
-                    if (askNonce) {
-                        track.incrementNonce(tx.getFrom());
-                    }
-
-                    // charge nrg cost
-                    // Note: if the tx is a inpool tx, it will temp charge more balance for the
-                    // account
-                    // once the block info been updated. the balance in pendingPool will correct.
-                    BigInteger nrgLimit = BigInteger.valueOf(tx.getNrg());
-                    BigInteger nrgPrice = BigInteger.valueOf(tx.getNrgPrice());
-                    BigInteger txNrgCost = nrgLimit.multiply(nrgPrice);
-                    track.addBalance(tx.getFrom(), txNrgCost.negate());
-                    track.flush();
-                }
+            return executeUnlocked(tx, contextNrgLmit);
+        }
+    }
+
+    private ITxExecSummary executeUnlocked(ITransaction tx, long contextNrgLmit) {
+        // prepare, preliminary check
+        if (prepare(tx, contextNrgLmit)) {
 
-                // run the logic
-                if (tx.isContractCreation()) {
-                    create();
-                } else {
-                    call();
+            if (!isLocalCall) {
+                IRepositoryCache track = repo.startTracking();
+                // increase nonce
+                if (askNonce) {
+                    track.incrementNonce(tx.getFrom());
                 }
+
+                // charge nrg cost
+                // Note: if the tx is a inpool tx, it will temp charge more balance for the
+                // account
+                // once the block info been updated. the balance in pendingPool will correct.
+                BigInteger nrgLimit = BigInteger.valueOf(tx.getNrg());
+                BigInteger nrgPrice = BigInteger.valueOf(tx.getNrgPrice());
+                BigInteger txNrgCost = nrgLimit.multiply(nrgPrice);
+                track.addBalance(tx.getFrom(), txNrgCost.negate());
+                track.flush();
             }
 
-            // finalize
-            return finish();
+            // run the logic
+            if (tx.isContractCreation()) {
+                create();
+            } else {
+                call();
+            }
         }
+
+        // finalize
+        return finish();
     }
 
     /**
@@ -171,6 +179,15 @@ public abstract class AbstractExecutor {
         this.askNonce = false;
     }
 
+    /**
+     * Tells the executor that it runs concurrently with other executors on independent repository
+     * caches, so that it does not serialize on the global execution lock. Running virtual machine
+     * or precompiled contract code remains serialized.
+     */
+    public void setConcurrent() {
+        this.isConcurrent = true;
+    }
+
     /**
      * Returns the energy remaining after the transaction was executed. Prior to execution this
      * method simply returns the energy limit for the transaction.